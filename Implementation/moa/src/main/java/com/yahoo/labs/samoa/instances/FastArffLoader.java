@@ -0,0 +1,594 @@
+/*
+ *    FastArffLoader.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.yahoo.labs.samoa.instances;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads an ARFF file straight from its bytes.<br/>
+ * The header is handed to ArffLoader, so the attributes are the same as with
+ * Instances(Reader, int, int). The data lines are then read through a
+ * FileChannel into a byte buffer and split by hand: numbers are parsed without
+ * building a String, and nominal labels are looked up by their bytes in a
+ * table that falls back to Attribute.indexOfValue() for labels not seen yet.
+ * <br/>
+ * Values are delimited as by the tokenizer of ArffLoader: by whitespace,
+ * commas, braces, quotes and % comments. Unlike ArffLoader, values in single
+ * quotes are read like those in double quotes, and ? is a missing value in
+ * sparse lines too. The file must be in an ASCII compatible charset.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class FastArffLoader implements Closeable {
+
+    protected static final int TT_EOL = -1;
+
+    protected static final int TT_WORD = -2;
+
+    protected static final int TT_QUOTED = -3;
+
+    /** the powers of ten that are exact doubles. */
+    protected static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    protected final FileChannel channel;
+
+    protected final long fileSize;
+
+    protected final Charset charset;
+
+    protected final Instances dataset;
+
+    protected final int numAttributes;
+
+    /** the labels of each attribute that is not numeric. */
+    protected final LabelTable[] labels;
+
+    protected byte[] buffer = new byte[1 << 16];
+
+    /** the file offset of the first byte in the buffer. */
+    protected long bufferOffset;
+
+    /** the bytes read into the buffer. */
+    protected int limit;
+
+    protected boolean endOfFile;
+
+    /** the current line, position to lineEnd, and the next token in it. */
+    protected int position;
+
+    protected int lineEnd;
+
+    protected int cursor;
+
+    protected int tokenStart;
+
+    protected int tokenEnd;
+
+    /** the value of a quoted token with escapes in it, null otherwise. */
+    protected String escapedToken;
+
+    protected int[] sparseIndices = new int[16];
+
+    protected double[] sparseValues = new double[16];
+
+    /**
+     * Opens the file and reads its header.
+     *
+     * @param file the ARFF file
+     * @param classAttribute the class attribute as for ArffLoader, that is
+     * 0 for none, -1 for the last or the index counting from 1
+     */
+    public FastArffLoader(File file, int classAttribute) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = this.channel.size();
+        this.charset = Charset.defaultCharset();
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        while (this.nextLine()) {
+            boolean isDataLine = this.isDataLine();
+            header.write(this.buffer, this.position, this.lineEnd - this.position);
+            header.write('\n');
+            this.endLine();
+            if (isDataLine) {
+                break;
+            }
+        }
+        this.dataset = new Instances(new InputStreamReader(
+                new ByteArrayInputStream(header.toByteArray()), this.charset),
+                1, classAttribute);
+        this.numAttributes = this.dataset.numAttributes();
+        this.labels = new LabelTable[this.numAttributes];
+        for (int i = 0; i < this.numAttributes; i++) {
+            if (!this.dataset.attribute(i).isNumeric()) {
+                this.labels[i] = new LabelTable();
+            }
+        }
+    }
+
+    /**
+     * Gets the header of the file, which the instances read are set to.
+     *
+     * @return the instances
+     */
+    public Instances getDataset() {
+        return this.dataset;
+    }
+
+    /**
+     * Reads the next instance, with dense or sparse data as it is in the
+     * file, as the copy Instances.readInstance() keeps.
+     *
+     * @return the instance, or null at the end of the file
+     */
+    public Instance readInstance() throws IOException {
+        while (this.nextLine()) {
+            Instance instance = null;
+            this.cursor = this.position;
+            int type = this.nextToken();
+            if (type == '{') {
+                int count = this.readSparse();
+                instance = new InstanceImpl(1.0, Arrays.copyOf(this.sparseValues, count),
+                        Arrays.copyOf(this.sparseIndices, count), this.numAttributes);
+            } else if (type != TT_EOL) {
+                double[] values = new double[this.numAttributes];
+                if (this.readDense(values, type) > 0) {
+                    instance = new InstanceImpl(1.0, values);
+                }
+            }
+            this.endLine();
+            if (instance != null) {
+                instance.setDataset(this.dataset);
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the values of the next instance into a row, filling in the
+     * values a sparse line leaves out with 0.
+     *
+     * @param row the row to fill, with at least one entry per attribute
+     * @return false at the end of the file
+     */
+    public boolean readRow(double[] row) throws IOException {
+        while (this.nextLine()) {
+            boolean read = false;
+            this.cursor = this.position;
+            int type = this.nextToken();
+            if (type == '{') {
+                int count = this.readSparse();
+                Arrays.fill(row, 0, this.numAttributes, 0.0);
+                for (int j = 0; j < count; j++) {
+                    row[this.sparseIndices[j]] = this.sparseValues[j];
+                }
+                read = true;
+            } else if (type != TT_EOL) {
+                read = this.readDense(row, type) > 0;
+            }
+            this.endLine();
+            if (read) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the fraction of the file read so far.
+     *
+     * @return the fraction
+     */
+    public double getProgressFraction() {
+        return this.fileSize > 0 ? (double) (this.bufferOffset + this.position) / this.fileSize : 1.0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    protected int readDense(double[] row, int type) throws IOException {
+        int count = 0;
+        for (; type != TT_EOL; type = this.nextToken()) {
+            if (type == '{' || type == '}') {
+                continue;
+            }
+            if (count == this.numAttributes) {
+                throw new IOException("A line of " + this.dataset.getRelationName()
+                        + " has more than " + this.numAttributes + " values.");
+            }
+            row[count] = this.tokenValue(count);
+            count++;
+        }
+        if (count > 0) {
+            Arrays.fill(row, count, this.numAttributes, 0.0);
+        }
+        return count;
+    }
+
+    /*
+     * Reads the index and value pairs up to the closing brace into
+     * sparseIndices and sparseValues and returns their number.
+     */
+    protected int readSparse() throws IOException {
+        int count = 0;
+        for (int type = this.nextToken(); type == TT_WORD || type == TT_QUOTED; type = this.nextToken()) {
+            int index = this.tokenIndex();
+            if (index < 0 || index >= this.numAttributes) {
+                throw new IOException("Attribute index " + index + " out of range in a sparse line of "
+                        + this.dataset.getRelationName() + ".");
+            }
+            type = this.nextToken();
+            if (type != TT_WORD && type != TT_QUOTED) {
+                throw new IOException("No value for attribute index " + index + " in a sparse line of "
+                        + this.dataset.getRelationName() + ".");
+            }
+            if (count == this.sparseIndices.length) {
+                this.sparseIndices = Arrays.copyOf(this.sparseIndices, 2 * count);
+                this.sparseValues = Arrays.copyOf(this.sparseValues, 2 * count);
+            }
+            this.sparseIndices[count] = index;
+            this.sparseValues[count] = this.tokenValue(index);
+            count++;
+        }
+        return count;
+    }
+
+    protected double tokenValue(int attribute) {
+        if (this.escapedToken != null) {
+            if ("?".equals(this.escapedToken)) {
+                return Double.NaN;
+            }
+            if (this.labels[attribute] != null) {
+                return this.dataset.attribute(attribute).indexOfValue(this.escapedToken);
+            }
+            return Double.valueOf(this.escapedToken);
+        }
+        if (this.tokenEnd - this.tokenStart == 1 && this.buffer[this.tokenStart] == '?') {
+            return Double.NaN;
+        }
+        LabelTable table = this.labels[attribute];
+        if (table == null) {
+            return parseNumber(this.buffer, this.tokenStart, this.tokenEnd);
+        }
+        int index = table.get(this.buffer, this.tokenStart, this.tokenEnd);
+        if (index == LabelTable.ABSENT) {
+            index = this.dataset.attribute(attribute).indexOfValue(this.tokenString());
+            table.put(this.buffer, this.tokenStart, this.tokenEnd, index);
+        }
+        return index;
+    }
+
+    protected int tokenIndex() {
+        if (this.escapedToken == null && this.tokenEnd > this.tokenStart
+                && this.tokenEnd - this.tokenStart < 10) {
+            int index = 0;
+            int i = this.tokenStart;
+            while (i < this.tokenEnd && this.buffer[i] >= '0' && this.buffer[i] <= '9') {
+                index = 10 * index + this.buffer[i++] - '0';
+            }
+            if (i == this.tokenEnd) {
+                return index;
+            }
+        }
+        return Integer.parseInt(this.tokenString());
+    }
+
+    protected String tokenString() {
+        if (this.escapedToken != null) {
+            return this.escapedToken;
+        }
+        return new String(this.buffer, this.tokenStart, this.tokenEnd - this.tokenStart, this.charset);
+    }
+
+    /**
+     * Parses a number as Double.valueOf() does. Decimals with at most 18
+     * significant digits whose mantissa and power of ten are both exact
+     * doubles need a single rounded multiplication or division; the rest are
+     * left to Double.parseDouble().
+     *
+     * @param bytes the bytes of the number
+     * @param from the first byte
+     * @param to the end of the number
+     * @return the number
+     */
+    public static double parseNumber(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+        boolean fraction = false;
+        for (; i < to; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (mantissa != 0 || b != '0') {
+                    if (++digits > 18) {
+                        return slowParseNumber(bytes, from, to);
+                    }
+                    mantissa = 10 * mantissa + (b - '0');
+                }
+                if (fraction) {
+                    exponent--;
+                }
+                hasDigits = true;
+            } else if (b == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!hasDigits) {
+            return slowParseNumber(bytes, from, to);
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < to && bytes[i] >= '0' && bytes[i] <= '9' && i - start < 6; i++) {
+                value = 10 * value + (bytes[i] - '0');
+            }
+            if (i == start) {
+                return slowParseNumber(bytes, from, to);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != to) {
+            return slowParseNumber(bytes, from, to);
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (mantissa > (1L << 53) || exponent < -22 || exponent > 22) {
+            return slowParseNumber(bytes, from, to);
+        } else if (exponent >= 0) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    protected static double slowParseNumber(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, Charset.forName("ISO-8859-1")));
+    }
+
+    /*
+     * Moves to the next token of the line and returns its type: TT_EOL at the
+     * end of the line or at a comment, '{' or '}', or TT_WORD or TT_QUOTED
+     * with the token between tokenStart and tokenEnd.
+     */
+    protected int nextToken() {
+        byte[] bytes = this.buffer;
+        int i = this.cursor;
+        int end = this.lineEnd;
+        this.escapedToken = null;
+        while (i < end && isSeparator(bytes[i])) {
+            i++;
+        }
+        if (i == end || bytes[i] == '%') {
+            this.cursor = end;
+            return TT_EOL;
+        }
+        byte first = bytes[i];
+        if (first == '{' || first == '}') {
+            this.cursor = i + 1;
+            return first;
+        }
+        if (first == '"' || first == '\'') {
+            int start = ++i;
+            boolean escaped = false;
+            while (i < end && bytes[i] != first) {
+                if (bytes[i] == '\\') {
+                    escaped = true;
+                    i++;
+                }
+                i++;
+            }
+            this.tokenStart = start;
+            this.tokenEnd = Math.min(i, end);
+            this.cursor = Math.min(i + 1, end);
+            if (escaped) {
+                this.escapedToken = this.unescape(start - 1, this.cursor);
+            }
+            return TT_QUOTED;
+        }
+        this.tokenStart = i;
+        while (i < end && isWordByte(bytes[i])) {
+            i++;
+        }
+        this.tokenEnd = i;
+        this.cursor = i;
+        return TT_WORD;
+    }
+
+    /*
+     * Reads a quoted token with escapes in it the way ArffLoader does.
+     */
+    protected String unescape(int from, int to) {
+        StreamTokenizer tokenizer = new StreamTokenizer(new StringReader(
+                new String(this.buffer, from, to - from, this.charset)));
+        tokenizer.resetSyntax();
+        tokenizer.quoteChar(this.buffer[from]);
+        try {
+            tokenizer.nextToken();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return tokenizer.sval;
+    }
+
+    protected static boolean isSeparator(byte b) {
+        return (b & 0xFF) <= ' ' || b == ',';
+    }
+
+    protected static boolean isWordByte(byte b) {
+        return !isSeparator(b) && b != '%' && b != '{' && b != '}' && b != '"' && b != '\'';
+    }
+
+    protected boolean isDataLine() {
+        int i = this.position;
+        while (i < this.lineEnd && isSeparator(this.buffer[i])) {
+            i++;
+        }
+        if (this.lineEnd - i < 5 || this.buffer[i] != '@') {
+            return false;
+        }
+        return new String(this.buffer, i + 1, 4, this.charset).equalsIgnoreCase("data");
+    }
+
+    /*
+     * Finds the end of the next line, reading more of the file into the
+     * buffer as needed. Returns false at the end of the file.
+     */
+    protected boolean nextLine() throws IOException {
+        int end = this.position;
+        while (true) {
+            while (end < this.limit) {
+                byte b = this.buffer[end];
+                if (b == '\n' || b == '\r') {
+                    this.lineEnd = end;
+                    return true;
+                }
+                end++;
+            }
+            if (this.endOfFile) {
+                this.lineEnd = this.limit;
+                return this.position < this.limit;
+            }
+            int scanned = end - this.position;
+            this.fill();
+            end = this.position + scanned;
+        }
+    }
+
+    protected void endLine() {
+        this.position = this.lineEnd < this.limit ? this.lineEnd + 1 : this.lineEnd;
+    }
+
+    protected void fill() throws IOException {
+        if (this.position > 0) {
+            System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+            this.bufferOffset += this.position;
+            this.limit -= this.position;
+            this.position = 0;
+        }
+        if (this.limit == this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, 2 * this.buffer.length);
+        }
+        int read = this.channel.read(ByteBuffer.wrap(this.buffer, this.limit, this.buffer.length - this.limit));
+        if (read < 0) {
+            this.endOfFile = true;
+        } else {
+            this.limit += read;
+        }
+    }
+
+    /**
+     * Open addressing table from the bytes of a label to its index.
+     */
+    protected static class LabelTable {
+
+        protected static final int ABSENT = Integer.MIN_VALUE;
+
+        protected byte[][] keys = new byte[16][];
+
+        protected int[] values = new int[16];
+
+        protected int size;
+
+        protected int get(byte[] bytes, int from, int to) {
+            int mask = this.keys.length - 1;
+            for (int slot = hash(bytes, from, to) & mask; this.keys[slot] != null; slot = (slot + 1) & mask) {
+                if (equals(this.keys[slot], bytes, from, to)) {
+                    return this.values[slot];
+                }
+            }
+            return ABSENT;
+        }
+
+        protected void put(byte[] bytes, int from, int to, int value) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                byte[][] oldKeys = this.keys;
+                int[] oldValues = this.values;
+                this.keys = new byte[2 * oldKeys.length][];
+                this.values = new int[2 * oldKeys.length];
+                this.size = 0;
+                for (int slot = 0; slot < oldKeys.length; slot++) {
+                    if (oldKeys[slot] != null) {
+                        this.put(oldKeys[slot], 0, oldKeys[slot].length, oldValues[slot]);
+                    }
+                }
+            }
+            int mask = this.keys.length - 1;
+            int slot = hash(bytes, from, to) & mask;
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.keys[slot] = Arrays.copyOfRange(bytes, from, to);
+            this.values[slot] = value;
+            this.size++;
+        }
+
+        protected static int hash(byte[] bytes, int from, int to) {
+            int hash = 1;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        protected static boolean equals(byte[] key, byte[] bytes, int from, int to) {
+            if (key.length != to - from) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package moa;
 
+import moa.core.ByteSizeAccountable;
 import moa.core.SerializeUtils;
 import moa.core.SizeOf;
 
@@ -76,4 +77,19 @@ public abstract class AbstractMOAObject implements MOAObject {
     public static int measureByteSize(MOAObject obj) {
         return (int) SizeOf.fullSizeOf(obj);
     }
+
+    /**
+     * Gets the memory size of an object from its own account if it keeps one,
+     * or else measures it. An account is cheap enough to be taken at every
+     * sample of an evaluation, but may lag behind the exact size.
+     *
+     * @param obj object to measure the memory size
+     * @return the memory size of this object
+     */
+    public static long accountedByteSize(MOAObject obj) {
+        if (obj instanceof ByteSizeAccountable) {
+            return ((ByteSizeAccountable) obj).accountedByteSize();
+        }
+        return obj.measureByteSize();
+    }
 }
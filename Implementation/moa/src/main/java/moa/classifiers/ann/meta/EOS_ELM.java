@@ -14,13 +14,11 @@ import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.ann.OS_ELM;
 import moa.core.Measurement;
+import moa.core.Parallelism;
 import moa.options.ClassOption;
 
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -36,13 +34,14 @@ public class EOS_ELM extends AbstractClassifier implements MultiClassClassifier
             "The number of threads to use for calculations", 4);
 
     public IntOption instanceLimit = new IntOption("instanceLimit", 'l',
-            "The number of instances after which parallel executioner is disposed", 200000);
+            "The number of instances after which the ensemble stops using parallel jobs", 200000);
 
     private List<OS_ELM> ensemble = null;
 
     private int instanceCount, initialBatchSize;
 
-    private ExecutorService executor;
+    // Jobs on the shared pool, down to 1 once instanceLimit is reached.
+    private int numberOfJobs;
 
     @Override
     public String getPurposeString() {
@@ -56,12 +55,11 @@ public class EOS_ELM extends AbstractClassifier implements MultiClassClassifier
         double[] output = new double[numClasses];
         try
         {
-            List<Future<double[]>> ensembleVotes = executor.invokeAll(ensemble.stream()
+            List<double[]> ensembleVotes = Parallelism.invokeAll(ensemble.stream()
                     .<Callable<double[]>>map(elm -> ()-> elm.getVotesForInstance(instance))
-                    .collect(Collectors.toList()));
-            for(Future<double[]> elmVote: ensembleVotes)
+                    .collect(Collectors.toList()), numberOfJobs);
+            for(double[] votes: ensembleVotes)
             {
-                double[] votes = elmVote.get();
                 for(int j = 0; j < votes.length; ++j) output[j] += votes[j];
             }
             for(int i = 0; i < numClasses; ++i) output[i] /= ensembleSize.getValue();
@@ -76,7 +74,7 @@ public class EOS_ELM extends AbstractClassifier implements MultiClassClassifier
         os_elm.resetLearning();
         instanceCount = 0;
         initialBatchSize = os_elm.initialBatchSize.getValue();
-        executor = Executors.newFixedThreadPool(threadCount.getValue());
+        numberOfJobs = threadCount.getValue();
         ensemble = IntStream.range(0, ensembleSize.getValue())
             .mapToObj(i -> (OS_ELM)os_elm.copy())
             .collect(Collectors.toList());
@@ -86,15 +84,15 @@ public class EOS_ELM extends AbstractClassifier implements MultiClassClassifier
     public void trainOnInstanceImpl(Instance instance) {
         try
         {
-            executor.invokeAll(ensemble.stream()
+            Parallelism.invokeAll(ensemble.stream()
                     .<Callable<Void>>map(elm-> ()->{elm.trainOnInstance(instance); return null;})
-                    .collect(Collectors.toList()));
+                    .collect(Collectors.toList()), numberOfJobs);
         }
         catch(Exception e){}
 
         if(++instanceCount == instanceLimit.getValue())
         {
-            executor.shutdown();
+            numberOfJobs = 1;
         }
     }
 
@@ -0,0 +1,166 @@
+package moa.classifiers.core.diversitytest;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.Classifier;
+
+/**
+ * Cache of which instances of a test set a classifier classifies correctly,
+ * for pairwise diversity measures such as the Q-statistic.
+ *
+ * <p>Entries are keyed by a state stamp of the classifier and a state stamp of
+ * the test set. The caller gives a classifier or a test set a new stamp
+ * whenever it changes, so stale entries are never hit again and simply age
+ * out of the least recently used cache. Entries of unchanged classifiers and
+ * test sets are reused across searches.</p>
+ */
+public class DiversityIndex implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected static class Key implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		protected final long classifierState;
+		protected final long testSetState;
+
+		protected Key(long classifierState, long testSetState) {
+			this.classifierState = classifierState;
+			this.testSetState = testSetState;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.classifierState == other.classifierState && this.testSetState == other.testSetState;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.classifierState * 31 + this.testSetState);
+		}
+	}
+
+	protected final int capacity;
+
+	protected LinkedHashMap<Key, long[]> correctness;
+
+	/**
+	 * @param capacity the maximum number of cached bit vectors
+	 */
+	public DiversityIndex(final int capacity) {
+		this.capacity = capacity;
+		this.correctness = new LinkedHashMap<Key, long[]>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, long[]> eldest) {
+				return this.size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * Gets the correctness of a classifier on a test set as a bit vector, bit j
+	 * set if the j-th instance is correctly classified. The test set is only
+	 * asked for on a cache miss.
+	 *
+	 * @param classifierState the state stamp of the classifier
+	 * @param testSetState the state stamp of the test set
+	 * @param classifier the classifier
+	 * @param testSet supplies the test set
+	 * @return the bit vector, which must not be modified
+	 */
+	public long[] getCorrectness(long classifierState, long testSetState, Classifier classifier, Supplier<List<Instance>> testSet) {
+		Key key = new Key(classifierState, testSetState);
+		long[] bits = this.correctness.get(key);
+		if (bits == null) {
+			List<Instance> instances = testSet.get();
+			bits = new long[(instances.size() + 63) >>> 6];
+			for (int j = 0; j < instances.size(); ++j) {
+				if (classifier.correctlyClassifies(instances.get(j))) {
+					bits[j >>> 6] |= 1L << j;
+				}
+			}
+			this.correctness.put(key, bits);
+		}
+		return bits;
+	}
+
+	public int size() {
+		return this.correctness.size();
+	}
+
+	public void clear() {
+		this.correctness.clear();
+	}
+
+	/**
+	 * Adds the 2x2 table of two classifiers on a sample of a test set to
+	 * table, as {tt, tf, ft, ff} where t is correct and f is wrong. The sample
+	 * takes the j-th test instance counts[j] times. The part every instance has
+	 * in common is counted with popcounts, only the remainder one by one.
+	 *
+	 * @param a the correctness of the first classifier on the test set
+	 * @param b the correctness of the second classifier on the test set
+	 * @param counts the multiplicity of each test instance in the sample
+	 * @param table the table to add to, of length 4
+	 */
+	public static void addToTable(long[] a, long[] b, int[] counts, double[] table) {
+		int numInstances = counts.length;
+		if (numInstances == 0) {
+			return;
+		}
+
+		int base = Integer.MAX_VALUE;
+		for (int count : counts) {
+			base = Math.min(base, count);
+		}
+
+		if (base > 0) {
+			long tt = 0, tf = 0, ft = 0, ff = 0;
+			for (int w = 0; w < a.length; ++w) {
+				int bitsInWord = Math.min(64, numInstances - (w << 6));
+				long mask = bitsInWord == 64 ? -1L : (1L << bitsInWord) - 1;
+				tt += Long.bitCount(a[w] & b[w]);
+				tf += Long.bitCount(a[w] & ~b[w] & mask);
+				ft += Long.bitCount(~a[w] & b[w] & mask);
+				ff += Long.bitCount(~a[w] & ~b[w] & mask);
+			}
+			table[0] += tt * (double) base;
+			table[1] += tf * (double) base;
+			table[2] += ft * (double) base;
+			table[3] += ff * (double) base;
+		}
+
+		for (int j = 0; j < numInstances; ++j) {
+			int remainder = counts[j] - base;
+			if (remainder > 0) {
+				boolean aCorrect = (a[j >>> 6] & (1L << j)) != 0L;
+				boolean bCorrect = (b[j >>> 6] & (1L << j)) != 0L;
+				table[aCorrect ? (bCorrect ? 0 : 1) : (bCorrect ? 2 : 3)] += remainder;
+			}
+		}
+	}
+
+	/**
+	 * Q-statistic of a table filled by addToTable.
+	 *
+	 * @param table {tt, tf, ft, ff}
+	 * @return the Q-statistic, NaN if undefined
+	 */
+	public static double getQScore(double[] table) {
+		return QStatistics.getQScore(table[0], table[1], table[2], table[3]);
+	}
+}
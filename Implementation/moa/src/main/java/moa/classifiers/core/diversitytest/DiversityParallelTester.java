@@ -1,29 +1,38 @@
 package moa.classifiers.core.diversitytest;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
 import com.yahoo.labs.samoa.instances.Instance;
 
 import moa.classifiers.Classifier;
+import moa.core.Parallelism;
 
 public class DiversityParallelTester {
 	private List<Instance> testChunck;
 	private List<Classifier> classifierPool;
 	private DiversityTest diversityTestType;
+	private ForkJoinPool threadPool;
 
 	public DiversityParallelTester(List<Instance> chunk, List<Classifier> pool, DiversityTest diversityTestType) {
+		this(chunk, pool, diversityTestType, Parallelism.getPool());
+	}
+	
+	/**
+	 * @param threadPool the long-lived pool to run the predictions and the tests on; it is not shut down
+	 */
+	public DiversityParallelTester(List<Instance> chunk, List<Classifier> pool, DiversityTest diversityTestType, ForkJoinPool threadPool) {
 		/**
 		 * Copying instead of getting the reference to avoid affecting the actual pool and chunk.
 		 */
 		this.testChunck = new ArrayList<Instance>(chunk);
 		this.classifierPool = new ArrayList<Classifier>(pool);
 		this.diversityTestType = (DiversityTest) diversityTestType.copy();
+		this.threadPool = threadPool;
 	}
 	
 	public Classifier getSuggestedDeletion() {
@@ -41,50 +50,65 @@ public class DiversityParallelTester {
 	
 	private int performTest() {
 		int to_return = -1;
-		ExecutorService threadPool = Executors.newCachedThreadPool();
-		Map<Integer, Future<Double>> results = new HashMap<>();
-		for (int i = 0; i < this.classifierPool.size(); ++i) {
-			List<Classifier> testingPool = new ArrayList<Classifier>(this.classifierPool);
-			testingPool.remove(i);
-			DiversityTest test = (DiversityTest) diversityTestType.copy();
-			test.set(this.testChunck, testingPool);
-			results.put(i, threadPool.submit(test));
-		}
 		int index = 0;
 		double bestScore = 0;
 		try {
-			for (int i = 0 ; i < this.classifierPool.size(); ++i) {
-				Future<Double> f = results.get(i);
+			// Already on the pool, the parallel streams fork from this thread.
+			double[] scores = ForkJoinTask.getPool() == this.threadPool
+					? getLeaveOneOutScores()
+					: this.threadPool.submit(this::getLeaveOneOutScores).get();
+			for (int i = 0 ; i < scores.length; ++i) {
 				if (this.diversityTestType.morePositiveMoreDiverse()) {
-					if (f.get() > bestScore) {
+					if (scores[i] > bestScore) {
 						index = i;
-						bestScore = f.get();
+						bestScore = scores[i];
 					}
 				} else {
 					if (i == 0) {
-						bestScore = f.get();
-					} else if (f.get() < bestScore && i > 0) {
+						bestScore = scores[i];
+					} else if (scores[i] < bestScore && i > 0) {
 						index = i;
-						bestScore = f.get();
+						bestScore = scores[i];
 					} else {
 						/**
 						 * Do nothing.
 						 */
 					}
 				}
-//				System.out.println("if remove the " + i + "-th classifier | marks: " + f.get() + " | is currently the best score? " + (bestScore == f.get() ? "Yes" : "No") + " | morePositiveMoreDiverse: " + this.diversityTestType.morePositiveMoreDiverse());
+//				System.out.println("if remove the " + i + "-th classifier | marks: " + scores[i] + " | is currently the best score? " + (bestScore == scores[i] ? "Yes" : "No") + " | morePositiveMoreDiverse: " + this.diversityTestType.morePositiveMoreDiverse());
 			}
 		} catch (InterruptedException e) {
             System.out.println("Processing interrupted.");
         } catch (ExecutionException e) {
             throw new RuntimeException("Error computing diversity test.", e);
         }
-		threadPool.shutdownNow();
 //		if (bestScore > currentScore) {
 		to_return = index;
 //		System.out.println("Remove suggestion index: " + to_return);
 //		}
 		return to_return;
 	}
+	
+	/**
+	 * Scores the pool without the i-th classifier, for every i. Each classifier
+	 * predicts the chunk once, into a prediction matrix that all the tests share.
+	 * The matrix is filled on the shared pool, and the tests run as a parallel
+	 * stream on the pool this is submitted to.
+	 * 
+	 * @return the leave-one-out scores
+	 */
+	protected double[] getLeaveOneOutScores() {
+		PredictionMatrix predictions = PredictionMatrix.build(this.classifierPool, this.testChunck, Parallelism.getParallelism());
+		int poolSize = this.classifierPool.size();
+		return IntStream.range(0, poolSize).parallel().mapToDouble(i -> {
+			int[] rows = new int[poolSize - 1];
+			for (int row = 0, k = 0; row < poolSize; ++row) {
+				if (row != i) {
+					rows[k++] = row;
+				}
+			}
+			return this.diversityTestType.getScore(predictions, rows);
+		}).toArray();
+	}
 
 }
\ No newline at end of file
@@ -10,4 +10,15 @@ import moa.options.OptionHandler;
 public interface DiversityTest extends OptionHandler, Callable<Double> {
 	public void set(List<Instance> testChunk, List<Classifier> targetPool);
 	public boolean morePositiveMoreDiverse();
+	
+	/**
+	 * Scores the pool made of the classifiers of the given rows, in that order,
+	 * from their predictions alone. Gives the same value as call() after set()
+	 * with the chunk of the matrix and those classifiers.
+	 * 
+	 * @param predictions the prediction matrix of a pool on a test chunk
+	 * @param rows the rows of the classifiers to score together
+	 * @return the score of the pool
+	 */
+	public double getScore(PredictionMatrix predictions, int[] rows);
 }
@@ -56,6 +56,20 @@ public class EntropyMeasure extends AbstractOptionHandler implements DiversityTe
 		}
 		return entropySum / this.testChunk.size();
 	}
+	
+	@Override
+	public double getScore(PredictionMatrix predictions, int[] rows) {
+		int[] correctCounts = new int[predictions.numColumns()];
+		for (int row : rows) {
+			predictions.addRowTo(row, correctCounts);
+		}
+		double entropySum = 0.0;
+		for (int correctCount : correctCounts) {
+			double correctSum = correctCount;
+			entropySum += Math.min(correctSum, rows.length - correctSum) / (rows.length - Math.ceil((rows.length - 2)));
+		}
+		return entropySum / predictions.numColumns();
+	}
 
 	@Override
 	public void set(List<Instance> testChunk, List<Classifier> targetPool) {
@@ -0,0 +1,333 @@
+package moa.classifiers.core.diversitytest;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.Classifier;
+import moa.core.Parallelism;
+
+/**
+ * Dense bit matrix of which classifier correctly classifies which instance.
+ * Row i belongs to the i-th classifier and column j to the j-th instance of
+ * the test chunk. Rows are packed into 64-bit words, so comparing two
+ * classifiers costs a few popcounts instead of re-running predictions.
+ */
+public class PredictionMatrix implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected int numRows;
+	protected int numColumns;
+	protected int wordsPerRow;
+
+	// Row-major, wordsPerRow words per row; the padding bits of a row are always 0.
+	protected long[] bits;
+
+	public PredictionMatrix(int numRows, int numColumns) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.wordsPerRow = (numColumns + 63) >>> 6;
+		this.bits = new long[numRows * this.wordsPerRow];
+	}
+
+	/**
+	 * Builds the matrix of the given classifiers on the given chunk, each
+	 * classifier predicting on its own.
+	 *
+	 * @param classifiers the classifiers, one per row
+	 * @param chunk the instances, one per column
+	 * @param numberOfJobs the maximum number of rows filled at once
+	 * @return the filled matrix
+	 * @see #build(List, List, int, Function)
+	 */
+	public static PredictionMatrix build(List<? extends Classifier> classifiers, List<Instance> chunk, int numberOfJobs) {
+		return build(classifiers, chunk, numberOfJobs, classifier -> classifier);
+	}
+
+	/**
+	 * Builds the matrix of the given classifiers on the given chunk, on the
+	 * shared pool. Predicting may modify a classifier, e.g. the search state
+	 * of kNN, so the rows of the classifiers sharing a model are filled by
+	 * one task, in row order, and no model predicts on two threads at once.
+	 *
+	 * @param classifiers the classifiers, one per row
+	 * @param chunk the instances, one per column
+	 * @param numberOfJobs the maximum number of tasks running at once, 1 to
+	 * fill the rows in order on the calling thread
+	 * @param modelOf gets the model a classifier predicts with, compared by identity
+	 * @return the filled matrix
+	 */
+	public static <C extends Classifier> PredictionMatrix build(List<C> classifiers, List<Instance> chunk, int numberOfJobs,
+			Function<? super C, ?> modelOf) {
+		PredictionMatrix matrix = new PredictionMatrix(classifiers.size(), chunk.size());
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		IdentityHashMap<Object, List<Integer>> rowsOfModel = new IdentityHashMap<Object, List<Integer>>();
+		for (int row = 0; row < classifiers.size(); ++row) {
+			Object model = modelOf.apply(classifiers.get(row));
+			List<Integer> rows = rowsOfModel.get(model);
+			if (rows == null) {
+				List<Integer> taskRows = new ArrayList<Integer>();
+				tasks.add(() -> {
+					for (int taskRow : taskRows) {
+						matrix.fillRow(taskRow, classifiers.get(taskRow), chunk);
+					}
+					return null;
+				});
+				rowsOfModel.put(model, taskRows);
+				rows = taskRows;
+			}
+			rows.add(row);
+		}
+		Parallelism.invokeAll(tasks, numberOfJobs);
+		return matrix;
+	}
+
+	/**
+	 * Fills a row with the correctness of a classifier on the given chunk.
+	 *
+	 * @param row the row to fill
+	 * @param classifier the classifier to test
+	 * @param chunk the instances, one per column
+	 */
+	public void fillRow(int row, Classifier classifier, List<Instance> chunk) {
+		int offset = row * this.wordsPerRow;
+		Arrays.fill(this.bits, offset, offset + this.wordsPerRow, 0L);
+		for (int j = 0; j < this.numColumns; ++j) {
+			if (classifier.correctlyClassifies(chunk.get(j))) {
+				this.bits[offset + (j >>> 6)] |= 1L << j;
+			}
+		}
+	}
+
+	public int numRows() {
+		return this.numRows;
+	}
+
+	public int numColumns() {
+		return this.numColumns;
+	}
+
+	public boolean get(int row, int column) {
+		return (this.bits[row * this.wordsPerRow + (column >>> 6)] & (1L << column)) != 0L;
+	}
+
+	public void set(int row, int column, boolean isCorrect) {
+		int word = row * this.wordsPerRow + (column >>> 6);
+		if (isCorrect) {
+			this.bits[word] |= 1L << column;
+		} else {
+			this.bits[word] &= ~(1L << column);
+		}
+	}
+
+	/**
+	 * Gets a row as 0/1 values, e.g. to hand it to a clusterer.
+	 *
+	 * @param row the row
+	 * @return 1.0 for each correctly classified instance, 0.0 otherwise
+	 */
+	public double[] getRowAsDoubles(int row) {
+		double[] values = new double[this.numColumns];
+		for (int j = 0; j < this.numColumns; ++j) {
+			values[j] = this.get(row, j) ? 1.0 : 0.0;
+		}
+		return values;
+	}
+
+	/**
+	 * Counts the instances correctly classified by a classifier.
+	 *
+	 * @param row the classifier's row
+	 * @return the number of set bits of the row
+	 */
+	public int countCorrect(int row) {
+		int count = 0;
+		int offset = row * this.wordsPerRow;
+		for (int w = 0; w < this.wordsPerRow; ++w) {
+			count += Long.bitCount(this.bits[offset + w]);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the instances correctly classified by both classifiers.
+	 *
+	 * @param rowA the first classifier's row
+	 * @param rowB the second classifier's row
+	 * @return the number of instances both classify correctly
+	 */
+	public int countBothCorrect(int rowA, int rowB) {
+		int count = 0;
+		int offsetA = rowA * this.wordsPerRow;
+		int offsetB = rowB * this.wordsPerRow;
+		for (int w = 0; w < this.wordsPerRow; ++w) {
+			count += Long.bitCount(this.bits[offsetA + w] & this.bits[offsetB + w]);
+		}
+		return count;
+	}
+
+	/**
+	 * Counts the instances on which two classifiers disagree on correctness.
+	 *
+	 * @param rowA the first classifier's row
+	 * @param rowB the second classifier's row
+	 * @return the Hamming distance between the two rows
+	 */
+	public int hammingDistance(int rowA, int rowB) {
+		int count = 0;
+		int offsetA = rowA * this.wordsPerRow;
+		int offsetB = rowB * this.wordsPerRow;
+		for (int w = 0; w < this.wordsPerRow; ++w) {
+			count += Long.bitCount(this.bits[offsetA + w] ^ this.bits[offsetB + w]);
+		}
+		return count;
+	}
+
+	/**
+	 * Adds a row to per-instance counts of correct classifiers.
+	 *
+	 * @param row the classifier's row
+	 * @param counts the counts to increment, one per column
+	 */
+	public void addRowTo(int row, int[] counts) {
+		int offset = row * this.wordsPerRow;
+		for (int w = 0; w < this.wordsPerRow; ++w) {
+			long word = this.bits[offset + w];
+			while (word != 0L) {
+				counts[(w << 6) + Long.numberOfTrailingZeros(word)]++;
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Clusters the rows with k-means on their 0/1 values. Seeds are picked
+	 * with k-means++ and Euclidean distances are computed from the set bits
+	 * of each row, so the rows are never expanded.
+	 *
+	 * @param k the number of clusters, capped by the number of rows
+	 * @param random the source of randomness for seeding
+	 * @param maxIterations the maximum number of assignment passes
+	 * @return the cluster label of each row, in [0, min(k, numRows))
+	 */
+	public int[] kMeans(int k, Random random, int maxIterations) {
+		int[] labels = new int[this.numRows];
+		k = Math.min(k, this.numRows);
+		if (k <= 1) {
+			return labels;
+		}
+
+		double[][] centres = new double[k][];
+		double[] centreSquares = new double[k];
+
+		// k-means++ seeding.
+		centres[0] = this.getRowAsDoubles(random.nextInt(this.numRows));
+		centreSquares[0] = squaredNorm(centres[0]);
+		double[] minDistances = new double[this.numRows];
+		Arrays.fill(minDistances, Double.MAX_VALUE);
+		for (int c = 1; c < k; ++c) {
+			double sum = 0.0;
+			for (int i = 0; i < this.numRows; ++i) {
+				minDistances[i] = Math.min(minDistances[i], this.squaredDistance(i, centres[c - 1], centreSquares[c - 1]));
+				sum += minDistances[i];
+			}
+			int next = 0;
+			if (sum > 0.0) {
+				double target = random.nextDouble() * sum;
+				while (next < this.numRows - 1 && (target -= minDistances[next]) > 0.0) {
+					++next;
+				}
+			} else {
+				next = random.nextInt(this.numRows);
+			}
+			centres[c] = this.getRowAsDoubles(next);
+			centreSquares[c] = squaredNorm(centres[c]);
+		}
+
+		Arrays.fill(labels, -1);
+		int[] sizes = new int[k];
+		for (int iteration = 0; iteration < maxIterations; ++iteration) {
+			boolean changed = false;
+			for (int i = 0; i < this.numRows; ++i) {
+				int closest = 0;
+				double minDistance = this.squaredDistance(i, centres[0], centreSquares[0]);
+				for (int c = 1; c < k; ++c) {
+					double distance = this.squaredDistance(i, centres[c], centreSquares[c]);
+					if (distance < minDistance) {
+						minDistance = distance;
+						closest = c;
+					}
+				}
+				if (labels[i] != closest) {
+					labels[i] = closest;
+					changed = true;
+				}
+			}
+			if (!changed) {
+				break;
+			}
+
+			// Recompute the centres; an empty cluster keeps its previous centre.
+			Arrays.fill(sizes, 0);
+			double[][] sums = new double[k][this.numColumns];
+			for (int i = 0; i < this.numRows; ++i) {
+				this.addRowTo(i, sums[labels[i]]);
+				sizes[labels[i]]++;
+			}
+			for (int c = 0; c < k; ++c) {
+				if (sizes[c] > 0) {
+					for (int j = 0; j < this.numColumns; ++j) {
+						sums[c][j] /= sizes[c];
+					}
+					centres[c] = sums[c];
+					centreSquares[c] = squaredNorm(centres[c]);
+				}
+			}
+		}
+		return labels;
+	}
+
+	/*
+	 * ||row - centre||^2 = ||centre||^2 + sum over the set bits j of (1 - 2 * centre[j]).
+	 */
+	protected double squaredDistance(int row, double[] centre, double centreSquare) {
+		double distance = centreSquare;
+		int offset = row * this.wordsPerRow;
+		for (int w = 0; w < this.wordsPerRow; ++w) {
+			long word = this.bits[offset + w];
+			while (word != 0L) {
+				int j = (w << 6) + Long.numberOfTrailingZeros(word);
+				distance += 1.0 - 2.0 * centre[j];
+				word &= word - 1;
+			}
+		}
+		return distance;
+	}
+
+	protected void addRowTo(int row, double[] sum) {
+		int offset = row * this.wordsPerRow;
+		for (int w = 0; w < this.wordsPerRow; ++w) {
+			long word = this.bits[offset + w];
+			while (word != 0L) {
+				sum[(w << 6) + Long.numberOfTrailingZeros(word)] += 1.0;
+				word &= word - 1;
+			}
+		}
+	}
+
+	protected static double squaredNorm(double[] values) {
+		double norm = 0.0;
+		for (double value : values) {
+			norm += value * value;
+		}
+		return norm;
+	}
+}
@@ -22,21 +22,41 @@ public class QStatistics extends AbstractOptionHandler implements DiversityTest
 	public static Double getQScoreForTwo(List<Instance> chunk, Classifier d1, Classifier d2) {
 		double tt = 0.0, tf = 0.0, ft = 0.0, ff = 0.0;
 		for (Instance instance : chunk) {
-			if (d1.correctlyClassifies(instance) && d2.correctlyClassifies(instance)) {
+			boolean d1Correct = d1.correctlyClassifies(instance);
+			boolean d2Correct = d2.correctlyClassifies(instance);
+			if (d1Correct && d2Correct) {
 				++tt;
-			} else if (d1.correctlyClassifies(instance) && !d2.correctlyClassifies(instance)) {
+			} else if (d1Correct) {
 				++tf;
-			} else if (!d1.correctlyClassifies(instance) && d2.correctlyClassifies(instance)) {
+			} else if (d2Correct) {
 				++ft;
-			} else if (!d1.correctlyClassifies(instance) && !d2.correctlyClassifies(instance)) {
+			} else {
 				++ff;
 			}
 		}
+		return getQScore(tt, tf, ft, ff);
+	 }
+	
+	public static double getQScoreForTwo(PredictionMatrix predictions, int rowA, int rowB) {
+		double tt = predictions.countBothCorrect(rowA, rowB);
+		double tf = predictions.countCorrect(rowA) - tt;
+		double ft = predictions.countCorrect(rowB) - tt;
+		double ff = predictions.numColumns() - tt - tf - ft;
+		return getQScore(tt, tf, ft, ff);
+	}
+	
+	/**
+	 * Q-statistic of two classifiers from their 2x2 table of correct (t) and
+	 * wrong (f) predictions.
+	 * 
+	 * @return (tt*ff - ft*tf) / (tt*ff + ft*tf), NaN if both products are 0
+	 */
+	public static double getQScore(double tt, double tf, double ft, double ff) {
 		double a = tt * ff;
 		double b = ft * tf;
 		
 		return (a - b) / (a + b);
-	 }
+	}
 	
 	public QStatistics() {
 		this.testChunk = null;
@@ -74,6 +94,16 @@ public class QStatistics extends AbstractOptionHandler implements DiversityTest
 		double poolSize = this.classifierPool.size();
 		return (2.0 / (poolSize*(poolSize-1.0)))*qScoreSum;
 	}
+	
+	@Override
+	public double getScore(PredictionMatrix predictions, int[] rows) {
+		double qScoreSum = 0.0;
+		for (int i = 0; i < rows.length-1; ++i) {
+			qScoreSum += QStatistics.getQScoreForTwo(predictions, rows[i], rows[i+1]);
+		}
+		double poolSize = rows.length;
+		return (2.0 / (poolSize*(poolSize-1.0)))*qScoreSum;
+	}
 
 	@Override
 	protected void prepareForUseImpl(TaskMonitor monitor, ObjectRepository repository) {
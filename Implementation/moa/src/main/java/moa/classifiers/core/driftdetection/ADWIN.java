@@ -19,6 +19,8 @@
  */
 package moa.classifiers.core.driftdetection;
 
+import java.util.Arrays;
+
 import moa.AbstractMOAObject;
 
 /**
@@ -28,259 +30,15 @@ import moa.AbstractMOAObject;
  * consistent with the hypothesis "there has been no change in the average value
  * inside the window".
  *
+ * <p>The buckets of the exponential histogram are kept in flat arrays. Row i
+ * holds the buckets of 2^i items, up to MAXBUCKETS + 1 of them, in a ring of
+ * MAXBUCKETS + 1 slots starting at the oldest bucket of the row.</p>
  *
  * @author Albert Bifet (abifet at cs dot waikato dot ac dot nz)
  * @version $Revision: 7 $
  */
 public class ADWIN extends AbstractMOAObject {
 
-    private class List extends AbstractMOAObject {
-
-        protected int count;
-
-        protected ListItem head;
-
-        protected ListItem tail;
-
-        public List() {
-//			post: initializes the list to be empty.
-            clear();
-            addToHead();
-        }
-
-        /* Interface Store Methods */
-        public int size() {
-            //	post: returns the number of elements in the list.
-            return this.count;
-        }
-
-        public ListItem head() {
-            //	post: returns the number of elements in the list.
-            return this.head;
-        }
-
-        public ListItem tail() {
-            //	post: returns the number of elements in the list.
-            return this.tail;
-        }
-
-        public boolean isEmpty() {
-            //	 post: returns the true iff store is empty.
-            return (this.size() == 0);
-        }
-
-        public void clear() {
-            //	 post: clears the list so that it contains no elements.
-            this.head = null;
-            this.tail = null;
-            this.count = 0;
-        }
-
-        /* Interface List Methods */
-        public void addToHead() {
-            //	 pre: anObject is non-null
-            //	 post: the object is added to the beginning of the list
-            this.head = new ListItem(this.head, null);
-            if (this.tail == null) {
-                this.tail = this.head;
-            }
-            this.count++;
-        }
-
-        public void removeFromHead() {
-            //		 pre: list is not empty
-            //		 post: removes and returns first object from the list
-//			ListItem temp;
-//			temp = this.head;
-            this.head = this.head.next();
-            if (this.head != null) {
-                this.head.setPrevious(null);
-            } else {
-                this.tail = null;
-            }
-            this.count--;
-            //temp=null;
-            return;
-        }
-
-        public void addToTail() {
-//			pre: anObject is non-null
-//			post: the object is added at the end of the list
-            this.tail = new ListItem(null, this.tail);
-            if (this.head == null) {
-                this.head = this.tail;
-            }
-            this.count++;
-        }
-
-        public void removeFromTail() {
-//			pre: list is not empty
-//			post: the last object in the list is removed and returned
-//			ListItem temp;
-//			temp = this.tail;
-            this.tail = this.tail.previous();
-            if (this.tail == null) {
-                this.head = null;
-            } else {
-                this.tail.setNext(null);
-            }
-            this.count--;
-            //temp=null;
-            return;
-        }
-
-        @Override
-        public void getDescription(StringBuilder sb, int indent) {
-        }
-    }
-
-    private class ListItem extends AbstractMOAObject {
-//		protected Object data;
-
-        protected ListItem next;
-
-        protected ListItem previous;
-
-        protected int bucketSizeRow = 0;
-
-        protected int MAXBUCKETS = ADWIN.MAXBUCKETS;
-
-        protected double bucketTotal[] = new double[MAXBUCKETS + 1];
-
-        protected double bucketVariance[] = new double[MAXBUCKETS + 1];
-
-        public ListItem() {
-//			post: initializes the node to be a tail node
-//			containing the given value.
-            this(null, null);
-        }
-
-        public void clear() {
-            bucketSizeRow = 0;
-            for (int k = 0; k <= MAXBUCKETS; k++) {
-                clearBucket(k);
-            }
-        }
-
-        private void clearBucket(int k) {
-            setTotal(0, k);
-            setVariance(0, k);
-        }
-
-        public ListItem(ListItem nextNode, ListItem previousNode) {
-//			post: initializes the node to contain the given
-//			object and link to the given next node.
-            //this.data = element;
-            this.next = nextNode;
-            this.previous = previousNode;
-            if (nextNode != null) {
-                nextNode.previous = this;
-            }
-            if (previousNode != null) {
-                previousNode.next = this;
-            }
-            clear();
-        }
-
-        public void insertBucket(double Value, double Variance) {
-//			insert a Bucket at the end
-            int k = bucketSizeRow;
-            bucketSizeRow++;
-            //Insert new bucket
-            setTotal(Value, k);
-            setVariance(Variance, k);
-        }
-
-        public void RemoveBucket() {
-//			Removes the first Buvket
-            compressBucketsRow(1);
-        }
-
-        public void compressBucketsRow(int NumberItemsDeleted) {
-            //Delete first elements
-            for (int k = NumberItemsDeleted; k <= MAXBUCKETS; k++) {
-                bucketTotal[k - NumberItemsDeleted] = bucketTotal[k];
-                bucketVariance[k - NumberItemsDeleted] = bucketVariance[k];
-            }
-            for (int k = 1; k <= NumberItemsDeleted; k++) {
-                clearBucket(MAXBUCKETS - k + 1);
-            }
-            bucketSizeRow -= NumberItemsDeleted;
-            //BucketNumber-=NumberItemsDeleted;
-        }
-
-        public ListItem previous() {
-//			post: returns the previous node.
-            return this.previous;
-        }
-
-        public void setPrevious(ListItem previous) {
-//			post: sets the previous node to be the given node
-            this.previous = previous;
-        }
-
-        public ListItem next() {
-//			post: returns the next node.
-            return this.next;
-        }
-
-        public void setNext(ListItem next) {
-//			post: sets the next node to be the given node
-            this.next = next;
-        }
-
-        public double Total(int k) {
-//			post: returns the element in this node
-            return bucketTotal[k];
-        }
-
-        public double Variance(int k) {
-//			post: returns the element in this node
-            return bucketVariance[k];
-        }
-
-        public void setTotal(double value, int k) {
-//			post: sets the element in this node to the given
-//			object.
-            bucketTotal[k] = value;
-        }
-
-        public void setVariance(double value, int k) {
-//			post: sets the element in this node to the given
-//			object.
-            bucketVariance[k] = value;
-        }
-        /*
-        public ListItem(Object element,
-        ListItem nextNode){
-        //		post: initializes the node to contain the given
-        //		 object and link to the given next node.
-        this.data = element;
-        this.next = nextNode;
-        }
-        public ListItem(Object element) {
-        //		post: initializes the node to be a tail node
-        //		 containing the given value.
-        this(element, null);
-        }
-
-
-        public Object value() {
-        //			 post: returns the element in this node
-        return this.data;
-        }
-        public void setValue(Object anObject) {
-        //			 post: sets the element in this node to the given
-        //			 object.
-        this.data = anObject;
-        }
-         */
-
-        @Override
-        public void getDescription(StringBuilder sb, int indent) {
-        }
-    }
-
     public static final double DELTA = .002; //.1;
 
     private static final int mintMinimLongitudWindow = 10; //10
@@ -318,7 +76,17 @@ public class ADWIN extends AbstractMOAObject {
 
     private int mintMinWinLength = 5;
 
-    private List listRowBuckets;
+    private static final int ROW_SLOTS = MAXBUCKETS + 1;
+
+    // The totals and variances of the bucket in slot j of row i are at [i * ROW_SLOTS + j].
+    private double[] bucketTotals;
+
+    private double[] bucketVariances;
+
+    // The slot of the oldest bucket and the number of buckets of each row.
+    private int[] rowStarts;
+
+    private int[] rowSizes;
 
     public boolean getChange() {
         return blnBucketDeleted;
@@ -374,7 +142,11 @@ public class ADWIN extends AbstractMOAObject {
 
     private void initBuckets() {
         //Init buckets
-        listRowBuckets = new List();
+        int numRows = 8;
+        bucketTotals = new double[numRows * ROW_SLOTS];
+        bucketVariances = new double[numRows * ROW_SLOTS];
+        rowStarts = new int[numRows];
+        rowSizes = new int[numRows];
         lastBucketRow = 0;
         TOTAL = 0;
         VARIANCE = 0;
@@ -384,7 +156,7 @@ public class ADWIN extends AbstractMOAObject {
 
     private void insertElement(double Value) {
         WIDTH++;
-        insertElementBucket(0, Value, listRowBuckets.head());
+        insertElementBucket(0, Value, 0);
         double incVariance = 0;
         if (WIDTH > 1) {
             incVariance = (WIDTH - 1) * (Value - TOTAL / (WIDTH - 1)) * (Value - TOTAL / (WIDTH - 1)) / WIDTH;
@@ -394,9 +166,9 @@ public class ADWIN extends AbstractMOAObject {
         compressBuckets();
     }
 
-    private void insertElementBucket(double Variance, double Value, ListItem Node) {
+    private void insertElementBucket(double Variance, double Value, int Row) {
         //Insert new bucket
-        Node.insertBucket(Value, Variance);
+        insertBucket(Row, Value, Variance);
         BucketNumber++;
         if (BucketNumber > BucketNumberMAX) {
             BucketNumberMAX = BucketNumber;
@@ -404,68 +176,109 @@ public class ADWIN extends AbstractMOAObject {
     }
 
     private int bucketSize(int Row) {
-        return (int) Math.pow(2, Row);
+        return 1 << Row;
+    }
+
+    // The index of the k-th oldest bucket of a row in the bucket arrays.
+    private int bucketIndex(int Row, int k) {
+        int slot = rowStarts[Row] + k;
+        if (slot >= ROW_SLOTS) {
+            slot -= ROW_SLOTS;
+        }
+        return Row * ROW_SLOTS + slot;
+    }
+
+    private void insertBucket(int Row, double Value, double Variance) {
+        //Insert a bucket at the end of the row
+        int index = bucketIndex(Row, rowSizes[Row]);
+        bucketTotals[index] = Value;
+        bucketVariances[index] = Variance;
+        rowSizes[Row]++;
+    }
+
+    private void removeBuckets(int Row, int NumberItemsDeleted) {
+        //Delete the first buckets of the row
+        rowStarts[Row] += NumberItemsDeleted;
+        if (rowStarts[Row] >= ROW_SLOTS) {
+            rowStarts[Row] -= ROW_SLOTS;
+        }
+        rowSizes[Row] -= NumberItemsDeleted;
+    }
+
+    private void addRow() {
+        lastBucketRow++;
+        if (lastBucketRow == rowSizes.length) {
+            int numRows = 2 * rowSizes.length;
+            bucketTotals = Arrays.copyOf(bucketTotals, numRows * ROW_SLOTS);
+            bucketVariances = Arrays.copyOf(bucketVariances, numRows * ROW_SLOTS);
+            rowStarts = Arrays.copyOf(rowStarts, numRows);
+            rowSizes = Arrays.copyOf(rowSizes, numRows);
+        }
+        rowStarts[lastBucketRow] = 0;
+        rowSizes[lastBucketRow] = 0;
     }
 
     public int deleteElement() {
-        //LIST
         //Update statistics
-        ListItem Node;
-        Node = listRowBuckets.tail();
+        int index = bucketIndex(lastBucketRow, 0);
         int n1 = bucketSize(lastBucketRow);
         WIDTH -= n1;
-        TOTAL -= Node.Total(0);
-        double u1 = Node.Total(0) / n1;
-        double incVariance = Node.Variance(0) + n1 * WIDTH * (u1 - TOTAL / WIDTH) * (u1 - TOTAL / WIDTH) / (n1 + WIDTH);
+        TOTAL -= bucketTotals[index];
+        double u1 = bucketTotals[index] / n1;
+        double incVariance = bucketVariances[index] + n1 * WIDTH * (u1 - TOTAL / WIDTH) * (u1 - TOTAL / WIDTH) / (n1 + WIDTH);
         VARIANCE -= incVariance;
 
         //Delete Bucket
-        Node.RemoveBucket();
+        removeBuckets(lastBucketRow, 1);
         BucketNumber--;
-        if (Node.bucketSizeRow == 0) {
-            listRowBuckets.removeFromTail();
+        if (rowSizes[lastBucketRow] == 0 && lastBucketRow > 0) {
             lastBucketRow--;
         }
         return n1;
     }
 
     public void compressBuckets() {
-        //Traverse the list of buckets in increasing order
+        //Traverse the rows of buckets in increasing order
         int n1, n2;
         double u2, u1, incVariance;
-        ListItem cursor;
-        ListItem nextNode;
-        cursor = listRowBuckets.head();
-        int i = 0;
-        do {
-            //Find the number of buckets in a row
-            int k = cursor.bucketSizeRow;
-            //If the row is full, merge buckets
-            if (k == MAXBUCKETS + 1) {
-                nextNode = cursor.next();
-                if (nextNode == null) {
-                    listRowBuckets.addToTail();
-                    nextNode = cursor.next();
-                    lastBucketRow++;
-                }
-                n1 = bucketSize(i);
-                n2 = bucketSize(i);
-                u1 = cursor.Total(0) / n1;
-                u2 = cursor.Total(1) / n2;
-                incVariance = n1 * n2 * (u1 - u2) * (u1 - u2) / (n1 + n2);
-
-                nextNode.insertBucket(cursor.Total(0) + cursor.Total(1), cursor.Variance(0) + cursor.Variance(1) + incVariance);
-                BucketNumber++;
-                cursor.compressBucketsRow(2);
-                if (nextNode.bucketSizeRow <= MAXBUCKETS) {
-                    break;
-                }
-            } else {
+        for (int i = 0; i <= lastBucketRow; i++) {
+            //If the row is full, merge its two oldest buckets
+            if (rowSizes[i] != MAXBUCKETS + 1) {
+                break;
+            }
+            if (i == lastBucketRow) {
+                addRow();
+            }
+            int first = bucketIndex(i, 0);
+            int second = bucketIndex(i, 1);
+            n1 = bucketSize(i);
+            n2 = bucketSize(i);
+            u1 = bucketTotals[first] / n1;
+            u2 = bucketTotals[second] / n2;
+            incVariance = n1 * n2 * (u1 - u2) * (u1 - u2) / (n1 + n2);
+
+            insertBucket(i + 1, bucketTotals[first] + bucketTotals[second],
+                    bucketVariances[first] + bucketVariances[second] + incVariance);
+            BucketNumber++;
+            removeBuckets(i, 2);
+            if (rowSizes[i + 1] <= MAXBUCKETS) {
                 break;
             }
-            cursor = cursor.next();
-            i++;
-        } while (cursor != null);
+        }
+    }
+
+    /**
+     * Inputs the values one after another, as setInput(double) would.
+     *
+     * @param values the values
+     * @return whether any of them changed the window
+     */
+    public boolean setInput(double[] values) {
+        boolean blnChange = false;
+        for (double value : values) {
+            blnChange |= setInput(value, mdbldelta);
+        }
+        return blnChange;
     }
 
     public boolean setInput(double intEntrada) {
@@ -475,7 +288,6 @@ public class ADWIN extends AbstractMOAObject {
     public boolean setInput(double intEntrada, double delta) {
         boolean blnChange = false;
         boolean blnExit = false;
-        ListItem cursor;
         mintTime++;
 
         //1,2)Increment window in one element
@@ -498,25 +310,25 @@ public class ADWIN extends AbstractMOAObject {
                 double n2 = 0;
                 double u2 = 0;
 
-                cursor = listRowBuckets.tail();
                 int i = lastBucketRow;
                 do {
-                    for (int k = 0; k <= (cursor.bucketSizeRow - 1); k++) {
+                    for (int k = 0; k <= (rowSizes[i] - 1); k++) {
+                        int index = bucketIndex(i, k);
                         n2 = bucketSize(i);
-                        u2 = cursor.Total(k);
+                        u2 = bucketTotals[index];
                         if (n0 > 0) {
-                            v0 += cursor.Variance(k) + (double) n0 * n2 * (u0 / n0 - u2 / n2) * (u0 / n0 - u2 / n2) / (n0 + n2);
+                            v0 += bucketVariances[index] + (double) n0 * n2 * (u0 / n0 - u2 / n2) * (u0 / n0 - u2 / n2) / (n0 + n2);
                         }
                         if (n1 > 0) {
-                            v1 -= cursor.Variance(k) + (double) n1 * n2 * (u1 / n1 - u2 / n2) * (u1 / n1 - u2 / n2) / (n1 + n2);
+                            v1 -= bucketVariances[index] + (double) n1 * n2 * (u1 / n1 - u2 / n2) * (u1 / n1 - u2 / n2) / (n1 + n2);
                         }
 
                         n0 += bucketSize(i);
                         n1 -= bucketSize(i);
-                        u0 += cursor.Total(k);
-                        u1 -= cursor.Total(k);
+                        u0 += bucketTotals[index];
+                        u1 -= bucketTotals[index];
 
-                        if (i == 0 && k == cursor.bucketSizeRow - 1) {
+                        if (i == 0 && k == rowSizes[i] - 1) {
                             blnExit = true;
                             break;
                         }
@@ -545,9 +357,8 @@ public class ADWIN extends AbstractMOAObject {
                             }
                         } //End if
                     }//Next k
-                    cursor = cursor.previous();
                     i--;
-                } while (((!blnExit && cursor != null)));
+                } while (((!blnExit && i >= 0)));
             }//End While // Diference
         }//End if
 
@@ -1,10 +1,9 @@
 package moa.classifiers.core.driftdetection;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.TreeSet;
 
+import moa.core.OrderStatisticAUC;
 import weka.core.Utils;
 
 public class AUC_mClass {
@@ -13,88 +12,29 @@ public class AUC_mClass {
 	
 	protected int totalObservedInstances;
 
-  public class Score implements Comparable<Score> {
-    /**
-     * Predicted score of the example
-     */
-    protected double[] value;
-    
-    /**
-     * true class label index of the example
-     */
-    protected int realClass;
-
-    /**
-     * Age of example - position in the window where the example was
-     * added
-     */
-    protected int posWindow;
-
-    //positive class index for this tree
-    protected int pos_class;
-    /**
-     * Constructor.
-     * 
-     * @param value
-     *            score value
-     * @param position
-     *            score position in window (defines its age)
-     * @param isPositive
-     *            true if the example's true label is positive
-     */
-    public Score(int trueClass, double[] value, int position, int pos_class) {
-  	  this.realClass = trueClass;
-  	  this.value = value;
-  	  this.posWindow = position;
-  	  this.pos_class = pos_class;
-    }
-
-    /**
-     * Sort descending based on score value of the positive class of the current tree.
-     */
-    @Override
-    public int compareTo(Score o) {
-  	  if (o.value[pos_class] < this.value[pos_class]) {
-  		  return -1;
-  	  } else if (o.value[pos_class] > this.value[pos_class]){
-  		  return 1;
-  	  } else {
-  		  if (o.posWindow > this.posWindow) {
-  			  return -1;
-  		  } else if (o.posWindow < this.posWindow){
-  			  return 1;
-  		  } else {
-  			  return 0;
-  		  }
-  	  }
-    }
-
-    @Override
-    public boolean equals(Object o) {
-  	  return (o instanceof Score) && ((Score)o).posWindow == this.posWindow;
-    }
-
-  }
-
   public class RB_tree{
   	protected int pos_class;
   	protected int neg_class;
   	protected double numPos;
   	protected double numNeg;
-  	protected TreeSet<Score> sortedScores;
+  	protected OrderStatisticAUC sortedScores;//ranked by the score of pos_class; a negative ties on the score of its own class
   	
   	public RB_tree(int pos_class_idx, int neg_class_idx) {
   		pos_class = pos_class_idx;
   		neg_class = neg_class_idx;
   		numPos = 0;
   		numNeg = 0;
-  		sortedScores = new TreeSet<Score>();   
+  		sortedScores = new OrderStatisticAUC(true);   
   	}
   }
   
   protected List<RB_tree> rb_trees;//the set of red-black trees for any 2 classes (numClasses*(numClasses-1))
+  
+  protected int[][] tree_idx_by_class;//the indices of the trees involving each class
+  
+  protected int[][] tree_idx_by_pair;//the index of the tree of each positive class and negative class
 
-  protected Score[] window;//store current window of examples
+  protected int[] window;//store the true class of the current window of examples
 
   protected double[] predictions;//store correct/incorrect prediction results for all examples in the window: if the example is correctly classified or not: 1-correct, 0-incorrect. 
 
@@ -129,8 +69,26 @@ public class AUC_mClass {
   		}
   	}
 
+  	this.tree_idx_by_class = new int[this.numClasses][];
+  	this.tree_idx_by_pair = new int[this.numClasses][this.numClasses];
+  	for(int c = 0; c < this.numClasses; c++) {
+  		int[] tree_idx = new int[2*(this.numClasses-1)];
+  		int t = 0;
+  		for(int i = 0; i < this.rb_trees.size(); i++) {
+  			RB_tree tree_i = this.rb_trees.get(i);
+  			if((tree_i.pos_class == c) || (tree_i.neg_class == c)) {
+  				tree_idx[t] = i;
+  				t++;
+  			}
+  			if(tree_i.pos_class == c) {
+  				this.tree_idx_by_pair[c][tree_i.neg_class] = i;
+  			}
+  		}
+  		this.tree_idx_by_class[c] = tree_idx;
+  	}
+
   	this.size = sizeWindow;
-  	this.window = new Score[sizeWindow];
+  	this.window = new int[sizeWindow];
   	this.predictions = new double[sizeWindow];
   	this.correctPrediction_perclass = new double[this.numClasses];
   	this.totalObservedInstances_perclass_window = new double[this.numClasses];
@@ -158,7 +116,7 @@ public class AUC_mClass {
   	int[] tree_idx_add = this.find_trees(trueClass);
   	// if the window is used and it's full			
   	if (size > 0 && posWindow >= this.size) {
-  		int idx_remove = window[posWindow % size].realClass;//the class label of the example to be removed from the window
+  		int idx_remove = window[posWindow % size];//the class label of the example to be removed from the window
   		int[] tree_idx_remove = this.find_trees(idx_remove);//find the indices of trees containing the class label of the example to be removed from the window
   		correctPredictions -= predictions[posWindow % size];
   		correctPrediction_perclass[idx_remove] -= predictions[posWindow % size];
@@ -166,10 +124,9 @@ public class AUC_mClass {
   		for(int i = 0; i < tree_idx_remove.length; i++) {
   			RB_tree tree_i = this.rb_trees.get(tree_idx_remove[i]);
   			// remove the oldest example from the tree with "trueClass"
-  			Score node = this.find_node(tree_i, posWindow);
-  			tree_i.sortedScores.remove(node);
+  			tree_i.sortedScores.removeOldest();
   			
-  			if (window[posWindow % size].realClass == tree_i.pos_class) {
+  			if (idx_remove == tree_i.pos_class) {
   				tree_i.numPos--;
   			} else {
   				tree_i.numNeg--;
@@ -178,18 +135,16 @@ public class AUC_mClass {
   	}
 
   	// add new example
-  	Score newScore = new Score(trueClass, score, posWindow, -1);//new score for updating windows
   	correctPredictions += correctPrediction ? 1 : 0;
   	correctPrediction_perclass[trueClass] += correctPrediction ? 1 : 0;
   	totalObservedInstances_perclass_window[trueClass] += 1;
   	if (size > 0) {
-  		window[posWindow % size] = newScore;
+  		window[posWindow % size] = trueClass;
   		predictions[posWindow % size] = correctPrediction ? 1 : 0;
   	}
   	for(int i = 0; i < tree_idx_add.length; i++) {
   		RB_tree tree_i = this.rb_trees.get(tree_idx_add[i]);
-  		Score newScore_tree = new Score(trueClass, score, posWindow, tree_i.pos_class);//new score for updating trees
-  		tree_i.sortedScores.add(newScore_tree);
+  		tree_i.sortedScores.add(score[tree_i.pos_class], score[trueClass], trueClass == tree_i.pos_class);
 
   		if (trueClass == tree_i.pos_class) {
   			tree_i.numPos++;
@@ -197,44 +152,18 @@ public class AUC_mClass {
   			tree_i.numNeg++;
   		}
   	}
-  	// posWindow needs to be always incremented to differentiate between examples in the red-black tree
+  	// posWindow needs to be always incremented to find the oldest example in the window
   	posWindow++;
   }
 
-  public Score find_node(RB_tree tree_i, int posWindow) {
-  	Score node;
-  	Iterator<Score> iterator = tree_i.sortedScores.iterator();
-  	while(iterator.hasNext()) {
-          node = iterator.next();
-          if((node.posWindow % size) == (posWindow % size))             
-              return node;
-      }
-      return null;
-  }
-  
   //return the tree indices of those involving class_idx
   public int[] find_trees(int class_idx) {
-  	int[] tree_idx = new int[2*(this.numClasses-1)];
-  	int t = 0;
-  	for(RB_tree tree_i: this.rb_trees) {
-  		if((tree_i.pos_class == class_idx) || (tree_i.neg_class == class_idx)) {
-  			tree_idx[t] = this.rb_trees.indexOf(tree_i);
-  			t++;
-  		}
-  	}
-  	return tree_idx;
+  	return this.tree_idx_by_class[class_idx];
   }
   
   //return the tree with given positive class index and negative class index
   public int find_onetree(int pos_class, int neg_class) {
-  	int idx=-1;
-  	for(RB_tree tree_i: this.rb_trees) {
-  		if((tree_i.pos_class == pos_class) && (tree_i.neg_class == neg_class)) {
-  			idx = this.rb_trees.indexOf(tree_i);
-  			break;
-  		}
-  	}
-  	return idx;
+  	return pos_class == neg_class ? -1 : this.tree_idx_by_pair[pos_class][neg_class];
   }
   
   public double getPMAUC() {
@@ -249,67 +178,13 @@ public class AUC_mClass {
   
   //calculate AUC for the given tree
   public double getAUC(RB_tree current_tree) {
-  	double AUC = 0;
-  	double c = 0;
-  	double prevc = 0;
-		double lastPosScore = Double.MAX_VALUE;
-  	
-  	if (current_tree.numPos == 0 || current_tree.numNeg == 0) {
-  		return 1;
-  	}
-  	
-  	for (Score s : current_tree.sortedScores){
-  		if(s.realClass==current_tree.pos_class) {
-  			if (s.value[s.realClass] != lastPosScore) {
-  				prevc = c;
-  				lastPosScore = s.value[s.realClass];
-  			}
-  			c += 1;
-  		} else {
-  			if (s.value[s.realClass] == lastPosScore) {
-  				// tie
-  				AUC += ((double) (c + prevc)) / 2.0;
-  			} else {
-  				AUC += c;
-  			}
-  		}
-  	}
-
-  	return AUC / (current_tree.numPos * current_tree.numNeg);
+  	return current_tree.sortedScores.getAUC();
   }
   
   //calculate AUC based on the given positive class index and negative class index.
   public double getAUC(int pos_class, int neg_class) {
-  	double AUC = 0;
-  	double c = 0;
-  	double prevc = 0;
-		double lastPosScore = Double.MAX_VALUE;
-  	
   	int idx = this.find_onetree(pos_class, neg_class);
-  	RB_tree current_tree = this.rb_trees.get(idx);
-
-  	if (current_tree.numPos == 0 || current_tree.numNeg == 0) {
-  		return 1;
-  	}
-
-  	for (Score s : current_tree.sortedScores){
-  		if(s.realClass==pos_class) {
-  			if (s.value[s.realClass] != lastPosScore) {
-  				prevc = c;
-  				lastPosScore = s.value[s.realClass];
-  			}
-  			c += 1;
-  		} else {
-  			if (s.value[s.realClass] == lastPosScore) {
-  				// tie
-  				AUC += ((double) (c + prevc)) / 2.0;
-  			} else {
-  				AUC += c;
-  			}
-  		}
-  	}
-
-  	return AUC / (current_tree.numPos * current_tree.numNeg);
+  	return this.getAUC(this.rb_trees.get(idx));
   }
 
 
@@ -45,6 +45,18 @@ public interface ChangeDetector extends OptionHandler {
      */
     public void input(double inputValue);
 
+    /**
+     * Adding what a classifier observed on an instance to the change
+     * detector. Detectors monitoring the error only input its error; those
+     * that also need the true class or the class votes override this.
+     *
+     * @param observation the observation, which the caller may reuse after
+     * this returns
+     */
+    public default void input(DetectorObservation observation) {
+        input(observation.getError());
+    }
+
     /**
      * Gets whether there is change detected.
      *
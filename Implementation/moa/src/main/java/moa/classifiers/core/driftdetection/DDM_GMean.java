@@ -69,6 +69,11 @@ public class DDM_GMean extends DDM {
 		System.err.println("Error: DDM_GMean should not call input(prediction), only input(prediction, actual).");
 	}
 	
+	@Override
+	public void input(DetectorObservation observation) {
+		input(observation.getError(), observation.getInstance());
+	}
+	
 	// As with DDM, prediction is 0 for correct prediction and 1 for mistaken prediction
 	// Actual is the actual class of the example being predicted
 	public void input(double prediction, Instance inst) {
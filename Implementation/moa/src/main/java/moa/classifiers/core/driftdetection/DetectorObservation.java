@@ -0,0 +1,104 @@
+/*
+ *    DetectorObservation.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package moa.classifiers.core.driftdetection;
+
+import java.io.Serializable;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.core.Utils;
+
+/**
+ * What a classifier observed on one instance, for a change detector: whether
+ * it was mistaken, the class votes and the instance with its true class and
+ * weight.
+ *
+ * <p>A learner keeps one observation for the detectors it feeds, sets it for every
+ * instance and passes it to ChangeDetector.input(DetectorObservation). Each
+ * detector reads the parts it needs, so the learner does not need to know
+ * which detector it has.</p>
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class DetectorObservation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	protected double error;
+
+	// Only valid until the next instance, so not copied with the learner holding this.
+	protected transient double[] classVotes;
+
+	protected transient Instance instance;
+
+	/**
+	 * Sets the observation from the class votes of a classifier. The
+	 * prediction is mistaken if the class with the highest vote is not the
+	 * true class.
+	 *
+	 * @param classVotes the class votes, kept by reference
+	 * @param inst the instance
+	 * @return this observation
+	 */
+	public DetectorObservation set(double[] classVotes, Instance inst) {
+		return set(Utils.maxIndex(classVotes) == inst.classValue() ? 0.0 : 1.0, classVotes, inst);
+	}
+
+	/**
+	 * Sets the observation.
+	 *
+	 * @param error 0 for a correct prediction and 1 for a mistaken one
+	 * @param classVotes the class votes, kept by reference, or null if unknown
+	 * @param inst the instance
+	 * @return this observation
+	 */
+	public DetectorObservation set(double error, double[] classVotes, Instance inst) {
+		this.error = error;
+		this.classVotes = classVotes;
+		this.instance = inst;
+		return this;
+	}
+
+	/**
+	 * @return 0 for a correct prediction and 1 for a mistaken one
+	 */
+	public double getError() {
+		return this.error;
+	}
+
+	/**
+	 * @return the class votes, or null if unknown
+	 */
+	public double[] getClassVotes() {
+		return this.classVotes;
+	}
+
+	public Instance getInstance() {
+		return this.instance;
+	}
+
+	public int getTrueClass() {
+		return (int) this.instance.classValue();
+	}
+
+	public double getWeight() {
+		return this.instance.weight();
+	}
+}
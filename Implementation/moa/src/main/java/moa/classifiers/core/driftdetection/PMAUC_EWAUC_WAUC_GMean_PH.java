@@ -90,6 +90,11 @@ public class PMAUC_EWAUC_WAUC_GMean_PH extends AbstractChangeDetector {
 		System.err.println("Error: PMAUC_WAUC_EWAUC_GMean_PH should not call input(prediction), only input(classVotes, inst).");
 	}
 	
+	@Override
+	public void input(DetectorObservation observation) {
+		input(observation.getClassVotes(), observation.getInstance());
+	}
+	
     public void input(double[] classVotes, Instance inst) {
 		if (this.isChangeDetected == true || this.isInitialized == false) {
             resetLearning();
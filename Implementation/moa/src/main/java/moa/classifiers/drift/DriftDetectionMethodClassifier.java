@@ -26,10 +26,8 @@ import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.meta.WEKAClassifier;
 import moa.core.Measurement;
-import moa.core.Utils;
 import moa.classifiers.core.driftdetection.ChangeDetector;
-import moa.classifiers.core.driftdetection.DDM_GMean;
-import moa.classifiers.core.driftdetection.DDM_OCI;
+import moa.classifiers.core.driftdetection.DetectorObservation;
 import moa.options.ClassOption;
 
 /**
@@ -100,28 +98,14 @@ public class DriftDetectionMethodClassifier extends AbstractClassifier implement
 
     protected int warningDetected = 0;
 
+    protected DetectorObservation detectorObservation = new DetectorObservation();
+
     @Override
     public void trainOnInstanceImpl(Instance inst) {
         //this.numberInstances++;
-        int trueClass = (int) inst.classValue();
-        boolean prediction;
-        if (Utils.maxIndex(this.classifier.getVotesForInstance(inst)) == trueClass) {
-            prediction = true;
-        } else {
-            prediction = false;
-        }
+        this.detectorObservation.set(this.classifier.getVotesForInstance(inst), inst);
         //this.ddmLevel = this.driftDetectionMethod.computeNextVal(prediction);
-//        this.driftDetectionMethod.input(prediction ? 0.0 : 1.0);
-        /**
-         * michaelchiucw: For research purpose
-         */
-        if (this.driftDetectionMethod instanceof DDM_GMean) {
-        	((DDM_GMean) this.driftDetectionMethod).input(prediction ? 0.0 : 1.0, inst);
-        } else if (this.driftDetectionMethod instanceof DDM_OCI) {
-        	((DDM_OCI) this.driftDetectionMethod).input(prediction ? 0.0 : 1.0, inst);
-        } else {
-        	this.driftDetectionMethod.input(prediction ? 0.0 : 1.0);
-        }
+        this.driftDetectionMethod.input(this.detectorObservation);
         
         this.ddmLevel = DDM_INCONTROL_LEVEL;
         if (this.driftDetectionMethod.getChange()) {
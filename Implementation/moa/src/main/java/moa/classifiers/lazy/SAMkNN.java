@@ -17,9 +17,9 @@
 package moa.classifiers.lazy;
 import java.util.*;
 
-import com.yahoo.labs.samoa.instances.InstanceImpl;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.lazy.neighboursearch.InstanceStore;
 import moa.core.Measurement;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -76,8 +76,9 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
         return "SAMkNN: special.";
     }
 
-    private Instances stm;
-	private Instances ltm;
+    private Instances header;
+    private InstanceStore stm;
+	private InstanceStore ltm;
 	private int maxLTMSize;
 	private int maxSTMSize;
 	private List<Integer> stmHistory;
@@ -104,10 +105,9 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 	@Override
 	public void setModelContext(InstancesHeader context) {
 		try {
-			this.stm = new Instances(context,0);
-			this.stm.setClassIndex(context.classIndex());
-			this.ltm = new Instances(context,0); 
-			this.ltm.setClassIndex(context.classIndex());
+			this.header = context;
+			this.stm = new InstanceStore(context);
+			this.ltm = new InstanceStore(context);
 			this.init();
 		} catch(Exception e) {
 			System.err.println("Error: no Model Context available.");
@@ -136,22 +136,22 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 		memorySizeCheck();
 		clean(this.stm, this.ltm, true);
 		double distancesSTM[] = this.get1ToNDistances(inst, this.stm);
-		for (int i =0; i < this.stm.numInstances();i++){
-			this.distanceMatrixSTM[this.stm.numInstances()-1][i] = distancesSTM[i];
+		for (int i =0; i < this.stm.size();i++){
+			this.distanceMatrixSTM[this.stm.size()-1][i] = distancesSTM[i];
 		}
-		int oldWindowSize = this.stm.numInstances();
+		int oldWindowSize = this.stm.size();
 		int newWindowSize = this.getNewSTMSize(recalculateSTMErrorOption.isSet());
 
 		if (newWindowSize < oldWindowSize) {
 			int diff = oldWindowSize - newWindowSize;
-			Instances discardedSTMInstances = new Instances(this.stm, 0);
+			InstanceStore discardedSTMInstances = new InstanceStore(this.header);
 
 			for (int i = diff; i>0;i--){
-				discardedSTMInstances.add(this.stm.get(0).copy());
-				this.stm.delete(0);
+				discardedSTMInstances.add(this.stm.row(this.stm.slotAt(0)));
+				this.stm.removeOldest();
 			}
-			for (int i = 0; i < this.stm.numInstances(); i++){
-				for (int j = 0; j < this.stm.numInstances(); j++){
+			for (int i = 0; i < this.stm.size(); i++){
+				for (int j = 0; j < this.stm.size(); j++){
 					this.distanceMatrixSTM[i][j] = this.distanceMatrixSTM[diff+i][diff+j];
 				}
 			}
@@ -162,8 +162,8 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 			}
 
 			this.clean(this.stm, discardedSTMInstances, false);
-			for (int i = 0; i < discardedSTMInstances.numInstances(); i++){
-				this.ltm.add(discardedSTMInstances.get(i).copy());
+			for (int i = 0; i < discardedSTMInstances.size(); i++){
+				this.ltm.add(discardedSTMInstances.row(discardedSTMInstances.slotAt(i)));
 			}
 			memorySizeCheck();
 		}
@@ -184,7 +184,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
         int predClassLTM = 0;
         int predClassCM = 0;
 		try {
-			if (this.stm.numInstances()>0) {
+			if (this.stm.size()>0) {
 				distancesSTM = get1ToNDistances(inst, this.stm);
 				int nnIndicesSTM[] = nArgMin(Math.min(distancesSTM.length, this.kOption.getValue()), distancesSTM);
 				vSTM = getDistanceWeightedVotes(distancesSTM, nnIndicesSTM, this.stm);
@@ -192,7 +192,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
                 distancesLTM = get1ToNDistances(inst, this.ltm);
                 vCM = getCMVotes(distancesSTM, this.stm, distancesLTM, this.ltm);
                 predClassCM = this.getClassFromVotes(vCM);
-				if (this.ltm.numInstances() >= 0) {
+				if (this.ltm.size() >= 0) {
                     int nnIndicesLTM[] = nArgMin(Math.min(distancesLTM.length, this.kOption.getValue()), distancesLTM);
                     vLTM = getDistanceWeightedVotes(distancesLTM, nnIndicesLTM, this.ltm);
                     predClassLTM = this.getClassFromVotes(vLTM);
@@ -257,13 +257,15 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 		int classIndex = this.ltm.classIndex();
 		for (int c = 0; c <= this.maxClassValue; c++){
 			List<double[]> classSamples = new ArrayList<>();
-			for (int i = this.ltm.numInstances()-1; i >-1 ; i--) {
-				if (this.ltm.get(i).classValue() == c) {
-					classSamples.add(this.ltm.get(i).toDoubleArray());
-					this.ltm.delete(i);
+			boolean[] marked = new boolean[this.ltm.size()];
+			for (int i = this.ltm.size()-1; i >-1 ; i--) {
+				if (this.ltm.classValueAt(i) == c) {
+					classSamples.add(this.ltm.row(this.ltm.slotAt(i)).clone());
+					marked[i] = true;
 				}
 			}
 			if (classSamples.size() > 0) {
+				this.ltm.removeMarked(marked);
 				//used kMeans++ implementation expects the weight of each sample at the first index,
 				// make sure that the first value gets the uniform weight 1, overwrite class value
 				for (double[] sample : classSamples) {
@@ -285,9 +287,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 						attributes[0] = attributes[classIndex];
 					}
 					attributes[classIndex] = c;
-					Instance inst = new InstanceImpl(1, attributes);
-					inst.setDataset(this.ltm);
-					this.ltm.add(inst);
+					this.ltm.add(attributes);
 				}
 			}
 
@@ -298,22 +298,22 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
      * Makes sure that the STM and LTM combined doe not surpass the maximum size.
      */
 	private void memorySizeCheck(){
-		if (this.stm.numInstances() + this.ltm.numInstances() > this.maxSTMSize + this.maxLTMSize){
-			if (this.ltm.numInstances() > this.maxLTMSize){
+		if (this.stm.size() + this.ltm.size() > this.maxSTMSize + this.maxLTMSize){
+			if (this.ltm.size() > this.maxLTMSize){
 				this.clusterDown();
 			}else{ //shift values from STM directly to LTM since STM is full
-				int numShifts = this.maxLTMSize - this.ltm.numInstances() + 1;
+				int numShifts = this.maxLTMSize - this.ltm.size() + 1;
 				for (int i = 0; i < numShifts; i++){
-					this.ltm.add(this.stm.get(0).copy());
-					this.stm.delete(0);
+					this.ltm.add(this.stm.row(this.stm.slotAt(0)));
+					this.stm.removeOldest();
 					this.stmHistory.remove(0);
 					this.ltmHistory.remove(0);
 					this.cmHistory.remove(0);
 				}
 				this.clusterDown();
 				this.predictionHistories.clear();
-				for (int i = 0; i < this.stm.numInstances(); i++){
-					for (int j = 0; j < this.stm.numInstances(); j++){
+				for (int i = 0; i < this.stm.size(); i++){
+					for (int j = 0; j < this.stm.size(); j++){
 						this.distanceMatrixSTM[i][j] = this.distanceMatrixSTM[numShifts+i][numShifts+j];
 					}
 				}
@@ -321,43 +321,48 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 		}
 	}
 
-	private void cleanSingle(Instances cleanAgainst, int cleanAgainstindex, Instances toClean){
-		Instances cleanAgainstTmp = new Instances(cleanAgainst);
-		cleanAgainstTmp.delete(cleanAgainstindex);
-		double distancesSTM[] = get1ToNDistances(cleanAgainst.get(cleanAgainstindex), cleanAgainstTmp);
+	private void cleanSingle(InstanceStore cleanAgainst, int cleanAgainstindex, InstanceStore toClean){
+		double[] sample = cleanAgainst.row(cleanAgainst.slotAt(cleanAgainstindex));
+		double sampleClass = cleanAgainst.classValueAt(cleanAgainstindex);
+		//distances to all other samples of cleanAgainst, the ones after cleanAgainstindex are shifted by one
+		double distancesSTM[] = new double[cleanAgainst.size() - 1];
+		for (int i = 0; i < distancesSTM.length; i++){
+			distancesSTM[i] = this.getDistance(sample, cleanAgainst.row(cleanAgainst.slotAt(i < cleanAgainstindex ? i : i + 1)), cleanAgainst.classIndex());
+		}
 		int nnIndicesSTM[] = nArgMin(Math.min(this.kOption.getValue(), distancesSTM.length), distancesSTM);
 
-		double distancesLTM[] = get1ToNDistances(cleanAgainst.get(cleanAgainstindex), toClean);
+		double distancesLTM[] = get1ToNDistances(sample, toClean);
 		int nnIndicesLTM[] = nArgMin(Math.min(this.kOption.getValue(), distancesLTM.length), distancesLTM);
 		double distThreshold = 0;
 		for (int nnIdx: nnIndicesSTM){
-			if (cleanAgainstTmp.get(nnIdx).classValue() == cleanAgainst.get(cleanAgainstindex).classValue()){
+			if (cleanAgainst.classValueAt(nnIdx < cleanAgainstindex ? nnIdx : nnIdx + 1) == sampleClass){
 				if (distancesSTM[nnIdx] > distThreshold){
 					distThreshold = distancesSTM[nnIdx];
 				}
 			}
 		}
-		List<Integer> delIndices = new ArrayList<>();
+		boolean[] marked = new boolean[toClean.size()];
+		boolean isCleaned = false;
         for (int nnIdx: nnIndicesLTM){
-			if (toClean.get(nnIdx).classValue() != cleanAgainst.get(cleanAgainstindex).classValue()) {
+			if (toClean.classValueAt(nnIdx) != sampleClass) {
 				if (distancesLTM[nnIdx] <= distThreshold){
-					delIndices.add(nnIdx);
+					marked[nnIdx] = true;
+					isCleaned = true;
 				}
 			}
 		}
-		Collections.sort(delIndices, Collections.reverseOrder());
-		for (Integer idx : delIndices)
-			toClean.delete(idx);
+		if (isCleaned)
+			toClean.removeMarked(marked);
 	}
     /**
      * Removes distance-based all instances from the input samples that contradict those in the STM.
      */
-	private void clean(Instances cleanAgainst, Instances toClean, boolean onlyLast) {
-		if (cleanAgainst.numInstances() > this.kOption.getValue() && toClean.numInstances() > 0){
+	private void clean(InstanceStore cleanAgainst, InstanceStore toClean, boolean onlyLast) {
+		if (cleanAgainst.size() > this.kOption.getValue() && toClean.size() > 0){
 			if (onlyLast){
-				cleanSingle(cleanAgainst, (cleanAgainst.numInstances()-1), toClean);
+				cleanSingle(cleanAgainst, (cleanAgainst.size()-1), toClean);
 			}else{
-				for (int i=0; i < cleanAgainst.numInstances(); i++){
+				for (int i=0; i < cleanAgainst.size(); i++){
 					cleanSingle(cleanAgainst, i, toClean);
 				}
 			}
@@ -366,22 +371,22 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
     /**
      * Returns the distance weighted votes.
      */
-	private double [] getDistanceWeightedVotes(double distances[], int[] nnIndices, Instances instances){
+	private double [] getDistanceWeightedVotes(double distances[], int[] nnIndices, InstanceStore instances){
 
 		double v[] = new double[this.maxClassValue +1];
         for (int nnIdx : nnIndices) {
-            v[(int)instances.instance(nnIdx).classValue()] += 1./Math.max(distances[nnIdx], 0.000000001);
+            v[(int)instances.classValueAt(nnIdx)] += 1./Math.max(distances[nnIdx], 0.000000001);
         }
 		return v;
 	}
 
-	private double [] getDistanceWeightedVotesCM(double distances[], int[] nnIndices, Instances stm, Instances ltm){
+	private double [] getDistanceWeightedVotesCM(double distances[], int[] nnIndices, InstanceStore stm, InstanceStore ltm){
 		double v[] = new double[this.maxClassValue +1];
         for (int nnIdx : nnIndices) {
-			if (nnIdx < stm.numInstances()) {
-				v[(int) stm.instance(nnIdx).classValue()] += 1. / Math.max(distances[nnIdx], 0.000000001);
+			if (nnIdx < stm.size()) {
+				v[(int) stm.classValueAt(nnIdx)] += 1. / Math.max(distances[nnIdx], 0.000000001);
 			} else{
-				v[(int) ltm.instance((nnIdx-stm.numInstances())).classValue()] += 1. / Math.max(distances[nnIdx], 0.000000001);
+				v[(int) ltm.classValueAt(nnIdx-stm.size())] += 1. / Math.max(distances[nnIdx], 0.000000001);
 			}
 		}
 		return v;
@@ -390,7 +395,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
     /**
      * Returns the distance weighted votes for the combined memory (CM).
      */
-	private double [] getCMVotes(double distancesSTM[], Instances stm, double distancesLTM[], Instances ltm){
+	private double [] getCMVotes(double distancesSTM[], InstanceStore stm, double distancesLTM[], InstanceStore ltm){
 		double[] distancesCM = new double[distancesSTM.length + distancesLTM.length];
 		System.arraycopy(distancesSTM, 0, distancesCM, 0, distancesSTM.length);
 		System.arraycopy(distancesLTM, 0, distancesCM, distancesSTM.length, distancesLTM.length);
@@ -413,21 +418,23 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
 		return maxVoteClass;
 	}
 
-	private int getLabelFct(double distances[], Instances instances, int startIdx, int endIdx){
+	private int getLabelFct(double distances[], InstanceStore instances, int startIdx, int endIdx){
 		int nnIndices[] = nArgMin(Math.min(this.kOption.getValue(), distances.length), distances, startIdx, endIdx);
 		double votes[] = getDistanceWeightedVotes(distances, nnIndices, instances);
 		return this.getClassFromVotes(votes);
 	}
 
     /**
-     * Returns the Euclidean distance.
+     * Returns the Euclidean distance over the input attributes.
      */
-	private double getDistance(Instance sample, Instance sample2)
+	private double getDistance(double[] sample, double[] sample2, int classIndex)
     {
         double sum=0;
-        for (int i=0; i<sample.numInputAttributes(); i++)
+        for (int i=0; i<sample.length; i++)
         {
-            double diff = sample.valueInputAttribute(i)-sample2.valueInputAttribute(i);
+            if (i == classIndex)
+                continue;
+            double diff = sample[i]-sample2[i];
             sum += diff*diff;
         }
         return Math.sqrt(sum);
@@ -436,14 +443,22 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
     /**
      * Returns the Euclidean distance between one sample and a collection of samples in an 1D-array.
      */
-	private double[] get1ToNDistances(Instance sample, Instances samples){
-		double distances[] = new double[samples.numInstances()];
-		for (int i=0; i<samples.numInstances(); i++){
-			distances[i] = this.getDistance(sample, samples.get(i));
+	private double[] get1ToNDistances(double[] sample, InstanceStore samples){
+		double distances[] = new double[samples.size()];
+		for (int i=0; i<samples.size(); i++){
+			distances[i] = this.getDistance(sample, samples.row(samples.slotAt(i)), samples.classIndex());
 		}
 		return distances;
 	}
 
+	private double[] get1ToNDistances(Instance sample, InstanceStore samples){
+		double values[] = new double[samples.numAttributes()];
+		for (int i=0; i<values.length; i++){
+			values[i] = sample.value(i);
+		}
+		return this.get1ToNDistances(values, samples);
+	}
+
     /**
      * Returns the n smallest indices of the smallest values (sorted).
      */
@@ -491,19 +506,19 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
     /**
      * Creates a prediction history incrementally by using the previous predictions.
      */
-	private List<Integer> getIncrementalTestTrainPredHistory(Instances instances, int startIdx, List<Integer> predictionHistory){
-		for (int i= startIdx + this.kOption.getValue() + predictionHistory.size(); i < instances.numInstances(); i++){
-			predictionHistory.add((this.getLabelFct(distanceMatrixSTM[i], instances, startIdx,  i-1)==instances.get(i).classValue()) ? 1 : 0);
+	private List<Integer> getIncrementalTestTrainPredHistory(InstanceStore instances, int startIdx, List<Integer> predictionHistory){
+		for (int i= startIdx + this.kOption.getValue() + predictionHistory.size(); i < instances.size(); i++){
+			predictionHistory.add((this.getLabelFct(distanceMatrixSTM[i], instances, startIdx,  i-1)==instances.classValueAt(i)) ? 1 : 0);
 		}
 		return predictionHistory;
 	}
     /**
      * Creates a prediction history from the scratch.
      */
-	private List<Integer> getTestTrainPredHistory(Instances instances, int startIdx){
+	private List<Integer> getTestTrainPredHistory(InstanceStore instances, int startIdx){
 		List<Integer> predictionHistory = new ArrayList<>();
-		for (int i= startIdx + this.kOption.getValue(); i < instances.numInstances(); i++){
-			predictionHistory.add((this.getLabelFct(distanceMatrixSTM[i], instances, startIdx, i-1)==instances.get(i).classValue()) ? 1 : 0);
+		for (int i= startIdx + this.kOption.getValue(); i < instances.size(); i++){
+			predictionHistory.add((this.getLabelFct(distanceMatrixSTM[i], instances, startIdx, i-1)==instances.classValueAt(i)) ? 1 : 0);
 		}
 		return predictionHistory;
 	}
@@ -512,7 +527,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
      */
 	private int getMinErrorRateWindowSize() {
 
-		int numSamples = this.stm.numInstances();
+		int numSamples = this.stm.size();
 		if (numSamples < 2 * this.minSTMSizeOption.getValue()) {
 			return numSamples;
 		} else {
@@ -563,7 +578,7 @@ public class SAMkNN extends AbstractClassifier implements MultiClassClassifier {
      * Returns the window size with the minimum Interleaved test-train error, using bisection (without recalculation using an incremental approximation).
      */
 	private int getMinErrorRateWindowSizeIncremental() {
-		int numSamples = this.stm.numInstances();
+		int numSamples = this.stm.size();
 		if (numSamples < 2 * this.minSTMSizeOption.getValue()) {
 			return numSamples;
 		} else {
@@ -17,12 +17,11 @@
  */
 package moa.classifiers.lazy;
 
-import java.io.StringReader;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
-import moa.classifiers.lazy.neighboursearch.KDTree;
-import moa.classifiers.lazy.neighboursearch.LinearNNSearch;
-import moa.classifiers.lazy.neighboursearch.NearestNeighbourSearch;
+import moa.classifiers.lazy.neighboursearch.IncrementalKDTree;
+import moa.classifiers.lazy.neighboursearch.IncrementalLinearNNSearch;
+import moa.classifiers.lazy.neighboursearch.InstanceStore;
 import moa.core.Measurement;
 import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
@@ -63,13 +62,24 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier {
         return "kNN: special.";
     }
 
-    protected Instances window; 
+    /**
+     * The stored instances and the index over them, kept across predictions
+     * and updated as instances are added and deleted. Predicting writes to
+     * the search too, so a kNN must not predict on two threads at once.
+     */
+    protected IncrementalLinearNNSearch search;
+
+    protected IncrementalLinearNNSearch newSearch(Instances header) {
+		if (this.nearestNeighbourSearchOption.getChosenIndex() == 0) {
+			return new IncrementalLinearNNSearch(header);
+		}
+		return new IncrementalKDTree(header);
+    }
 
 	@Override
 	public void setModelContext(InstancesHeader context) {
 		try {
-			this.window = new Instances(context,0); //new StringReader(context.toString())
-			this.window.setClassIndex(context.classIndex());
+			this.search = this.newSearch(context);
 		} catch(Exception e) {
 			System.err.println("Error: no Model Context available.");
 			e.printStackTrace();
@@ -79,44 +89,34 @@ public class kNN extends AbstractClassifier implements MultiClassClassifier {
 
     @Override
     public void resetLearningImpl() {
-		this.window = null;
+		this.search = null;
     }
 
     @Override
     public void trainOnInstanceImpl(Instance inst) {
 		if (inst.classValue() > C)
 			C = (int)inst.classValue();
-		if (this.window == null) {
-			this.window = new Instances(inst.dataset());
+		if (this.search == null) {
+			this.search = this.newSearch(inst.dataset());
 		}
-		if (this.limitOption.getValue() <= this.window.numInstances()) {
-			this.window.delete(0);
+		if (this.limitOption.getValue() <= this.search.getStore().size()) {
+			this.search.removeOldest();
 		}
-		this.window.add(inst);
+		this.search.add(inst);
     }
 
 	@Override
     public double[] getVotesForInstance(Instance inst) {
+		if (this.search == null) {
+			return new double[inst.numClasses()];
+		}
 		double v[] = new double[C+1];
-		try {
-			NearestNeighbourSearch search;
-			if (this.nearestNeighbourSearchOption.getChosenIndex()== 0) {
-				search = new LinearNNSearch(this.window);  
-			} else {
-				search = new KDTree();
-				search.setInstances(this.window);
-			}	
-			if (this.window.numInstances()>0) {	
-				Instances neighbours = search.kNearestNeighbours(inst,Math.min(kOption.getValue(),this.window.numInstances()));
-				for(int i = 0; i < neighbours.numInstances(); i++) {
-					v[(int)neighbours.instance(i).classValue()]++;
-				}
+		InstanceStore store = this.search.getStore();
+		if (store.size() > 0) {
+			int[] neighbours = this.search.kNearestNeighbours(inst, kOption.getValue());
+			for (int slot : neighbours) {
+				v[(int)store.classValue(slot)]++;
 			}
-		} catch(Exception e) {
-			//System.err.println("Error: kNN search failed.");
-			//e.printStackTrace();
-			//System.exit(1);
-			return new double[inst.numClasses()];
 		}
 		return v;
     }
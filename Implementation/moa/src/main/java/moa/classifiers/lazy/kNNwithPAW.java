@@ -20,7 +20,6 @@ package moa.classifiers.lazy;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ADWIN;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * k Nearest Neighbor ADAPTIVE with PAW.<p>
@@ -48,7 +47,7 @@ public class kNNwithPAW extends kNN implements MultiClassClassifier {
 
     @Override
     public void resetLearningImpl() {
-        this.window = null;
+        this.search = null;
         this.prob = Math.pow(2.0, -1.0 / this.limitOption.getValue());
     }
 
@@ -57,16 +56,25 @@ public class kNNwithPAW extends kNN implements MultiClassClassifier {
         if (inst.classValue() > C) {
             C = (int) inst.classValue();
         }
-        if (this.window == null) {
-            this.window = new Instances(inst.dataset());
+        if (this.search == null) {
+            this.search = this.newSearch(inst.dataset());
         }
 
-        for (int i = 0; i < this.window.size(); i++) {
+        // Deleting from a list while walking it skips the instance after each
+        // deleted one: the same instances are marked here and deleted at once.
+        int size = this.search.getStore().size();
+        boolean[] marked = new boolean[size];
+        int removed = 0;
+        for (int i = 0; i < size - removed; i++) {
             if (this.classifierRandom.nextDouble() > this.prob) {
-                this.window.delete(i);
+                marked[i + removed] = true;
+                removed++;
             }
         }
-        this.window.add(inst);
+        if (removed > 0) {
+            this.search.removeMarked(marked);
+        }
+        this.search.add(inst);
 
     }
 
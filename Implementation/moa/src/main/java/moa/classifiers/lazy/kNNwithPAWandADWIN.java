@@ -17,12 +17,10 @@
  */
 package moa.classifiers.lazy;
 
-import java.util.ArrayList;
-
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ADWIN;
+import moa.classifiers.lazy.neighboursearch.InstanceStore;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * k Nearest Neighbor ADAPTIVE with ADWIN+PAW.<p>
@@ -43,8 +41,6 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
 
     protected int marker = 0;
 
-    protected ArrayList<Integer> timeStamp;
-
     @Override
     public String getPurposeString() {
         return "kNNwithPAWandADWIN: kNN with Probabilistic Approximate Window and ADWIN";
@@ -54,7 +50,7 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
 
     @Override
     public void resetLearningImpl() {
-        this.window = null;
+        this.search = null;
         this.adwin = new ADWIN();
         this.prob = Math.pow(2.0, -1.0 / this.limitOption.getValue());
         this.time = 0;
@@ -68,32 +64,42 @@ public class kNNwithPAWandADWIN extends kNN implements MultiClassClassifier {
             C = (int) inst.classValue();
         }
         // ADWIN
-        if (this.window == null) {
-            this.window = new Instances(inst.dataset());
+        if (this.search == null) {
+            this.search = this.newSearch(inst.dataset());
         }
 
-        if (this.timeStamp == null) {
-            this.timeStamp = new ArrayList<Integer>(10);
-        }
-        for (int i = 0; i < this.window.size(); i++) {
+        // The store numbers instances in arrival order, in step with time.
+        InstanceStore store = this.search.getStore();
+        int size = store.size();
+        boolean[] marked = new boolean[size];
+        int removed = 0;
+        for (int i = 0; i < size - removed; i++) {
             if (this.classifierRandom.nextDouble() > this.prob) {
-                this.window.delete(i);
-                this.timeStamp.remove(i);
+                marked[i + removed] = true;
+                removed++;
             }
         }
-        this.window.add(inst);
-        this.timeStamp.add(this.time);
+        if (removed > 0) {
+            this.search.removeMarked(marked);
+        }
+        this.search.add(inst);
         this.time++;
         boolean correctlyClassifies = this.correctlyClassifies(inst);
         if (this.adwin.setInput(correctlyClassifies ? 0 : 1)) {
             //Change
-            int size = (int) this.adwin.getWidth();
-            for (int i = 0; i < this.window.size(); i++) {
-                if (this.timeStamp.get(i) < this.time - size) {
-                    this.window.delete(i);
-                    this.timeStamp.remove(i);
+            int width = (int) this.adwin.getWidth();
+            size = store.size();
+            marked = new boolean[size];
+            removed = 0;
+            for (int i = 0; i < size - removed; i++) {
+                if (store.arrivalAt(i + removed) < this.time - width) {
+                    marked[i + removed] = true;
+                    removed++;
                 }
             }
+            if (removed > 0) {
+                this.search.removeMarked(marked);
+            }
         }
 
     }
@@ -0,0 +1,435 @@
+/*
+ *    IncrementalKDTree.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package moa.classifiers.lazy.neighboursearch;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * KD-tree over an InstanceStore that is updated as rows come and go instead
+ * of being rebuilt for every query.<br/>
+ * Nodes split on the median of the numeric attribute with the widest
+ * normalized spread and keep a box of the raw values below them. Boxes only
+ * grow on insertion and are left as they are on removal, so they stay valid
+ * bounds; the tree is rebuilt once it has seen as many updates as it had rows
+ * when it was built.<br/>
+ * The search returns exactly what IncrementalLinearNNSearch returns. The bound
+ * of a box is computed with the same normalization and in the same attribute
+ * order as the distance, so it never exceeds the distance of a row in the box.
+ * Rows or queries with missing numeric values fall back to the linear scan.<br/>
+ * A query may build the tree and memoizes the distances of the slots it
+ * visits, so queries are not thread-safe.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class IncrementalKDTree extends IncrementalLinearNNSearch {
+
+  private static final long serialVersionUID = 1L;
+
+  /** the number of rows a leaf is split at. */
+  protected int leafSize = 32;
+
+  protected Node root;
+
+  /** the leaf holding each slot, while the tree is maintained. */
+  protected Node[] leafOfSlot = new Node[16];
+
+  protected int sizeAtBuild;
+
+  protected int updatesSinceBuild;
+
+  /**
+   * the query whose distance of each slot is in distances. Kept across
+   * queries so that a query need not clear it, which is why queries are not
+   * thread-safe.
+   */
+  protected int[] visited = new int[16];
+
+  protected int numQueries;
+
+  /**
+   * @param header the header of the instances to search
+   */
+  public IncrementalKDTree(Instances header) {
+    super(header);
+  }
+
+  public int getLeafSize() {
+    return this.leafSize;
+  }
+
+  public void setLeafSize(int leafSize) {
+    this.leafSize = leafSize;
+    this.root = null;
+  }
+
+  @Override
+  protected int[] search(double[] query, int k) {
+    if (this.store.hasMissingValues() || this.hasMissingValues(query)) {
+      return super.search(query, k);
+    }
+    if (this.root == null) {
+      this.build();
+    }
+    if (this.distances.length < this.store.numSlots()) {
+      this.distances = new double[Math.max(this.store.numSlots(), 2 * this.distances.length)];
+    }
+    if (this.visited.length < this.distances.length) {
+      this.visited = new int[this.distances.length];
+    }
+    this.numQueries++;
+    double[] normalized = new double[query.length];
+    for (int i = 0; i < query.length; i++) {
+      normalized[i] = this.isBounded(i) ? this.store.norm(query[i], i) : 0;
+    }
+    KthNearest nearest = new KthNearest(k);
+    this.findKth(this.root, query, normalized, nearest);
+    Neighbours neighbours = new Neighbours(k);
+    this.collect(this.root, query, normalized, nearest.get(), neighbours);
+    return neighbours.toArray();
+  }
+
+  protected void findKth(Node node, double[] query, double[] normalized, KthNearest nearest) {
+    if (node.isLeaf()) {
+      for (int j = 0; j < node.count; j++) {
+        nearest.offer(this.distance(query, node.slots[j]));
+      }
+      return;
+    }
+    double leftBound = this.lowerBound(node.left, normalized);
+    double rightBound = this.lowerBound(node.right, normalized);
+    Node first = leftBound <= rightBound ? node.left : node.right;
+    Node second = first == node.left ? node.right : node.left;
+    if (Math.min(leftBound, rightBound) <= nearest.get()) {
+      this.findKth(first, query, normalized, nearest);
+    }
+    if (Math.max(leftBound, rightBound) <= nearest.get()) {
+      this.findKth(second, query, normalized, nearest);
+    }
+  }
+
+  protected void collect(Node node, double[] query, double[] normalized, double kth, Neighbours neighbours) {
+    if (this.lowerBound(node, normalized) > kth) {
+      return;
+    }
+    if (!node.isLeaf()) {
+      this.collect(node.left, query, normalized, kth, neighbours);
+      this.collect(node.right, query, normalized, kth, neighbours);
+      return;
+    }
+    for (int j = 0; j < node.count; j++) {
+      int slot = node.slots[j];
+      if (this.distance(query, slot) <= kth) {
+        neighbours.add(slot);
+      }
+    }
+  }
+
+  /*
+   * The squared distance of a slot to the query, computed once per query.
+   */
+  protected double distance(double[] query, int slot) {
+    if (this.visited[slot] != this.numQueries) {
+      this.visited[slot] = this.numQueries;
+      this.distances[slot] = this.store.squaredDistance(query, slot);
+    }
+    return this.distances[slot];
+  }
+
+  /*
+   * Sums the same terms as InstanceStore.squaredDistance() with each numeric
+   * difference replaced by the one to the nearest edge of the box and each
+   * nominal difference by 0. Normalization, subtraction, squaring and
+   * addition are all monotone, so the sum never exceeds the distance of a row
+   * in the box.
+   */
+  protected double lowerBound(Node node, double[] normalized) {
+    if (node.count == 0) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double bound = 0;
+    for (int i = 0; i < normalized.length; i++) {
+      if (!this.isBounded(i)) {
+        continue;
+      }
+      double diff;
+      double lo = this.store.norm(node.lo[i], i);
+      if (normalized[i] < lo) {
+        diff = normalized[i] - lo;
+      } else {
+        double hi = this.store.norm(node.hi[i], i);
+        diff = normalized[i] > hi ? normalized[i] - hi : 0;
+      }
+      bound += diff * diff;
+    }
+    return bound;
+  }
+
+  protected boolean isBounded(int attribute) {
+    return attribute != this.store.classIndex() && !this.store.isNominal(attribute);
+  }
+
+  protected boolean hasMissingValues(double[] query) {
+    for (int i = 0; i < query.length; i++) {
+      if (this.isBounded(i) && Double.isNaN(query[i])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  protected void added(int slot) {
+    if (this.root == null) {
+      return;
+    }
+    if (this.isStale() || this.store.hasMissingValues()) {
+      this.root = null;
+      return;
+    }
+    double[] row = this.store.row(slot);
+    Node node = this.root;
+    while (!node.isLeaf()) {
+      node.include(row);
+      node.count++;
+      node = row[node.splitAttribute] <= node.splitValue ? node.left : node.right;
+    }
+    node.include(row);
+    node.add(slot);
+    this.setLeaf(slot, node);
+    if (node.count > node.limit) {
+      this.split(node);
+    }
+  }
+
+  @Override
+  protected void removed(int slot) {
+    if (this.root == null) {
+      return;
+    }
+    if (this.isStale()) {
+      this.root = null;
+      return;
+    }
+    Node leaf = this.leafOfSlot[slot];
+    leaf.remove(slot);
+    // Counts above the leaf only decide whether a box can be skipped.
+    Node node = this.root;
+    double[] row = this.store.row(slot);
+    while (node != leaf) {
+      node.count--;
+      node = row[node.splitAttribute] <= node.splitValue ? node.left : node.right;
+    }
+  }
+
+  protected boolean isStale() {
+    return ++this.updatesSinceBuild > Math.max(this.sizeAtBuild, this.leafSize);
+  }
+
+  protected void build() {
+    int[] slots = new int[this.store.size()];
+    for (int position = 0; position < slots.length; position++) {
+      slots[position] = this.store.slotAt(position);
+    }
+    this.root = new Node(this.store.numAttributes());
+    this.build(this.root, slots, 0, slots.length);
+    this.sizeAtBuild = slots.length;
+    this.updatesSinceBuild = 0;
+  }
+
+  /*
+   * Splits an overflowing leaf in place, or lets it hold twice as many rows
+   * if its rows cannot be split.
+   */
+  protected void split(Node leaf) {
+    int[] slots = Arrays.copyOf(leaf.slots, leaf.count);
+    int limit = leaf.limit;
+    this.build(leaf, slots, 0, slots.length);
+    if (leaf.isLeaf()) {
+      leaf.limit = 2 * limit;
+    }
+  }
+
+  protected void build(Node node, int[] slots, int from, int to) {
+    node.reset();
+    for (int j = from; j < to; j++) {
+      node.include(this.store.row(slots[j]));
+    }
+    node.count = to - from;
+    int attribute = this.widestAttribute(node);
+    if (to - from > this.leafSize && attribute >= 0) {
+      double[] values = new double[to - from];
+      for (int j = from; j < to; j++) {
+        values[j - from] = this.store.row(slots[j])[attribute];
+      }
+      Arrays.sort(values);
+      double splitValue = values[(values.length - 1) / 2];
+      int middle = from;
+      for (int j = from; j < to; j++) {
+        if (this.store.row(slots[j])[attribute] <= splitValue) {
+          int slot = slots[j];
+          slots[j] = slots[middle];
+          slots[middle++] = slot;
+        }
+      }
+      if (middle < to) {
+        node.splitAttribute = attribute;
+        node.splitValue = splitValue;
+        node.left = new Node(this.store.numAttributes());
+        node.right = new Node(this.store.numAttributes());
+        this.build(node.left, slots, from, middle);
+        this.build(node.right, slots, middle, to);
+        return;
+      }
+    }
+    node.slots = Arrays.copyOfRange(slots, from, Math.max(to, from + this.leafSize));
+    node.limit = Math.max(this.leafSize, to - from);
+    for (int j = from; j < to; j++) {
+      this.setLeaf(slots[j], node);
+    }
+  }
+
+  /*
+   * The numeric attribute whose box is widest once normalized, or -1 if every
+   * box is a point.
+   */
+  protected int widestAttribute(Node node) {
+    int widest = -1;
+    double widestSpread = 0;
+    for (int i = 0; i < node.lo.length; i++) {
+      if (!this.isBounded(i) || node.lo[i] > node.hi[i]) {
+        continue;
+      }
+      double spread = this.store.norm(node.hi[i], i) - this.store.norm(node.lo[i], i);
+      if (spread > widestSpread) {
+        widest = i;
+        widestSpread = spread;
+      }
+    }
+    return widest;
+  }
+
+  protected void setLeaf(int slot, Node leaf) {
+    if (slot >= this.leafOfSlot.length) {
+      this.leafOfSlot = Arrays.copyOf(this.leafOfSlot,
+          Math.max(slot + 1, 2 * this.leafOfSlot.length));
+    }
+    this.leafOfSlot[slot] = leaf;
+  }
+
+  /*
+   * The slots collected by one query.
+   */
+  protected static class Neighbours {
+
+    protected int[] slots;
+
+    protected int size;
+
+    protected Neighbours(int k) {
+      this.slots = new int[Math.max(k, 1)];
+    }
+
+    protected void add(int slot) {
+      if (this.size == this.slots.length) {
+        this.slots = Arrays.copyOf(this.slots, 2 * this.size);
+      }
+      this.slots[this.size++] = slot;
+    }
+
+    protected int[] toArray() {
+      return Arrays.copyOf(this.slots, this.size);
+    }
+  }
+
+  protected static class Node implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** the box of the non-missing values of the rows below. */
+    protected final double[] lo;
+
+    protected final double[] hi;
+
+    /** the number of rows below. */
+    protected int count;
+
+    protected int splitAttribute = -1;
+
+    protected double splitValue;
+
+    protected Node left;
+
+    protected Node right;
+
+    /** the slots of a leaf, and the count it is split at. */
+    protected int[] slots;
+
+    protected int limit;
+
+    protected Node(int numAttributes) {
+      this.lo = new double[numAttributes];
+      this.hi = new double[numAttributes];
+    }
+
+    protected boolean isLeaf() {
+      return this.splitAttribute < 0;
+    }
+
+    protected void reset() {
+      Arrays.fill(this.lo, Double.POSITIVE_INFINITY);
+      Arrays.fill(this.hi, Double.NEGATIVE_INFINITY);
+      this.splitAttribute = -1;
+      this.left = null;
+      this.right = null;
+      this.slots = null;
+    }
+
+    protected void include(double[] row) {
+      for (int i = 0; i < row.length; i++) {
+        if (row[i] < this.lo[i]) {
+          this.lo[i] = row[i];
+        }
+        if (row[i] > this.hi[i]) {
+          this.hi[i] = row[i];
+        }
+      }
+    }
+
+    protected void add(int slot) {
+      if (this.count == this.slots.length) {
+        this.slots = Arrays.copyOf(this.slots, 2 * this.count);
+      }
+      this.slots[this.count++] = slot;
+    }
+
+    protected void remove(int slot) {
+      for (int j = 0; j < this.count; j++) {
+        if (this.slots[j] == slot) {
+          this.slots[j] = this.slots[--this.count];
+          return;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ *    IncrementalLinearNNSearch.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package moa.classifiers.lazy.neighboursearch;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Brute force nearest neighbour search over an InstanceStore that lives
+ * across predictions: rows are added and removed through the search, which
+ * subclasses use to keep an index up to date.<br/>
+ * The neighbours are those LinearNNSearch with EuclideanDistance returns on an
+ * Instances with the same rows: the k nearest ones plus every row as near as
+ * the k-th one.<br/>
+ * A search is not thread-safe, not even for queries alone: a query reuses the
+ * distance buffers of the search and may recompute the attribute ranges of
+ * the store. Callers predicting in parallel keep all the queries of a search
+ * on one thread at a time.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class IncrementalLinearNNSearch implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected InstanceStore store;
+
+  /** the squared distance of each slot to the last query. */
+  protected double[] distances = new double[16];
+
+  /**
+   * @param header the header of the instances to search
+   */
+  public IncrementalLinearNNSearch(Instances header) {
+    this.store = new InstanceStore(header);
+  }
+
+  public InstanceStore getStore() {
+    return this.store;
+  }
+
+  /**
+   * Adds an instance as the newest row of the store.
+   *
+   * @param inst the instance
+   */
+  public void add(Instance inst) {
+    this.added(this.store.add(inst));
+  }
+
+  /**
+   * Removes the oldest row of the store.
+   */
+  public void removeOldest() {
+    this.removed(this.store.slotAt(0));
+    this.store.removeOldest();
+  }
+
+  /**
+   * Removes the rows of the store at the marked positions.
+   *
+   * @param marked whether to remove the row at each position
+   */
+  public void removeMarked(boolean[] marked) {
+    for (int position = 0; position < this.store.size(); position++) {
+      if (marked[position]) {
+        this.removed(this.store.slotAt(position));
+      }
+    }
+    this.store.removeMarked(marked);
+  }
+
+  /**
+   * Finds the k nearest rows of the store, and every further row as near as
+   * the k-th one.
+   *
+   * @param target the query
+   * @param k the number of neighbours
+   * @return the slots of the neighbours, in no particular order
+   */
+  public int[] kNearestNeighbours(Instance target, int k) {
+    if (k >= this.store.size()) {
+      int[] all = new int[this.store.size()];
+      for (int position = 0; position < all.length; position++) {
+        all[position] = this.store.slotAt(position);
+      }
+      return all;
+    }
+    double[] query = new double[this.store.numAttributes()];
+    for (int i = 0; i < query.length; i++) {
+      query[i] = target.value(i);
+    }
+    return this.search(query, k);
+  }
+
+  protected int[] search(double[] query, int k) {
+    if (this.distances.length < this.store.numSlots()) {
+      this.distances = new double[Math.max(this.store.numSlots(), 2 * this.distances.length)];
+    }
+    KthNearest nearest = new KthNearest(k);
+    for (int position = 0; position < this.store.size(); position++) {
+      int slot = this.store.slotAt(position);
+      double distance = this.store.squaredDistance(query, slot);
+      this.distances[slot] = distance;
+      nearest.offer(distance);
+    }
+    double kth = nearest.get();
+    int count = 0;
+    int[] neighbours = new int[k];
+    for (int position = 0; position < this.store.size(); position++) {
+      int slot = this.store.slotAt(position);
+      if (this.distances[slot] <= kth) {
+        if (count == neighbours.length) {
+          neighbours = Arrays.copyOf(neighbours, 2 * count);
+        }
+        neighbours[count++] = slot;
+      }
+    }
+    return Arrays.copyOf(neighbours, count);
+  }
+
+  /**
+   * Called after a row is added to the store.
+   *
+   * @param slot the slot of the row
+   */
+  protected void added(int slot) {
+  }
+
+  /**
+   * Called before a row is removed from the store.
+   *
+   * @param slot the slot of the row
+   */
+  protected void removed(int slot) {
+  }
+
+  /**
+   * Max-heap of the k smallest distances offered.
+   */
+  protected static class KthNearest {
+
+    protected final double[] heap;
+
+    protected int size;
+
+    protected KthNearest(int k) {
+      this.heap = new double[k];
+    }
+
+    protected boolean isFull() {
+      return this.size == this.heap.length;
+    }
+
+    /**
+     * @return the k-th smallest distance, or infinity while fewer than k were offered
+     */
+    protected double get() {
+      return this.isFull() ? this.heap[0] : Double.POSITIVE_INFINITY;
+    }
+
+    protected void offer(double distance) {
+      if (!this.isFull()) {
+        int i = this.size++;
+        while (i > 0 && this.heap[(i - 1) / 2] < distance) {
+          this.heap[i] = this.heap[(i - 1) / 2];
+          i = (i - 1) / 2;
+        }
+        this.heap[i] = distance;
+      } else if (distance < this.heap[0]) {
+        int i = 0;
+        while (true) {
+          int child = 2 * i + 1;
+          if (child >= this.size) {
+            break;
+          }
+          if (child + 1 < this.size && this.heap[child + 1] > this.heap[child]) {
+            child++;
+          }
+          if (this.heap[child] <= distance) {
+            break;
+          }
+          this.heap[i] = this.heap[child];
+          i = child;
+        }
+        this.heap[i] = distance;
+      }
+    }
+  }
+}
@@ -0,0 +1,401 @@
+/*
+ *    InstanceStore.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package moa.classifiers.lazy.neighboursearch;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+/**
+ * Window of instances stored as primitive rows, oldest first.<br/>
+ * Each row lives in a fixed slot until it is removed, so a search index can
+ * refer to rows by slot, while the arrival order is kept in a ring buffer of
+ * slots. Removing the oldest row is O(1) and removing any set of rows is one
+ * pass over the ring.<br/>
+ * The store also keeps the attribute ranges of its rows, from which distances
+ * are normalized exactly like EuclideanDistance over an Instances with the
+ * same rows. Ranges invalidated by a removal are recomputed by the next
+ * distance, so reading distances is not thread-safe either.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class InstanceStore implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  protected final int numAttributes;
+
+  protected final int classIndex;
+
+  protected final boolean[] isNominal;
+
+  /** the attribute values of each slot, including the class. */
+  protected double[][] rows = new double[16][];
+
+  /** the arrival number of each slot. */
+  protected long[] arrivals = new long[16];
+
+  /** whether the row of a slot has a missing numeric input value. */
+  protected boolean[] hasMissing = new boolean[16];
+
+  protected int[] freeSlots = new int[16];
+
+  protected int numFreeSlots;
+
+  /** the slots in arrival order, from head. */
+  protected int[] order = new int[16];
+
+  protected int head;
+
+  protected int size;
+
+  /** the number of slots ever used. */
+  protected int numSlots;
+
+  protected long nextArrival;
+
+  protected int numRowsWithMissing;
+
+  /** per attribute minimum and maximum of the non-missing values. */
+  protected double[] min;
+
+  protected double[] max;
+
+  protected boolean rangesValid = true;
+
+  /**
+   * @param header the header of the stored instances
+   */
+  public InstanceStore(Instances header) {
+    this.numAttributes = header.numAttributes();
+    this.classIndex = header.classIndex();
+    this.isNominal = new boolean[this.numAttributes];
+    for (int i = 0; i < this.numAttributes; i++) {
+      this.isNominal[i] = header.attribute(i).isNominal();
+    }
+    this.min = new double[this.numAttributes];
+    this.max = new double[this.numAttributes];
+    Arrays.fill(this.min, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.max, Double.NEGATIVE_INFINITY);
+  }
+
+  public int numAttributes() {
+    return this.numAttributes;
+  }
+
+  public int classIndex() {
+    return this.classIndex;
+  }
+
+  public boolean isNominal(int attribute) {
+    return this.isNominal[attribute];
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * @return the number of slots, an upper bound of every slot
+   */
+  public int numSlots() {
+    return this.numSlots;
+  }
+
+  /**
+   * @param position the position from the oldest row, from 0
+   * @return the slot of the row
+   */
+  public int slotAt(int position) {
+    int index = this.head + position;
+    return this.order[index < this.order.length ? index : index - this.order.length];
+  }
+
+  public double[] row(int slot) {
+    return this.rows[slot];
+  }
+
+  public double classValue(int slot) {
+    return this.rows[slot][this.classIndex];
+  }
+
+  public double classValueAt(int position) {
+    return this.classValue(this.slotAt(position));
+  }
+
+  /**
+   * @param slot the slot of a row
+   * @return the number of rows added before it since the store was created
+   */
+  public long arrival(int slot) {
+    return this.arrivals[slot];
+  }
+
+  public long arrivalAt(int position) {
+    return this.arrival(this.slotAt(position));
+  }
+
+  /**
+   * @return whether some row has a missing numeric input value
+   */
+  public boolean hasMissingValues() {
+    return this.numRowsWithMissing > 0;
+  }
+
+  /**
+   * Adds an instance as the newest row.
+   *
+   * @param inst the instance, whose values are copied
+   * @return the slot of the row
+   */
+  public int add(Instance inst) {
+    int slot = this.newSlot();
+    double[] row = this.rows[slot];
+    if (row == null) {
+      row = new double[this.numAttributes];
+      this.rows[slot] = row;
+    }
+    for (int i = 0; i < this.numAttributes; i++) {
+      row[i] = inst.value(i);
+    }
+    this.added(slot);
+    return slot;
+  }
+
+  /**
+   * Adds a row of values as the newest row.
+   *
+   * @param values the attribute values, including the class, which are copied
+   * @return the slot of the row
+   */
+  public int add(double[] values) {
+    int slot = this.newSlot();
+    if (this.rows[slot] == null) {
+      this.rows[slot] = values.clone();
+    } else {
+      System.arraycopy(values, 0, this.rows[slot], 0, this.numAttributes);
+    }
+    this.added(slot);
+    return slot;
+  }
+
+  /**
+   * Removes the oldest row.
+   *
+   * @return the slot of the removed row, which may be reused by the next add
+   */
+  public int removeOldest() {
+    int slot = this.order[this.head];
+    this.head = this.head + 1 == this.order.length ? 0 : this.head + 1;
+    this.size--;
+    this.removed(slot);
+    return slot;
+  }
+
+  /**
+   * Removes the rows at the marked positions, keeping the order of the others.
+   *
+   * @param marked whether to remove the row at each position, at least size() long
+   */
+  public void removeMarked(boolean[] marked) {
+    int kept = 0;
+    for (int position = 0; position < this.size; position++) {
+      int slot = this.slotAt(position);
+      if (marked[position]) {
+        this.removed(slot);
+      } else {
+        int index = this.head + kept;
+        this.order[index < this.order.length ? index : index - this.order.length] = slot;
+        kept++;
+      }
+    }
+    this.size = kept;
+  }
+
+  /**
+   * Gets the squared normalized Euclidean distance of a query to a row, as
+   * EuclideanDistance computes it before taking the square root. The class
+   * attribute is skipped.
+   *
+   * @param query the attribute values of the query
+   * @param slot the slot of the row
+   * @return the squared distance
+   */
+  public double squaredDistance(double[] query, int slot) {
+    this.validateRanges();
+    double[] row = this.rows[slot];
+    double distance = 0;
+    for (int i = 0; i < this.numAttributes; i++) {
+      if (i == this.classIndex) {
+        continue;
+      }
+      double diff = this.difference(i, query[i], row[i]);
+      distance += diff * diff;
+    }
+    return distance;
+  }
+
+  /*
+   * NormalizableDistance.difference() with normalization.
+   */
+  protected double difference(int index, double val1, double val2) {
+    boolean isMissing1 = Double.isNaN(val1);
+    boolean isMissing2 = Double.isNaN(val2);
+    if (this.isNominal[index]) {
+      return isMissing1 || isMissing2 || (int) val1 != (int) val2 ? 1 : 0;
+    }
+    if (isMissing1 || isMissing2) {
+      if (isMissing1 && isMissing2) {
+        return 1;
+      }
+      double diff = this.normalize(isMissing2 ? val1 : val2, index);
+      return diff < 0.5 ? 1.0 - diff : diff;
+    }
+    return this.normalize(val1, index) - this.normalize(val2, index);
+  }
+
+  /**
+   * Normalizes a value by the current range of an attribute, as
+   * NormalizableDistance does.
+   *
+   * @param x the value
+   * @param index the attribute
+   * @return the normalized value, 0 for an attribute with a single value
+   */
+  public double norm(double x, int index) {
+    this.validateRanges();
+    return this.normalize(x, index);
+  }
+
+  /*
+   * norm() once the ranges are known to be valid.
+   */
+  protected double normalize(double x, int index) {
+    double min = this.min[index];
+    double max = this.max[index];
+    if (max == min) {
+      return 0;
+    }
+    // No values at all: NormalizableDistance keeps an infinite width.
+    double width = min > max ? Double.POSITIVE_INFINITY : max - min;
+    return (x - min) / width;
+  }
+
+  protected int newSlot() {
+    int slot;
+    if (this.numFreeSlots > 0) {
+      slot = this.freeSlots[--this.numFreeSlots];
+    } else {
+      if (this.numSlots == this.rows.length) {
+        this.grow();
+      }
+      slot = this.numSlots++;
+    }
+    if (this.size == this.order.length) {
+      this.grow();
+    }
+    int index = this.head + this.size;
+    this.order[index < this.order.length ? index : index - this.order.length] = slot;
+    this.size++;
+    this.arrivals[slot] = this.nextArrival++;
+    return slot;
+  }
+
+  protected void grow() {
+    int capacity = this.rows.length * 2;
+    this.rows = Arrays.copyOf(this.rows, capacity);
+    this.arrivals = Arrays.copyOf(this.arrivals, capacity);
+    this.hasMissing = Arrays.copyOf(this.hasMissing, capacity);
+    this.freeSlots = Arrays.copyOf(this.freeSlots, capacity);
+    int[] order = new int[capacity];
+    for (int position = 0; position < this.size; position++) {
+      order[position] = this.slotAt(position);
+    }
+    this.order = order;
+    this.head = 0;
+  }
+
+  protected void added(int slot) {
+    double[] row = this.rows[slot];
+    boolean hasMissing = false;
+    for (int i = 0; i < this.numAttributes; i++) {
+      double value = row[i];
+      if (Double.isNaN(value)) {
+        hasMissing |= i != this.classIndex && !this.isNominal[i];
+      } else if (this.rangesValid) {
+        if (value < this.min[i]) {
+          this.min[i] = value;
+        }
+        if (value > this.max[i]) {
+          this.max[i] = value;
+        }
+      }
+    }
+    this.hasMissing[slot] = hasMissing;
+    if (hasMissing) {
+      this.numRowsWithMissing++;
+    }
+  }
+
+  protected void removed(int slot) {
+    double[] row = this.rows[slot];
+    if (this.rangesValid) {
+      for (int i = 0; i < this.numAttributes; i++) {
+        if (row[i] == this.min[i] || row[i] == this.max[i]) {
+          // Recomputed when next needed.
+          this.rangesValid = false;
+          break;
+        }
+      }
+    }
+    if (this.hasMissing[slot]) {
+      this.numRowsWithMissing--;
+    }
+    this.freeSlots[this.numFreeSlots++] = slot;
+  }
+
+  /*
+   * Recomputes the ranges if a removal invalidated them. Called by readers,
+   * so they write to the store.
+   */
+  protected void validateRanges() {
+    if (this.rangesValid) {
+      return;
+    }
+    Arrays.fill(this.min, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.max, Double.NEGATIVE_INFINITY);
+    for (int position = 0; position < this.size; position++) {
+      double[] row = this.rows[this.slotAt(position)];
+      for (int i = 0; i < this.numAttributes; i++) {
+        double value = row[i];
+        if (value < this.min[i]) {
+          this.min[i] = value;
+        }
+        if (value > this.max[i]) {
+          this.max[i] = value;
+        }
+      }
+    }
+    this.rangesValid = true;
+  }
+}
@@ -0,0 +1,1440 @@
+/*
+ *    AbstractCDCMS_CIL.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.FloatOption;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.MultiChoiceOption;
+import com.github.javacliparser.StringOption;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.Classifier;
+import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.core.diversitytest.DiversityIndex;
+import moa.classifiers.core.diversitytest.PredictionMatrix;
+import moa.classifiers.core.driftdetection.ChangeDetector;
+import moa.classifiers.core.driftdetection.DetectorObservation;
+import moa.clusterers.Clusterer;
+import moa.core.AutoClassDiscovery;
+import moa.core.AutoExpandVector;
+import moa.core.ByteSizeAccount;
+import moa.core.ByteSizeAccountable;
+import moa.core.CopyOnWriteReference;
+import moa.core.Measurement;
+import moa.core.Parallelism;
+import moa.core.SizeOf;
+import moa.core.Utils;
+import moa.core.utils.NominalToBinaryEncoder;
+import moa.classifiers.meta.cdcms.ClassDescriptors;
+import moa.classifiers.meta.cdcms.ClassSizeTracker;
+import moa.classifiers.meta.cdcms.DescriptorSampling;
+import moa.classifiers.meta.cdcms.FadingClassSizeTracker;
+import moa.classifiers.meta.cdcms.PerformanceEstimator;
+import moa.classifiers.meta.cdcms.Resampling;
+import moa.classifiers.meta.cdcms.VoteBuffer;
+import moa.options.ClassOption;
+
+/**
+ * Engine shared by the CDCMS.CIL variants. The variants only differ in how
+ * members and ensembles are weighted and in how the ensembles reweight their
+ * training instances by class size, which they plug in as strategies:
+ * <ul>
+ * <li>newPerformanceEstimator(): prequential accuracy or G-mean,</li>
+ * <li>getResampling() and newClassSizeTracker(): no resampling, or
+ * oversampling or undersampling by time-decayed class sizes.</li>
+ * </ul>
+ * A variant creates one kind of each, so every call to a strategy in the
+ * per-instance loops has a single receiver type and is inlined by the JIT.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public abstract class AbstractCDCMS_CIL extends AbstractClassifier implements MultiClassClassifier, ByteSizeAccountable {
+
+	/**
+	 * Default serial version ID
+	 */
+	private static final long serialVersionUID = 1L;
+	
+	/** The default time decay factor of class sizes, for resampling. */
+	public static final double DEFAULT_THETA = 0.99;
+	
+	public IntOption randSeedOption = new IntOption("randomSeed", 'r',
+            "Seed for random behaviour of the classifier.", 1);
+	
+	public ClassOption baseLearnerOption = new ClassOption("baseLearner", 'l',
+            "The Base Learner.", Classifier.class, "trees.HoeffdingTree -l NB"); //trees.HoeffdingTree -e 2000000 -g 100 -c 0.01
+	
+	public IntOption poolSizeOption = new IntOption("ensembleSize", 'k',
+			"The maximum size of the ensemble.", 10, 1, Integer.MAX_VALUE);
+	
+	public IntOption repositorySizeOption = new IntOption("repositorySizeMultiple", 'n',
+			"The repository size will be n*k", 10, 1, Integer.MAX_VALUE);
+	
+	public IntOption timeStepsIntervalOption = new IntOption("timeStepsInterval", 'b',
+			"The number of time steps after drift and before model recovery or between evaluation on ensemble_NL", 500, 1, Integer.MAX_VALUE);
+	
+	public FloatOption fadingFactorOption = new FloatOption("fadingFactor", 'f',
+			"Fading Factor for prequential accuracy calculation on test chunk", 0.999, 0, 1);
+	
+	public ClassOption descriptorsManagerOption = new ClassOption("descriptorsManager", 'm',
+			"Clustering method to use as descriptors manager.", Clusterer.class, "clustream.Clustream -c");
+	
+	public FlagOption isUndersamplingDescriptorsOption = new FlagOption("isUndersamplingDescriptors", 'z', "isUndersamplingDescriptors?");
+	
+	public FlagOption exactDescriptorSamplingOption = new FlagOption("exactDescriptorSampling", 'y',
+			"Sample descriptor centres uniformly without replacement instead of by coin flips.");
+	
+	public FloatOption similarityThresholdOption = new FloatOption("similarityThreshold", 's',
+			"similarityThreshold", 0.8, 0.0, 1.0);
+	
+	public ClassOption driftDetectorOption = new ClassOption("driftDetector", 'd',
+            "Drift detection method to use.", ChangeDetector.class, "ADWINChangeDetector");
+	
+//	public ClassOption clustererOption = new ClassOption("clusterer", 'w',
+//			"Clusterer for clustering models in repository.", Clusterer.class,
+//			"WekaClusteringAlgorithm -w EM -p (-I 100 -N -1 -X 10 -max -1 -ll-cv 1.0E-6 -ll-iter 1.0E-6 -M 1.0E-6 -K 10 -num-slots 1 -S 100)");
+	
+	public MultiChoiceOption wekaAlgorithmOption;
+
+	public StringOption parameterOption = new StringOption("parameter", 'p',
+            "Parameters that will be passed to the weka algorithm. (e.g. '-N 5' for using SimpleKmeans with 5 clusters)",
+            "");
+			//-I 100 -N -1 -X 10 -max -1 -ll-cv 1.0E-6 -ll-iter 1.0E-6 -M 1.0E-6 -K 10 -num-slots 1 -S 100
+	
+	// Off by default: the default Weka EM chooses the number of clusters itself, which the
+	// built-in k-means cannot, so turning it on would change the results of every run.
+	public IntOption nativeModelClustersOption = new IntOption("nativeModelClusters", 'g',
+			"Number of clusters for the built-in k-means on model predictions, which skips Weka. "
+			+ "0 uses the Weka clusterer, which gets the predictions as Weka instances built from the matrix.",
+			0, 0, Integer.MAX_VALUE);
+	
+	public IntOption descriptorSampleBudgetOption = new IntOption("descriptorSampleBudget", 'x',
+			"Maximum number of descriptor centres sampled per model, shared by all classes. 0 for no bound.", 0, 0, Integer.MAX_VALUE);
+	
+	public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+			"Total number of concurrent jobs used for training and voting of ensemble members (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+	
+    protected boolean isUndersamplingDescriptors;
+    
+    protected DescriptorSampling descriptorSampling;
+	
+	protected double similarityThreshold;
+	
+	protected EnsembleWithInfo ensemble_NL;
+	
+	protected EnsembleWithInfo ensemble_NH;
+	
+	protected EnsembleWithInfo ensemble_OL;
+	
+	protected ClassifierWithInfo candidate;
+	
+	// Reused by getVotesForInstance to combine the ensembles' votes.
+	protected VoteBuffer combinedVotes = new VoteBuffer();
+	
+	protected List<ClassifierWithInfo> repository;
+	protected int maxRepositorySize;
+	
+	protected ChangeDetector driftDetector;
+	
+	protected int afterDriftInstCount;
+	
+	protected double warningDetected;
+    protected double changeDetected;
+    
+    protected DRIFT_LEVEL previous_drift_level;
+    protected DRIFT_LEVEL drift_level;
+	
+	private Class<?>[] clustererClasses;
+	
+	private weka.clusterers.AbstractClusterer clusterer;
+	
+	/*
+	 * The instance currently being predicted and trained on, and its sequence number.
+	 * Members and ensembles keep their votes on it, so each of them votes once per instance.
+	 * A stream may hand the same object back with new values, so its values when it was
+	 * stamped are kept as well.
+	 */
+	protected Instance stampedInstance;
+	protected long instanceStamp;
+	private double[] stampedValues = new double[0];
+	
+	/*
+	 * Source of the state stamps of member models and descriptors. Never reset, so a stamp
+	 * is never reused while the diversity index may still hold entries for it.
+	 */
+	protected long stateCounter;
+	
+	// Correctness of member models on descriptor centres, for the repository similarity search.
+	protected DiversityIndex diversityIndex;
+	
+	// Sizes of the parts of the model, so that measuring it does not walk every member.
+	protected ByteSizeAccount byteSizeAccount;
+	
+	// What ensemble_NL observed on the current instance, for the drift detector.
+	protected DetectorObservation detectorObservation = new DetectorObservation();
+	
+	// Member jobs run on the shared pool, with at most this many at once.
+	protected int numberOfJobs;
+	
+	public AbstractCDCMS_CIL() {
+		this.clustererClasses = findWekaClustererClasses();
+        String[] optionLabels = new String[clustererClasses.length];
+        String[] optionDescriptions = new String[clustererClasses.length];
+
+        for (int i = 0; i < this.clustererClasses.length; i++) {
+            optionLabels[i] = this.clustererClasses[i].getSimpleName();
+            optionDescriptions[i] = this.clustererClasses[i].getName();
+        }
+
+        if (this.clustererClasses != null && this.clustererClasses.length > 0) {
+            wekaAlgorithmOption = new MultiChoiceOption("clusterer", 'w',
+                    "Weka cluster algorithm to use.",
+                    optionLabels, optionDescriptions, 2);
+        } else {
+            parameterOption = null;
+
+        }
+	}
+	
+	/**
+	 * Creates the estimator that weights a member or an ensemble.
+	 * 
+	 * @return a new estimator, with no predictions added
+	 */
+	protected abstract PerformanceEstimator newPerformanceEstimator();
+	
+	/**
+	 * Gets how the ensembles reweight their training instances by class size.
+	 * 
+	 * @return the resampling, NONE by default
+	 */
+	protected Resampling getResampling() {
+		return Resampling.NONE;
+	}
+	
+	/**
+	 * Creates the class sizes tracker of an ensemble. Only called when
+	 * getResampling() is not NONE.
+	 * 
+	 * @return a new tracker, fading class sizes by DEFAULT_THETA by default
+	 */
+	protected ClassSizeTracker newClassSizeTracker() {
+		return new FadingClassSizeTracker(DEFAULT_THETA);
+	}
+	
+	protected ClassifierWithInfo newClassifierWithInfo() {
+		return new ClassifierWithInfo(((Classifier) this.getPreparedClassOption(this.baseLearnerOption)).copy(),
+				((Clusterer) getPreparedClassOption(this.descriptorsManagerOption)).copy(),
+				this.classifierRandom, this.isUndersamplingDescriptors);
+	}
+	
+	@Override
+	public boolean isRandomizable() {
+		return true;
+	}
+	
+	@Override
+	public void resetLearningImpl() {
+		
+		this.randomSeed = this.randSeedOption.getValue();
+		this.classifierRandom = new Random(this.randomSeed);
+		this.isUndersamplingDescriptors = this.isUndersamplingDescriptorsOption.isSet();
+		this.descriptorSampling = this.exactDescriptorSamplingOption.isSet() ?
+				DescriptorSampling.WITHOUT_REPLACEMENT : DescriptorSampling.COIN_FLIP;
+		
+		// *-1, because more negative means more diverse in QStatistics.
+		this.similarityThreshold = this.similarityThresholdOption.getValue() * -1;
+		
+		this.driftDetector = ((ChangeDetector) getPreparedClassOption(this.driftDetectorOption)).copy();
+		this.byteSizeAccount = null;
+		
+		this.numberOfJobs = Parallelism.numberOfJobs(this.numberOfJobsOption.getValue());
+		
+		this.candidate = this.newClassifierWithInfo();
+		
+		this.ensemble_NL = new EnsembleWithInfo(true);
+		this.ensemble_NL.add(this.newClassifierWithInfo());
+		
+		this.ensemble_OL = null;
+		this.ensemble_NH = null;
+		
+		this.maxRepositorySize = this.repositorySizeOption.getValue() * this.poolSizeOption.getValue();
+		this.diversityIndex = new DiversityIndex(8 * (this.maxRepositorySize + this.poolSizeOption.getValue() + 1));
+		this.repository = new ArrayList<ClassifierWithInfo>(this.maxRepositorySize);
+		
+		this.afterDriftInstCount = 0;
+		
+		//====================================================================
+		this.resetClusterer();
+		
+		this.stampedInstance = null;
+		this.instanceStamp = 0;
+		
+		this.changeDetected = 0;
+        this.warningDetected = 0;
+        this.previous_drift_level = DRIFT_LEVEL.NORMAL;
+        this.drift_level = DRIFT_LEVEL.NORMAL;
+        
+	}
+	
+	private void resetClusterer() {
+		this.clusterer = null;
+		if (this.nativeModelClustersOption.getValue() > 0 || this.wekaAlgorithmOption == null) {
+			return;
+		}
+		try {
+            String clistring = clustererClasses[wekaAlgorithmOption.getChosenIndex()].getName();
+            this.clusterer = (weka.clusterers.AbstractClusterer) ClassOption.cliStringToObject(clistring, weka.clusterers.Clusterer.class, null);
+
+            String rawOptions = parameterOption.getValue();
+            String[] options = rawOptions.split(" ");
+            if (this.clusterer instanceof weka.core.OptionHandler) {
+                ((weka.core.OptionHandler) this.clusterer).setOptions(options);
+                Utils.checkForRemainingOptions(options);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot create the Weka clusterer: " + e.getMessage(), e);
+        }
+	}
+	
+	protected void stampInstance(Instance inst) {
+		if (inst == this.stampedInstance && hasStampedValues(inst)) {
+			return;
+		}
+		this.stampedInstance = inst;
+		this.instanceStamp++;
+		if (this.stampedValues.length != inst.numAttributes()) {
+			this.stampedValues = new double[inst.numAttributes()];
+		}
+		for (int i = 0; i < this.stampedValues.length; i++) {
+			this.stampedValues[i] = inst.value(i);
+		}
+	}
+	
+	private boolean hasStampedValues(Instance inst) {
+		if (this.stampedValues.length != inst.numAttributes()) {
+			return false;
+		}
+		for (int i = 0; i < this.stampedValues.length; i++) {
+			// Bitwise, so that missing values equal each other.
+			if (Double.doubleToLongBits(this.stampedValues[i]) != Double.doubleToLongBits(inst.value(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	protected long nextState() {
+		return ++this.stateCounter;
+	}
+	
+	/*
+	 * Whether the ensembles train and vote with their members on parallel jobs.
+	 */
+	protected boolean isParallel() {
+		return this.numberOfJobs > 1;
+	}
+	
+	protected void runMemberJobs(List<MemberJob> jobs) {
+		Parallelism.invokeAll(jobs, this.numberOfJobs);
+	}
+
+	@Override
+	public double[] getVotesForInstance(Instance inst) {
+		
+		this.stampInstance(inst);
+		
+		double[] to_return = null;
+		
+		double performance_NL = this.ensemble_NL.getPerformance();
+		double performance_OL = this.ensemble_OL == null ? 0.0 : this.ensemble_OL.getPerformance();
+		double performance_NH = this.ensemble_NH == null ? 0.0 : this.ensemble_NH.getPerformance();
+		
+		double performanceSum = performance_OL + performance_NH + performance_NL;
+		
+		this.combinedVotes.clear();
+		
+		switch (this.drift_level) {
+			case NORMAL:
+				if (this.ensemble_OL != null && this.ensemble_NH != null &&
+						performance_NL < performance_OL && performance_NL < performance_NH) {
+					
+					if (performance_OL > 0.0) {
+						this.combinedVotes.addNormalized(this.ensemble_OL.getVotesForInstance(inst), performance_OL / performanceSum);
+					}
+					if (performance_NH > 0.0) {
+						this.combinedVotes.addNormalized(this.ensemble_NH.getVotesForInstance(inst), performance_NH / performanceSum);
+					}
+					if (performance_NL > 0.0) {
+						this.combinedVotes.addNormalized(this.ensemble_NL.getVotesForInstance(inst), performance_NL / performanceSum);
+					}
+					to_return = this.combinedVotes.toArray();
+					
+				} else {
+					// Cloned, ensemble_NL keeps this array as its vote on inst.
+					to_return = this.ensemble_NL.getVotesForInstance(inst).clone();
+				}
+				
+				break;
+			case OUTCONTROL:
+				
+				if (performance_OL > 0.0) {
+					this.combinedVotes.addNormalized(this.ensemble_OL.getVotesForInstance(inst), performance_OL / performanceSum);
+				}
+				if (performance_NH > 0.0) {
+					this.combinedVotes.addNormalized(this.ensemble_NH.getVotesForInstance(inst), performance_NH / performanceSum);
+				}
+				if (performance_NL > 0.0) {
+					this.combinedVotes.addNormalized(this.ensemble_NL.getVotesForInstance(inst), performance_NL / performanceSum);
+				}
+				to_return = this.combinedVotes.toArray();
+				
+				break;
+			default:
+				throw new IllegalStateException("Unknown drift level: " + this.drift_level);
+		}
+		
+		return to_return;
+		
+	}
+	
+	/**
+	 * Clusters the models by their rows of the prediction matrix and sets their
+	 * cluster labels. Row i belongs to repository.get(i), a row after the
+	 * repository belongs to the first member of ensemble_NL.
+	 *
+	 * @param predictions the correctness of each model on the merged descriptors
+	 * @return the number of clusters
+	 */
+	private int clusteringModels(PredictionMatrix predictions) throws Exception {
+		int numOfRows = predictions.numRows();
+		int[] clusterLabels = new int[numOfRows];
+		int numOfClusters = 0;
+		
+		if (this.nativeModelClustersOption.getValue() > 0) {
+			clusterLabels = predictions.kMeans(this.nativeModelClustersOption.getValue(), this.classifierRandom, 100);
+			for (int clusterLabel : clusterLabels) {
+				numOfClusters = Math.max(numOfClusters, clusterLabel + 1);
+			}
+		} else {
+			ArrayList<weka.core.Attribute> attributes = new ArrayList<weka.core.Attribute>(predictions.numColumns());
+			for (int j = 0; j < predictions.numColumns(); ++j) {
+				attributes.add(new weka.core.Attribute("Prediction " + (j+1)));
+			}
+			weka.core.Instances wekaInstances = new weka.core.Instances("predictionErrorByClassifierFromRepo", attributes, numOfRows);
+			for (int i = 0; i < numOfRows; ++i) {
+				wekaInstances.add(new weka.core.DenseInstance(1.0, predictions.getRowAsDoubles(i)));
+			}
+			
+			this.clusterer.buildClusterer(wekaInstances);
+			numOfClusters = this.clusterer.numberOfClusters();
+			
+			for (int i = 0; i < numOfRows; ++i) {
+				try {
+					clusterLabels[i] = this.clusterer.clusterInstance(wekaInstances.get(i));
+				} catch (Exception e) {
+					// Left out of every cluster.
+					clusterLabels[i] = -1;
+				}
+			}
+		}
+		
+		for (int i = 0; i < numOfRows; ++i) {
+			if (clusterLabels[i] < 0) {
+				continue;
+			}
+			if (i < this.repository.size()) {
+				this.repository.get(i).setClusterLabel(clusterLabels[i]);
+			} else {
+				this.ensemble_NL.ensemble.get(0).setClusterLabel(clusterLabels[i]);
+			}
+		}
+		return numOfClusters;
+	}
+	
+	private int getMostSimilarAndNewFromRepo(ClassifierWithInfo target) {
+		
+		if (this.repository.size() == 0) {
+			return -1;
+		}
+		
+		double[] qStatResults = new double[this.repository.size()];
+		
+		for (int i = 0; i < qStatResults.length; ++i) {
+			ClassifierWithInfo other = this.repository.get(i);
+			List<ClassifierWithInfo> targetModels = Arrays.asList(target, other);
+			int targetNumOfDescriptors = this.getMostNumDescriptors(targetModels);
+			
+			// The test batch of mergedAllCentreAsList(targetModels, targetNumOfDescriptors), as counts per centre.
+			double[] table = new double[4];
+			for (ClassifierWithInfo owner : targetModels) {
+				for (int classIndex = 0; classIndex < owner.getNumberOfClasses(); ++classIndex) {
+					if (owner.getNumberOfDescriptors(classIndex) > 0) {
+						int[] counts = owner.sampleDescriptorCounts(classIndex, targetNumOfDescriptors);
+						DiversityIndex.addToTable(this.getCorrectnessOnDescriptors(target, owner, classIndex),
+												  this.getCorrectnessOnDescriptors(other, owner, classIndex),
+												  counts, table);
+					}
+				}
+			}
+			qStatResults[i] = DiversityIndex.getQScore(table);
+		}
+		
+		int maxQIndex = -1;
+		for (int i = 0; i < qStatResults.length; ++i) {
+			if (!Double.isNaN(qStatResults[i])) {
+				maxQIndex = i;
+				break;
+			}
+		}
+		
+		if (maxQIndex == -1) {
+			return -1;
+		}
+		
+		for (int i = maxQIndex + 1; i < qStatResults.length; ++i) {
+			
+			if (Double.isNaN(qStatResults[i])) {
+				continue;
+			}
+			
+			if (qStatResults[i] > qStatResults[maxQIndex]) {
+				maxQIndex = i;
+			} else if (qStatResults[i] == qStatResults[maxQIndex]) {
+				maxQIndex = (this.repository.get(i).trainingWeightSeenByModel() 
+								< this.repository.get(maxQIndex).trainingWeightSeenByModel()) ? i : maxQIndex;
+			} else {
+				/*
+				 * Do nothing.
+				 */
+			}
+		}
+		
+		return qStatResults[maxQIndex] >= this.similarityThreshold ? maxQIndex : -1;
+	}
+	
+	private long[] getCorrectnessOnDescriptors(ClassifierWithInfo classifier, ClassifierWithInfo owner, int classIndex) {
+		return this.diversityIndex.getCorrectness(classifier.getModelState(), owner.getDescriptorsState(classIndex),
+				classifier.getActualClassifier(), () -> owner.getDescriptorsCentres(classIndex));
+	}
+	
+	/*
+	 * The number of centres to sample from each class of each model. Models that have not
+	 * seen any instance count as a class without descriptors. With a sample budget, each
+	 * class gets an equal share of it, so the test batch does not grow with the number of classes.
+	 */
+	private int getMostNumDescriptors(List<ClassifierWithInfo> classifiers) {
+
+		int numClasses = 0;
+		ArrayList<Integer> allSizes = new ArrayList<Integer>(classifiers.size() * 2);
+		for (ClassifierWithInfo classifier : classifiers) {
+			numClasses = Math.max(numClasses, classifier.getNumberOfClasses());
+			if (classifier.getNumberOfClasses() == 0) {
+				allSizes.add(0);
+			}
+			for (int classIndex = 0; classIndex < classifier.getNumberOfClasses(); ++classIndex) {
+				allSizes.add(classifier.getNumberOfDescriptors(classIndex));
+			}
+		}
+		
+		int targetNumDescriptors = isUndersamplingDescriptors ? Collections.min(allSizes) : Collections.max(allSizes);
+		int budget = this.descriptorSampleBudgetOption.getValue();
+		if (budget > 0 && numClasses > 0) {
+			targetNumDescriptors = Math.min(targetNumDescriptors, Math.max(1, budget / numClasses));
+		}
+		return targetNumDescriptors;
+	}
+	
+	private List<Instance> mergedAllCentreAsList(List<ClassifierWithInfo> classifiers, int targetNumDescriptors) {
+		List<Instance> mergedSet = new ArrayList<Instance>();
+		for (ClassifierWithInfo classifier : classifiers) {
+			for (int classIndex = 0; classIndex < classifier.getNumberOfClasses(); ++classIndex) {
+				if (classifier.getNumberOfDescriptors(classIndex) > 0) {
+					mergedSet.addAll(classifier.getDescriptorsCentre(classIndex, targetNumDescriptors));
+				}
+			}
+		}
+		return mergedSet;
+	}
+
+	@Override
+	public void trainOnInstance(Instance inst) {
+		try {
+			super.trainOnInstance(inst);
+		} finally {
+			// Done with inst, also when it was not trained on as its weight is 0.
+			this.stampedInstance = null;
+		}
+	}
+
+	@Override
+	public void trainOnInstanceImpl(Instance inst) {
+		
+		this.stampInstance(inst);
+		
+		this.afterDriftInstCount++;
+		
+		this.detectorObservation.set(this.ensemble_NL.getVotesForInstance(inst), inst);
+		this.driftDetector.input(this.detectorObservation);
+		
+		this.drift_level = DRIFT_LEVEL.NORMAL;
+		if (this.driftDetector.getChange()) {
+			this.drift_level = DRIFT_LEVEL.OUTCONTROL;
+		}
+		
+		switch (this.drift_level) {
+			case NORMAL:
+
+				if (this.afterDriftInstCount == this.timeStepsIntervalOption.getValue() && this.changeDetected > 0 && this.repository.size() > 0) {
+					
+					// determine the new model belongs to which cluster.
+					// if CAN be determined: ensemble_NL = {C} ∪ {ClosestCluster.getModels(C, B)}
+					// otherwise ensemble_NL = {C}
+					
+					int targetNumOfClusteringDescriptors = this.getMostNumDescriptors(this.repository);
+					List<Instance> mergedSet = this.mergedAllCentreAsList(this.repository, targetNumOfClusteringDescriptors);
+					List<ClassifierWithInfo> modelsToCluster = new ArrayList<ClassifierWithInfo>(this.repository);
+					modelsToCluster.add(this.ensemble_NL.ensemble.get(0));
+					PredictionMatrix predictions = PredictionMatrix.build(modelsToCluster, mergedSet, this.numberOfJobs,
+							ClassifierWithInfo::getActualClassifier);
+			
+					try {
+						this.clusteringModels(predictions);
+						
+						int clusterToRecover = this.ensemble_NL.ensemble.get(0).getClusterLabel();
+						
+						List<ClassifierWithInfo> sortedRepo = new ArrayList<ClassifierWithInfo>(this.repository);
+						sortedRepo.sort(Comparator.comparing(ClassifierWithInfo::trainingWeightSeenByModel));
+						
+						for (ClassifierWithInfo classifier : sortedRepo) {
+							if (this.ensemble_NL.size() >= this.poolSizeOption.getValue()) {
+								break;
+							}
+							if (classifier.getClusterLabel() == clusterToRecover) {
+								this.ensemble_NL.add(classifier);
+							}
+						}
+						
+					} catch (Exception e) {
+						// The clusterer failed, ensemble_NL is left with the new model only.
+					}
+					
+					this.resetClusterer();
+					
+				} else if (this.afterDriftInstCount % this.timeStepsIntervalOption.getValue() == 0 && this.trainingHasStarted()) {
+
+					if (this.ensemble_NL.size() >= this.poolSizeOption.getValue()) {
+						
+						// Get the worst model from ensemble_NL.
+						ClassifierWithInfo worstInNL = this.ensemble_NL.removeWorst();
+						
+						if (this.repository.size() >= this.maxRepositorySize) {
+							
+							int mostSimilarIndex = this.getMostSimilarAndNewFromRepo(worstInNL);
+							
+		 					if (mostSimilarIndex > -1 &&
+		 							worstInNL.trainingWeightSeenByModel() > this.repository.get(mostSimilarIndex).trainingWeightSeenByModel()) {
+		 						
+		 						this.repository.remove(mostSimilarIndex).release();
+								worstInNL.resetPerformance();
+								this.repository.add(worstInNL);
+								
+							} else {
+								/**
+								 * worstInNL is discarded.
+								 */
+								worstInNL.release();
+							}
+
+						} else {
+							worstInNL.resetPerformance();
+							this.repository.add(worstInNL);
+						}
+						
+						
+					}
+					this.ensemble_NL.add(this.candidate);
+					this.candidate.release();
+					
+					this.candidate = this.newClassifierWithInfo();
+					
+				} else {
+					this.candidate.updatePerformance(inst);
+					this.candidate.trainOnInstance(inst);
+				}
+				
+				this.previous_drift_level = DRIFT_LEVEL.NORMAL;
+				
+				break;
+				
+			case OUTCONTROL:
+				if (this.ensemble_OL != null) {
+					this.ensemble_OL.release();
+				}
+				this.ensemble_OL = new EnsembleWithInfo(this.ensemble_NL);
+				
+				// Use NL because it will be clear afterwards, so can reset the prequential accuracy of the models without affecting OL 
+				Boolean[] isAdd = new Boolean[this.ensemble_NL.size()];
+				
+				int tempMaxRepoSize = this.maxRepositorySize;
+				
+				for (int i = 0; i < this.ensemble_NL.size(); ++i) {
+					
+					if (this.repository.size() < tempMaxRepoSize) {
+						isAdd[i] = true;
+						--tempMaxRepoSize;
+						continue;
+					}
+					
+					int mostSimilarIndex = this.getMostSimilarAndNewFromRepo(this.ensemble_NL.getActualEnsemble().get(i));
+					
+					if (mostSimilarIndex > -1 &&
+							this.ensemble_NL.getActualEnsemble().get(i).trainingWeightSeenByModel() > 
+							this.repository.get(mostSimilarIndex).trainingWeightSeenByModel()) {
+						
+ 						this.repository.remove(mostSimilarIndex).release();
+ 						isAdd[i] = true;
+					} else {
+						isAdd[i] = false;
+					}
+				}
+				
+				for (int i = 0; i < isAdd.length; ++i) {
+					if (isAdd[i]) {
+						ClassifierWithInfo toAdd = this.ensemble_NL.getActualEnsemble().get(i).copy();
+						toAdd.resetPerformance();
+						this.repository.add(toAdd);
+					}
+				}
+				
+				this.ensemble_NL.clear();
+				
+				if (this.ensemble_NH != null) {
+					this.ensemble_NH.release();
+				}
+				this.ensemble_NH = new EnsembleWithInfo(false);
+				
+				if (this.previous_drift_level == DRIFT_LEVEL.NORMAL && this.repository.size() > 1) {
+					this.candidate.resetLearning();
+					
+					// Do clustering
+					// Create ensemble_NH
+					
+					int targetNumOfClusteringDescriptors = this.getMostNumDescriptors(this.repository);
+					List<Instance> mergedSet = this.mergedAllCentreAsList(this.repository, targetNumOfClusteringDescriptors);
+					PredictionMatrix predictions = PredictionMatrix.build(this.repository, mergedSet, this.numberOfJobs,
+							ClassifierWithInfo::getActualClassifier);
+						
+					try {
+						int numOfClusters = this.clusteringModels(predictions);
+						
+						if (numOfClusters > 1) {
+							
+							// Get the most well-trained classifier from each cluster to form ensemble_NH.
+							
+							List<ClassifierWithInfo> sortedRepo = new ArrayList<ClassifierWithInfo>(this.repository);
+							sortedRepo.sort(Comparator.comparing(ClassifierWithInfo::trainingWeightSeenByModel));
+							
+							
+							for (int i = 0; i < sortedRepo.size() && numOfClusters > 0; ++i) {
+								ClassifierWithInfo temp = sortedRepo.get(i);
+								if (temp.getClusterLabel() == numOfClusters - 1) {
+									this.ensemble_NH.add(temp);
+									i = 0;
+									numOfClusters -= 1;
+								}
+								if (i == sortedRepo.size() - 1) {
+									i = 0;
+									numOfClusters -= 1;
+								}
+							}
+							
+						} else {
+							for (int i = 0; i < this.repository.size() && this.ensemble_NH.size() < this.poolSizeOption.getValue(); i += this.repositorySizeOption.getValue()) {
+								this.ensemble_NH.add(this.repository.get(i));
+							}
+						}
+							
+					} catch (Exception e) {
+						// The clusterer failed, ensemble_NH is left empty.
+					}
+					
+					this.resetClusterer();
+				}
+				
+				this.ensemble_NL = new EnsembleWithInfo(true);
+				this.ensemble_NL.add(candidate);
+				this.candidate.release();
+				
+				this.candidate = this.newClassifierWithInfo();
+				
+				this.ensemble_NH.resetPerformance();
+				this.ensemble_NL.resetPerformance();
+				this.ensemble_OL.resetPerformance();
+				
+				this.afterDriftInstCount = 0;
+				
+				this.previous_drift_level = DRIFT_LEVEL.OUTCONTROL;
+				
+//				this.driftDetector.resetLearning();
+				changeDetected++;
+				
+				break;
+			default:
+				throw new IllegalStateException("Unknown drift level: " + this.drift_level);
+		}
+		
+		if (this.ensemble_OL != null) {
+			this.ensemble_OL.updatePerformance(inst);
+		}
+		if (this.ensemble_NH != null) {
+			this.ensemble_NH.updatePerformance(inst);
+		}
+		this.ensemble_NL.updatePerformance(inst);
+		this.ensemble_NL.trainOnInstance(inst);
+	}
+
+	/*
+	 * Adds up the sizes of the ensembles, the candidate and the repository. A member in
+	 * several of them, or sharing its model with copies, is counted once.
+	 */
+	@Override
+	public long accountedByteSize() {
+		if (this.byteSizeAccount == null) {
+			this.byteSizeAccount = new ByteSizeAccount();
+		}
+		ByteSizeAccount account = this.byteSizeAccount;
+		account.begin();
+		account.add(SizeOf.sizeOf(this));
+		for (EnsembleWithInfo ensemble : new EnsembleWithInfo[] {this.ensemble_NL, this.ensemble_NH, this.ensemble_OL}) {
+			if (ensemble != null) {
+				ensemble.accountByteSize(account);
+			}
+		}
+		if (this.candidate != null) {
+			this.candidate.accountByteSize(account);
+		}
+		if (this.repository != null) {
+			for (ClassifierWithInfo classifier : this.repository) {
+				classifier.accountByteSize(account);
+			}
+		}
+		account.add(this.driftDetector);
+		account.add(this.diversityIndex);
+		account.add(this.combinedVotes);
+		account.add(this.clusterer);
+		return account.end();
+	}
+
+	@Override
+	protected Measurement[] getModelMeasurementsImpl() {
+		return null;
+	}
+
+	@Override
+	public void getModelDescription(StringBuilder out, int indent) {
+
+	}
+	
+	// Copied from WekaClusteringAlforithm.java
+	private Class<?>[] findWekaClustererClasses() {
+        AutoExpandVector<Class<?>> finalClasses = new AutoExpandVector<Class<?>>();
+        Class<?>[] classesFound = AutoClassDiscovery.findClassesOfType("weka.clusterers",
+                weka.clusterers.AbstractClusterer.class);
+        for (Class<?> foundClass : classesFound) {
+            finalClasses.add(foundClass);
+        }
+        return finalClasses.toArray(new Class<?>[finalClasses.size()]);
+    }
+	
+	protected class EnsembleWithInfo extends AbstractClassifier {
+		
+		private List<ClassifierWithInfo> ensemble;
+		
+		private PerformanceEstimator performance;
+		
+		private Resampling resampling;
+		
+		// Null without resampling.
+		private ClassSizeTracker classSizes;
+		
+		private boolean isWMEnsemble;
+		
+		// Combined vote on stampedInstance, dropped whenever the members or their weights change.
+		private double[] votes;
+		private long votesStamp = -1;
+		
+		// Reused for every combined vote, which is only valid until the next one.
+		private VoteBuffer combinedVotes = new VoteBuffer();
+		
+		protected EnsembleWithInfo(boolean isWMEnsemble) {
+			
+			this.ensemble = new ArrayList<ClassifierWithInfo>();
+			
+			this.performance = newPerformanceEstimator();
+			this.resampling = getResampling();
+			this.classSizes = this.resampling == Resampling.NONE ? null : newClassSizeTracker();
+			
+			this.isWMEnsemble = isWMEnsemble;
+			
+		}
+		
+		/*
+		 * Copy Constructor
+		 */
+		protected EnsembleWithInfo(EnsembleWithInfo source) {
+			
+			this.ensemble = new ArrayList<ClassifierWithInfo>(source.ensemble);
+			
+			this.performance = source.performance.copy();
+			this.resampling = source.resampling;
+			this.classSizes = source.classSizes == null ? null : source.classSizes.copy();
+			
+			this.isWMEnsemble = source.isWMEnsemble;
+			
+		}
+		
+		public EnsembleWithInfo copy() {
+			return new EnsembleWithInfo(this);
+		}
+		
+		protected int size() {
+			return this.ensemble.size();
+		}
+		
+		protected List<ClassifierWithInfo> getActualEnsemble() {
+			return this.ensemble;
+		}
+		
+		
+		protected void clear() {
+			this.ensemble.clear();
+			this.invalidateVotes();
+			this.performance.reset();
+		}
+		
+		protected void add(ClassifierWithInfo toAdd) {
+			this.ensemble.add(toAdd.copy());
+			this.invalidateVotes();
+		}
+		
+		protected void invalidateVotes() {
+			this.votesStamp = -1;
+		}
+		
+		/*
+		 * Releases the members' models, for an ensemble that is being discarded.
+		 */
+		protected void release() {
+			for (ClassifierWithInfo committee : this.ensemble) {
+				committee.release();
+			}
+			this.clear();
+		}
+		
+		protected ClassifierWithInfo removeWorst() {
+			int worstIndex = 0;
+			for (int i = 1; i < this.ensemble.size(); ++i) {
+				if (Double.compare(this.ensemble.get(i).getPerformance(), this.ensemble.get(worstIndex).getPerformance()) < 0) {
+					worstIndex = i;
+				}
+			}
+			ClassifierWithInfo worst = this.ensemble.get(worstIndex);
+			
+			this.ensemble.remove(worstIndex);
+			this.invalidateVotes();
+			
+			return worst;
+		}
+		
+		public double[] getVotesForInstance(Instance inst) {
+			
+			if (inst == stampedInstance && this.votesStamp == instanceStamp) {
+				return this.votes;
+			}
+			
+			double performanceSum = 0.0;
+			for (int i = 0; i < this.ensemble.size(); ++i) {
+				performanceSum += this.ensemble.get(i).getPerformance();
+			}
+			
+			// Members vote in parallel, and their votes are combined in member order as without jobs.
+			double[][] memberVotes = null;
+			if (isParallel() && this.ensemble.size() > 1) {
+				memberVotes = new double[this.ensemble.size()][];
+				runMemberJobs(this.memberJobs(inst, null, memberVotes));
+			}
+			
+			this.combinedVotes.clear();
+			for (int i = 0; i < ensemble.size(); ++i) {
+				double memberPerformance = ensemble.get(i).getPerformance();
+				if (memberPerformance > 0.0) {
+					this.combinedVotes.addNormalized(memberVotes != null ? memberVotes[i] : ensemble.get(i).getVotesForInstance(inst),
+							isWMEnsemble ? memberPerformance / performanceSum : 1.0);
+				}
+			}
+			
+			
+			double[] combinedVote = this.combinedVotes.getVotes();
+			if (inst == stampedInstance) {
+				this.votes = combinedVote;
+				this.votesStamp = instanceStamp;
+			} else {
+				// The buffer holding the cached vote was overwritten.
+				this.invalidateVotes();
+			}
+			
+			return combinedVote;
+			
+		}
+		
+		protected void updatePerformance(Instance inst) {
+			this.performance.update(inst, Utils.maxIndex(this.getVotesForInstance(inst)) == (int) inst.classValue());
+			
+			for (int i = 0; i < this.ensemble.size(); ++i) {
+				this.ensemble.get(i).updatePerformance(inst);
+			}
+			this.invalidateVotes();
+		}
+		
+		protected double getPerformance() {
+			return this.performance.getEstimation();
+		}
+		
+		protected void resetPerformance() {
+			this.performance.reset();
+			
+			for (int i = 0; i < this.ensemble.size(); ++i) {
+				this.ensemble.get(i).resetPerformance();
+			}
+			this.invalidateVotes();
+		}
+
+		@Override
+		public boolean isRandomizable() {
+			return false;
+		}
+
+		@Override
+		public void resetLearningImpl() {
+			
+		}
+
+		@Override
+		public void trainOnInstanceImpl(Instance inst) {
+			Instance trainInst = inst;
+			if (this.classSizes != null) {
+				this.classSizes.update(inst);
+				trainInst = inst.copy();
+				trainInst.setWeight(inst.weight() * this.resampling.getWeight(this.classSizes, (int) inst.classValue()));
+			}
+			
+			if (isParallel() && this.ensemble.size() > 1) {
+				// The state stamps are drawn here in member order, the order they are drawn without jobs.
+				if (trainInst.weight() > 0.0 && !trainInst.classIsMissing()) {
+					long[] states = new long[2 * this.ensemble.size()];
+					for (int i = 0; i < states.length; ++i) {
+						states[i] = nextState();
+					}
+					runMemberJobs(this.memberJobs(trainInst, states, null));
+				}
+			} else {
+				for (int i = 0; i < this.ensemble.size(); ++i) {
+					this.ensemble.get(i).trainOnInstance(trainInst);
+				}
+			}
+			this.invalidateVotes();
+		}
+		
+		/*
+		 * Splits the members into jobs that train them, if states are given, or else vote with
+		 * them. Members sharing their descriptors or model go in the same job, which handles them
+		 * in member order, so no two jobs touch the same objects. The shared classifierRandom is
+		 * only drawn from for descriptor sampling, never in a member job, so the results do not
+		 * depend on how the jobs are scheduled.
+		 */
+		protected List<MemberJob> memberJobs(Instance inst, long[] states, double[][] votes) {
+			List<MemberJob> jobs = new ArrayList<MemberJob>();
+			IdentityHashMap<Object, MemberJob> jobOfSharedObject = new IdentityHashMap<Object, MemberJob>();
+			for (int i = 0; i < this.ensemble.size(); ++i) {
+				ClassifierWithInfo member = this.ensemble.get(i);
+				if (states == null && member.getPerformance() <= 0.0) {
+					continue;
+				}
+				MemberJob job = jobOfSharedObject.get(member.descriptors);
+				MemberJob modelJob = jobOfSharedObject.get(member.getActualClassifier());
+				if (job == null) {
+					job = modelJob;
+				} else if (modelJob != null && modelJob != job) {
+					// The member joins two jobs, merged into the one created first.
+					MemberJob first = jobs.indexOf(job) < jobs.indexOf(modelJob) ? job : modelJob;
+					MemberJob second = first == job ? modelJob : job;
+					first.merge(second);
+					jobs.remove(second);
+					for (Map.Entry<Object, MemberJob> entry : jobOfSharedObject.entrySet()) {
+						if (entry.getValue() == second) {
+							entry.setValue(first);
+						}
+					}
+					job = first;
+				}
+				if (job == null) {
+					job = new MemberJob(this.ensemble, inst, states, votes);
+					jobs.add(job);
+				}
+				job.add(i);
+				jobOfSharedObject.put(member.descriptors, job);
+				jobOfSharedObject.put(member.getActualClassifier(), job);
+			}
+			return jobs;
+		}
+
+		protected void accountByteSize(ByteSizeAccount account) {
+			if (account.add(this, SizeOf.sizeOf(this))) {
+				for (ClassifierWithInfo classifier : this.ensemble) {
+					classifier.accountByteSize(account);
+				}
+				account.add(this.performance);
+				account.add(this.classSizes);
+				account.add(this.combinedVotes);
+			}
+		}
+
+		@Override
+		protected Measurement[] getModelMeasurementsImpl() {
+			return null;
+		}
+
+		@Override
+		public void getModelDescription(StringBuilder out, int indent) {
+			
+		}
+		
+	}
+	
+	protected class ClassifierWithInfo extends AbstractClassifier {
+		
+		// Shared with the copies of this classifier until one of them is trained.
+		private CopyOnWriteReference<Classifier> model;
+		// Shared with the copies of this classifier, like their state stamps.
+		protected ClassDescriptors descriptors;
+		protected Random classifierRandom;
+		protected boolean isUndersamplingDescriptors;
+		
+		private int clusterLabel;
+		
+		private PerformanceEstimator performance;
+		
+		// Votes of the classifier on stampedInstance, dropped whenever the classifier is trained.
+		private double[] votes;
+		private long votesStamp = -1;
+		
+		// State stamp, renewed whenever the model changes.
+		protected long modelState;
+		
+		protected NominalToBinaryEncoder descriptorEncoder;
+		
+		// Reused for every descriptor update; the descriptors copy what they keep.
+		protected double[] descriptorRow;
+		protected Instance descriptorInstance;
+		
+		protected ClassifierWithInfo(Classifier classifier, Clusterer descriptorType, Random classifierRandom, boolean isUndersamplingDescriptors) {
+			this.model = new CopyOnWriteReference<Classifier>(classifier);
+			this.descriptors = new ClassDescriptors(descriptorType);
+			this.classifierRandom = classifierRandom;
+			this.isUndersamplingDescriptors = isUndersamplingDescriptors;
+			this.performance = newPerformanceEstimator();
+			
+			this.resetLearning();
+			
+		}
+		
+		/*
+		 * Copy Constructor
+		 */
+		protected ClassifierWithInfo(ClassifierWithInfo source) {
+			this.model = source.model.share();
+			this.descriptors = source.descriptors;
+			this.modelState = source.modelState;
+			this.classifierRandom = source.classifierRandom;
+			this.isUndersamplingDescriptors = source.isUndersamplingDescriptors;
+			
+			this.clusterLabel = source.clusterLabel;
+			
+			this.performance = source.performance.copy();
+			
+			this.descriptorEncoder = source.descriptorEncoder;
+			
+			this.votes = source.votes;
+			this.votesStamp = source.votesStamp;
+		}
+		
+		public ClassifierWithInfo copy() {
+			return new ClassifierWithInfo(this);
+		}
+		
+		/*
+		 * Gives up this classifier's share of the model, for a classifier that is being discarded.
+		 */
+		protected void release() {
+			this.model.release();
+		}
+		
+		@Override
+		public double trainingWeightSeenByModel() {
+			return this.model.get().trainingWeightSeenByModel();
+		}
+		
+		protected Classifier getActualClassifier() {
+			return this.model.get();
+		}
+		
+		protected long getModelState() {
+			return this.modelState;
+		}
+		
+		protected long getDescriptorsState(int classIndex) {
+			return this.descriptors.getState(classIndex);
+		}
+		
+		protected void setClusterLabel(int label) {
+			this.clusterLabel = label;
+		}
+		
+		protected int getClusterLabel() {
+			return this.clusterLabel;
+		}
+		
+		public double[] getVotesForInstance(Instance inst) {
+			if (inst == stampedInstance && this.votesStamp == instanceStamp) {
+				return this.votes;
+			}
+			
+			double[] votes = this.model.get().getVotesForInstance(inst);
+			if (inst == stampedInstance) {
+				this.votes = votes;
+				this.votesStamp = instanceStamp;
+			}
+			return votes;
+		}
+		
+		protected void updatePerformance(Instance inst) {
+			this.performance.update(inst, this.correctlyClassifies(inst));
+		}
+		
+		protected double getPerformance() {
+			return this.performance.getEstimation();
+		}
+		
+		protected void resetPerformance() {
+			this.performance.reset();
+		}
+
+		@Override
+		public boolean isRandomizable() {
+			return true;
+		}
+
+		@Override
+		public void resetLearningImpl() {
+			this.model.getForWrite().resetLearning();
+			this.votesStamp = -1;
+			this.modelState = nextState();
+			this.descriptors.resetLearning();
+			this.clusterLabel = -1;
+			
+			this.resetPerformance();
+		}
+
+		@Override
+		public void trainOnInstanceImpl(Instance inst) {
+			long modelState = nextState();
+			this.trainOnInstanceImpl(inst, modelState, nextState());
+		}
+		
+		/*
+		 * Trains as trainOnInstance does, with state stamps the caller drew in advance, for
+		 * members trained in parallel.
+		 */
+		protected void trainOnInstance(Instance inst, long modelState, long descriptorsState) {
+			if (inst.weight() > 0.0 && !inst.classIsMissing()) {
+				this.trainingWeightSeenByModel += inst.weight();
+				this.trainOnInstanceImpl(inst, modelState, descriptorsState);
+			}
+		}
+		
+		protected void trainOnInstanceImpl(Instance inst, long modelState, long descriptorsState) {
+			if (this.descriptorEncoder == null) {
+				this.descriptorEncoder = new NominalToBinaryEncoder(inst.dataset());
+			}
+			if (this.descriptorInstance == null) {
+				this.descriptorRow = new double[this.descriptorEncoder.getEncodedLength()];
+				this.descriptorInstance = new DenseInstance(1d, this.descriptorRow);
+			}
+			
+			this.model.getForWrite().trainOnInstance(inst);
+			this.votesStamp = -1;
+			this.modelState = modelState;
+			this.descriptorEncoder.encode(inst, this.descriptorRow);
+			this.descriptorInstance.setWeight(inst.weight());
+			this.descriptors.trainOnInstance((int) inst.classValue(), inst.numClasses(), this.descriptorInstance, descriptorsState);
+		}
+		
+		/*
+		 * All centres of the descriptors of a class, decoded back to the original attributes
+		 * with classIndex as class value and weight 1.0.
+		 */
+		public List<Instance> getDescriptorsCentres(int classIndex) {
+			double[][] mClusterCentres = this.descriptors.getCentres(classIndex);
+			
+			List<Instance> centres = new ArrayList<Instance>(mClusterCentres.length);
+			for (int i = 0; i < mClusterCentres.length; ++i) {
+				centres.add(this.descriptorEncoder.decode(mClusterCentres[i], classIndex));
+			}
+			return centres;
+		}
+		
+		public List<Instance> getDescriptorsCentre(int classIndex, int targetNumberOfInstances) {
+			/**
+			 * Oversampling:
+			 * Let the ratio = i + f, where i is an integer and f is a float number 0 <= f < 1.0.
+			 * Let the number of descriptor of model C's class[classIndex] be N.
+			 * Then:
+			 * (1) add the whole set of the descriptor for i times. i.e. add N \times i instances.
+			 * (2) add the remaining number of instances: targetNumberOfInstances - (N \times i)
+			 * 
+			 * UnderSampling:
+			 * (3)
+			 * while(targetSet.size() < targetNumberOfInstances) {
+			 * 	targetSet add instance from currentSet with uniform probability.
+			 * }
+			 * 	[which eqauls to (2)]
+			 */
+			List<Instance> currentSet = this.getDescriptorsCentres(classIndex);
+			int[] picks = descriptorSampling.sample(currentSet.size(), targetNumberOfInstances,
+					this.isUndersamplingDescriptors, this.classifierRandom);
+			
+			List<Instance> targetSet = new ArrayList<Instance>(targetNumberOfInstances);
+			for (int pick : picks) {
+				targetSet.add(currentSet.get(pick));
+			}
+			
+			return targetSet;
+		}
+		
+		/*
+		 * Draws the same sample as getDescriptorsCentre, as the number of times each centre is
+		 * taken, and consumes classifierRandom exactly as getDescriptorsCentre does.
+		 */
+		public int[] sampleDescriptorCounts(int classIndex, int targetNumberOfInstances) {
+			return descriptorSampling.sampleCounts(this.getNumberOfDescriptors(classIndex), targetNumberOfInstances,
+					this.isUndersamplingDescriptors, this.classifierRandom);
+		}
+		
+		public int getNumberOfDescriptors(int classIndex) {
+			return this.descriptors.getNumberOfDescriptors(classIndex);
+		}
+		
+		public int getNumberOfClasses() {
+			return this.descriptors.getNumberOfClasses();
+		}
+		
+		protected void accountByteSize(ByteSizeAccount account) {
+			if (account.add(this, SizeOf.sizeOf(this))) {
+				account.add(this.model.get());
+				account.add(this.descriptors);
+				account.add(this.performance);
+				account.add(this.descriptorEncoder);
+				account.add(this.votes);
+			}
+		}
+		
+		@Override
+		protected Measurement[] getModelMeasurementsImpl() {
+			return null;
+		}
+
+		@Override
+		public void getModelDescription(StringBuilder out, int indent) {
+			
+		}
+	
+	}
+	
+	/*
+	 * Trains or votes with some members of an ensemble, one after another. Votes go to the
+	 * slots of the members.
+	 */
+	protected class MemberJob implements Callable<Integer> {
+		
+		private final List<ClassifierWithInfo> ensemble;
+		private final Instance instance;
+		// Two stamps per member of the ensemble when training, null when voting.
+		private final long[] states;
+		private final double[][] votes;
+		private final List<Integer> members = new ArrayList<Integer>();
+		
+		protected MemberJob(List<ClassifierWithInfo> ensemble, Instance instance, long[] states, double[][] votes) {
+			this.ensemble = ensemble;
+			this.instance = instance;
+			this.states = states;
+			this.votes = votes;
+		}
+		
+		protected void add(int member) {
+			this.members.add(member);
+		}
+		
+		protected void merge(MemberJob other) {
+			this.members.addAll(other.members);
+			Collections.sort(this.members);
+		}
+		
+		@Override
+		public Integer call() throws Exception {
+			for (int i : this.members) {
+				if (this.states != null) {
+					this.ensemble.get(i).trainOnInstance(this.instance, this.states[2 * i], this.states[2 * i + 1]);
+				} else {
+					this.votes[i] = this.ensemble.get(i).getVotesForInstance(this.instance);
+				}
+			}
+			return 0;
+		}
+	}
+	
+	protected enum DRIFT_LEVEL {
+		NORMAL, WARNING, OUTCONTROL
+	}
+
+}
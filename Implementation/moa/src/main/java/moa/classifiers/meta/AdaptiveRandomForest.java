@@ -26,6 +26,7 @@ import moa.core.DoubleVector;
 import moa.core.InstanceExample;
 import moa.core.Measurement;
 import moa.core.MiscUtils;
+import moa.core.Parallelism;
 import moa.options.ClassOption;
 
 import com.github.javacliparser.FloatOption;
@@ -33,16 +34,15 @@ import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import moa.classifiers.trees.ARFHoeffdingTree;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import moa.AbstractMOAObject;
 import moa.classifiers.core.driftdetection.ChangeDetector;
+import moa.classifiers.core.driftdetection.DetectorObservation;
 
 
 /**
@@ -138,7 +138,7 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
     protected int subspaceSize;
     protected BasicClassificationPerformanceEvaluator evaluator;
 
-    private ExecutorService executor;
+    protected int numberOfJobs;
     
     @Override
     public void resetLearningImpl() {
@@ -148,16 +148,8 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         this.instancesSeen = 0;
         this.evaluator = new BasicClassificationPerformanceEvaluator();
         
-        // Multi-threading
-        int numberOfJobs;
-        if(this.numberOfJobsOption.getValue() == -1) 
-            numberOfJobs = Runtime.getRuntime().availableProcessors();
-        else 
-            numberOfJobs = this.numberOfJobsOption.getValue();
-        // SINGLE_THREAD and requesting for only 1 thread are equivalent. 
-        // this.executor will be null and not used...
-        if(numberOfJobs != AdaptiveRandomForest.SINGLE_THREAD && numberOfJobs != 1)
-            this.executor = Executors.newFixedThreadPool(numberOfJobs);
+        // Multi-threading, on the shared pool. A single job trains in place.
+        this.numberOfJobs = Parallelism.numberOfJobs(this.numberOfJobsOption.getValue());
     }
 
     @Override
@@ -166,14 +158,14 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         if(this.ensemble == null) 
             initEnsemble(instance);
         
-        Collection<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
+        List<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
         for (int i = 0 ; i < this.ensemble.length ; i++) {
             DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(instance));
             InstanceExample example = new InstanceExample(instance);
             this.ensemble[i].evaluator.addResult(example, vote.getArrayRef());
             int k = MiscUtils.poisson(this.lambdaOption.getValue(), this.classifierRandom);
             if (k > 0) {
-                if(this.executor != null) {
+                if(this.numberOfJobs > 1) {
                     TrainingRunnable trainer = new TrainingRunnable(this.ensemble[i], 
                         instance, k, this.instancesSeen);
                     trainers.add(trainer);
@@ -183,12 +175,8 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
                 }
             }
         }
-        if(this.executor != null) {
-            try {
-                this.executor.invokeAll(trainers);
-            } catch (InterruptedException ex) {
-                throw new RuntimeException("Could not call invokeAll() on training threads.");
-            }
+        if(this.numberOfJobs > 1) {
+            Parallelism.invokeAll(trainers, this.numberOfJobs);
         }
     }
 
@@ -312,6 +300,7 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
         // Drift and warning detection
         protected ChangeDetector driftDetectionMethod;
         protected ChangeDetector warningDetectionMethod;
+        protected DetectorObservation detectorObservation = new DetectorObservation();
         
         public boolean useBkgLearner;
         public boolean useDriftDetector;
@@ -385,11 +374,11 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
             
             // Should it use a drift detector? Also, is it a backgroundLearner? If so, then do not "incept" another one. 
             if(this.useDriftDetector && !this.isBackgroundLearner) {
-                boolean correctlyClassifies = this.classifier.correctlyClassifies(instance);
+                this.detectorObservation.set(this.classifier.getVotesForInstance(instance), instance);
                 // Check for warning only if useBkgLearner is active
                 if(this.useBkgLearner) {
                     // Update the warning detection method
-                    this.warningDetectionMethod.input(correctlyClassifies ? 0 : 1);
+                    this.warningDetectionMethod.input(this.detectorObservation);
                     // Check if there was a change
                     if(this.warningDetectionMethod.getChange()) {
                         this.lastWarningOn = instancesSeen;
@@ -415,7 +404,7 @@ public class AdaptiveRandomForest extends AbstractClassifier implements MultiCla
                 /*********** drift detection ***********/
                 
                 // Update the DRIFT detection method
-                this.driftDetectionMethod.input(correctlyClassifies ? 0 : 1);
+                this.driftDetectionMethod.input(this.detectorObservation);
                 // Check if there was a change
                 if(this.driftDetectionMethod.getChange()) {
                     this.lastDriftOn = instancesSeen;
@@ -8,8 +8,7 @@ import moa.AbstractMOAObject;
 import moa.capabilities.CapabilitiesHandler;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ChangeDetector;
-import moa.classifiers.core.driftdetection.DDM_GMean;
-import moa.classifiers.core.driftdetection.DDM_OCI;
+import moa.classifiers.core.driftdetection.DetectorObservation;
 import moa.classifiers.trees.ARFHoeffdingTree;
 import moa.core.*;
 import moa.evaluation.BasicClassificationPerformanceEvaluator;
@@ -17,11 +16,9 @@ import moa.evaluation.ImbalancedClassificationPerformanceEvaluator;
 import moa.options.ClassOption;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Cost-sensitive Adaptive Random Forest (CSARF)
@@ -29,8 +26,6 @@ import java.util.concurrent.Executors;
  * @author Lucas Loezer (loezerl at ppgia dot pucpr dot br | loezer dot lucas at gmail dot com)
  */
 public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier, CapabilitiesHandler {
-    private ExecutorService executor;
-
     protected CostMatrix costMatrix;
     protected ImbalancedWindow imbalancedWindow;
     protected OzaCosting ozaCosting;
@@ -77,16 +72,8 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
         this.imbalancedWindow = null;
         //setModelContext(null);
 
-        // Multi-threading
-        int numberOfJobs;
-        if(this.numberOfJobsOption.getValue() == -1)
-            numberOfJobs = Runtime.getRuntime().availableProcessors();
-        else
-            numberOfJobs = this.numberOfJobsOption.getValue();
-        // SINGLE_THREAD and requesting for only 1 thread are equivalent.
-        // this.executor will be null and not used...
-        if(numberOfJobs != AdaptiveRandomForest.SINGLE_THREAD && numberOfJobs != 1)
-            this.executor = Executors.newFixedThreadPool(numberOfJobs);
+        // Multi-threading, on the shared pool. A single job trains in place.
+        this.numberOfJobs = Parallelism.numberOfJobs(this.numberOfJobsOption.getValue());
     }
 
     public double getExpectedCost(int classIndex){ return this.costMatrix.getCost(classIndex);}
@@ -227,7 +214,7 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
         //Grants that the instances with positiveClass is going to be used.
         boolean positiveClass = (int) instance.classValue() != this.imbalancedWindow.getMajoritoryClassIndex();
 
-        Collection<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
+        List<TrainingRunnable> trainers = new ArrayList<TrainingRunnable>();
         for (int i = 0 ; i < this.ensemble.length ; i++) {
             DoubleVector vote = new DoubleVector(this.ensemble[i].getVotesForInstance(instance));
             //before threshold
@@ -242,7 +229,7 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
             //::Checks if actual instance is the positive class
             if ((k > 0 || positiveClass)) {
                 if(k <= 0) k = 1;
-                if(this.executor != null) {
+                if(this.numberOfJobs > 1) {
                     TrainingRunnable trainer = new TrainingRunnable(this.ensemble[i],
                             instance, k, this.instancesSeen);
                     trainers.add(trainer);
@@ -252,12 +239,8 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
                 }
             }
         }
-        if(this.executor != null) {
-            try {
-                this.executor.invokeAll(trainers);
-            } catch (InterruptedException ex) {
-                throw new RuntimeException("Could not call invokeAll() on training threads.");
-            }
+        if(this.numberOfJobs > 1) {
+            Parallelism.invokeAll(trainers, this.numberOfJobs);
         }
     }
 
@@ -280,6 +263,7 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
         // Drift and warning detection
         protected ChangeDetector driftDetectionMethod;
         protected ChangeDetector warningDetectionMethod;
+        protected DetectorObservation detectorObservation = new DetectorObservation();
 
         public boolean useBkgLearner;
         public boolean useDriftDetector;
@@ -355,23 +339,12 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
 
             // Should it use a drift detector? Also, is it a backgroundLearner? If so, then do not "incept" another one.
             if(this.useDriftDetector && !this.isBackgroundLearner) {
-                boolean correctlyClassifies = this.classifier.correctlyClassifies(instance);
-                double prediction = correctlyClassifies ? 0.0 : 1.0;
+                this.detectorObservation.set(this.classifier.getVotesForInstance(instance), instance);
                 // Check for warning only if useBkgLearner is active
                 if(this.useBkgLearner) {
                     // Update the warning detection method
 //                    this.warningDetectionMethod.input(correctlyClassifies ? 0 : 1);
-                	/**
-    				 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-    				 * DDM_OCI is a subclass of DDM_GMean
-    				 */
-    				if (this.warningDetectionMethod instanceof DDM_OCI) {
-    					((DDM_OCI) this.warningDetectionMethod).input(prediction, instance);
-    		        } else if (this.warningDetectionMethod instanceof DDM_GMean) {
-    		        	((DDM_GMean) this.warningDetectionMethod).input(prediction, instance);
-    		        } else {
-    		        	this.warningDetectionMethod.input(prediction);
-    		        }
+    				this.warningDetectionMethod.input(this.detectorObservation);
                     // Check if there was a change
                     if(this.warningDetectionMethod.getChange()) {
                         this.lastWarningOn = instancesSeen;
@@ -398,17 +371,7 @@ public class CSARF extends AdaptiveRandomForest implements MultiClassClassifier,
 
                 // Update the DRIFT detection method
 //                this.driftDetectionMethod.input(correctlyClassifies ? 0 : 1);
-				/**
-				 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-				 * DDM_OCI is a subclass of DDM_GMean
-				 */
-				if (this.driftDetectionMethod instanceof DDM_OCI) {
-					((DDM_OCI) this.driftDetectionMethod).input(prediction, instance);
-		        } else if (this.driftDetectionMethod instanceof DDM_GMean) {
-		        	((DDM_GMean) this.driftDetectionMethod).input(prediction, instance);
-		        } else {
-		        	this.driftDetectionMethod.input(prediction);
-		        }
+				this.driftDetectionMethod.input(this.detectorObservation);
                 // Check if there was a change
                 if(this.driftDetectionMethod.getChange()) {
                     this.lastDriftOn = instancesSeen;
@@ -24,18 +24,13 @@ import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import moa.classifiers.Classifier;
 import moa.classifiers.core.statisticaltests.StatisticalTest;
 import moa.classifiers.drift.SingleClassifierDrift;
 import moa.core.MiscUtils;
+import moa.core.Parallelism;
 import moa.options.ClassOption;
 
 /**
@@ -243,9 +238,9 @@ public class RCD extends SingleClassifierDrift {
      */
     private ClassifierKS getPreviousClassifier(Classifier classifier,
             List<Instance> instances) {
-        ExecutorService threadPool = Executors.newFixedThreadPool(this.threadSizeOption.getValue());
         int SIZE = this.classifiers.size();
-        Map<Integer, Future<Double>> futures = new HashMap<>();
+        List<Integer> indices = new ArrayList<>();
+        List<StatisticalTest> tests = new ArrayList<>();
         for (int i = 0; i < SIZE; i++) {
             ClassifierKS cs = this.classifiers.get(i);
             if (cs != null) {
@@ -253,33 +248,31 @@ public class RCD extends SingleClassifierDrift {
                     StatisticalTest st = (StatisticalTest) getPreparedClassOption(this.statisticalTestOption);
                     StatisticalTest temp = (StatisticalTest) st.copy();
                     temp.set(instances, cs.getInstances());
-                    futures.put(i, threadPool.submit(temp));
+                    indices.add(i);
+                    tests.add(temp);
                 }
             } else {
                 break;
             }
         }
+        // The tests run on the shared pool, at most threadSize at once.
+        List<Double> pValues;
+        try {
+            pValues = Parallelism.invokeAll(tests, this.threadSizeOption.getValue());
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Error computing statistical test.", e);
+        }
         ClassifierKS cks = null;
         int qtd = this.quantityClassifiersTestOption.getValue();
         double maxPValue = this.similarityBetweenDistributionsOption.getValue();
-        try {
-            for (int i = 0; i < SIZE && qtd > 0; i++) {
-                Future<Double> f = futures.get(i);
-                if (f != null) {
-                    double p = f.get();
-                    if (p < maxPValue) {
-                        maxPValue = p;
-                        cks = this.classifiers.get(i);
-                        qtd--;
-                    }
-                }
+        for (int k = 0; k < indices.size() && qtd > 0; k++) {
+            double p = pValues.get(k);
+            if (p < maxPValue) {
+                maxPValue = p;
+                cks = this.classifiers.get(indices.get(k));
+                qtd--;
             }
-        } catch (InterruptedException e) {
-            System.out.println("Processing interrupted.");
-        } catch (ExecutionException e) {
-            throw new RuntimeException("Error computing statistical test.", e);
         }
-        threadPool.shutdownNow();
         return cks;
     }
 }
@@ -0,0 +1,149 @@
+/*
+ *    ClassDescriptors.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import java.io.Serializable;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.cluster.Cluster;
+import moa.cluster.Clustering;
+import moa.clusterers.Clusterer;
+import moa.clusterers.MicroClusterSnapshot;
+
+/**
+ * The descriptors of a model, one clusterer per class summarising the
+ * instances of that class the model was trained on. Clusterers are only
+ * created for the classes that occur, so a K-class stream costs nothing for
+ * the classes a model has not seen.
+ *
+ * <p>Each class also has a state stamp, renewed by the caller whenever its
+ * descriptors change, for caching anything computed on them.</p>
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public final class ClassDescriptors implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Clusterer descriptorType;
+
+	// Null until the first instance, then one entry per class, null for unseen classes.
+	private Clusterer[] descriptors;
+
+	private long[] states;
+
+	/**
+	 * @param descriptorType the clusterer copied for each class
+	 */
+	public ClassDescriptors(Clusterer descriptorType) {
+		this.descriptorType = descriptorType;
+	}
+
+	/**
+	 * Adds an instance to the descriptors of a class.
+	 *
+	 * @param classIndex the class of the instance
+	 * @param numClasses the number of classes of the stream
+	 * @param inst the instance to add
+	 * @param state the new state stamp of the class
+	 */
+	public void trainOnInstance(int classIndex, int numClasses, Instance inst, long state) {
+		if (this.descriptors == null) {
+			this.descriptors = new Clusterer[numClasses];
+			this.states = new long[numClasses];
+		}
+		if (this.descriptors[classIndex] == null) {
+			this.descriptors[classIndex] = this.descriptorType.copy();
+			this.descriptors[classIndex].resetLearning();
+		}
+		this.descriptors[classIndex].trainOnInstance(inst);
+		this.states[classIndex] = state;
+	}
+
+	/**
+	 * Forgets all descriptors.
+	 */
+	public void resetLearning() {
+		this.descriptors = null;
+		this.states = null;
+	}
+
+	/**
+	 * Gets the number of classes, 0 before the first instance.
+	 *
+	 * @return the number of classes
+	 */
+	public int getNumberOfClasses() {
+		return this.descriptors == null ? 0 : this.descriptors.length;
+	}
+
+	/**
+	 * Gets the number of descriptors of a class.
+	 *
+	 * @param classIndex the class
+	 * @return the number of micro clusters, 0 for unseen classes
+	 */
+	public int getNumberOfDescriptors(int classIndex) {
+		if (classIndex >= this.getNumberOfClasses() || this.descriptors[classIndex] == null) {
+			return 0;
+		}
+		Clusterer descriptor = this.descriptors[classIndex];
+		if (descriptor instanceof MicroClusterSnapshot) {
+			return ((MicroClusterSnapshot) descriptor).getMicroClusterCentres().length;
+		}
+		return descriptor.getMicroClusteringResult().size();
+	}
+
+	/**
+	 * Gets the centres of the descriptors of a class, without copying the
+	 * micro clusters if the clusterer is a MicroClusterSnapshot.
+	 *
+	 * @param classIndex the class
+	 * @return the centres, which must not be modified, empty for unseen classes
+	 */
+	public double[][] getCentres(int classIndex) {
+		if (classIndex >= this.getNumberOfClasses() || this.descriptors[classIndex] == null) {
+			return new double[0][];
+		}
+		Clusterer descriptor = this.descriptors[classIndex];
+		if (descriptor instanceof MicroClusterSnapshot) {
+			return ((MicroClusterSnapshot) descriptor).getMicroClusterCentres();
+		}
+		Clustering clustering = descriptor.getMicroClusteringResult();
+		double[][] centres = new double[clustering.size()][];
+		for (int i = 0; i < centres.length; ++i) {
+			Cluster cluster = clustering.get(i);
+			centres[i] = cluster.getCenter();
+		}
+		return centres;
+	}
+
+	/**
+	 * Gets the state stamp of the descriptors of a class. Must not be called
+	 * for unseen classes.
+	 *
+	 * @param classIndex the class
+	 * @return the stamp given with the last instance of the class
+	 */
+	public long getState(int classIndex) {
+		return this.states[classIndex];
+	}
+}
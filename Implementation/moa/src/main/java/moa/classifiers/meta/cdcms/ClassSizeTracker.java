@@ -0,0 +1,64 @@
+/*
+ *    ClassSizeTracker.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import java.io.Serializable;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tracks the relative size of each class of a stream, for class imbalance
+ * aware training.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public interface ClassSizeTracker extends Serializable {
+
+	/**
+	 * Adds the class of an instance to the tracked sizes.
+	 *
+	 * @param inst the instance
+	 */
+	public void update(Instance inst);
+
+	/**
+	 * Gets the current size of a class, as a proportion of the stream.
+	 *
+	 * @param classIndex the class
+	 * @return the class size
+	 */
+	public double getClassSize(int classIndex);
+
+	/**
+	 * Gets the largest class. Must not be called before the first update.
+	 *
+	 * @return the majority class, the first one on ties
+	 */
+	public int getMajorityClass();
+
+	/**
+	 * Gets the smallest class. Must not be called before the first update.
+	 *
+	 * @return the minority class, the last one on ties
+	 */
+	public int getMinorityClass();
+
+	public ClassSizeTracker copy();
+}
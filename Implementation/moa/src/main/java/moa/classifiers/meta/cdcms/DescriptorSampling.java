@@ -0,0 +1,134 @@
+/*
+ *    DescriptorSampling.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How a model's descriptor centres of a class are sampled into a test batch
+ * of a target size. With oversampling, every centre is first taken as many
+ * times as it fits into the target. The rest of the target is then picked
+ * from the centres.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public enum DescriptorSampling {
+
+	/**
+	 * Walks over the centres again and again, taking each with a coin flip,
+	 * until enough are taken. Takes an unbounded number of draws and favours
+	 * the first centres.
+	 */
+	COIN_FLIP {
+		@Override
+		protected void pick(int numCentres, int[] picks, int from, Random random) {
+			for (int i = 0; from < picks.length; ++i) {
+				if (random.nextBoolean()) {
+					picks[from++] = i % numCentres;
+				}
+			}
+		}
+	},
+
+	/**
+	 * Takes the rest uniformly without replacement, with one draw per centre
+	 * taken, in ascending order of the centres.
+	 */
+	WITHOUT_REPLACEMENT {
+		@Override
+		protected void pick(int numCentres, int[] picks, int from, Random random) {
+			int numToPick = picks.length - from;
+			while (numToPick >= numCentres) {
+				for (int i = 0; i < numCentres; ++i) {
+					picks[from++] = i;
+				}
+				numToPick -= numCentres;
+			}
+
+			// Floyd's algorithm.
+			boolean[] isPicked = new boolean[numCentres];
+			for (int j = numCentres - numToPick; j < numCentres; ++j) {
+				int t = random.nextInt(j + 1);
+				isPicked[isPicked[t] ? j : t] = true;
+			}
+			for (int i = 0; i < numCentres && from < picks.length; ++i) {
+				if (isPicked[i]) {
+					picks[from++] = i;
+				}
+			}
+		}
+	};
+
+	/**
+	 * Fills picks[from..] with centre indices.
+	 */
+	protected abstract void pick(int numCentres, int[] picks, int from, Random random);
+
+	/**
+	 * Samples the test batch of a class.
+	 *
+	 * @param numCentres the number of centres of the class, positive
+	 * @param target the size of the test batch
+	 * @param isUndersampling whether to skip taking whole copies of the centres first
+	 * @param random the source of randomness
+	 * @return the index of the centre of each test instance, in batch order
+	 */
+	public int[] sample(int numCentres, int target, boolean isUndersampling, Random random) {
+		int[] picks = new int[target];
+		int from = 0;
+		int k = target / numCentres;
+		if (!isUndersampling && k >= 1) {
+			for (int copy = 0; copy < k; ++copy) {
+				for (int i = 0; i < numCentres; ++i) {
+					picks[from++] = i;
+				}
+			}
+		}
+		this.pick(numCentres, picks, from, random);
+		return picks;
+	}
+
+	/**
+	 * Samples the test batch of a class as the number of times each centre is
+	 * taken. Draws the same sample as sample().
+	 *
+	 * @param numCentres the number of centres of the class, positive
+	 * @param target the size of the test batch
+	 * @param isUndersampling whether to skip taking whole copies of the centres first
+	 * @param random the source of randomness
+	 * @return the multiplicity of each centre
+	 */
+	public int[] sampleCounts(int numCentres, int target, boolean isUndersampling, Random random) {
+		int[] counts = new int[numCentres];
+		int k = target / numCentres;
+		int from = 0;
+		if (!isUndersampling && k >= 1) {
+			Arrays.fill(counts, k);
+			from = k * numCentres;
+		}
+		int[] picks = new int[target - from];
+		this.pick(numCentres, picks, 0, random);
+		for (int pick : picks) {
+			counts[pick]++;
+		}
+		return counts;
+	}
+}
@@ -0,0 +1,105 @@
+/*
+ *    FadingClassSizeTracker.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Class sizes with a time decay factor, each divided by the decayed number of
+ * instances seen. All classes start with the same size.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public final class FadingClassSizeTracker implements ClassSizeTracker {
+
+	private static final long serialVersionUID = 1L;
+
+	private final double theta;
+
+	private double[] classSizeEstimation;
+
+	private double[] classSizeb;
+
+	/**
+	 * @param theta the time decay factor
+	 */
+	public FadingClassSizeTracker(double theta) {
+		this.theta = theta;
+	}
+
+	private FadingClassSizeTracker(FadingClassSizeTracker source) {
+		this.theta = source.theta;
+		if (source.classSizeEstimation != null) {
+			this.classSizeEstimation = source.classSizeEstimation.clone();
+			this.classSizeb = source.classSizeb.clone();
+		}
+	}
+
+	@Override
+	public void update(Instance inst) {
+		if (this.classSizeEstimation == null) {
+			int numClasses = inst.numClasses();
+			this.classSizeEstimation = new double[numClasses];
+			this.classSizeb = new double[numClasses];
+			for (int i = 0; i < numClasses; ++i) {
+				this.classSizeEstimation[i] = 1d / numClasses;
+				this.classSizeb[i] = 1d / numClasses;
+			}
+		}
+
+		int trueClass = (int) inst.classValue();
+		for (int i = 0; i < this.classSizeEstimation.length; ++i) {
+			this.classSizeEstimation[i] = this.theta * this.classSizeEstimation[i] + (trueClass == i ? 1d : 0d);
+			this.classSizeb[i] = this.theta * this.classSizeb[i] + 1d;
+		}
+	}
+
+	@Override
+	public double getClassSize(int classIndex) {
+		return this.classSizeb[classIndex] > 0.0 ? this.classSizeEstimation[classIndex] / this.classSizeb[classIndex] : 0.0;
+	}
+
+	@Override
+	public int getMajorityClass() {
+		int indexMaj = 0;
+		for (int i = 1; i < this.classSizeEstimation.length; ++i) {
+			if (this.getClassSize(i) > this.getClassSize(indexMaj)) {
+				indexMaj = i;
+			}
+		}
+		return indexMaj;
+	}
+
+	@Override
+	public int getMinorityClass() {
+		int indexMin = 0;
+		for (int i = 1; i < this.classSizeEstimation.length; ++i) {
+			if (this.getClassSize(i) <= this.getClassSize(indexMin)) {
+				indexMin = i;
+			}
+		}
+		return indexMin;
+	}
+
+	@Override
+	public FadingClassSizeTracker copy() {
+		return new FadingClassSizeTracker(this);
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ *    PerformanceEstimator.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import java.io.Serializable;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Time-decayed estimate of how well a CDCMS member or ensemble predicts. It is
+ * used as the voting weight of the member or ensemble, and to pick the worst
+ * member of an ensemble.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public interface PerformanceEstimator extends Serializable {
+
+	/**
+	 * Adds the outcome of a prediction to the estimate.
+	 *
+	 * @param inst the instance that was predicted
+	 * @param isCorrect whether the prediction was correct
+	 */
+	public void update(Instance inst, boolean isCorrect);
+
+	/**
+	 * Gets the current estimate.
+	 *
+	 * @return the estimate, 0.0 before any update
+	 */
+	public double getEstimation();
+
+	public void reset();
+
+	public PerformanceEstimator copy();
+}
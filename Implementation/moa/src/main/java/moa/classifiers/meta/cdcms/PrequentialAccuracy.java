@@ -0,0 +1,74 @@
+/*
+ *    PrequentialAccuracy.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Prequential accuracy with a fading factor. Instance weights are ignored.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public final class PrequentialAccuracy implements PerformanceEstimator {
+
+	private static final long serialVersionUID = 1L;
+
+	private final double alpha;
+
+	private double estimation;
+
+	private double b;
+
+	/**
+	 * @param alpha the fading factor
+	 */
+	public PrequentialAccuracy(double alpha) {
+		this.alpha = alpha;
+		this.reset();
+	}
+
+	private PrequentialAccuracy(PrequentialAccuracy source) {
+		this.alpha = source.alpha;
+		this.estimation = source.estimation;
+		this.b = source.b;
+	}
+
+	@Override
+	public void update(Instance inst, boolean isCorrect) {
+		this.estimation = this.alpha * this.estimation + (isCorrect ? 1.0 : 0.0);
+		this.b = this.alpha * this.b + 1.0;
+	}
+
+	@Override
+	public double getEstimation() {
+		return this.b > 0.0 ? this.estimation / this.b : 0.0;
+	}
+
+	@Override
+	public void reset() {
+		this.estimation = 0.0;
+		this.b = 0.0;
+	}
+
+	@Override
+	public PrequentialAccuracy copy() {
+		return new PrequentialAccuracy(this);
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ *    PrequentialGMean.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Prequential G-mean with a fading factor: the geometric mean of the
+ * prequential recall of each class. Correct predictions count with their
+ * instance weight, and instances with no weight are skipped.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public final class PrequentialGMean implements PerformanceEstimator {
+
+	private static final long serialVersionUID = 1L;
+
+	private final double alpha;
+
+	private final int numClasses;
+
+	private double[] estimations;
+
+	private double[] b;
+
+	/**
+	 * @param alpha the fading factor
+	 * @param numClasses the number of classes
+	 */
+	public PrequentialGMean(double alpha, int numClasses) {
+		this.alpha = alpha;
+		this.numClasses = numClasses;
+		this.estimations = new double[numClasses];
+		this.b = new double[numClasses];
+	}
+
+	private PrequentialGMean(PrequentialGMean source) {
+		this.alpha = source.alpha;
+		this.numClasses = source.numClasses;
+		this.estimations = source.estimations.clone();
+		this.b = source.b.clone();
+	}
+
+	@Override
+	public void update(Instance inst, boolean isCorrect) {
+		double weight = inst.weight();
+		if (weight > 0.0) {
+			int trueClass = (int) inst.classValue();
+			this.estimations[trueClass] = this.alpha * this.estimations[trueClass] + (isCorrect ? weight : 0.0);
+			this.b[trueClass] = this.alpha * this.b[trueClass] + 1.0;
+		}
+	}
+
+	/**
+	 * Gets the prequential recall of a class.
+	 *
+	 * @param classIndex the class
+	 * @return the recall, 0.0 before the class is seen
+	 */
+	public double getRecallStatistic(int classIndex) {
+		return this.b[classIndex] > 0.0 ? this.estimations[classIndex] / this.b[classIndex] : 0.0;
+	}
+
+	@Override
+	public double getEstimation() {
+		double gmean = 0.0;
+		for (int i = 0; i < this.numClasses; ++i) {
+			if (i == 0) {
+				gmean = this.getRecallStatistic(i);
+			} else {
+				gmean *= this.getRecallStatistic(i);
+			}
+		}
+		return Math.pow(gmean, (1.0 / this.numClasses));
+	}
+
+	@Override
+	public void reset() {
+		Arrays.fill(this.estimations, 0.0);
+		Arrays.fill(this.b, 0.0);
+	}
+
+	@Override
+	public PrequentialGMean copy() {
+		return new PrequentialGMean(this);
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ *    Resampling.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+/**
+ * How a CDCMS ensemble reweights its training instances by class size.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public enum Resampling {
+
+	/** Instances keep their weight, no class sizes are tracked. */
+	NONE,
+
+	/** Instances are weighted up to the size of the majority class. */
+	OVERSAMPLING,
+
+	/** Instances are weighted down to the size of the minority class. */
+	UNDERSAMPLING;
+
+	/**
+	 * Gets the factor to multiply the weight of an instance by.
+	 *
+	 * @param classSizes the class sizes, already updated with the instance
+	 * @param classValue the class of the instance
+	 * @return the weight factor
+	 */
+	public double getWeight(ClassSizeTracker classSizes, int classValue) {
+		switch (this) {
+			case OVERSAMPLING:
+				return classSizes.getClassSize(classSizes.getMajorityClass()) / classSizes.getClassSize(classValue);
+			case UNDERSAMPLING:
+				return classSizes.getClassSize(classSizes.getMinorityClass()) / classSizes.getClassSize(classValue);
+			default:
+				return 1d;
+		}
+	}
+}
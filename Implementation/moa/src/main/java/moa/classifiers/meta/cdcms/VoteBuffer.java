@@ -0,0 +1,100 @@
+/*
+ *    VoteBuffer.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *    
+ */
+package moa.classifiers.meta.cdcms;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Reusable sum of normalised, weighted votes. Adding a vote gives exactly the
+ * same values as copying it into a DoubleVector, calling normalize() and
+ * scaleValues(weight) and adding it to the sum, but allocates nothing once
+ * the buffer has grown to the number of classes.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public final class VoteBuffer implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final double[] NO_VOTES = new double[0];
+
+	private double[] values = NO_VOTES;
+
+	// The length of the sum, as a DoubleVector would have it.
+	private int length;
+
+	/**
+	 * Empties the sum.
+	 */
+	public void clear() {
+		Arrays.fill(this.values, 0, this.length, 0.0);
+		this.length = 0;
+	}
+
+	/**
+	 * Adds a vote normalised to sum to 1 and scaled by weight, unless its values
+	 * do not sum to a positive number.
+	 *
+	 * @param vote the vote, left unchanged
+	 * @param weight the weight of the vote
+	 * @return whether the vote was added
+	 */
+	public boolean addNormalized(double[] vote, double weight) {
+		double sum = 0.0;
+		double sumOfAbsoluteValues = 0.0;
+		for (double value : vote) {
+			sum += value;
+			sumOfAbsoluteValues += Math.abs(value);
+		}
+		if (!(sum > 0.0)) {
+			return false;
+		}
+
+		if (vote.length > this.values.length) {
+			this.values = Arrays.copyOf(this.values, vote.length);
+		}
+		this.length = Math.max(this.length, vote.length);
+		double normaliser = 1.0 / sumOfAbsoluteValues;
+		for (int i = 0; i < vote.length; ++i) {
+			this.values[i] += vote[i] * normaliser * weight;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the sum. The array is only valid until the buffer is changed and
+	 * must not be modified.
+	 *
+	 * @return the sum, of the length of the longest vote added
+	 */
+	public double[] getVotes() {
+		return this.length == this.values.length ? this.values : Arrays.copyOf(this.values, this.length);
+	}
+
+	/**
+	 * Gets a copy of the sum that the caller owns.
+	 *
+	 * @return a copy of the sum
+	 */
+	public double[] toArray() {
+		return Arrays.copyOf(this.values, this.length);
+	}
+}
@@ -16,8 +16,7 @@ import moa.capabilities.ImmutableCapabilities;
 import moa.classifiers.AbstractClassifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.classifiers.core.driftdetection.ChangeDetector;
-import moa.classifiers.core.driftdetection.DDM_GMean;
-import moa.classifiers.core.driftdetection.DDM_OCI;
+import moa.classifiers.core.driftdetection.DetectorObservation;
 import moa.classifiers.trees.RandomSubspaceHT;
 import moa.core.DoubleVector;
 import moa.core.InstanceExample;
@@ -418,6 +417,7 @@ public class ROSE extends AbstractClassifier implements MultiClassClassifier, Ca
 
 		// Drift and warning detection
 		protected ChangeDetector driftDetectionMethod;
+		protected DetectorObservation detectorObservation = new DetectorObservation();
 		protected ChangeDetector warningDetectionMethod;
 
 		// Bkg learner
@@ -480,22 +480,11 @@ public class ROSE extends AbstractClassifier implements MultiClassClassifier, Ca
 
 			// Should it use a drift detector? Also, is it a backgroundLearner? If so, then do not "incept" another one. 
 			if(!this.isBackgroundLearner) {
-				boolean correctlyClassifies = this.classifier.correctlyClassifies(instance);
+				this.detectorObservation.set(this.classifier.getVotesForInstance(instance), instance);
 				// Check for warning only if useBkgLearner is active
 				// Update the warning detection method
 //				this.warningDetectionMethod.input(correctlyClassifies ? 0 : 1);
-				/**
-				 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-				 * DDM_OCI is a subclass of DDM_GMean
-				 */
-				double prediction = correctlyClassifies ? 0.0 : 1.0;
-				if (this.warningDetectionMethod instanceof DDM_OCI) {
-					((DDM_OCI) this.warningDetectionMethod).input(prediction, instance);
-		        } else if (this.warningDetectionMethod instanceof DDM_GMean) {
-		        	((DDM_GMean) this.warningDetectionMethod).input(prediction, instance);
-		        } else {
-		        	this.warningDetectionMethod.input(prediction);
-		        }
+				this.warningDetectionMethod.input(this.detectorObservation);
 				// Check if there was a change
 				if(this.warningDetectionMethod.getChange()) {
 					this.warningDetected = true;
@@ -524,17 +513,7 @@ public class ROSE extends AbstractClassifier implements MultiClassClassifier, Ca
 
 				// Update the DRIFT detection method
 //				this.driftDetectionMethod.input(correctlyClassifies ? 0 : 1);
-				/**
-				 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-				 * DDM_OCI is a subclass of DDM_GMean
-				 */
-				if (this.driftDetectionMethod instanceof DDM_OCI) {
-					((DDM_OCI) this.driftDetectionMethod).input(prediction, instance);
-		        } else if (this.driftDetectionMethod instanceof DDM_GMean) {
-		        	((DDM_GMean) this.driftDetectionMethod).input(prediction, instance);
-		        } else {
-		        	this.driftDetectionMethod.input(prediction);
-		        }
+				this.driftDetectionMethod.input(this.detectorObservation);
 				// Check if there was a change
 				if(this.driftDetectionMethod.getChange()) {
 					this.lastDriftOn = instancesSeen;
@@ -31,8 +31,7 @@ import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClas
 import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserverHistogram;
 import moa.classifiers.core.driftdetection.ADWIN;
 import moa.classifiers.core.driftdetection.ChangeDetector;
-import moa.classifiers.core.driftdetection.DDM_GMean;
-import moa.classifiers.core.driftdetection.DDM_OCI;
+import moa.classifiers.core.driftdetection.DetectorObservation;
 import moa.classifiers.trees.HoeffdingAdaptiveTreeHistogram;
 import moa.classifiers.trees.HoeffdingTreeHistogram.ActiveLearningNode;
 import moa.classifiers.trees.HoeffdingTreeHistogram.FoundNode;
@@ -147,6 +146,7 @@ public class SMOTEOB extends AbstractClassifier implements MultiClassClassifier,
     protected BasicClassificationPerformanceEvaluator evaluator;
     protected ArrayList<int[]> featuresSelected = new ArrayList<int[]>();  
     protected HoeffdingAdaptiveTreeHistogram histrogram;
+    protected DetectorObservation detectorObservation = new DetectorObservation();
     
     protected int minSizeAllowed;
     protected DoubleVector classDistribution;    
@@ -490,19 +490,9 @@ public class SMOTEOB extends AbstractClassifier implements MultiClassClassifier,
     	if (this.bkgClassDistribution != null) {
     		this.bkgClassDistribution.addToValue((int) instance.classValue(), 1);
     	}    	
-    	boolean correctlyClassifies = this.histrogram.correctlyClassifies(instance);
+    	this.detectorObservation.set(this.histrogram.getVotesForInstance(instance), instance);
 //    	this.warningDetectionMethod.input(correctlyClassifies ? 0 : 1);
-    	/**
-		 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-		 * DDM_OCI is a subclass of DDM_GMean
-		 */
-		if (this.warningDetectionMethod instanceof DDM_OCI) {
-        	((DDM_OCI) this.warningDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-        } else if (this.warningDetectionMethod instanceof DDM_GMean) {
-			((DDM_GMean) this.warningDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-        } else {
-        	this.warningDetectionMethod.input(correctlyClassifies ? 0.0 : 1.0);
-        }
+		this.warningDetectionMethod.input(this.detectorObservation);
 		
 		
     	if(this.warningDetectionMethod.getChange()) {
@@ -511,17 +501,7 @@ public class SMOTEOB extends AbstractClassifier implements MultiClassClassifier,
     	}
     	// Update the DRIFT detection method
 //      this.driftDetectionMethod.input(correctlyClassifies ? 0 : 1);
-    	/**
-		 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-		 * DDM_OCI is a subclass of DDM_GMean
-		 */
-		if (this.driftDetectionMethod instanceof DDM_OCI) {
-			((DDM_OCI) this.driftDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-	    } else if (this.driftDetectionMethod instanceof DDM_GMean) {
-			((DDM_GMean) this.driftDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-	    } else {
-	    	this.driftDetectionMethod.input(correctlyClassifies ? 0.0 : 1.0);
-	    }
+		this.driftDetectionMethod.input(this.detectorObservation);
 			
         // Check if there was a change
         if(this.driftDetectionMethod.getChange()) {            
@@ -27,8 +27,7 @@ import moa.classifiers.core.attributeclassobservers.AttributeClassObserver;
 import moa.classifiers.core.attributeclassobservers.GaussianNumericAttributeClassObserverHistogram;
 import moa.classifiers.core.attributeclassobservers.NominalAttributeClassObserverHistogram;
 import moa.classifiers.core.driftdetection.ChangeDetector;
-import moa.classifiers.core.driftdetection.DDM_GMean;
-import moa.classifiers.core.driftdetection.DDM_OCI;
+import moa.classifiers.core.driftdetection.DetectorObservation;
 import moa.classifiers.trees.HoeffdingAdaptiveTreeHistogram;
 import moa.classifiers.trees.HoeffdingTreeHistogram.ActiveLearningNode;
 import moa.classifiers.trees.HoeffdingTreeHistogram.FoundNode;
@@ -117,6 +116,7 @@ public class VFCSMOTE extends AbstractClassifier implements MultiClassClassifier
     
     protected Classifier learner; 
     protected HoeffdingAdaptiveTreeHistogram histrogram;
+    protected DetectorObservation detectorObservation = new DetectorObservation();
  
     protected double threshold;
     protected double percentageCorrectlyClassified;
@@ -274,19 +274,9 @@ public class VFCSMOTE extends AbstractClassifier implements MultiClassClassifier
     	if (this.bkgClassDistribution != null) {
     		this.bkgClassDistribution.addToValue((int) instance.classValue(), 1);
     	}    	
-    	boolean correctlyClassifies = this.learner.correctlyClassifies(instance);
+    	this.detectorObservation.set(this.learner.getVotesForInstance(instance), instance);
 //    	this.warningDetectionMethod.input(correctlyClassifies ? 0 : 1);
-    	/**
-		 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-		 * DDM_OCI is a subclass of DDM_GMean
-		 */
-		if (this.warningDetectionMethod instanceof DDM_OCI) {
-        	((DDM_OCI) this.warningDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-        } else if (this.warningDetectionMethod instanceof DDM_GMean) {
-			((DDM_GMean) this.warningDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-        } else {
-        	this.warningDetectionMethod.input(correctlyClassifies ? 0.0 : 1.0);
-        }
+		this.warningDetectionMethod.input(this.detectorObservation);
     	
     	
     	if(this.warningDetectionMethod.getChange()) {
@@ -296,17 +286,7 @@ public class VFCSMOTE extends AbstractClassifier implements MultiClassClassifier
     	
     	// Update the DRIFT detection method
 //        this.driftDetectionMethod.input(correctlyClassifies ? 0 : 1);
-    	/**
-		 * DDM_OCI has to put before DDM_GMean because of polymorphism.
-		 * DDM_OCI is a subclass of DDM_GMean
-		 */
-		if (this.driftDetectionMethod instanceof DDM_OCI) {
-        	((DDM_OCI) this.driftDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-        } else if (this.driftDetectionMethod instanceof DDM_GMean) {
-			((DDM_GMean) this.driftDetectionMethod).input(correctlyClassifies ? 0.0 : 1.0, instance);
-        } else {
-        	this.driftDetectionMethod.input(correctlyClassifies ? 0.0 : 1.0);
-        }
+		this.driftDetectionMethod.input(this.detectorObservation);
     	
         // Check if there was a change
         if(this.driftDetectionMethod.getChange()) {            
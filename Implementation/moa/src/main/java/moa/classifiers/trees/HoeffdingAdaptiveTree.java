@@ -25,6 +25,7 @@ import java.util.Random;
 import moa.classifiers.bayes.NaiveBayes;
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.driftdetection.ADWIN;
+import moa.core.ByteSizeAccount;
 import moa.core.DoubleVector;
 import moa.core.MiscUtils;
 import moa.core.Utils;
@@ -119,6 +120,15 @@ public class HoeffdingAdaptiveTree extends HoeffdingTree {
             }
             return byteSize;
         }
+
+        @Override
+        public void accountByteSizeIncludingSubtree(ByteSizeAccount account) {
+            super.accountByteSizeIncludingSubtree(account);
+            if (alternateTree != null) {
+                alternateTree.accountByteSizeIncludingSubtree(account);
+            }
+            account.add(estimationErrorWeight);
+        }
         
         public AdaSplitNode(InstanceConditionalTest splitTest,
                 double[] classObservations, int size) {
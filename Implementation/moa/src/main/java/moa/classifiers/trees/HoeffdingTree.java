@@ -41,6 +41,8 @@ import moa.classifiers.core.attributeclassobservers.NumericAttributeClassObserve
 import moa.classifiers.core.conditionaltests.InstanceConditionalTest;
 import moa.classifiers.core.splitcriteria.SplitCriterion;
 import moa.core.AutoExpandVector;
+import moa.core.ByteSizeAccount;
+import moa.core.ByteSizeAccountable;
 import moa.core.DoubleVector;
 import moa.core.Measurement;
 import moa.core.SizeOf;
@@ -93,7 +95,7 @@ import com.yahoo.labs.samoa.instances.Instance;
  * @author Richard Kirkby (rkirkby@cs.waikato.ac.nz)
  * @version $Revision: 7 $
  */
-public class HoeffdingTree extends AbstractClassifier implements MultiClassClassifier {
+public class HoeffdingTree extends AbstractClassifier implements MultiClassClassifier, ByteSizeAccountable {
 
     private static final long serialVersionUID = 1L;
 
@@ -196,6 +198,11 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             return calcByteSize();
         }
 
+        public void accountByteSizeIncludingSubtree(ByteSizeAccount account) {
+            long byteSize = account.getKnownSize(this);
+            account.add(this, byteSize >= 0 ? byteSize : calcByteSize());
+        }
+
         public boolean isLeaf() {
             return true;
         }
@@ -270,6 +277,16 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             return byteSize;
         }
 
+        @Override
+        public void accountByteSizeIncludingSubtree(ByteSizeAccount account) {
+            super.accountByteSizeIncludingSubtree(account);
+            for (Node child : this.children) {
+                if (child != null) {
+                    child.accountByteSizeIncludingSubtree(account);
+                }
+            }
+        }
+
         public SplitNode(InstanceConditionalTest splitTest,
                 double[] classObservations, int size) {
             super(classObservations);
@@ -480,6 +497,8 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
 
     protected boolean growthAllowed;
 
+    protected ByteSizeAccount byteSizeAccount;
+
     public int calcByteSize() {
         int size = (int) SizeOf.sizeOf(this);
         if (this.treeRoot != null) {
@@ -488,6 +507,24 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         return size;
     }
 
+    /**
+     * Gets the size of the tree from the sizes of its nodes, measuring only a
+     * few of the nodes again at each call. calcByteSize() and measureByteSize()
+     * measure them all.
+     */
+    @Override
+    public long accountedByteSize() {
+        if (this.byteSizeAccount == null) {
+            this.byteSizeAccount = new ByteSizeAccount();
+        }
+        this.byteSizeAccount.begin();
+        this.byteSizeAccount.add(SizeOf.sizeOf(this));
+        if (this.treeRoot != null) {
+            this.treeRoot.accountByteSizeIncludingSubtree(this.byteSizeAccount);
+        }
+        return this.byteSizeAccount.end();
+    }
+
     @Override
     public int measureByteSize() {
         return calcByteSize();
@@ -503,6 +540,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
         this.activeLeafByteSizeEstimate = 0.0;
         this.byteSizeEstimateOverheadFraction = 1.0;
         this.growthAllowed = true;
+        this.byteSizeAccount = null;
         if (this.leafpredictionOption.getChosenIndex()>0) { 
             this.removePoorAttsOption = null;
         }
@@ -765,7 +803,7 @@ public FlagOption binarySplitsOption = new FlagOption("binarySplits", 'b',
             this.inactiveLeafByteSizeEstimate = (double) totalInactiveSize
                     / this.inactiveLeafNodeCount;
         }
-        int actualModelSize = this.measureByteSize();
+        int actualModelSize = this.calcByteSize();
         double estimatedModelSize = (this.activeLeafNodeCount
                 * this.activeLeafByteSizeEstimate + this.inactiveLeafNodeCount
                 * this.inactiveLeafByteSizeEstimate);
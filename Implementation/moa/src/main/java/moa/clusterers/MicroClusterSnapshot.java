@@ -0,0 +1,38 @@
+/*
+ *    MicroClusterSnapshot.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.clusterers;
+
+/**
+ * Clusterer that can expose the centres of its micro clusters without
+ * copying them into a Clustering, for callers that only need the centres.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public interface MicroClusterSnapshot {
+
+    /**
+     * Gets the centres of the micro clusters, in the order of
+     * getMicroClusteringResult(). The arrays are owned by the clusterer, must
+     * not be modified and are only valid until it is trained or reset.
+     *
+     * @return one centre per micro cluster, empty before the first clusters exist
+     */
+    public double[][] getMicroClusterCentres();
+}
@@ -28,7 +28,9 @@ import moa.cluster.Cluster;
 import moa.cluster.Clustering;
 import moa.cluster.SphereCluster;
 import moa.clusterers.AbstractClusterer;
+import moa.clusterers.MicroClusterSnapshot;
 import moa.core.Measurement;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.DenseInstance;
 import com.yahoo.labs.samoa.instances.Instance;
@@ -36,7 +38,7 @@ import com.yahoo.labs.samoa.instances.Instance;
 /** Citation: CluStream: Charu C. Aggarwal, Jiawei Han, Jianyong Wang, Philip S. Yu:
  * A Framework for Clustering Evolving Data Streams. VLDB 2003: 81-92
  */
-public class Clustream extends AbstractClusterer{
+public class Clustream extends AbstractClusterer implements MicroClusterSnapshot {
 
 	private static final long serialVersionUID = 1L;
 
@@ -51,6 +53,9 @@ public class Clustream extends AbstractClusterer{
 			"kernelRadiFactor", 't',
 			"Multiplier for the kernel radius", 2);
 
+	public FlagOption cachedDistancesOption = new FlagOption("cachedDistances", 'c',
+			"Keep the kernel centres in one block and cache the distances between kernels.");
+
 	private int timeWindow;
 	private long timestamp = -1;
 	private ClustreamKernel[] kernels;
@@ -59,6 +64,24 @@ public class Clustream extends AbstractClusterer{
 	private int bufferSize;
 	private double t;
 	private int m;
+	// Centres of the kernels, computed on demand and dropped whenever a kernel changes.
+	private double[][] centres;
+
+	/*
+	 * With cachedDistances, the centre of kernel i is at [i * dimensions] of centreBlock,
+	 * and the distance between kernels i and j at [i * kernels.length + j] of kernelDistances.
+	 * The distances of the kernels changed since the last closest-pair search are refreshed
+	 * on the next one. nearestAfter[i] is the closest kernel j > i, first on ties, at
+	 * nearestAfterDistance[i], so the closest pair is found from them alone.
+	 */
+	private boolean cachedDistances;
+	private int dimensions;
+	private double[] centreBlock;
+	private double[] kernelDistances;
+	private boolean[] changedKernels;
+	private int numChangedKernels;
+	private int[] nearestAfter;
+	private double[] nearestAfterDistance;
 
 	public Clustream() {
 	}
@@ -73,12 +96,20 @@ public class Clustream extends AbstractClusterer{
 		this.bufferSize = maxNumKernelsOption.getValue();
 		t = kernelRadiFactorOption.getValue();
 		m = maxNumKernelsOption.getValue();
+		this.centres = null;
+		this.cachedDistances = cachedDistancesOption.isSet();
+		this.centreBlock = null;
+		this.kernelDistances = null;
+		this.changedKernels = null;
+		this.nearestAfter = null;
+		this.nearestAfterDistance = null;
 	}
 
 	@Override
 	public void trainOnInstanceImpl(Instance instance) {
 		int dim = instance.numValues();
 		timestamp++;
+		this.centres = null;
 		// 0. Initialize
 		if ( !initialized ) {
 			if ( buffer.size() < bufferSize ) {
@@ -103,6 +134,14 @@ public class Clustream extends AbstractClusterer{
 
 			buffer.clear();
 			initialized = true;
+			if ( cachedDistances ) {
+				initDistanceCache(dim);
+			}
+			return;
+		}
+
+		if ( cachedDistances ) {
+			trainWithCachedDistances(instance, dim);
 			return;
 		}
 
@@ -177,6 +216,162 @@ public class Clustream extends AbstractClusterer{
 		kernels[closestB] = new ClustreamKernel( instance, dim, timestamp, t,  m );
 	}
 
+	/*
+	 * The same steps as in trainOnInstanceImpl(), on the centre block and the cached distances.
+	 * Kernels are chosen, including on ties, as without the cache.
+	 */
+	private void trainWithCachedDistances(Instance instance, int dim) {
+		// 1. Determine closest kernel
+		double[] point = instance.toDoubleArray();
+		int closest = -1;
+		double minDistance = Double.MAX_VALUE;
+		for ( int i = 0; i < kernels.length; i++ ) {
+			double distance = distance(point, centreBlock, i * dimensions);
+			if ( distance < minDistance ) {
+				closest = i;
+				minDistance = distance;
+			}
+		}
+		ClustreamKernel closestKernel = kernels[closest];
+
+		// 2. Check whether instance fits into closestKernel
+		double radius;
+		if ( closestKernel.getWeight() == 1 ) {
+			// Special case: the distance to the next closest kernel
+			refreshDistanceCache();
+			radius = Double.MAX_VALUE;
+			int row = closest * kernels.length;
+			for ( int i = 0; i < kernels.length; i++ ) {
+				if ( i != closest ) {
+					radius = Math.min( kernelDistances[row + i], radius );
+				}
+			}
+		} else {
+			radius = closestKernel.getRadius();
+		}
+
+		if ( minDistance < radius ) {
+			closestKernel.insert( instance, timestamp );
+			kernelChanged(closest);
+			return;
+		}
+
+		// 3.1 Try to forget old kernels
+		long threshold = timestamp - timeWindow;
+		for ( int i = 0; i < kernels.length; i++ ) {
+			if ( kernels[i].getRelevanceStamp() < threshold ) {
+				kernels[i] = new ClustreamKernel( instance, dim, timestamp, t, m );
+				kernelChanged(i);
+				return;
+			}
+		}
+
+		// 3.2 Merge closest two kernels
+		refreshDistanceCache();
+		int closestA = 0;
+		minDistance = Double.MAX_VALUE;
+		for ( int i = 0; i < kernels.length - 1; i++ ) {
+			if ( nearestAfterDistance[i] < minDistance ) {
+				minDistance = nearestAfterDistance[i];
+				closestA = i;
+			}
+		}
+		int closestB = nearestAfter[closestA];
+		assert (closestA != closestB);
+
+		kernels[closestA].add( kernels[closestB] );
+		kernels[closestB] = new ClustreamKernel( instance, dim, timestamp, t,  m );
+		kernelChanged(closestA);
+		kernelChanged(closestB);
+	}
+
+	private void initDistanceCache(int dim) {
+		int k = kernels.length;
+		this.dimensions = dim;
+		this.centreBlock = new double[k * dim];
+		this.kernelDistances = new double[k * k];
+		this.changedKernels = new boolean[k];
+		this.nearestAfter = new int[k];
+		this.nearestAfterDistance = new double[k];
+		for ( int i = 0; i < k; i++ ) {
+			setCentre(i);
+		}
+		for ( int i = 0; i < k; i++ ) {
+			for ( int j = i + 1; j < k; j++ ) {
+				double dist = distance(centreBlock, i * dim, j * dim, dim);
+				kernelDistances[i * k + j] = dist;
+				kernelDistances[j * k + i] = dist;
+			}
+			findNearestAfter(i);
+		}
+		this.numChangedKernels = 0;
+	}
+
+	private void setCentre(int kernel) {
+		kernels[kernel].getCenter(centreBlock, kernel * dimensions);
+	}
+
+	private void kernelChanged(int kernel) {
+		setCentre(kernel);
+		if ( !changedKernels[kernel] ) {
+			changedKernels[kernel] = true;
+			numChangedKernels++;
+		}
+	}
+
+	/*
+	 * Recomputes the distances of the changed kernels, and the nearest kernels after
+	 * each that these change, one changed kernel at a time.
+	 */
+	private void refreshDistanceCache() {
+		int k = kernels.length;
+		for ( int c = 0; numChangedKernels > 0 && c < k; c++ ) {
+			if ( !changedKernels[c] ) {
+				continue;
+			}
+			changedKernels[c] = false;
+			numChangedKernels--;
+			for ( int i = 0; i < k; i++ ) {
+				if ( i == c ) {
+					continue;
+				}
+				double dist = distance(centreBlock, c * dimensions, i * dimensions, dimensions);
+				double oldDist = kernelDistances[i * k + c];
+				kernelDistances[i * k + c] = dist;
+				kernelDistances[c * k + i] = dist;
+				if ( i < c ) {
+					if ( nearestAfter[i] == c ) {
+						if ( dist > oldDist ) {
+							findNearestAfter(i);
+						} else {
+							nearestAfterDistance[i] = dist;
+						}
+					} else if ( dist < nearestAfterDistance[i]
+							|| ( dist == nearestAfterDistance[i] && c < nearestAfter[i] ) ) {
+						nearestAfter[i] = c;
+						nearestAfterDistance[i] = dist;
+					}
+				}
+			}
+			findNearestAfter(c);
+		}
+	}
+
+	private void findNearestAfter(int kernel) {
+		int k = kernels.length;
+		int nearest = kernel;
+		double minDistance = Double.MAX_VALUE;
+		for ( int j = kernel + 1; j < k; j++ ) {
+			double dist = kernelDistances[kernel * k + j];
+			if ( dist < minDistance ) {
+				minDistance = dist;
+				nearest = j;
+			}
+		}
+		nearestAfter[kernel] = nearest;
+		nearestAfterDistance[kernel] = minDistance;
+	}
+
 	@Override
 	public Clustering getMicroClusteringResult() {
 		if ( !initialized ) {
@@ -191,6 +386,21 @@ public class Clustream extends AbstractClusterer{
 		return new Clustering( res );
 	}
 
+	@Override
+	public double[][] getMicroClusterCentres() {
+		if ( this.centres == null ) {
+			if ( !initialized ) {
+				this.centres = new double[0][];
+			} else {
+				this.centres = new double[kernels.length][];
+				for ( int i = 0; i < kernels.length; i++ ) {
+					this.centres[i] = kernels[i].getCenter();
+				}
+			}
+		}
+		return this.centres;
+	}
+
 	@Override
 	public boolean implementsMicroClusterer() {
 		return true;
@@ -214,6 +424,24 @@ public class Clustream extends AbstractClusterer{
 		return Math.sqrt(distance);
 	}
 
+	private static double distance(double[] point, double[] block, int offset){
+		double distance = 0.0;
+		for (int i = 0; i < point.length; i++) {
+			double d = point[i] - block[offset + i];
+			distance += d * d;
+		}
+		return Math.sqrt(distance);
+	}
+
+	private static double distance(double[] block, int offsetA, int offsetB, int length){
+		double distance = 0.0;
+		for (int i = 0; i < length; i++) {
+			double d = block[offsetA + i] - block[offsetB + i];
+			distance += d * d;
+		}
+		return Math.sqrt(distance);
+	}
+
 	//wrapper... we need to rewrite kmeans to points, not clusters, doesnt make sense anymore
 	//    public static Clustering kMeans( int k, ArrayList<Instance> points, int dim ) {
 	//        ArrayList<ClustreamKernel> cl = new ArrayList<ClustreamKernel>();
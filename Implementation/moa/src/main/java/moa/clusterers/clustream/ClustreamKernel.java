@@ -137,6 +137,18 @@ public class ClustreamKernel extends CFCluster {
         return res;
     }
 
+    /**
+     * Writes this kernel's center into an array.
+     * @param dest the array
+     * @param offset the index of the first coordinate in dest
+     */
+    public void getCenter(double[] dest, int offset) {
+        assert (!this.isEmpty());
+        for (int i = 0; i < this.LS.length; i++) {
+            dest[offset + i] = this.LS[i] / N;
+        }
+    }
+
     /**
      * See interface <code>Cluster</code>
      * @param point
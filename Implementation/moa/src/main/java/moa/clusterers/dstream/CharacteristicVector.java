@@ -85,6 +85,12 @@ public class CharacteristicVector {
 	 */
 	private boolean attChange;
 	
+	/**
+	 * The time from which the grid has to be inspected again by the offline component,
+	 * or -1 if it has to be inspected at the next call.
+	 */
+	private int checkTime;
+	
 	/**
 	 * @category Constructor method for the Characteristic Vector of grid g
 	 * @param tg - the last time when g is updated
@@ -109,6 +115,7 @@ public class CharacteristicVector {
 			this.attribute = TRANSITIONAL;
 		
 		this.attChange = false;
+		this.checkTime = -1;
 	}
 
 	/**
@@ -147,6 +154,9 @@ public class CharacteristicVector {
 	}
 	
 	/**
+	 * Decays the density from the time it was last set, not from the time the
+	 * grid last received a record, which it may have been set after.
+	 * 
 	 * @param currTime - the current time to calculate the density for
 	 * @param decayFactor - the decay factor, lambda, of the algorithm
 	 * 
@@ -154,7 +164,7 @@ public class CharacteristicVector {
 	 */
 	public double getCurrGridDensity(int currTime, double decayFactor)
 	{
-		return Math.pow(decayFactor, (currTime-this.getUpdateTime())) * this.getGridDensity();
+		return Math.pow(decayFactor, (currTime-this.getDensityTimeStamp())) * this.getGridDensity();
 	}
 
 	/**
@@ -216,7 +226,7 @@ public class CharacteristicVector {
 		double densityOfG = this.getGridDensity();
 		
 		//System.out.print("["+decayFactor+"^("+currTime+" - "+this.getDensityTimeStamp()+") * "+densityOfG+"] + 1.0 = ");
-		densityOfG = (Math.pow(decayFactor, (currTime-this.getUpdateTime())) * densityOfG)+1.0;
+		densityOfG = (Math.pow(decayFactor, (currTime-this.getDensityTimeStamp())) * densityOfG)+1.0;
 		//System.out.println(densityOfG);
 		
 		this.setGridDensity(densityOfG, currTime);
@@ -315,6 +325,30 @@ public class CharacteristicVector {
 		return this.attChange;
 	}
 	
+	/**
+	 * Marks the attribute as unchanged, for a grid whose density is not updated
+	 * by the offline component because its attribute cannot have changed.
+	 */
+	public void clearAttChange() {
+		this.attChange = false;
+	}
+
+	/**
+	 * @return the time from which the grid has to be inspected again, or -1 if
+	 * it has to be inspected at the next call to the offline component
+	 */
+	public int getCheckTime() {
+		return this.checkTime;
+	}
+
+	/**
+	 * @param checkTime the time from which the grid has to be inspected again,
+	 * or -1 if it has to be inspected at the next call to the offline component
+	 */
+	public void setCheckTime(int checkTime) {
+		this.checkTime = checkTime;
+	}
+	
 	/**
 	 * Overrides Object's toString method.
 	 * 
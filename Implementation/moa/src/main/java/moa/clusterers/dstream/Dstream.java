@@ -19,11 +19,14 @@
 package moa.clusterers.dstream;
 
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.PriorityQueue;
 
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.FloatOption;
 import com.yahoo.labs.samoa.instances.Instance;
 
@@ -43,6 +46,7 @@ public class Dstream extends AbstractClusterer {
 	private static final int SPARSE = 0;
 	private static final int TRANSITIONAL = 1;
 	private static final int DENSE = 2;
+	private static final int CHECK_NOW = -1;
 
 	public FloatOption decayFactorOption = new FloatOption("decayFactor",
 			'd', "The decay factor, lambda, in (0,1)", 0.998, 0.001, 0.999);
@@ -57,6 +61,11 @@ public class Dstream extends AbstractClusterer {
 			+ "window of protection for renaming previously deleted grids as "
 			+ "sporadic, > 0", 0.3, 0.001, Double.MAX_VALUE);
 
+	public FlagOption inspectEveryGridOption = new FlagOption("inspectEveryGrid", 'e',
+			"Inspect and update every density grid at every gap, as Chen and Tu 2007 do, "
+			+ "rather than only the grids that received a record or are due a check. "
+			+ "Gives the same clustering more slowly");
+
 	/**
 	 * The data stream's current internal time. Starts at 0.
 	 */
@@ -121,14 +130,48 @@ public class Dstream extends AbstractClusterer {
 	 * A list of all density grids which are being monitored;
 	 * given in figure 1 of Chen and Tu 2007
 	 */
-	private HashMap<DensityGrid,CharacteristicVector> grid_list;
+	private GridIndex<CharacteristicVector> grid_list;
 	
 	/**
 	 * A list of all density grids which have been deleted;
 	 * allows the recording of tm - the last time when the 
 	 * grid is removed from grid list as a sporadic grid (if ever).
 	 */
-	private HashMap<DensityGrid,Integer> deleted_grids;
+	private GridIndex<Integer> deleted_grids;
+	
+	/**
+	 * The size of deleted_grids after it was last pruned.
+	 */
+	private int deletedGridsPruned;
+	
+	/**
+	 * The density grids to inspect at the next call to the offline component
+	 * because they received a record since the last call.
+	 */
+	private ArrayList<DensityGrid> updatedGrids;
+	
+	/**
+	 * The times from which density grids which receive no record have to be inspected,
+	 * because their attribute or sporadicity may have changed by then.
+	 */
+	private PriorityQueue<GridCheck> gridChecks;
+	
+	/**
+	 * The density grids whose attribute changed at the last call to the offline component.
+	 */
+	private ArrayList<DensityGrid> changedGrids;
+	
+	/**
+	 * True if N, and hence dl, dm and gap, changed since the last call to the offline
+	 * component, so that every density grid has to be inspected.
+	 */
+	private boolean inspectAllGrids;
+	
+	/**
+	 * True to inspect every density grid at every call to the offline component,
+	 * set by inspectEveryGridOption.
+	 */
+	private boolean inspectEveryGrid;
 	
 	
 	/**
@@ -200,11 +243,17 @@ public class Dstream extends AbstractClusterer {
 		this.cm = cmOption.getValue();
 		this.cl = clOption.getValue();
 		this.beta = betaOption.getValue();
+		this.inspectEveryGrid = inspectEveryGridOption.isSet();
 		//System.out.println("Option values set...");
 
 		this.initialized = false;
-		this.grid_list = new HashMap<DensityGrid, CharacteristicVector>();
-		this.deleted_grids = new HashMap<DensityGrid, Integer>();
+		this.grid_list = new GridIndex<CharacteristicVector>();
+		this.deleted_grids = new GridIndex<Integer>();
+		this.deletedGridsPruned = 0;
+		this.updatedGrids = new ArrayList<DensityGrid>();
+		this.gridChecks = new PriorityQueue<GridCheck>();
+		this.changedGrids = new ArrayList<DensityGrid>();
+		this.inspectAllGrids = true;
 		this.cluster_list = new ArrayList<GridCluster>();
 		//System.out.println("Data structures initialized...");
 
@@ -316,23 +365,27 @@ public class Dstream extends AbstractClusterer {
 			{
 				gap = 1;
 			}
+			this.inspectAllGrids = true;
 			//System.out.println(" A is "+optionA+", B is "+optionB+" and gap = "+gap);
 		}
 
-		dg = new DensityGrid(g);
+		// Look dg up by its coordinates, creating it only if it is not in grid_list
+		dg = this.grid_list.getGrid(g);
 		//System.out.println(dg.toString());
 		
 		// 3. If (g not in grid_list) insert dg to grid_list
 		//System.out.println(" & Step 3 or 4");
 		
-		if(!this.grid_list.containsKey(dg))
+		boolean isNewGrid = (dg == null);
+		if(isNewGrid)
 		{
 			//System.out.print("3 - dg wasn't in grid_list!");
-			if(this.deleted_grids.containsKey(dg))
+			dg = new DensityGrid(g);
+			Integer removeTime = this.deleted_grids.remove(dg);
+			if(removeTime != null)
 			{
 				//System.out.print(" but it was in deleted_grids!");
-				cv = new CharacteristicVector(this.getCurrTime(), this.deleted_grids.get(dg).intValue(), 1.0, -1, false, this.getDL(), this.getDM());
-				this.deleted_grids.remove(dg);
+				cv = new CharacteristicVector(this.getCurrTime(), removeTime.intValue(), 1.0, -1, false, this.getDL(), this.getDM());
 			}
 			else
 				cv = new CharacteristicVector(this.getCurrTime(), -1, 1.0, -1, false, this.getDL(), this.getDM());
@@ -345,15 +398,21 @@ public class Dstream extends AbstractClusterer {
 		else
 		{
 			//System.out.print("4 - dg was in grid_list!");
-			cv = this.grid_list.get(dg);
+			cv = this.grid_list.get(g);
 				
 			cv.densityWithNew(this.getCurrTime(), this.getDecayFactor());
 				
 			cv.setUpdateTime(this.getCurrTime());
 		
 			//System.out.println(" "+dg.toString()+" "+cv.toString());
+		}
 		
-			grid_list.put(dg, cv);
+		// The record may have changed the attribute and sporadicity of dg,
+		// so inspect it at the next call to the offline component
+		if (isNewGrid || cv.getCheckTime() != CHECK_NOW)
+		{
+			cv.setCheckTime(CHECK_NOW);
+			this.updatedGrids.add(dg);
 		}
 
 		// 5. If tc == gap, then initial clustering
@@ -372,8 +431,9 @@ public class Dstream extends AbstractClusterer {
 			else
 			{
 				//System.out.print(" & Step x5x 6");
-				this.removeSporadic();
-				this.adjustClustering();
+				ArrayList<DensityGrid> dueGrids = this.collectDueGrids();
+				this.removeSporadic(dueGrids);
+				this.adjustClustering(dueGrids);
 			}
 		}
 
@@ -407,14 +467,14 @@ public class Dstream extends AbstractClusterer {
 		//printDStreamState();
 		// 1. Update the density of all grids in grid_list
 
-		updateGridListDensity();
+		this.inspectAllGrids = true;
+		updateGridListDensity(this.collectDueGrids());
 		//printGridList();
 				
 		// 2. Assign each dense grid to a distinct cluster
 		// and
 		// 3. Label all other grids as NO_CLASS	
 		Iterator<Map.Entry<DensityGrid, CharacteristicVector>> glIter = this.grid_list.entrySet().iterator();
-		HashMap<DensityGrid, CharacteristicVector> newGL = new HashMap<DensityGrid, CharacteristicVector>();
 		
 		while(glIter.hasNext())
 		{
@@ -436,10 +496,8 @@ public class Dstream extends AbstractClusterer {
 				cvOfG.setLabel(NO_CLASS);
 
 			//System.out.println();
-			newGL.put(dg, cvOfG);
 		}
 
-		this.grid_list = newGL;
 		//printGridClusters();
 		
 		// 4. Make changes to grid labels by doing:
@@ -550,15 +608,17 @@ public class Dstream extends AbstractClusterer {
 	 * Implements the procedure given in Figure 4 of Chen and Tu 2007
 	 * 
 	 * @see moa.clusterers.dstream.Dstream.gap
+	 * 
+	 * @param dueGrids the density grids whose attribute may have changed since the last call
 	 */
-	private void adjustClustering() {
+	private void adjustClustering(ArrayList<DensityGrid> dueGrids) {
 		//System.out.println("ADJUST CLUSTERING CALLED (time"+this.getCurrTime()+")");
 		//printDStreamState();
 		//printDStreamState();
 		//printGridClusters();
-		// 1. Update the density of all grids in grid_list
+		// 1. Update the density of all grids in grid_list whose attribute may have changed
 
-		updateGridListDensity();
+		updateGridListDensity(dueGrids);
 		//printGridList();
 		
 		// 2. For each grid dg whose attribute is changed since last call
@@ -593,13 +653,12 @@ public class Dstream extends AbstractClusterer {
 	private boolean inspectChangedGrids()
 	{
 		HashMap<DensityGrid, CharacteristicVector> glNew = new HashMap<DensityGrid, CharacteristicVector>();
-		Iterator<Map.Entry<DensityGrid, CharacteristicVector>> gridIter = this.grid_list.entrySet().iterator();
+		Iterator<DensityGrid> gridIter = this.changedGrids.iterator();
 		
 		while (gridIter.hasNext() && glNew.isEmpty())
 		{
-			Map.Entry<DensityGrid, CharacteristicVector> grid = gridIter.next();
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cv = grid.getValue();
+			DensityGrid dg = gridIter.next();
+			CharacteristicVector cv = this.grid_list.get(dg);
 			int dgClass = cv.getLabel();
 			
 			if(cv.isAttChanged() && !dg.isVisited())
@@ -1145,8 +1204,10 @@ public class Dstream extends AbstractClusterer {
 	
 	/**
 	 * Implements the procedure described in section 4.2 of Chen and Tu 2007
+	 * 
+	 * @param dueGrids the density grids whose sporadicity may have changed since the last call
 	 */
-	private void removeSporadic() {
+	private void removeSporadic(ArrayList<DensityGrid> dueGrids) {
 		//System.out.println("REMOVE SPORADIC CALLED");
 		// 1. For each grid g in grid_list
 		//    a. If g is sporadic
@@ -1156,16 +1217,15 @@ public class Dstream extends AbstractClusterer {
 		//    b. Else
 		//       i. If (S1 && S2), mark as sporadic
 		
-		// For each grid g in grid_list
-		Iterator<Map.Entry<DensityGrid, CharacteristicVector>> glIter = this.grid_list.entrySet().iterator();
-		HashMap<DensityGrid, CharacteristicVector> newGL = new HashMap<DensityGrid, CharacteristicVector>();
+		// For each grid g in grid_list whose sporadicity may have changed
+		// (a grid which is not updated stays sporadic once it is)
+		Iterator<DensityGrid> glIter = dueGrids.iterator();
 		ArrayList<DensityGrid> remGL = new ArrayList<DensityGrid>();
 				
 		while(glIter.hasNext())
 		{
-			Map.Entry<DensityGrid, CharacteristicVector> grid = glIter.next();
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cv = grid.getValue();
+			DensityGrid dg = glIter.next();
+			CharacteristicVector cv = this.grid_list.get(dg);
 			
 			// If g is sporadic
 			if (cv.isSporadic())
@@ -1186,7 +1246,6 @@ public class Dstream extends AbstractClusterer {
 				{
 					cv.setSporadic(checkIfSporadic(cv));
 					//System.out.println("within gap" + dg.toString() + " sporadicity assessed "+cv.isSporadic());
-					newGL.put(dg, cv);
 				}
 				
 			}
@@ -1195,12 +1254,10 @@ public class Dstream extends AbstractClusterer {
 			{
 				cv.setSporadic(checkIfSporadic(cv));
 				//System.out.println(dg.toString() + " sporadicity assessed "+cv.isSporadic());
-				newGL.put(dg, cv);
 			}
 		}
 		
-		this.grid_list.putAll(newGL);
-		
+
 		//System.out.println(" - Removed "+remGL.size()+" grids from grid_list.");
 		Iterator<DensityGrid> remIter = remGL.iterator();
 		
@@ -1212,6 +1269,15 @@ public class Dstream extends AbstractClusterer {
 			this.grid_list.remove(sporadicDG);
 		}
 		
+		// A grid removed at tm is protected by S2 only until (1 + beta) * tm, so
+		// deleted_grids can forget it from then on
+		if (this.deleted_grids.size() > (2 * this.deletedGridsPruned) + 64)
+		{
+			final int t = this.getCurrTime();
+			final double protection = 1 + this.beta;
+			this.deleted_grids.removeIf(tm -> t >= (protection * tm));
+			this.deletedGridsPruned = this.deleted_grids.size();
+		}
 	}
 
 	/**
@@ -1222,7 +1288,7 @@ public class Dstream extends AbstractClusterer {
 	private boolean checkIfSporadic(CharacteristicVector cv)
 	{
 		// Check S1
-		if(cv.getCurrGridDensity(this.getCurrTime(), this.getDecayFactor()) < densityThresholdFunction(cv.getDensityTimeStamp(), this.cl, this.getDecayFactor(), this.N))
+		if(cv.getCurrGridDensity(this.getCurrTime(), this.getDecayFactor()) < densityThresholdFunction(cv.getUpdateTime(), this.cl, this.getDecayFactor(), this.N))
 		{
 			// Check S2
 			if(cv.getRemoveTime() == -1 || this.getCurrTime() >= ((1 + this.beta)*cv.getRemoveTime()))
@@ -1280,21 +1346,142 @@ public class Dstream extends AbstractClusterer {
 	}
 
 	/**
-	 * Iterates through grid_list and updates the density for each density grid therein.
-	 * Also marks each density grid as unvisited for this call to adjustClustering.
+	 * Updates the density for each due density grid still in grid_list, marks it as
+	 * unvisited for this call to adjustClustering and schedules its next inspection.
+	 * The attribute of any other grid cannot have changed, so it is left as it is.
+	 * 
+	 * @param dueGrids the density grids whose attribute may have changed since the last call
 	 */
-	private void updateGridListDensity()
+	private void updateGridListDensity(ArrayList<DensityGrid> dueGrids)
 	{
-		for (Map.Entry<DensityGrid, CharacteristicVector> grid : grid_list.entrySet())
+		for (DensityGrid dg : this.changedGrids)
 		{
-			DensityGrid dg = grid.getKey();
-			CharacteristicVector cvOfG = grid.getValue();
+			CharacteristicVector cvOfG = this.grid_list.get(dg);
+			if (cvOfG != null)
+				cvOfG.clearAttChange();
+		}
+		this.changedGrids = new ArrayList<DensityGrid>();
+		
+		for (DensityGrid dg : dueGrids)
+		{
+			CharacteristicVector cvOfG = this.grid_list.get(dg);
+			// Removed as a sporadic grid
+			if (cvOfG == null)
+				continue;
 
 			dg.setVisited(false);
 			cvOfG.updateGridDensity(this.getCurrTime(), this.getDecayFactor(), this.getDL(), this.getDM());
+			if (cvOfG.isAttChanged())
+				this.changedGrids.add(dg);
 
-			this.grid_list.put(dg, cvOfG);
+			scheduleCheck(dg, cvOfG);
+		}
+	}
+	
+	/**
+	 * Collects the density grids to inspect at this call to the offline component:
+	 * those which received a record since the last call and those whose check time
+	 * has come, or every grid if N changed or every grid is to be inspected.
+	 * 
+	 * @return the density grids to inspect, each once
+	 */
+	private ArrayList<DensityGrid> collectDueGrids()
+	{
+		ArrayList<DensityGrid> dueGrids;
+		
+		if (this.inspectAllGrids || this.inspectEveryGrid)
+		{
+			dueGrids = new ArrayList<DensityGrid>(this.grid_list.keySet());
+			for (CharacteristicVector cv : this.grid_list.values())
+				cv.setCheckTime(CHECK_NOW);
+			this.gridChecks.clear();
+			this.inspectAllGrids = false;
 		}
+		else
+		{
+			dueGrids = this.updatedGrids;
+			while (!this.gridChecks.isEmpty() && this.gridChecks.peek().time <= this.getCurrTime())
+			{
+				GridCheck check = this.gridChecks.poll();
+				if (isCurrent(check))
+				{
+					check.cv.setCheckTime(CHECK_NOW);
+					dueGrids.add(check.grid);
+				}
+			}
+		}
+		
+		this.updatedGrids = new ArrayList<DensityGrid>();
+		return dueGrids;
+	}
+	
+	/**
+	 * Schedules the next inspection of a density grid which has just been inspected.
+	 * 
+	 * @param dg the density grid
+	 * @param cv the characteristic vector of dg
+	 */
+	private void scheduleCheck(DensityGrid dg, CharacteristicVector cv)
+	{
+		int checkTime = nextCheckTime(cv);
+		cv.setCheckTime(checkTime);
+		this.gridChecks.add(new GridCheck(checkTime, dg, cv));
+		
+		// Drop the checks of grids updated, rescheduled or removed since, once they pile up
+		if (this.gridChecks.size() > (2 * this.grid_list.size()) + 64)
+			this.gridChecks.removeIf(check -> !isCurrent(check));
+	}
+	
+	/**
+	 * @return TRUE if the check is the scheduled one of a density grid still in grid_list
+	 */
+	private boolean isCurrent(GridCheck check)
+	{
+		return check.cv.getCheckTime() == check.time && this.grid_list.get(check.grid) == check.cv;
+	}
+	
+	/**
+	 * Finds the earliest time at which a density grid which receives no record may change
+	 * its attribute or sporadicity, or be removed. Until then, its density only decays, so
+	 * it can only go from dense to transitional to sparse, and its sporadicity can only go
+	 * from normal to sporadic as S1 and S2 of Chen and Tu 2007 only become true with time.
+	 * 
+	 * @param cv the characteristic vector of the density grid, just inspected
+	 * @return the time from which to inspect the density grid again
+	 */
+	private int nextCheckTime(CharacteristicVector cv)
+	{
+		int t = this.getCurrTime();
+		double density = cv.getCurrGridDensity(t, this.getDecayFactor());
+		double logDecay = Math.log(this.getDecayFactor());
+		double next = Double.POSITIVE_INFINITY;
+		
+		// density * lambda^s drops below dm or to dl
+		if (cv.getAttribute() == DENSE)
+			next = t + (Math.log(this.getDM() / density) / logDecay);
+		else if (cv.getAttribute() == TRANSITIONAL)
+			next = t + (Math.log(this.getDL() / density) / logDecay);
+		
+		if (cv.isSporadic())
+			next = Math.min(next, cv.getUpdateTime() + gap);
+		else
+		{
+			// S1 holds once density * lambda^s < dl * (1 - lambda^(t - tg + 1) * lambda^s)
+			double s1 = t + (Math.log(this.getDL() / (density + (this.getDL() * Math.pow(this.getDecayFactor(), t - cv.getUpdateTime() + 1.0)))) / logDecay);
+			double s2 = (cv.getRemoveTime() == -1) ? t : (1 + this.beta) * cv.getRemoveTime();
+			next = Math.min(next, Math.max(s1, s2));
+		}
+		
+		// Inspect a step early so that rounding cannot make the inspection late
+		return (int) Math.max(t + 1, Math.min(Integer.MAX_VALUE, Math.floor(next) - 1));
+	}
+
+	/**
+	 * @return grid_list - the density grids being monitored and their characteristic vectors
+	 */
+	GridIndex<CharacteristicVector> getGridList()
+	{
+		return this.grid_list;
 	}
 
 	/**
@@ -1406,4 +1593,31 @@ public class Dstream extends AbstractClusterer {
 			System.out.println(gc.getClusterLabel()+": "+gc.getWeight()+" {"+gc.toString()+"}");
 		}
 	}
+	
+	/**
+	 * A time from which a density grid has to be inspected by the offline component.
+	 */
+	private static class GridCheck implements Comparable<GridCheck>, Serializable
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final int time;
+		
+		private final DensityGrid grid;
+		
+		private final CharacteristicVector cv;
+		
+		private GridCheck(int time, DensityGrid grid, CharacteristicVector cv)
+		{
+			this.time = time;
+			this.grid = grid;
+			this.cv = cv;
+		}
+		
+		@Override
+		public int compareTo(GridCheck other)
+		{
+			return Integer.compare(this.time, other.time);
+		}
+	}
 }
@@ -0,0 +1,344 @@
+/*
+ *    GridIndex.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package moa.clusterers.dstream;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * A map from density grids to values, stored in flat arrays with open addressing.
+ * Each grid is keyed by its coordinates packed into a long, which is compared before
+ * the coordinates themselves, so a lookup does not call hashCode or equals on the
+ * grids and grids can be looked up by their coordinates without creating them.
+ *
+ * <p>Putting a value for a grid which is already in the map keeps the grid already
+ * there, as HashMap does. The map must not be changed structurally while it is
+ * iterated.</p>
+ *
+ * @param <V> the type of the values
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class GridIndex<V> extends AbstractMap<DensityGrid, V> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	/**
+	 * The packed coordinates of the grid in each slot.
+	 */
+	private long[] keys;
+
+	/**
+	 * The grid in each slot, or null if the slot is empty.
+	 */
+	private DensityGrid[] grids;
+
+	private Object[] values;
+
+	private int size;
+
+	private int mask;
+
+	public GridIndex() {
+		clear();
+	}
+
+	/**
+	 * Packs the coordinates of a grid into a long. Coordinates are not bounded, so
+	 * different coordinates may share a key.
+	 *
+	 * @param coordinates the coordinates of a grid
+	 * @return the key of the grid
+	 */
+	public static long key(int[] coordinates) {
+		long key = coordinates.length;
+		for (int c : coordinates) {
+			key = (key * 0x9E3779B97F4A7C15L) + c;
+		}
+		key ^= key >>> 33;
+		key *= 0xFF51AFD7ED558CCDL;
+		return key ^ (key >>> 33);
+	}
+
+	private int slot(long key) {
+		return (int) key & this.mask;
+	}
+
+	/**
+	 * @return the slot of the grid, or -(slot + 1) for the empty slot where it would be put
+	 */
+	private int find(int[] coordinates, long key) {
+		int i = slot(key);
+		while (this.grids[i] != null) {
+			if (this.keys[i] == key && Arrays.equals(this.grids[i].getCoordinates(), coordinates)) {
+				return i;
+			}
+			i = (i + 1) & this.mask;
+		}
+		return -(i + 1);
+	}
+
+	private int find(Object o) {
+		if (!(o instanceof DensityGrid)) {
+			return -1;
+		}
+		int[] coordinates = ((DensityGrid) o).getCoordinates();
+		return find(coordinates, key(coordinates));
+	}
+
+	/**
+	 * @param coordinates the coordinates of a grid
+	 * @return the grid with the coordinates in the map, or null if there is none
+	 */
+	public DensityGrid getGrid(int[] coordinates) {
+		int i = find(coordinates, key(coordinates));
+		return i >= 0 ? this.grids[i] : null;
+	}
+
+	/**
+	 * @param coordinates the coordinates of a grid
+	 * @return the value of the grid with the coordinates, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(int[] coordinates) {
+		int i = find(coordinates, key(coordinates));
+		return i >= 0 ? (V) this.values[i] : null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V get(Object o) {
+		int i = find(o);
+		return i >= 0 ? (V) this.values[i] : null;
+	}
+
+	@Override
+	public boolean containsKey(Object o) {
+		return find(o) >= 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V put(DensityGrid dg, V value) {
+		int[] coordinates = dg.getCoordinates();
+		long key = key(coordinates);
+		int i = find(coordinates, key);
+		if (i >= 0) {
+			V old = (V) this.values[i];
+			this.values[i] = value;
+			return old;
+		}
+		i = -(i + 1);
+		this.keys[i] = key;
+		this.grids[i] = dg;
+		this.values[i] = value;
+		this.size++;
+		if (this.size > (this.grids.length >> 1) + (this.grids.length >> 2)) {
+			resize(this.grids.length << 1);
+		}
+		return null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public V remove(Object o) {
+		int i = find(o);
+		if (i < 0) {
+			return null;
+		}
+		V old = (V) this.values[i];
+		removeSlot(i);
+		return old;
+	}
+
+	/**
+	 * Empties a slot and moves back the grids after it which were put past their
+	 * own slot, so that no lookup stops at the emptied slot too early.
+	 */
+	private void removeSlot(int i) {
+		int j = i;
+		while (true) {
+			j = (j + 1) & this.mask;
+			if (this.grids[j] == null) {
+				break;
+			}
+			int home = slot(this.keys[j]);
+			// The grid in j can fill i unless its own slot is cyclically in (i, j]
+			if (i <= j ? (i < home && home <= j) : (i < home || home <= j)) {
+				continue;
+			}
+			this.keys[i] = this.keys[j];
+			this.grids[i] = this.grids[j];
+			this.values[i] = this.values[j];
+			i = j;
+		}
+		this.grids[i] = null;
+		this.values[i] = null;
+		this.size--;
+	}
+
+	/**
+	 * Removes the grids whose values satisfy the filter.
+	 *
+	 * @param filter the filter
+	 * @return the number of grids removed
+	 */
+	@SuppressWarnings("unchecked")
+	public int removeIf(Predicate<? super V> filter) {
+		long[] oldKeys = this.keys;
+		DensityGrid[] oldGrids = this.grids;
+		Object[] oldValues = this.values;
+		int oldSize = this.size;
+		this.keys = new long[oldKeys.length];
+		this.grids = new DensityGrid[oldGrids.length];
+		this.values = new Object[oldValues.length];
+		this.size = 0;
+		for (int i = 0; i < oldGrids.length; i++) {
+			if (oldGrids[i] != null && !filter.test((V) oldValues[i])) {
+				insert(oldKeys[i], oldGrids[i], oldValues[i]);
+			}
+		}
+		return oldSize - this.size;
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = this.keys;
+		DensityGrid[] oldGrids = this.grids;
+		Object[] oldValues = this.values;
+		this.keys = new long[capacity];
+		this.grids = new DensityGrid[capacity];
+		this.values = new Object[capacity];
+		this.mask = capacity - 1;
+		this.size = 0;
+		for (int i = 0; i < oldGrids.length; i++) {
+			if (oldGrids[i] != null) {
+				insert(oldKeys[i], oldGrids[i], oldValues[i]);
+			}
+		}
+	}
+
+	/**
+	 * Puts a grid which is known not to be in the map.
+	 */
+	private void insert(long key, DensityGrid dg, Object value) {
+		int i = slot(key);
+		while (this.grids[i] != null) {
+			i = (i + 1) & this.mask;
+		}
+		this.keys[i] = key;
+		this.grids[i] = dg;
+		this.values[i] = value;
+		this.size++;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public void clear() {
+		this.keys = new long[INITIAL_CAPACITY];
+		this.grids = new DensityGrid[INITIAL_CAPACITY];
+		this.values = new Object[INITIAL_CAPACITY];
+		this.mask = INITIAL_CAPACITY - 1;
+		this.size = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<DensityGrid, V>> entrySet() {
+		return new AbstractSet<Map.Entry<DensityGrid, V>>() {
+
+			@Override
+			public Iterator<Map.Entry<DensityGrid, V>> iterator() {
+				return new Iterator<Map.Entry<DensityGrid, V>>() {
+
+					private int next = advance(0);
+
+					private int advance(int i) {
+						while (i < grids.length && grids[i] == null) {
+							i++;
+						}
+						return i;
+					}
+
+					@Override
+					public boolean hasNext() {
+						return this.next < grids.length;
+					}
+
+					@Override
+					public Map.Entry<DensityGrid, V> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Entry entry = new Entry(this.next);
+						this.next = advance(this.next + 1);
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * An entry of the map, reading and writing its slot.
+	 */
+	private class Entry implements Map.Entry<DensityGrid, V> {
+
+		private final int slot;
+
+		private Entry(int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		public DensityGrid getKey() {
+			return grids[this.slot];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public V getValue() {
+			return (V) values[this.slot];
+		}
+
+		@Override
+		public V setValue(V value) {
+			V old = getValue();
+			values[this.slot] = value;
+			return old;
+		}
+	}
+}
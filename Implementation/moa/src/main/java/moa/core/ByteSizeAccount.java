@@ -0,0 +1,163 @@
+/*
+ *    ByteSizeAccount.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Serializable;
+import java.util.IdentityHashMap;
+
+/**
+ * Adds up the memory size of an object from the sizes of its parts.
+ *
+ * <p>Each total is taken between begin() and end(). A part added to it is
+ * counted once however often it is added, as SizeOf counts a shared object
+ * once. Parts that are ByteSizeAccountable give their own account. The other
+ * parts keep the size they had when last measured, and only a few of them,
+ * in turns, are measured again for each total, so the cost of a total does
+ * not grow with the size of the parts.</p>
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class ByteSizeAccount implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final int measurementsPerTotal;
+
+    /** the sizes of the parts of the last total, and of the current one. */
+    protected transient IdentityHashMap<Object, Long> lastSizes;
+
+    protected transient IdentityHashMap<Object, Long> sizes;
+
+    /** the parts of the last total, and the first of them to measure again. */
+    protected int lastNumParts;
+
+    protected int turn;
+
+    protected int numParts;
+
+    protected long total;
+
+    public ByteSizeAccount() {
+        this(16);
+    }
+
+    /**
+     * @param measurementsPerTotal the number of parts measured again for
+     * each total
+     */
+    public ByteSizeAccount(int measurementsPerTotal) {
+        this.measurementsPerTotal = measurementsPerTotal;
+    }
+
+    /**
+     * Starts a new total.
+     */
+    public void begin() {
+        if (this.lastSizes == null) {
+            this.lastSizes = new IdentityHashMap<Object, Long>();
+            this.lastNumParts = 0;
+        }
+        this.sizes = new IdentityHashMap<Object, Long>();
+        this.numParts = 0;
+        this.total = 0;
+    }
+
+    /**
+     * Adds bytes that are not a part of their own, such as the shallow size
+     * of the object being measured.
+     *
+     * @param byteSize the bytes to add
+     */
+    public void add(long byteSize) {
+        this.total += byteSize;
+    }
+
+    /**
+     * Gets the size a part had when last measured, if it need not be
+     * measured again for this total.
+     *
+     * @param part the part
+     * @return the size, or -1 if the part has to be measured
+     */
+    public long getKnownSize(Object part) {
+        Long size = this.sizes.get(part);
+        if (size != null) {
+            return size;
+        }
+        size = this.lastSizes.get(part);
+        if (size == null || this.lastNumParts == 0) {
+            return -1;
+        }
+        int position = (this.numParts + this.lastNumParts - this.turn) % this.lastNumParts;
+        return position < this.measurementsPerTotal ? -1 : size;
+    }
+
+    /**
+     * Adds a part with its size, once per total.
+     *
+     * @param part the part
+     * @param byteSize its size, from getKnownSize() or measured
+     * @return whether the part was not in the total yet
+     */
+    public boolean add(Object part, long byteSize) {
+        if (this.sizes.containsKey(part)) {
+            return false;
+        }
+        this.sizes.put(part, byteSize);
+        this.numParts++;
+        this.total += byteSize;
+        return true;
+    }
+
+    /**
+     * Adds a part, once per total, with its own account or else with the
+     * size SizeOf measured last for it.
+     *
+     * @param part the part, ignored if null
+     */
+    public void add(Object part) {
+        if (part == null || this.sizes.containsKey(part)) {
+            return;
+        }
+        long byteSize;
+        if (part instanceof ByteSizeAccountable) {
+            byteSize = ((ByteSizeAccountable) part).accountedByteSize();
+        } else {
+            byteSize = this.getKnownSize(part);
+            if (byteSize < 0) {
+                byteSize = SizeOf.fullSizeOf(part);
+            }
+        }
+        this.add(part, byteSize);
+    }
+
+    /**
+     * Ends the total, forgetting the parts that were not added to it.
+     *
+     * @return the total in bytes
+     */
+    public long end() {
+        this.lastSizes = this.sizes;
+        this.sizes = null;
+        this.lastNumParts = this.numParts;
+        this.turn = this.numParts == 0 ? 0 : (this.turn + this.measurementsPerTotal) % this.numParts;
+        return this.total;
+    }
+}
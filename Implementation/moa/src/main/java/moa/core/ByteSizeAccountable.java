@@ -0,0 +1,39 @@
+/*
+ *    ByteSizeAccountable.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+/**
+ * Interface implemented by objects that keep an account of their own memory
+ * size, cheap enough to be taken at every sample of an evaluation.
+ * The evaluation tasks take it through AbstractMOAObject.accountedByteSize()
+ * instead of walking the whole object graph with SizeOf. The account may lag
+ * behind the exact size, so measureByteSize() does not use it.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public interface ByteSizeAccountable {
+
+    /**
+     * Gets the memory size of this object as it keeps account of it.
+     *
+     * @return the memory size in bytes
+     */
+    public long accountedByteSize();
+}
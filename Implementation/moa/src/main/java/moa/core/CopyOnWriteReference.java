@@ -0,0 +1,144 @@
+/*
+ *    CopyOnWriteReference.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Serializable;
+
+import moa.MOAObject;
+
+/**
+ * Reference-counted, copy-on-write handle to a MOA object.
+ *
+ * <p>Handles created with share() point to the same object until one of them
+ * asks for write access with getForWrite(). That handle then gets its own copy
+ * and the others keep the original. Copying is deferred until it is needed,
+ * and skipped entirely for owners that only ever read the object.</p>
+ *
+ * <p>Owners that are discarded should call release(). A missing release() is
+ * safe, it only makes the remaining owners copy on their next write.</p>
+ *
+ * @param <T> the type of the shared object
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class CopyOnWriteReference<T extends MOAObject> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The shared object and the number of handles pointing to it.
+     */
+    protected static class Cell<T> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final T object;
+
+        protected int owners;
+
+        protected Cell(T object) {
+            this.object = object;
+            this.owners = 1;
+        }
+
+        protected synchronized void acquire() {
+            this.owners++;
+        }
+
+        /**
+         * Gives up one ownership.
+         *
+         * @return true if other handles still point to this cell
+         */
+        protected synchronized boolean release() {
+            this.owners--;
+            return this.owners > 0;
+        }
+
+        protected synchronized boolean isShared() {
+            return this.owners > 1;
+        }
+    }
+
+    protected Cell<T> cell;
+
+    public CopyOnWriteReference(T object) {
+        this.cell = new Cell<T>(object);
+    }
+
+    protected CopyOnWriteReference(Cell<T> cell) {
+        this.cell = cell;
+    }
+
+    /**
+     * Creates another handle to the same object without copying it.
+     *
+     * @return the new handle
+     */
+    public CopyOnWriteReference<T> share() {
+        this.cell.acquire();
+        return new CopyOnWriteReference<T>(this.cell);
+    }
+
+    /**
+     * Gets the object for reading. It must not be modified through the
+     * returned reference.
+     *
+     * @return the shared object
+     */
+    public T get() {
+        return this.cell.object;
+    }
+
+    /**
+     * Gets the object for modification, copying it first if other handles
+     * point to it.
+     *
+     * @return an object owned by this handle only
+     */
+    @SuppressWarnings("unchecked")
+    public T getForWrite() {
+        if (this.cell.isShared()) {
+            T copy = (T) this.cell.object.copy();
+            this.cell.release();
+            this.cell = new Cell<T>(copy);
+        }
+        return this.cell.object;
+    }
+
+    /**
+     * Checks whether other handles point to the same object.
+     *
+     * @return true if the object is shared
+     */
+    public boolean isShared() {
+        return this.cell.isShared();
+    }
+
+    /**
+     * Gives up this handle's ownership. The handle must not be used afterwards.
+     */
+    public void release() {
+        if (this.cell != null) {
+            this.cell.release();
+            this.cell = null;
+        }
+    }
+}
@@ -0,0 +1,627 @@
+/*
+ *    OrderStatisticAUC.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+
+/**
+ * AUC of a sliding ranking of scored examples, kept up to date in
+ * O(log n) per added or removed example instead of walking the whole ranking
+ * for every query.
+ *
+ * <p>Examples are ranked by descending score, ties by age, oldest first, or
+ * positives first and then by age. The AUC is the number of (positive,
+ * negative) pairs in which the positive is ranked first, divided by the
+ * number of positive times negative examples.
+ * With tie correction, a negative whose tie score equals the score of the
+ * last positive ranked before it counts half for the positives with that
+ * score, exactly as the TreeSet based estimators of this project compute it.
+ * The tie score of a negative is normally its score, but callers may pass
+ * another one.</p>
+ *
+ * <p>Every count is exact, so the AUC is bit for bit the one of a full walk.
+ * The pair counts are kept in two treaps: one of all examples in ranking
+ * order, and one of the negatives grouped by tie score. The scored AUC
+ * (Wu et al., 2007) is kept up to date the same way from sums of scores, up
+ * to floating point rounding.</p>
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class OrderStatisticAUC implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static final class Element implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final double score;
+
+        protected final double tieScore;
+
+        protected final long age;
+
+        protected final boolean isPositive;
+
+        // Positives only: the negatives ranked between this positive and the next one
+        // whose tie score equals the score of this positive.
+        protected long ties;
+
+        protected Element(double score, double tieScore, long age, boolean isPositive) {
+            this.score = score;
+            this.tieScore = tieScore;
+            this.age = age;
+            this.isPositive = isPositive;
+        }
+    }
+
+    protected static final class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final Element element;
+
+        protected final long priority;
+
+        protected Node left;
+
+        protected Node right;
+
+        protected int size;
+
+        protected int numPositives;
+
+        protected long sumOfTies;
+
+        protected double positiveScores;
+
+        protected double negativeScores;
+
+        protected Node(Element element) {
+            this.element = element;
+            this.priority = mix(element.age);
+            this.update();
+        }
+
+        protected void update() {
+            this.size = 1 + size(this.left) + size(this.right);
+            this.numPositives = (this.element.isPositive ? 1 : 0) + numPositives(this.left) + numPositives(this.right);
+            this.sumOfTies = this.element.ties + sumOfTies(this.left) + sumOfTies(this.right);
+            this.positiveScores = (this.element.isPositive ? this.element.score : 0) + positiveScores(this.left) + positiveScores(this.right);
+            this.negativeScores = (this.element.isPositive ? 0 : this.element.score) + negativeScores(this.left) + negativeScores(this.right);
+        }
+    }
+
+    protected final boolean isTieCorrected;
+
+    protected final boolean isPositiveFirstOnTies;
+
+    // Oldest first.
+    protected ArrayDeque<Element> elements = new ArrayDeque<Element>();
+
+    protected Node ranking;
+
+    // Negatives by tie score, then in ranking order.
+    protected Node negativesByTieScore;
+
+    protected long nextAge;
+
+    protected int numPositives;
+
+    protected int numNegatives;
+
+    // The number of (positive, negative) pairs with the positive ranked first.
+    protected long orderedPairs;
+
+    // The sum over positives of their ties times their rank among the positives with the same score.
+    protected long tiedPairs;
+
+    // The sum over (positive, negative) pairs of the positive's score if it is higher, half of it
+    // if equal and the positive is ranked first.
+    protected double scoredPositivePairs;
+
+    // The same with the roles of the positive and the negative swapped.
+    protected double scoredNegativePairs;
+
+    // Results of the last countBefore().
+    private int countBefore;
+    private int positivesBefore;
+    private long tiesBefore;
+    private double positiveScoresBefore;
+    private double negativeScoresBefore;
+
+    /**
+     * @param isTieCorrected whether a negative tied with the last positive before it counts half
+     */
+    public OrderStatisticAUC(boolean isTieCorrected) {
+        this(isTieCorrected, false);
+    }
+
+    /**
+     * @param isTieCorrected whether a negative tied with the last positive before it counts half
+     * @param isPositiveFirstOnTies whether positives are ranked before negatives of the same score
+     */
+    public OrderStatisticAUC(boolean isTieCorrected, boolean isPositiveFirstOnTies) {
+        this.isTieCorrected = isTieCorrected;
+        this.isPositiveFirstOnTies = isPositiveFirstOnTies;
+    }
+
+    /**
+     * Adds an example as the newest one.
+     *
+     * @param score the score of the example
+     * @param tieScore the score a negative is compared with for ties, ignored for positives
+     * @param isPositive whether the example is positive
+     */
+    public void add(double score, double tieScore, boolean isPositive) {
+        Element element = new Element(score, tieScore, this.nextAge++, isPositive);
+        // The newest example is ranked after the others of its score, unless it is a positive
+        // ranked before the negatives.
+        this.addScoredPairs(element, 1, this.isPositiveFirstOnTies && isPositive);
+        if (isPositive) {
+            this.addPositive(element);
+        } else {
+            this.addNegative(element);
+        }
+        this.elements.addLast(element);
+    }
+
+    /**
+     * Removes the oldest example, if any.
+     */
+    public void removeOldest() {
+        Element element = this.elements.pollFirst();
+        if (element == null) {
+            return;
+        }
+        if (element.isPositive) {
+            this.removePositive(element);
+        } else {
+            this.removeNegative(element);
+        }
+        if (this.numPositives == 0 || this.numNegatives == 0) {
+            // No pairs are left; drop the rounding errors of the running sums.
+            this.scoredPositivePairs = 0;
+            this.scoredNegativePairs = 0;
+        } else {
+            // The oldest example is ranked before the others of its score, unless it is a
+            // negative ranked after the positives.
+            this.addScoredPairs(element, -1, !this.isPositiveFirstOnTies || element.isPositive);
+        }
+    }
+
+    public int size() {
+        return this.elements.size();
+    }
+
+    public int getNumPositives() {
+        return this.numPositives;
+    }
+
+    public int getNumNegatives() {
+        return this.numNegatives;
+    }
+
+    /**
+     * Gets the AUC of the current examples.
+     *
+     * @return the AUC, 1 without positives or without negatives
+     */
+    public double getAUC() {
+        if (this.numPositives == 0 || this.numNegatives == 0) {
+            return 1;
+        }
+        return (this.orderedPairs - this.tiedPairs / 2.0) / ((double) this.numPositives * this.numNegatives);
+    }
+
+    /**
+     * Gets the scored AUC of the current examples, which also weighs each pair
+     * by the scores.
+     *
+     * @return the scored AUC, 1 without positives or without negatives
+     */
+    public double getScoredAUC() {
+        if (this.numPositives == 0 || this.numNegatives == 0) {
+            return 1;
+        }
+        double pairs = (double) this.numPositives * this.numNegatives;
+        double rMinus = (this.numPositives * negativeScores(this.ranking) - this.scoredNegativePairs) / pairs;
+        double rPlus = this.scoredPositivePairs / pairs;
+        return rPlus - rMinus;
+    }
+
+    /**
+     * Visits the current examples in ranking order.
+     *
+     * @param visitor called with the score and label of each example
+     */
+    public void forEachInRankingOrder(ExampleVisitor visitor) {
+        ArrayDeque<Node> stack = new ArrayDeque<Node>();
+        Node node = this.ranking;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            visitor.visit(node.element.score, node.element.isPositive);
+            node = node.right;
+        }
+    }
+
+    public interface ExampleVisitor {
+
+        public void visit(double score, boolean isPositive);
+    }
+
+    /*
+     * Adds sign times the scored pairs of an element with the other examples, given whether it
+     * is ranked before the examples of the other label and the same score.
+     */
+    protected void addScoredPairs(Element element, int sign, boolean isFirstOnTies) {
+        double score = element.score;
+        this.countBefore(score, true, Long.MIN_VALUE);
+        int positivesAbove = this.positivesBefore;
+        int negativesAbove = this.countBefore - this.positivesBefore;
+        double positiveScoresAbove = this.positiveScoresBefore;
+        double negativeScoresAbove = this.negativeScoresBefore;
+        this.countBefore(score, false, Long.MAX_VALUE);
+        int positivesAtOrAbove = this.positivesBefore;
+        int negativesAtOrAbove = this.countBefore - this.positivesBefore;
+        if (element.isPositive) {
+            // The element itself is not in the ranking when adding, and already removed when removing.
+            double tied = score * (negativesAtOrAbove - negativesAbove) / 2.0;
+            this.scoredPositivePairs += sign * (score * (this.numNegatives - negativesAtOrAbove) + (isFirstOnTies ? tied : 0));
+            this.scoredNegativePairs += sign * (negativeScoresAbove + (isFirstOnTies ? 0 : tied));
+        } else {
+            double tied = score * (positivesAtOrAbove - positivesAbove) / 2.0;
+            this.scoredPositivePairs += sign * (positiveScoresAbove + (isFirstOnTies ? 0 : tied));
+            this.scoredNegativePairs += sign * (score * (this.numPositives - positivesAtOrAbove) + (isFirstOnTies ? tied : 0));
+        }
+    }
+
+    protected void addNegative(Element element) {
+        this.countBefore(element);
+        int c = this.positivesBefore;
+        this.orderedPairs += c;
+        if (this.isTieCorrected && c > 0) {
+            Element last = this.selectPositive(c);
+            if (element.tieScore == last.score) {
+                this.addTies(last, 1);
+                this.tiedPairs += this.rank(last);
+            }
+        }
+        this.ranking = this.insert(this.ranking, new Node(element), false);
+        this.negativesByTieScore = this.insert(this.negativesByTieScore, new Node(element), true);
+        this.numNegatives++;
+    }
+
+    protected void removeNegative(Element element) {
+        this.countBefore(element);
+        int c = this.positivesBefore;
+        this.orderedPairs -= c;
+        if (this.isTieCorrected && c > 0) {
+            Element last = this.selectPositive(c);
+            if (element.tieScore == last.score) {
+                this.addTies(last, -1);
+                this.tiedPairs -= this.rank(last);
+            }
+        }
+        this.ranking = this.remove(this.ranking, element, false);
+        this.negativesByTieScore = this.remove(this.negativesByTieScore, element, true);
+        this.numNegatives--;
+    }
+
+    protected void addPositive(Element element) {
+        this.countBefore(element);
+        int c = this.positivesBefore;
+        this.orderedPairs += this.numNegatives - (this.countBefore - c);
+        if (this.isTieCorrected) {
+            // The new positive is the last one of its score, it takes over the tail of the
+            // previous positive's negatives and shifts no other positive's rank.
+            int rank = c - this.countPositivesAbove(element.score) + 1;
+            Element next = c < this.numPositives ? this.selectPositive(c + 1) : null;
+            if (c > 0) {
+                Element previous = this.selectPositive(c);
+                long moved = this.countTies(previous.score, element, next);
+                if (moved > 0) {
+                    this.addTies(previous, -moved);
+                    this.tiedPairs -= moved * this.rank(previous);
+                }
+            }
+            element.ties = this.countTies(element.score, element, next);
+            this.tiedPairs += element.ties * rank;
+        }
+        this.ranking = this.insert(this.ranking, new Node(element), false);
+        this.numPositives++;
+    }
+
+    protected void removePositive(Element element) {
+        this.countBefore(element);
+        int c = this.positivesBefore;
+        this.orderedPairs -= this.numNegatives - (this.countBefore - c);
+        if (this.isTieCorrected) {
+            int rank = c - this.countPositivesAbove(element.score) + 1;
+            this.tiedPairs -= element.ties * rank;
+
+            // The positives of the same score ranked after this one move up one rank.
+            this.countBefore(element.score, false, Long.MAX_VALUE);
+            long tiesFromHere = this.tiesBefore;
+            this.countBefore(element);
+            this.tiedPairs -= tiesFromHere - this.tiesBefore - element.ties;
+
+            // The previous positive takes over this positive's negatives.
+            Element next = c + 1 < this.numPositives ? this.selectPositive(c + 2) : null;
+            if (c > 0) {
+                Element previous = this.selectPositive(c);
+                long merged = this.countTies(previous.score, element, next);
+                if (merged > 0) {
+                    this.addTies(previous, merged);
+                    this.tiedPairs += merged * this.rank(previous);
+                }
+            }
+        }
+        this.ranking = this.remove(this.ranking, element, false);
+        this.numPositives--;
+    }
+
+    /*
+     * The rank of a positive among the positives of the same score, from 1.
+     */
+    protected int rank(Element positive) {
+        this.countBefore(positive);
+        return this.positivesBefore - this.countPositivesAbove(positive.score) + 1;
+    }
+
+    protected int countPositivesAbove(double score) {
+        this.countBefore(score, true, Long.MIN_VALUE);
+        return this.positivesBefore;
+    }
+
+    protected void countBefore(Element element) {
+        this.countBefore(element.score, element.isPositive, element.age);
+    }
+
+    /*
+     * Counts the examples ranked before the position (score, isPositive, age).
+     */
+    protected void countBefore(double score, boolean isPositive, long age) {
+        int count = 0;
+        int positives = 0;
+        long ties = 0;
+        double positiveScores = 0;
+        double negativeScores = 0;
+        Node node = this.ranking;
+        while (node != null) {
+            Element element = node.element;
+            if (this.isRankedBefore(element.score, element.isPositive, element.age, score, isPositive, age)) {
+                count += size(node.left) + 1;
+                positives += numPositives(node.left) + (element.isPositive ? 1 : 0);
+                ties += sumOfTies(node.left) + element.ties;
+                positiveScores += positiveScores(node.left) + (element.isPositive ? element.score : 0);
+                negativeScores += negativeScores(node.left) + (element.isPositive ? 0 : element.score);
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        this.countBefore = count;
+        this.positivesBefore = positives;
+        this.tiesBefore = ties;
+        this.positiveScoresBefore = positiveScores;
+        this.negativeScoresBefore = negativeScores;
+    }
+
+    /*
+     * The k-th positive in ranking order, from 1.
+     */
+    protected Element selectPositive(int k) {
+        Node node = this.ranking;
+        while (true) {
+            int leftPositives = numPositives(node.left);
+            if (k <= leftPositives) {
+                node = node.left;
+            } else {
+                k -= leftPositives;
+                if (node.element.isPositive) {
+                    if (k == 1) {
+                        return node.element;
+                    }
+                    k--;
+                }
+                node = node.right;
+            }
+        }
+    }
+
+    protected void addTies(Element positive, long delta) {
+        positive.ties += delta;
+        Node node = this.ranking;
+        while (node.element != positive) {
+            node.sumOfTies += delta;
+            node = this.isRankedBefore(positive, node.element) ? node.left : node.right;
+        }
+        node.sumOfTies += delta;
+    }
+
+    /*
+     * Counts the negatives with the given tie score ranked between two positives, or after
+     * the first one if the second one is null.
+     */
+    protected long countTies(double tieScore, Element from, Element to) {
+        int untilTo = to == null ? this.countNegativesBefore(tieScore, Double.NEGATIVE_INFINITY, false, Long.MAX_VALUE)
+                : this.countNegativesBefore(tieScore, to.score, true, to.age);
+        return untilTo - this.countNegativesBefore(tieScore, from.score, true, from.age);
+    }
+
+    /*
+     * Counts the negatives with a lower tie score, or the same tie score and ranked before
+     * (score, isPositive, age).
+     */
+    protected int countNegativesBefore(double tieScore, double score, boolean isPositive, long age) {
+        int count = 0;
+        Node node = this.negativesByTieScore;
+        while (node != null) {
+            if (this.isBeforeByTieScore(node.element, tieScore, score, isPositive, age)) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    protected Node insert(Node root, Node node, boolean byTieScore) {
+        if (root == null) {
+            return node;
+        }
+        if (node.priority > root.priority) {
+            Node[] parts = this.split(root, node.element, byTieScore);
+            node.left = parts[0];
+            node.right = parts[1];
+            node.update();
+            return node;
+        }
+        if (this.precedes(node.element, root.element, byTieScore)) {
+            root.left = this.insert(root.left, node, byTieScore);
+        } else {
+            root.right = this.insert(root.right, node, byTieScore);
+        }
+        root.update();
+        return root;
+    }
+
+    protected Node remove(Node root, Element element, boolean byTieScore) {
+        if (root.element == element) {
+            return merge(root.left, root.right);
+        }
+        if (this.precedes(element, root.element, byTieScore)) {
+            root.left = this.remove(root.left, element, byTieScore);
+        } else {
+            root.right = this.remove(root.right, element, byTieScore);
+        }
+        root.update();
+        return root;
+    }
+
+    /*
+     * Splits into the nodes before the element and the others.
+     */
+    protected Node[] split(Node root, Element element, boolean byTieScore) {
+        if (root == null) {
+            return new Node[2];
+        }
+        if (this.precedes(root.element, element, byTieScore)) {
+            Node[] parts = this.split(root.right, element, byTieScore);
+            root.right = parts[0];
+            root.update();
+            parts[0] = root;
+            return parts;
+        }
+        Node[] parts = this.split(root.left, element, byTieScore);
+        root.left = parts[1];
+        root.update();
+        parts[1] = root;
+        return parts;
+    }
+
+    protected static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    protected boolean precedes(Element a, Element b, boolean byTieScore) {
+        return byTieScore ? this.isBeforeByTieScore(a, b.tieScore, b.score, b.isPositive, b.age) : this.isRankedBefore(a, b);
+    }
+
+    protected boolean isRankedBefore(Element a, Element b) {
+        return this.isRankedBefore(a.score, a.isPositive, a.age, b.score, b.isPositive, b.age);
+    }
+
+    /*
+     * Descending score, then positives first if so configured, then ascending age; compares
+     * like the Score classes of the TreeSet based estimators.
+     */
+    protected boolean isRankedBefore(double scoreA, boolean isPositiveA, long ageA, double scoreB, boolean isPositiveB, long ageB) {
+        if (scoreA > scoreB) {
+            return true;
+        } else if (scoreA < scoreB) {
+            return false;
+        }
+        if (this.isPositiveFirstOnTies && isPositiveA != isPositiveB) {
+            return isPositiveA;
+        }
+        return ageA < ageB;
+    }
+
+    protected boolean isBeforeByTieScore(Element a, double tieScore, double score, boolean isPositive, long age) {
+        if (a.tieScore < tieScore) {
+            return true;
+        } else if (a.tieScore > tieScore) {
+            return false;
+        }
+        return this.isRankedBefore(a.score, a.isPositive, a.age, score, isPositive, age);
+    }
+
+    protected static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    protected static int numPositives(Node node) {
+        return node == null ? 0 : node.numPositives;
+    }
+
+    protected static long sumOfTies(Node node) {
+        return node == null ? 0 : node.sumOfTies;
+    }
+
+    protected static double positiveScores(Node node) {
+        return node == null ? 0 : node.positiveScores;
+    }
+
+    protected static double negativeScores(Node node) {
+        return node == null ? 0 : node.negativeScores;
+    }
+
+    /*
+     * Treap priority of the age-th example; splitmix64 keeps the treaps balanced for the
+     * sequential ages without a random generator.
+     */
+    protected static long mix(long age) {
+        long z = age + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
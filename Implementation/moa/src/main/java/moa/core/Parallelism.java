@@ -0,0 +1,220 @@
+/*
+ *    Parallelism.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide work-stealing pool for the parallel jobs of learners and tasks.
+ *
+ * <p>All learners share one ForkJoinPool, so running several parallel
+ * ensembles at once, or one inside another, keeps to the same threads instead
+ * of each creating a pool of its own. Its parallelism is the number of
+ * processors, unless set by the system property moa.parallelism or with
+ * setParallelism().</p>
+ *
+ * <p>invokeAll() runs a list of tasks on at most a given number of jobs. The
+ * jobs take the tasks one at a time in list order, so many small tasks cost a
+ * few jobs rather than a pool task each, and the caller runs one of the jobs
+ * itself. Called from a thread of the pool, the other jobs are forked and
+ * joined with work stealing, so nested calls do not block pool threads.</p>
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public final class Parallelism {
+
+    public static final String PARALLELISM_PROPERTY = "moa.parallelism";
+
+    /** numberOfJobs option value meaning as many jobs as the pool has threads. */
+    public static final int MAX_JOBS = -1;
+
+    private static ForkJoinPool pool;
+
+    private Parallelism() {
+    }
+
+    /**
+     * Gets the shared pool, creating it on first use.
+     *
+     * @return the pool
+     */
+    public static synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            int parallelism = Integer.getInteger(PARALLELISM_PROPERTY,
+                    Runtime.getRuntime().availableProcessors());
+            pool = new ForkJoinPool(Math.max(1, parallelism));
+        }
+        return pool;
+    }
+
+    /**
+     * Gets the number of threads of the shared pool.
+     *
+     * @return the parallelism of the pool
+     */
+    public static int getParallelism() {
+        return getPool().getParallelism();
+    }
+
+    /**
+     * Replaces the shared pool by one with the given number of threads. Jobs
+     * running or queued on the old pool finish there, and the old pool is
+     * shut down once it has no more work.
+     *
+     * @param parallelism the number of threads
+     */
+    public static synchronized void setParallelism(int parallelism) {
+        if (pool != null && pool.getParallelism() == parallelism) {
+            return;
+        }
+        ForkJoinPool oldPool = pool;
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+        if (oldPool != null) {
+            retire(oldPool);
+        }
+    }
+
+    /*
+     * Shuts a replaced pool down from another thread once its work has
+     * drained, so that the caller of setParallelism() does not wait for it.
+     */
+    private static void retire(ForkJoinPool oldPool) {
+        Thread retirer = new Thread(() -> {
+            while (!oldPool.awaitQuiescence(1, TimeUnit.SECONDS)) {
+                // Still busy with jobs submitted before the swap.
+            }
+            oldPool.shutdown();
+        }, "moa-parallelism-retire");
+        retirer.setDaemon(true);
+        retirer.start();
+    }
+
+    /**
+     * Gets the number of jobs a numberOfJobs option asks for.
+     *
+     * @param numberOfJobsOption the option value, MAX_JOBS for the
+     * parallelism of the pool and 0 or 1 for a single job
+     * @return the number of jobs, at least 1
+     */
+    public static int numberOfJobs(int numberOfJobsOption) {
+        if (numberOfJobsOption == MAX_JOBS) {
+            return getParallelism();
+        }
+        return Math.max(1, numberOfJobsOption);
+    }
+
+    /**
+     * Runs tasks on at most maxJobs jobs of the shared pool, and returns
+     * when all are done. With one job, or one task, they run one after
+     * another on the calling thread.
+     *
+     * @param tasks the tasks
+     * @param maxJobs the maximum number of tasks running at once
+     * @return the results of the tasks, in their order
+     * @throws RuntimeException if a task failed, with its exception as cause
+     * unless it was a RuntimeException itself. The tasks not started yet are
+     * then skipped.
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks, int maxJobs) {
+        Jobs<T> jobs = new Jobs<T>(tasks);
+        int numJobs = Math.min(Math.min(maxJobs, tasks.size()), getParallelism());
+        if (numJobs <= 1) {
+            jobs.run();
+        } else {
+            ForkJoinPool sharedPool = getPool();
+            boolean inPool = ForkJoinTask.getPool() == sharedPool;
+            List<ForkJoinTask<?>> forked = new ArrayList<ForkJoinTask<?>>(numJobs - 1);
+            for (int i = 1; i < numJobs; i++) {
+                if (inPool) {
+                    forked.add(ForkJoinTask.adapt(jobs).fork());
+                } else {
+                    try {
+                        forked.add(sharedPool.submit(jobs));
+                    } catch (RejectedExecutionException e) {
+                        // The pool was replaced and shut down since it was taken,
+                        // so the caller runs the remaining tasks.
+                        break;
+                    }
+                }
+            }
+            jobs.run();
+            for (ForkJoinTask<?> job : forked) {
+                job.join();
+            }
+        }
+        return jobs.getResults();
+    }
+
+    /*
+     * The tasks of one invokeAll() call, which every job of the call runs
+     * until none is left.
+     */
+    private static class Jobs<T> implements Runnable {
+
+        private final List<? extends Callable<T>> tasks;
+
+        private final Object[] results;
+
+        private final AtomicInteger nextTask = new AtomicInteger();
+
+        private volatile Throwable failure;
+
+        Jobs(List<? extends Callable<T>> tasks) {
+            this.tasks = tasks;
+            this.results = new Object[tasks.size()];
+        }
+
+        @Override
+        public void run() {
+            int i;
+            while ((i = this.nextTask.getAndIncrement()) < this.results.length) {
+                try {
+                    this.results[i] = this.tasks.get(i).call();
+                } catch (Throwable t) {
+                    this.failure = t;
+                    this.nextTask.set(this.results.length);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<T> getResults() {
+            Throwable t = this.failure;
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            if (t != null) {
+                throw new RuntimeException("A parallel task failed.", t);
+            }
+            return (List<T>) Arrays.asList(this.results);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *    NominalToBinaryEncoder.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core.utils;
+
+import java.util.Arrays;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.AbstractMOAObject;
+
+/**
+ * Header-driven nominal to binary encoder. The layout follows
+ * weka.filters.unsupervised.attribute.NominalToBinary with default settings,
+ * except that the class attribute is dropped from the encoded row:
+ * <ul>
+ * <li>numeric attributes are copied as they are,</li>
+ * <li>nominal attributes with at most two values are kept as a single column
+ * holding the value index,</li>
+ * <li>nominal attributes with more than two values are one-hot encoded into
+ * one column per value.</li>
+ * </ul>
+ * The layout is computed once from the header, so encoding an instance is a
+ * single pass over its attributes writing into a caller supplied array.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class NominalToBinaryEncoder extends AbstractMOAObject {
+
+	private static final long serialVersionUID = 1L;
+
+	protected InstancesHeader header;
+
+	protected int classIndex;
+
+	/** Offset of each original attribute in the encoded row, -1 for the class. */
+	protected int[] offsets;
+
+	/** Number of encoded columns used by each original attribute. */
+	protected int[] widths;
+
+	protected int encodedLength;
+
+	public NominalToBinaryEncoder(Instances header) {
+		// Wrap once, otherwise every decoded instance gets its own header.
+		this.header = header instanceof InstancesHeader ? (InstancesHeader) header : new InstancesHeader(header);
+		this.classIndex = header.classIndex();
+		this.offsets = new int[header.numAttributes()];
+		this.widths = new int[header.numAttributes()];
+
+		int offset = 0;
+		for (int i = 0; i < header.numAttributes(); ++i) {
+			if (i == this.classIndex) {
+				this.offsets[i] = -1;
+				this.widths[i] = 0;
+				continue;
+			}
+			Attribute attribute = header.attribute(i);
+			int width = attribute.isNominal() && attribute.numValues() > 2 ? attribute.numValues() : 1;
+			this.offsets[i] = offset;
+			this.widths[i] = width;
+			offset += width;
+		}
+		this.encodedLength = offset;
+	}
+
+	/**
+	 * Gets the header this encoder was built from.
+	 *
+	 * @return the original header
+	 */
+	public InstancesHeader getHeader() {
+		return this.header;
+	}
+
+	/**
+	 * Gets the number of columns of an encoded row.
+	 *
+	 * @return the encoded length, excluding the class attribute
+	 */
+	public int getEncodedLength() {
+		return this.encodedLength;
+	}
+
+	/**
+	 * Encodes an instance of the original header into a new array.
+	 *
+	 * @param inst the instance to encode
+	 * @return the encoded row
+	 */
+	public double[] encode(Instance inst) {
+		return this.encode(inst, new double[this.encodedLength]);
+	}
+
+	/**
+	 * Encodes an instance of the original header into the given array. Missing
+	 * values are written as NaN in every column of the attribute.
+	 *
+	 * @param inst the instance to encode
+	 * @param row the array to fill, of length at least getEncodedLength()
+	 * @return row, for convenience
+	 */
+	public double[] encode(Instance inst, double[] row) {
+		for (int i = 0; i < this.offsets.length; ++i) {
+			int width = this.widths[i];
+			if (width == 0) {
+				continue;
+			}
+			int offset = this.offsets[i];
+			if (inst.isMissing(i)) {
+				Arrays.fill(row, offset, offset + width, Double.NaN);
+			} else if (width == 1) {
+				row[offset] = inst.value(i);
+			} else {
+				Arrays.fill(row, offset, offset + width, 0.0);
+				row[offset + (int) inst.value(i)] = 1.0;
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Decodes an encoded row back into an instance of the original header. A
+	 * one-hot block is mapped to the value with the largest entry, the first
+	 * one on ties.
+	 *
+	 * @param row the encoded row, e.g. a cluster centre
+	 * @param classValue the class value to assign to the decoded instance
+	 * @return the decoded instance, with the original header as dataset
+	 */
+	public Instance decode(double[] row, double classValue) {
+		Instance decoded = new DenseInstance(this.offsets.length);
+		decoded.setDataset(this.header);
+
+		for (int i = 0; i < this.offsets.length; ++i) {
+			int width = this.widths[i];
+			if (width == 0) {
+				decoded.setValue(i, classValue);
+				continue;
+			}
+			int offset = this.offsets[i];
+			if (width == 1) {
+				decoded.setValue(i, row[offset]);
+			} else {
+				int maxIndex = 0;
+				for (int j = 1; j < width; ++j) {
+					if (row[offset + j] > row[offset + maxIndex]) {
+						maxIndex = j;
+					}
+				}
+				decoded.setValue(i, maxIndex);
+			}
+		}
+		return decoded;
+	}
+
+	@Override
+	public void getDescription(StringBuilder sb, int indent) {
+		sb.append("NominalToBinaryEncoder: ");
+		sb.append(this.header.numAttributes());
+		sb.append(" attributes -> ");
+		sb.append(this.encodedLength);
+		sb.append(" columns");
+	}
+}
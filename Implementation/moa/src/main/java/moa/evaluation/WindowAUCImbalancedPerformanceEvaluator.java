@@ -18,11 +18,11 @@
  */
 package moa.evaluation;
 
-import java.util.TreeSet;
 
 import moa.core.Example;
 import moa.core.Measurement;
 import moa.core.ObjectRepository;
+import moa.core.OrderStatisticAUC;
 import moa.core.Utils;
 import moa.options.AbstractOptionHandler;
 
@@ -76,76 +76,11 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 	
 	public class Estimator {
 
-		public class Score implements Comparable<Score> {
-			/**
-			 * Predicted score of the example
-			 */
-			protected double value;
-
-			/**
-			 * Age of example - position in the window where the example was
-			 * added
-			 */
-			protected int posWindow;
-
-			/**
-			 * True if example's true label is positive
-			 */
-			protected boolean isPositive;
-
-			/**
-			 * Constructor.
-			 * 
-			 * @param value
-			 *            score value
-			 * @param position
-			 *            score position in window (defines its age)
-			 * @param isPositive
-			 *            true if the example's true label is positive
-			 */
-			public Score(double value, int position, boolean isPositive) {
-				this.value = value;
-				this.posWindow = position;
-				this.isPositive = isPositive;
-			}
-
-			/**
-			 * Sort descending based on score value.
-			 */
-			@Override
-			public int compareTo(Score o) {
-				if (o.value < this.value) {
-					return -1;
-				} else if (o.value > this.value){
-					return 1;
-				} else {
-					if (!o.isPositive && this.isPositive) {
-						return -1;
-					} else if (o.isPositive && !this.isPositive){
-						return 1;
-					} else {
-						if (o.posWindow > this.posWindow) {
-							return -1;
-						} else if (o.posWindow < this.posWindow){
-							return 1;
-						} else {
-							return 0;
-						}
-					}
-				}
-			}
-			
-			@Override
-			public boolean equals(Object o) {
-				return (o instanceof Score) && ((Score)o).posWindow == this.posWindow;
-			}
-		}
-
-		protected TreeSet<Score> sortedScores;
+		protected OrderStatisticAUC sortedScores;
 		
-		protected TreeSet<Score> holdoutSortedScores;
+		protected double holdoutAUC;
 
-		protected Score[] window;
+		protected boolean[] window;
 		
 		protected double[] predictions;
 
@@ -157,10 +92,6 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 
 		protected double numNeg;
 		
-		protected double holdoutNumPos;
-
-		protected double holdoutNumNeg;
-		
 		protected double correctPredictions;
 		
 		protected double correctPositivePredictions;
@@ -170,10 +101,10 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 	    protected double[] rowKappa;
 
 		public Estimator(int sizeWindow) {
-			this.sortedScores = new TreeSet<Score>();
-			this.holdoutSortedScores = new TreeSet<Score>();
+			this.sortedScores = new OrderStatisticAUC(true, true);
+			this.holdoutAUC = 0;
 			this.size = sizeWindow;
-			this.window = new Score[sizeWindow];
+			this.window = new boolean[sizeWindow];
 			this.predictions = new double[sizeWindow];
 			
 	        this.rowKappa = new double[numClasses];
@@ -186,8 +117,6 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 			this.posWindow = 0;
 			this.numPos = 0;
 			this.numNeg = 0;
-			this.holdoutNumPos = 0;
-			this.holdoutNumNeg = 0;
 			this.correctPredictions = 0;
 			this.correctPositivePredictions = 0;
 		}
@@ -195,30 +124,23 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 		public void add(double score, boolean isPositive, boolean correctPrediction) {
             // // periodically update holdout evaluation
 			if (size > 0 && posWindow % this.size == 0) {
-				this.holdoutSortedScores = new TreeSet<Score>();
-				
-				for (Score s : this.sortedScores) {
-					this.holdoutSortedScores.add(s);
-				}
-				
-				this.holdoutNumPos = this.numPos;
-				this.holdoutNumNeg = this.numNeg;
+				this.holdoutAUC = this.sortedScores.size() == 0 ? 0 : this.sortedScores.getAUC();
 			}
 			
 			// // if the window is used and it's full			
 			if (size > 0 && posWindow >= this.size) {
 				// // remove the oldest example
-				sortedScores.remove(window[posWindow % size]);
+				sortedScores.removeOldest();
 				correctPredictions -= predictions[posWindow % size];
-				correctPositivePredictions -= window[posWindow % size].isPositive ? predictions[posWindow % size] : 0;
+				correctPositivePredictions -= window[posWindow % size] ? predictions[posWindow % size] : 0;
 				
-				if (window[posWindow % size].isPositive) {
+				if (window[posWindow % size]) {
 					numPos--;
 				} else {
 					numNeg--;
 				}
 				
-				int oldestExampleTrueClass = window[posWindow % size].isPositive ? 1 : 0;
+				int oldestExampleTrueClass = window[posWindow % size] ? 1 : 0;
 	            int oldestExamplePredictedClass = predictions[posWindow % size] == 1.0 ? oldestExampleTrueClass : Math.abs(oldestExampleTrueClass - 1);  
 	            
 				this.rowKappa[oldestExamplePredictedClass] -= 1;
@@ -226,8 +148,7 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
 			}
 			
 			// // add new example
-			Score newScore = new Score(score, posWindow, isPositive);
-			sortedScores.add(newScore);
+			sortedScores.add(score, score, isPositive);
 			correctPredictions += correctPrediction ? 1 : 0;
 			correctPositivePredictions += correctPrediction && isPositive ? 1 : 0;
 			
@@ -236,137 +157,31 @@ public class WindowAUCImbalancedPerformanceEvaluator extends
             this.rowKappa[predictedClass] += 1;
             this.columnKappa[trueClass] += 1;
 			
-			if (newScore.isPositive) {
+			if (isPositive) {
 				numPos++;
 			} else {
 				numNeg++;
 			}
 
 			if (size > 0) {
-				window[posWindow % size] = newScore;
+				window[posWindow % size] = isPositive;
 				predictions[posWindow % size] = correctPrediction ? 1 : 0;
 			}
 			
-			//// posWindow needs to be always incremented to differentiate between examples in the red-black tree
+			//// posWindow needs to be always incremented to find the oldest example in the window
 			posWindow++;
 		}
 
 		public double getAUC() {
-			double AUC = 0;
-			double c = 0;
-			double prevc = 0;
-			double lastPosScore = Double.MAX_VALUE;
-					
-			if (numPos == 0 || numNeg == 0) {
-				return 1;
-			}
-			
-			for (Score s : sortedScores){
-				if(s.isPositive) {			
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-					
-					c += 1;
-				} else {
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double)(c + prevc))/2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-			
-			return AUC / (numPos * numNeg);
+			return sortedScores.getAUC();
 		}
 		
 		public double getHoldoutAUC() {
-			double AUC = 0;
-			double c = 0;
-			double prevc = 0;
-			double lastPosScore = Double.MAX_VALUE;
-
-			if (holdoutSortedScores.isEmpty()) {
-				return 0;
-			}
-			
-			if (holdoutNumPos == 0 || holdoutNumNeg == 0) {
-				return 1;
-			}
-
-			for (Score s : holdoutSortedScores){
-				if(s.isPositive) {
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-					
-					c += 1;
-				} else {
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double)(c + prevc))/2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-			
-			return AUC / (holdoutNumPos * holdoutNumNeg);
+			return holdoutAUC;
 		}
 
 		public double getScoredAUC() {
-			double AOC = 0;
-			double AUC = 0;
-			double r = 0;
-			double prevr = 0;
-			double c = 0;
-			double prevc = 0;
-			double R_plus, R_minus;
-			double lastPosScore = Double.MAX_VALUE;
-			double lastNegScore = Double.MAX_VALUE;
-			
-			if (numPos == 0 || numNeg == 0) {
-				return 1;
-			}
-			
-			for (Score s : sortedScores){
-				if(s.isPositive) {
-					if (s.value != lastPosScore) {
-						prevc = c;
-						lastPosScore = s.value;
-					}
-					
-					c += s.value;
-					
-					if (s.value == lastNegScore) {
-						// tie
-						AOC += ((double)(r + prevr))/2.0;
-					} else {
-						AOC += r;
-					}
-				} else {
-					if (s.value != lastNegScore) {
-						prevr = r;
-						lastNegScore = s.value;
-					}
-					
-					r += s.value;
-					
-					if (s.value == lastPosScore) {
-						// tie
-						AUC += ((double)(c + prevc))/2.0;
-					} else {
-						AUC += c;
-					}
-				}
-			}
-			
-			R_minus = (numPos*r - AOC)/(numPos * numNeg);
-			R_plus = (AUC)/(numPos * numNeg);		
-			return R_plus - R_minus;
+			return sortedScores.getScoredAUC();
 		}
 		
 		public double getRatio() {
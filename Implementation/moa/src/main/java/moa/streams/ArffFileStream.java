@@ -20,7 +20,10 @@
 package moa.streams;
 
 import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
 import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.FastArffLoader;
+import com.yahoo.labs.samoa.instances.Instance;
 import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 import java.io.BufferedReader;
@@ -64,6 +67,9 @@ public class ArffFileStream extends AbstractOptionHandler implements
             "Class index of data. 0 for none or -1 for last attribute in file.",
             -1, -1, Integer.MAX_VALUE);
 
+    public FlagOption fastParserOption = new FlagOption("fastParser", 'p',
+            "Read the data straight from the bytes of the file instead of with a tokenizer.");
+
     protected Instances instances;
 
     protected Reader fileReader;
@@ -76,6 +82,8 @@ public class ArffFileStream extends AbstractOptionHandler implements
 
     protected InputStreamProgressMonitor fileProgressMonitor;
 
+    protected FastArffLoader fastLoader;
+
     public ArffFileStream() {
     }
 
@@ -98,7 +106,9 @@ public class ArffFileStream extends AbstractOptionHandler implements
 
     @Override
     public long estimatedRemainingInstances() {
-        double progressFraction = this.fileProgressMonitor.getProgressFraction();
+        double progressFraction = this.fastLoader != null
+                ? this.fastLoader.getProgressFraction()
+                : this.fileProgressMonitor.getProgressFraction();
         if ((progressFraction > 0.0) && (this.numInstancesRead > 0)) {
             return (long) ((this.numInstancesRead / progressFraction) - this.numInstancesRead);
         }
@@ -127,14 +137,24 @@ public class ArffFileStream extends AbstractOptionHandler implements
         try {
             if (this.fileReader != null) {
                 this.fileReader.close();
+                this.fileReader = null;
+            }
+            if (this.fastLoader != null) {
+                this.fastLoader.close();
+                this.fastLoader = null;
             }
-            InputStream fileStream = new FileInputStream(this.arffFileOption.getFile());
-            this.fileProgressMonitor = new InputStreamProgressMonitor(
-                    fileStream);
-            this.fileReader = new BufferedReader(new InputStreamReader(
-                    this.fileProgressMonitor));
             int classIndex = this.classIndexOption.getValue();
-            this.instances = new Instances(this.fileReader, 1, classIndex);
+            if (this.fastParserOption.isSet()) {
+                this.fastLoader = new FastArffLoader(this.arffFileOption.getFile(), classIndex);
+                this.instances = this.fastLoader.getDataset();
+            } else {
+                InputStream fileStream = new FileInputStream(this.arffFileOption.getFile());
+                this.fileProgressMonitor = new InputStreamProgressMonitor(
+                        fileStream);
+                this.fileReader = new BufferedReader(new InputStreamReader(
+                        this.fileProgressMonitor));
+                this.instances = new Instances(this.fileReader, 1, classIndex);
+            }
             if (classIndex < 0) {
 		this.instances.setClassIndex(this.instances.numAttributes() - 1);
             } else if (this.classIndexOption.getValue() > 0) {
@@ -151,6 +171,16 @@ public class ArffFileStream extends AbstractOptionHandler implements
 
     protected boolean readNextInstanceFromFile() {
         try {
+            if (this.fastLoader != null) {
+                Instance instance = this.fastLoader.readInstance();
+                if (instance != null) {
+                    this.lastInstanceRead = new InstanceExample(instance);
+                    this.numInstancesRead++;
+                    return true;
+                }
+                this.fastLoader.close();
+                return false;
+            }
             if (this.instances.readInstance(this.fileReader)) {
                 this.lastInstanceRead = new InstanceExample(this.instances.instance(0));
                 this.instances.delete(); // keep instances clean
@@ -0,0 +1,304 @@
+/*
+ *    BinaryFileStream.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.streams;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.github.javacliparser.FileOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstanceImpl;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.core.InstanceExample;
+import moa.core.ObjectRepository;
+import moa.core.StringUtils;
+import moa.options.AbstractOptionHandler;
+import moa.tasks.TaskMonitor;
+
+/**
+ * Stream reader of the binary files written by WriteStreamToBinaryFile.<br/>
+ * A file holds the magic bytes, then chunks of rows and then a footer, all
+ * little-endian. Each chunk is its number of rows, its flags and the length of
+ * its data, followed by the data: a block of doubles for each attribute, and
+ * one of weights if they are not all 1, deflated if the chunk is flagged so.
+ * The footer holds the ARFF header of the stream, its class index and the
+ * number of instances, and the file ends with the offset of the footer and
+ * the magic bytes again.<br/>
+ * The file is read through memory mapped windows, and the instances come out
+ * with the values that were written bit for bit.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class BinaryFileStream extends AbstractOptionHandler implements InstanceStream {
+
+    @Override
+    public String getPurposeString() {
+        return "A stream read from a binary file written by WriteStreamToBinaryFile.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public static final byte[] MAGIC = {'M', 'O', 'A', 'B', 'I', 'N', '0', '1'};
+
+    public static final int CHUNK_DEFLATED = 1;
+
+    public static final int CHUNK_WEIGHTED = 2;
+
+    public static final int CHUNK_HEADER_BYTES = 12;
+
+    public static final int TRAILER_BYTES = 8 + MAGIC.length;
+
+    public static final Charset HEADER_CHARSET = Charset.forName("UTF-8");
+
+    /** the bytes mapped at a time, unless a chunk is longer. */
+    protected static final int WINDOW_BYTES = 1 << 26;
+
+    public FileOption binaryFileOption = new FileOption("binaryFile", 'f',
+            "Binary file to load.", null, "bin", false);
+
+    protected Instances instances;
+
+    protected long numInstances;
+
+    protected long numInstancesRead;
+
+    protected transient FileChannel channel;
+
+    protected transient MappedByteBuffer window;
+
+    protected long windowOffset;
+
+    /** the offset of the next chunk, and of the footer where the chunks end. */
+    protected long chunkOffset;
+
+    protected long footerOffset;
+
+    /** the columns of the current chunk, and the row to read next. */
+    protected double[][] columns;
+
+    protected double[] weights;
+
+    protected int chunkRows;
+
+    protected int row;
+
+    protected transient Inflater inflater;
+
+    public BinaryFileStream() {
+    }
+
+    public BinaryFileStream(String binaryFileName) {
+        this.binaryFileOption.setValue(binaryFileName);
+        restart();
+    }
+
+    @Override
+    public void prepareForUseImpl(TaskMonitor monitor,
+            ObjectRepository repository) {
+        restart();
+    }
+
+    @Override
+    public InstancesHeader getHeader() {
+        return new InstancesHeader(this.instances);
+    }
+
+    @Override
+    public long estimatedRemainingInstances() {
+        return this.numInstances - this.numInstancesRead;
+    }
+
+    @Override
+    public boolean hasMoreInstances() {
+        return this.numInstancesRead < this.numInstances;
+    }
+
+    @Override
+    public InstanceExample nextInstance() {
+        try {
+            if (this.row == this.chunkRows) {
+                this.readChunk();
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException(
+                    "BinaryFileStream failed to read instance from stream.", ioe);
+        }
+        double[] values = new double[this.columns.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.columns[i][this.row];
+        }
+        Instance instance = new InstanceImpl(this.weights != null ? this.weights[this.row] : 1.0, values);
+        instance.setDataset(this.instances);
+        this.row++;
+        if (++this.numInstancesRead == this.numInstances) {
+            this.close();
+        }
+        return new InstanceExample(instance);
+    }
+
+    @Override
+    public boolean isRestartable() {
+        return true;
+    }
+
+    @Override
+    public void restart() {
+        try {
+            this.close();
+            this.channel = FileChannel.open(this.binaryFileOption.getFile().toPath(),
+                    StandardOpenOption.READ);
+            long size = this.channel.size();
+            if (size < 2 * MAGIC.length + 8) {
+                throw new IOException("Not a binary stream file.");
+            }
+            this.map(0, MAGIC.length);
+            this.checkMagic();
+            this.map(size - TRAILER_BYTES, TRAILER_BYTES);
+            this.footerOffset = this.window.getLong();
+            this.checkMagic();
+            this.map(this.footerOffset, (int) (size - TRAILER_BYTES - this.footerOffset));
+            byte[] header = new byte[this.window.getInt()];
+            this.window.get(header);
+            int classIndex = this.window.getInt();
+            this.numInstances = this.window.getLong();
+            this.instances = new Instances(new StringReader(
+                    new String(header, HEADER_CHARSET)), 1, 0);
+            this.instances.setClassIndex(classIndex);
+            this.columns = new double[this.instances.numAttributes()][0];
+            this.chunkOffset = MAGIC.length;
+            this.chunkRows = 0;
+            this.row = 0;
+            this.numInstancesRead = 0;
+            if (this.numInstances == 0) {
+                this.close();
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException("BinaryFileStream restart failed.", ioe);
+        }
+    }
+
+    protected void readChunk() throws IOException {
+        if (this.chunkOffset >= this.footerOffset) {
+            throw new IOException("The chunks end before the instances counted in the footer.");
+        }
+        this.map(this.chunkOffset, CHUNK_HEADER_BYTES);
+        int rows = this.window.getInt();
+        int flags = this.window.getInt();
+        int length = this.window.getInt();
+        this.map(this.chunkOffset + CHUNK_HEADER_BYTES, length);
+        ByteBuffer data = this.window;
+        if ((flags & CHUNK_DEFLATED) != 0) {
+            int numBlocks = this.columns.length + ((flags & CHUNK_WEIGHTED) != 0 ? 1 : 0);
+            byte[] deflated = new byte[length];
+            data.get(deflated);
+            byte[] inflated = new byte[8 * rows * numBlocks];
+            if (this.inflater == null) {
+                this.inflater = new Inflater();
+            }
+            this.inflater.reset();
+            this.inflater.setInput(deflated);
+            try {
+                if (this.inflater.inflate(inflated) != inflated.length) {
+                    throw new IOException("Truncated chunk at " + this.chunkOffset + ".");
+                }
+            } catch (DataFormatException ex) {
+                throw new IOException("Corrupt chunk at " + this.chunkOffset + ".", ex);
+            }
+            data = ByteBuffer.wrap(inflated).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (this.columns.length > 0 && this.columns[0].length < rows) {
+            this.columns = new double[this.columns.length][rows];
+        }
+        for (double[] column : this.columns) {
+            data.asDoubleBuffer().get(column, 0, rows);
+            ((Buffer) data).position(data.position() + 8 * rows);
+        }
+        if ((flags & CHUNK_WEIGHTED) != 0) {
+            if (this.weights == null || this.weights.length < rows) {
+                this.weights = new double[rows];
+            }
+            data.asDoubleBuffer().get(this.weights, 0, rows);
+        } else {
+            this.weights = null;
+        }
+        this.chunkOffset += CHUNK_HEADER_BYTES + length;
+        this.chunkRows = rows;
+        this.row = 0;
+    }
+
+    /*
+     * Positions the window at offset, mapping a new one unless the current
+     * one covers the length from there.
+     */
+    protected void map(long offset, int length) throws IOException {
+        if (this.window == null || offset < this.windowOffset
+                || offset + length > this.windowOffset + this.window.capacity()) {
+            long size = Math.min(this.channel.size() - offset, Math.max(length, WINDOW_BYTES));
+            this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+            this.window.order(ByteOrder.LITTLE_ENDIAN);
+            this.windowOffset = offset;
+        }
+        // Through Buffer, whose methods the ByteBuffer overrides only after 1.8.
+        Buffer buffer = this.window;
+        buffer.limit(buffer.capacity());
+        buffer.position((int) (offset - this.windowOffset));
+        buffer.limit(buffer.position() + length);
+    }
+
+    protected void checkMagic() throws IOException {
+        for (byte b : MAGIC) {
+            if (this.window.get() != b) {
+                throw new IOException("Not a binary stream file.");
+            }
+        }
+    }
+
+    protected void close() {
+        this.window = null;
+        if (this.channel != null) {
+            try {
+                this.channel.close();
+            } catch (IOException ignored) {
+            }
+            this.channel = null;
+        }
+    }
+
+    @Override
+    public void getDescription(StringBuilder sb, int indent) {
+        StringUtils.appendIndented(sb, indent, "Binary file stream " + this.binaryFileOption.getFile());
+        if (this.instances != null) {
+            sb.append(": ").append(this.instances.getRelationName());
+            sb.append(", ").append(this.numInstances).append(" instances of ");
+            sb.append(this.instances.numAttributes()).append(" attributes");
+        }
+    }
+}
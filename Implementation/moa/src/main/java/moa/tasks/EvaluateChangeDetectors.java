@@ -0,0 +1,457 @@
+/*
+ *    EvaluateChangeDetectors.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.ListOption;
+import com.github.javacliparser.Option;
+import com.github.javacliparser.StringOption;
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.classifiers.Classifier;
+import moa.classifiers.MultiClassClassifier;
+import moa.classifiers.core.driftdetection.ChangeDetector;
+import moa.classifiers.core.driftdetection.DetectorObservation;
+import moa.core.ObjectRepository;
+import moa.core.Parallelism;
+import moa.core.TimingUtils;
+import moa.options.ClassOption;
+import moa.streams.ExampleStream;
+
+/**
+ * Task for comparing change detectors on the predictions of one classifier.<br/>
+ * The classifier is tested then trained on the stream once, and what it
+ * observed on every instance (whether it was mistaken, the true class, the
+ * weight and the class votes) is recorded to an observation file. The file is
+ * then replayed through every detector, on parallel jobs, without training
+ * the classifier again. A recorded file can be replayed again with other
+ * detectors.<br/>
+ * For every detector the task reports its detections, how many of the given
+ * drift positions it detected within the maximum delay and how late, its
+ * false alarms and its CPU time per instance.
+ *
+ * <p>An observation file starts with MAGIC, the name of the class attribute
+ * and its labels. Then each instance is a flags byte (ERROR, WEIGHTED,
+ * CLASS_MISSING), the true class unless missing, the weight if weighted, the
+ * number of votes and the votes, in DataOutputStream format. The END flags
+ * byte follows the last instance.</p>
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class EvaluateChangeDetectors extends ClassificationMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Compares change detectors by replaying the recorded predictions of a classifier on a stream.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public static final byte[] MAGIC = {'M', 'O', 'A', 'O', 'B', 'S', '0', '1'};
+
+    public static final int ERROR = 1;
+
+    public static final int WEIGHTED = 2;
+
+    public static final int CLASS_MISSING = 4;
+
+    public static final int END = 0x80;
+
+    public ClassOption learnerOption = new ClassOption("learner", 'l',
+            "Classifier whose predictions are monitored.", MultiClassClassifier.class,
+            "moa.classifiers.trees.HoeffdingTree");
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to learn from.", ExampleStream.class,
+            "generators.RandomTreeGenerator");
+
+    public IntOption instanceLimitOption = new IntOption("instanceLimit", 'i',
+            "Maximum number of instances to test/train on  (-1 = no limit).",
+            100000, -1, Integer.MAX_VALUE);
+
+    public FileOption observationFileOption = new FileOption("observationFile", 'o',
+            "File to record the observations of the classifier to, or to replay them from. A temporary file if not given.",
+            null, "obs", true);
+
+    public FlagOption replayOnlyOption = new FlagOption("replayOnly", 'r',
+            "Replay the observation file without recording it again.");
+
+    public ListOption detectorsOption = new ListOption("detectors", 'c',
+            "The change detectors to compare.",
+            new ClassOption("detector", ' ', "", ChangeDetector.class, "DDM"),
+            new Option[]{
+                new ClassOption("", ' ', "", ChangeDetector.class, "DDM"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "DDM_OCI"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "DDM_GMean"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "ADWINChangeDetector"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "HDDM_A_Test"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "HDDM_W_Test"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "RDDM"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "PMAUC_EWAUC_WAUC_GMean_PH"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "SEEDChangeDetector"),
+                new ClassOption("", ' ', "", ChangeDetector.class, "SeqDrift2ChangeDetector")},
+            ',');
+
+    public StringOption driftPositionsOption = new StringOption("driftPositions", 'p',
+            "Comma separated indices of the instances where the true drifts start, counting from 0.", "");
+
+    public IntOption maxDelayOption = new IntOption("maxDelay", 'w',
+            "Number of instances after a drift in which a detection counts as detecting it.",
+            1000, 1, Integer.MAX_VALUE);
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for replaying the detectors (-1 = as much as possible, 0 = do not use multithreading)", -1, -1, Integer.MAX_VALUE);
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return String.class;
+    }
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        File file = this.observationFileOption.getFile();
+        boolean temporary = file == null;
+        try {
+            if (temporary) {
+                file = File.createTempFile("EvaluateChangeDetectors", ".obs");
+            }
+            if (!this.replayOnlyOption.isSet() || temporary) {
+                monitor.setCurrentActivity("Recording observations...", -1.0);
+                if (!record(file, monitor)) {
+                    return null;
+                }
+            }
+
+            Option[] detectorOptions = this.detectorsOption.getList();
+            long[] driftPositions = parseDriftPositions(this.driftPositionsOption.getValue());
+            List<ReplayJob> jobs = new ArrayList<ReplayJob>();
+            for (int i = 0; i < detectorOptions.length; i++) {
+                monitor.setCurrentActivity("Materializing detector " + (i + 1) + "...", -1.0);
+                ClassOption option = (ClassOption) detectorOptions[i];
+                ChangeDetector detector = (ChangeDetector) option.materializeObject(monitor, repository);
+                if (monitor.taskShouldAbort()) {
+                    return null;
+                }
+                detector.prepareForUse(monitor, repository);
+                jobs.add(new ReplayJob(file, detector, option.getValueAsCLIString(),
+                        driftPositions, this.maxDelayOption.getValue()));
+            }
+
+            monitor.setCurrentActivity("Replaying observations...", -1.0);
+            TimingUtils.enablePreciseTiming();
+            List<DetectorResult> results = Parallelism.invokeAll(jobs,
+                    Parallelism.numberOfJobs(this.numberOfJobsOption.getValue()));
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("detector,instances,detections,detected drifts,missed drifts,false alarms,mean detection delay,ns per instance");
+            for (DetectorResult result : results) {
+                sb.append('\n');
+                result.appendTo(sb, driftPositions.length);
+            }
+            return sb.toString();
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to record or replay the observation file " + file, ex);
+        } finally {
+            if (temporary && file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    /*
+     * Tests then trains the classifier on the stream, writing what it observed on
+     * every instance to the file. Returns false if the task was aborted.
+     */
+    protected boolean record(File file, TaskMonitor monitor) throws IOException {
+        Classifier learner = (Classifier) getPreparedClassOption(this.learnerOption);
+        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+        InstancesHeader header = stream.getHeader();
+        learner.setModelContext(header);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(file), 1 << 16));
+        try {
+            Attribute classAttribute = header.classAttribute();
+            out.write(MAGIC);
+            out.writeUTF(classAttribute.name());
+            out.writeInt(classAttribute.numValues());
+            for (int i = 0; i < classAttribute.numValues(); i++) {
+                out.writeUTF(classAttribute.value(i));
+            }
+
+            DetectorObservation observation = new DetectorObservation();
+            int maxInstances = this.instanceLimitOption.getValue();
+            long instancesProcessed = 0;
+            while (stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))) {
+                Instance inst = (Instance) stream.nextInstance().getData();
+                observation.set(learner.getVotesForInstance(inst), inst);
+                writeObservation(out, observation);
+                learner.trainOnInstance(inst);
+                instancesProcessed++;
+
+                if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                    if (monitor.taskShouldAbort()) {
+                        return false;
+                    }
+                    long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                    if (maxInstances > 0) {
+                        long maxRemaining = maxInstances - instancesProcessed;
+                        if ((estimatedRemainingInstances < 0)
+                                || (maxRemaining < estimatedRemainingInstances)) {
+                            estimatedRemainingInstances = maxRemaining;
+                        }
+                    }
+                    monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                            : (double) instancesProcessed
+                            / (double) (instancesProcessed + estimatedRemainingInstances));
+                }
+            }
+            out.writeByte(END);
+        } finally {
+            out.close();
+        }
+        return true;
+    }
+
+    protected static void writeObservation(DataOutputStream out, DetectorObservation observation)
+            throws IOException {
+        Instance inst = observation.getInstance();
+        int flags = observation.getError() != 0.0 ? ERROR : 0;
+        if (inst.weight() != 1.0) {
+            flags |= WEIGHTED;
+        }
+        if (inst.classIsMissing()) {
+            flags |= CLASS_MISSING;
+        }
+        out.writeByte(flags);
+        if ((flags & CLASS_MISSING) == 0) {
+            out.writeInt(observation.getTrueClass());
+        }
+        if ((flags & WEIGHTED) != 0) {
+            out.writeDouble(inst.weight());
+        }
+        double[] votes = observation.getClassVotes();
+        out.writeInt(votes.length);
+        for (double vote : votes) {
+            out.writeDouble(vote);
+        }
+    }
+
+    protected static long[] parseDriftPositions(String positions) {
+        if (positions.trim().isEmpty()) {
+            return new long[0];
+        }
+        String[] parts = positions.split(",");
+        long[] result = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Long.parseLong(parts[i].trim());
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /***
+     * The detections of one detector, matched to the true drifts as they come.
+     * A detection within maxDelay instances of the last drift before it, and
+     * before the next drift, detects that drift unless an earlier one did.
+     * Every other detection is a false alarm.
+     */
+    protected static class DetectorResult {
+        final private String name;
+        final private long[] driftPositions;
+        final private int maxDelay;
+        private int nextDrift;
+        private boolean lastDriftDetected;
+        private long instances;
+        private long detections;
+        private long detectedDrifts;
+        private long falseAlarms;
+        private long totalDelay;
+        private long cpuTime;
+
+        public DetectorResult(String name, long[] driftPositions, int maxDelay) {
+            this.name = name;
+            this.driftPositions = driftPositions;
+            this.maxDelay = maxDelay;
+        }
+
+        public void addDetection(long position) {
+            this.detections++;
+            while (this.nextDrift < this.driftPositions.length
+                    && this.driftPositions[this.nextDrift] <= position) {
+                this.nextDrift++;
+                this.lastDriftDetected = false;
+            }
+            if (this.nextDrift > 0 && !this.lastDriftDetected) {
+                long delay = position - this.driftPositions[this.nextDrift - 1];
+                if (delay < this.maxDelay) {
+                    this.lastDriftDetected = true;
+                    this.detectedDrifts++;
+                    this.totalDelay += delay;
+                    return;
+                }
+            }
+            this.falseAlarms++;
+        }
+
+        protected void appendTo(StringBuilder sb, int numDrifts) {
+            sb.append('"').append(this.name.replace("\"", "\"\"")).append('"');
+            sb.append(',').append(this.instances);
+            sb.append(',').append(this.detections);
+            sb.append(',').append(this.detectedDrifts);
+            sb.append(',').append(numDrifts - this.detectedDrifts);
+            sb.append(',').append(this.falseAlarms);
+            sb.append(',').append(this.detectedDrifts > 0
+                    ? (double) this.totalDelay / this.detectedDrifts : Double.NaN);
+            sb.append(',').append(this.instances > 0
+                    ? (double) this.cpuTime / this.instances : Double.NaN);
+        }
+    }
+
+    /***
+     * Inner class to replay the observation file through one detector. The
+     * instances are read a chunk at a time, and only the time spent in the
+     * detector is counted.
+     */
+    protected static class ReplayJob implements Callable<DetectorResult> {
+        private static final int CHUNK_SIZE = 4096;
+
+        final private File file;
+        final private ChangeDetector detector;
+        final private DetectorResult result;
+
+        public ReplayJob(File file, ChangeDetector detector, String name,
+                long[] driftPositions, int maxDelay) {
+            this.file = file;
+            this.detector = detector;
+            this.result = new DetectorResult(name, driftPositions, maxDelay);
+        }
+
+        @Override
+        public DetectorResult call() throws IOException {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(this.file), 1 << 16));
+            try {
+                Instance inst = new DenseInstance(1.0, new double[1]);
+                inst.setDataset(readHeader(in));
+
+                byte[] flags = new byte[CHUNK_SIZE];
+                int[] classes = new int[CHUNK_SIZE];
+                double[] weights = new double[CHUNK_SIZE];
+                int[] voteOffsets = new int[CHUNK_SIZE + 1];
+                double[] votes = new double[CHUNK_SIZE * inst.numClasses()];
+                // The votes of an instance are copied to the buffer of their length.
+                double[][] voteBuffers = new double[inst.numClasses() + 1][];
+                DetectorObservation observation = new DetectorObservation();
+                long position = 0;
+                boolean ended = false;
+                while (!ended) {
+                    int rows = 0;
+                    while (rows < CHUNK_SIZE) {
+                        int flag = in.readUnsignedByte();
+                        if (flag == END) {
+                            ended = true;
+                            break;
+                        }
+                        flags[rows] = (byte) flag;
+                        classes[rows] = (flag & CLASS_MISSING) == 0 ? in.readInt() : -1;
+                        weights[rows] = (flag & WEIGHTED) != 0 ? in.readDouble() : 1.0;
+                        int numVotes = in.readInt();
+                        if (voteOffsets[rows] + numVotes > votes.length) {
+                            votes = Arrays.copyOf(votes, Math.max(2 * votes.length, voteOffsets[rows] + numVotes));
+                        }
+                        for (int v = 0; v < numVotes; v++) {
+                            votes[voteOffsets[rows] + v] = in.readDouble();
+                        }
+                        voteOffsets[rows + 1] = voteOffsets[rows] + numVotes;
+                        rows++;
+                    }
+
+                    long startTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                    for (int r = 0; r < rows; r++, position++) {
+                        int numVotes = voteOffsets[r + 1] - voteOffsets[r];
+                        if (numVotes >= voteBuffers.length) {
+                            voteBuffers = Arrays.copyOf(voteBuffers, numVotes + 1);
+                        }
+                        if (voteBuffers[numVotes] == null) {
+                            voteBuffers[numVotes] = new double[numVotes];
+                        }
+                        double[] classVotes = voteBuffers[numVotes];
+                        System.arraycopy(votes, voteOffsets[r], classVotes, 0, numVotes);
+                        if (classes[r] < 0) {
+                            inst.setMissing(0);
+                        } else {
+                            inst.setClassValue(classes[r]);
+                        }
+                        inst.setWeight(weights[r]);
+                        this.detector.input(observation.set((flags[r] & ERROR) != 0 ? 1.0 : 0.0, classVotes, inst));
+                        if (this.detector.getChange()) {
+                            this.result.addDetection(position);
+                        }
+                    }
+                    this.result.cpuTime += TimingUtils.getNanoCPUTimeOfCurrentThread() - startTime;
+                    this.result.instances += rows;
+                }
+            } finally {
+                in.close();
+            }
+            return this.result;
+        }
+
+        protected static Instances readHeader(DataInputStream in) throws IOException {
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an observation file.");
+            }
+            String className = in.readUTF();
+            int numLabels = in.readInt();
+            List<String> labels = new ArrayList<String>(numLabels);
+            for (int i = 0; i < numLabels; i++) {
+                labels.add(in.readUTF());
+            }
+            List<Attribute> attributes = new ArrayList<Attribute>(1);
+            attributes.add(new Attribute(className, labels));
+            Instances header = new Instances("observations", attributes, 0);
+            header.setClassIndex(0);
+            return header;
+        }
+    }
+}
@@ -22,6 +22,7 @@ package moa.tasks;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import moa.AbstractMOAObject;
 import moa.classifiers.Classifier;
 import moa.core.Example;
 import moa.core.InstanceExample;
@@ -223,7 +224,7 @@ public class EvaluateInterleavedChunks extends ClassificationMainTask {
 			////Result output
 			if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0) {
 				
-				double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+				double RAMHoursIncrement = AbstractMOAObject.accountedByteSize(learner) / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (TimingUtils.nanoTimeToSeconds(sampleTrainTime + sampleTestTime) / 3600.0); //Hours
                 RAMHours += RAMHoursIncrement;
 				
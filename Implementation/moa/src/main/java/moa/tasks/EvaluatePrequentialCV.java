@@ -23,6 +23,7 @@ package moa.tasks;
 import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.MultiChoiceOption;
+import moa.AbstractMOAObject;
 import moa.classifiers.Classifier;
 import moa.classifiers.MultiClassClassifier;
 import moa.core.*;
@@ -108,6 +109,12 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
     public IntOption randomSeedOption = new IntOption("randomSeed", 'r',
             "Seed for random behaviour of the task.", 1);
 
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for testing and training the folds (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "How many instances a job may lag behind the stream when using multithreading.", 1000, 1, Integer.MAX_VALUE);
+
 
     @Override
     public Class<?> getTaskResultType() {
@@ -162,121 +169,174 @@ public class EvaluatePrequentialCV extends ClassificationMainTask {
         long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
         long lastEvaluateStartTime = evaluateStartTime;
         double RAMHours = 0.0;
-        while (stream.hasMoreInstances()
-                && ((maxInstances < 0) || (instancesProcessed < maxInstances))
-                && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
-            Example trainInst = stream.nextInstance();
-            Example testInst = (Example) trainInst; //.copy();
-            //testInst.setClassMissing();
-
-            for (int i = 0; i < learners.length; i++) {
-                evaluators[i].addResult(testInst, learners[i].getVotesForInstance(testInst));
-            }
-
-            for (int i = 0; i < learners.length; i++) {
-                int k = 1;
-                switch (this.validationMethodologyOption.getChosenIndex()) {
-                    case 0: //Cross-Validation;
-                        k = instancesProcessed % learners.length == i ? 0: 1; //Test all except one
-                        break;
-                    case 1: //Bootstrap;
-                        k = MiscUtils.poisson(1, random);
-                        break;
-                    case 2: //Split-Validation;
-                        k = instancesProcessed % learners.length == i ? 1: 0; //Test only one
-                        break;
-                }
-                if (k > 0) {
-                    Example weightedInst = (Example) trainInst.copy();
-                    weightedInst.setWeight(trainInst.weight() * k);
-                    learners[i].trainOnInstance(weightedInst);
-                }
-            }
 
-            instancesProcessed++;
-            if (instancesProcessed % this.sampleFrequencyOption.getValue() == 0
-                    || stream.hasMoreInstances() == false) {
-                long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
-                double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
-                double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-
-                for (int i = 0; i < learners.length; i++) {
-                    double RAMHoursIncrement = learners[i].measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
-                    RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
-                    RAMHours += RAMHoursIncrement;
-                }
+        // Multi-threading: the folds test and train on buffered instances on
+        // jobs of the shared pool, each in the order of the stream, so the
+        // results do not depend on the number of jobs.
+        int numberOfJobs = Parallelism.numberOfJobs(this.numberOfJobsOption.getValue());
+        LearnerJobs<FoldItem> jobs = new LearnerJobs<FoldItem>(learners.length, numberOfJobs,
+                numberOfJobs > 1 ? this.bufferSizeOption.getValue() : 1,
+                (i, item) -> {
+                    evaluators[i].addResult(item.example, learners[i].getVotesForInstance(item.example));
+                    if (item.weights[i] > 0) {
+                        Example weightedInst = (Example) item.example.copy();
+                        weightedInst.setWeight(item.example.weight() * item.weights[i]);
+                        learners[i].trainOnInstance(weightedInst);
+                    }
+                });
+
+        try {
+            while (stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))
+                    && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
+                Example trainInst = stream.nextInstance();
+
+                int[] weights = this.getFoldWeights(instancesProcessed, learners.length, random);
+                instancesProcessed++;
+                boolean isSample = instancesProcessed % this.sampleFrequencyOption.getValue() == 0
+                        || stream.hasMoreInstances() == false;
+
+                jobs.add(new FoldItem(trainInst, weights));
+
+                if (isSample) {
+                    jobs.flush();
+                    long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread()
+                            - jobs.getFlushCPUTime() + jobs.getCPUTime();
+                    double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
+                    double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
+
+                    Measurement[][] subMeasurements = new Measurement[learners.length][];
+                    for (int i = 0; i < learners.length; i++) {
+                        subMeasurements[i] = evaluators[i].getPerformanceMeasurements();
+                        double RAMHoursIncrement = AbstractMOAObject.accountedByteSize(learners[i]) / (1024.0 * 1024.0 * 1024.0); //GBs
+                        RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
+                        RAMHours += RAMHoursIncrement;
+                    }
 
-                lastEvaluateStartTime = evaluateTime;
-                learningCurve.insertEntry(new LearningEvaluation(
-                        getEvaluationMeasurements(
-                        new Measurement[]{
-                                new Measurement(
-                                        "learning evaluation instances",
-                                        instancesProcessed),
-                                new Measurement(
-                                        "evaluation time ("
-                                                + (preciseCPUTiming ? "cpu "
-                                                : "") + "seconds)",
-                                        time),
-                                new Measurement(
-                                        "model cost (RAM-Hours)",
-                                        RAMHours)
-                        }, evaluators)));
-
-                if (immediateResultStream != null) {
-                    if (firstDump) {
-                        immediateResultStream.println(learningCurve.headerToString());
-                        firstDump = false;
+                    lastEvaluateStartTime = evaluateTime;
+                    learningCurve.insertEntry(new LearningEvaluation(
+                            getEvaluationMeasurements(
+                            new Measurement[]{
+                                    new Measurement(
+                                            "learning evaluation instances",
+                                            instancesProcessed),
+                                    new Measurement(
+                                            "evaluation time ("
+                                                    + (preciseCPUTiming ? "cpu "
+                                                    : "") + "seconds)",
+                                            time),
+                                    new Measurement(
+                                            "model cost (RAM-Hours)",
+                                            RAMHours)
+                            }, subMeasurements)));
+
+                    if (immediateResultStream != null) {
+                        if (firstDump) {
+                            immediateResultStream.println(learningCurve.headerToString());
+                            firstDump = false;
+                        }
+                        immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
+                        immediateResultStream.flush();
                     }
-                    immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
-                    immediateResultStream.flush();
                 }
-            }
-            if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
-                if (monitor.taskShouldAbort()) {
-                    return null;
-                }
-                long estimatedRemainingInstances = stream.estimatedRemainingInstances();
-                if (maxInstances > 0) {
-                    long maxRemaining = maxInstances - instancesProcessed;
-                    if ((estimatedRemainingInstances < 0)
-                            || (maxRemaining < estimatedRemainingInstances)) {
-                        estimatedRemainingInstances = maxRemaining;
+                if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                    if (monitor.taskShouldAbort()) {
+                        return null;
                     }
+                    long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                    if (maxInstances > 0) {
+                        long maxRemaining = maxInstances - instancesProcessed;
+                        if ((estimatedRemainingInstances < 0)
+                                || (maxRemaining < estimatedRemainingInstances)) {
+                            estimatedRemainingInstances = maxRemaining;
+                        }
+                    }
+                    monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                            : (double) instancesProcessed
+                            / (double) (instancesProcessed + estimatedRemainingInstances));
+                    if (monitor.resultPreviewRequested()) {
+                        monitor.setLatestResultPreview(learningCurve.copy());
+                    }
+                    // The time of the folds is only known up to the last flush.
+                    secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                            - jobs.getFlushCPUTime() + jobs.getCPUTime() - evaluateStartTime);
                 }
-                monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
-                        : (double) instancesProcessed
-                        / (double) (instancesProcessed + estimatedRemainingInstances));
-                if (monitor.resultPreviewRequested()) {
-                    monitor.setLatestResultPreview(learningCurve.copy());
-                }
-                secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
-                        - evaluateStartTime);
             }
-        }
-        if (immediateResultStream != null) {
-            immediateResultStream.close();
+        } finally {
+            if (immediateResultStream != null) {
+                immediateResultStream.close();
+            }
         }
         return learningCurve;
     }
 
+    /**
+     * Gets the weight each fold trains the next instance with, 0 for the folds
+     * that only test it.
+     */
+    protected int[] getFoldWeights(long instancesProcessed, int numFolds, Random random) {
+        int[] weights = new int[numFolds];
+        for (int i = 0; i < numFolds; i++) {
+            int k = 1;
+            switch (this.validationMethodologyOption.getChosenIndex()) {
+                case 0: //Cross-Validation;
+                    k = instancesProcessed % numFolds == i ? 0: 1; //Test all except one
+                    break;
+                case 1: //Bootstrap;
+                    k = MiscUtils.poisson(1, random);
+                    break;
+                case 2: //Split-Validation;
+                    k = instancesProcessed % numFolds == i ? 1: 0; //Test only one
+                    break;
+            }
+            weights[i] = k;
+        }
+        return weights;
+    }
 
     public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, LearningPerformanceEvaluator[] subEvaluators) {
+        Measurement[][] subMeasurements = null;
+        if (subEvaluators != null) {
+            subMeasurements = new Measurement[subEvaluators.length][];
+            for (int i = 0; i < subEvaluators.length; i++) {
+                if (subEvaluators[i] != null) {
+                    subMeasurements[i] = subEvaluators[i].getPerformanceMeasurements();
+                }
+            }
+        }
+        return getEvaluationMeasurements(modelMeasurements, subMeasurements);
+    }
+
+    public Measurement[] getEvaluationMeasurements(Measurement[] modelMeasurements, Measurement[][] subMeasurements) {
         List<Measurement> measurementList = new LinkedList<Measurement>();
         if (modelMeasurements != null) {
             measurementList.addAll(Arrays.asList(modelMeasurements));
         }
         // add average of sub-model measurements
-        if ((subEvaluators != null) && (subEvaluators.length > 0)) {
-            List<Measurement[]> subMeasurements = new LinkedList<Measurement[]>();
-            for (LearningPerformanceEvaluator subEvaluator : subEvaluators) {
-                if (subEvaluator != null) {
-                    subMeasurements.add(subEvaluator.getPerformanceMeasurements());
+        if ((subMeasurements != null) && (subMeasurements.length > 0)) {
+            List<Measurement[]> subMeasurementList = new LinkedList<Measurement[]>();
+            for (Measurement[] subMeasurement : subMeasurements) {
+                if (subMeasurement != null) {
+                    subMeasurementList.add(subMeasurement);
                 }
             }
-            Measurement[] avgMeasurements = Measurement.averageMeasurements(subMeasurements.toArray(new Measurement[subMeasurements.size()][]));
+            Measurement[] avgMeasurements = Measurement.averageMeasurements(subMeasurementList.toArray(new Measurement[subMeasurementList.size()][]));
             measurementList.addAll(Arrays.asList(avgMeasurements));
         }
         return measurementList.toArray(new Measurement[measurementList.size()]);
     }
+
+    /***
+     * An instance handed to the folds with the weight each fold trains it
+     * with.
+     */
+    protected static class FoldItem {
+        final private Example example;
+        final private int[] weights;
+
+        public FoldItem(Example example, int[] weights) {
+            this.example = example;
+            this.weights = weights;
+        }
+    }
 }
@@ -31,6 +31,7 @@ import com.yahoo.labs.samoa.instances.Prediction;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import moa.AbstractMOAObject;
 import moa.classifiers.MultiTargetRegressor;
 import moa.core.Example;
 import moa.core.Measurement;
@@ -309,7 +310,7 @@ public class EvaluatePrequentialMultiTargetSemiSuper extends MultiTargetMainTask
                 long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
                 double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-                double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                double RAMHoursIncrement = AbstractMOAObject.accountedByteSize(learner) / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                 RAMHours += RAMHoursIncrement;
                 lastEvaluateStartTime = evaluateTime;
@@ -367,7 +368,7 @@ public class EvaluatePrequentialMultiTargetSemiSuper extends MultiTargetMainTask
         long evaluateTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
         double time = TimingUtils.nanoTimeToSeconds(evaluateTime - evaluateStartTime);
         double timeIncrement = TimingUtils.nanoTimeToSeconds(evaluateTime - lastEvaluateStartTime);
-        double RAMHoursIncrement = learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+        double RAMHoursIncrement = AbstractMOAObject.accountedByteSize(learner) / (1024.0 * 1024.0 * 1024.0); //GBs
         RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
         RAMHours += RAMHoursIncrement;
         lastEvaluateStartTime = evaluateTime;
@@ -0,0 +1,281 @@
+/*
+ *    EvaluatePrequentialMultipleLearners.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.IntOption;
+import com.github.javacliparser.ListOption;
+import com.github.javacliparser.Option;
+
+import moa.AbstractMOAObject;
+import moa.classifiers.MultiClassClassifier;
+import moa.core.Example;
+import moa.core.Measurement;
+import moa.core.ObjectRepository;
+import moa.core.Parallelism;
+import moa.core.TimingUtils;
+import moa.evaluation.LearningEvaluation;
+import moa.evaluation.LearningPerformanceEvaluator;
+import moa.evaluation.preview.LearningCurve;
+import moa.learners.Learner;
+import moa.options.ClassOption;
+import moa.options.OptionHandler;
+import moa.streams.ExampleStream;
+
+/**
+ * Task for evaluating several classifiers on one pass over a stream by testing
+ * then training each of them with each example in sequence.<br/>
+ * Every learner sees the same copy of each example that EvaluatePrequential
+ * would give it, so its columns of the combined learning curve are those of
+ * running EvaluatePrequential with it alone. Its CPU time and RAM-Hours only
+ * count the time spent testing and training it.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class EvaluatePrequentialMultipleLearners extends ClassificationMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Evaluates several classifiers on one pass over a stream by testing then training each of them with each example in sequence.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ListOption learnersOption = new ListOption("learners", 'l',
+            "The learners to train.",
+            new ClassOption("learner", ' ', "", MultiClassClassifier.class,
+                    "moa.classifiers.bayes.NaiveBayes"),
+            new Option[]{
+                new ClassOption("", ' ', "", MultiClassClassifier.class,
+                        "moa.classifiers.bayes.NaiveBayes"),
+                new ClassOption("", ' ', "", MultiClassClassifier.class,
+                        "moa.classifiers.trees.HoeffdingTree")},
+            ',');
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to learn from.", ExampleStream.class,
+            "generators.RandomTreeGenerator");
+
+    public ListOption evaluatorsOption = new ListOption("evaluators", 'e',
+            "Classification performance evaluation methods, either one for all the learners or one per learner.",
+            new ClassOption("evaluator", ' ', "", LearningPerformanceEvaluator.class,
+                    "WindowClassificationPerformanceEvaluator"),
+            new Option[]{
+                new ClassOption("", ' ', "", LearningPerformanceEvaluator.class,
+                        "WindowClassificationPerformanceEvaluator")},
+            ',');
+
+    public IntOption instanceLimitOption = new IntOption("instanceLimit", 'i',
+            "Maximum number of instances to test/train on  (-1 = no limit).",
+            100000000, -1, Integer.MAX_VALUE);
+
+    public IntOption timeLimitOption = new IntOption("timeLimit", 't',
+            "Maximum number of seconds to test/train for (-1 = no limit).", -1,
+            -1, Integer.MAX_VALUE);
+
+    public IntOption sampleFrequencyOption = new IntOption("sampleFrequency",
+            'f',
+            "How many instances between samples of the learning performance.",
+            100000, 0, Integer.MAX_VALUE);
+
+    public FileOption dumpFileOption = new FileOption("dumpFile", 'd',
+            "File to append intermediate csv results to.", null, "csv", true);
+
+    public IntOption numberOfJobsOption = new IntOption("numberOfJobs", 'j',
+            "Total number of concurrent jobs used for testing and training the learners (-1 = as much as possible, 0 = do not use multithreading)", 1, -1, Integer.MAX_VALUE);
+
+    public IntOption bufferSizeOption = new IntOption("bufferSize", 'b',
+            "How many instances a job may lag behind the stream when using multithreading.", 1000, 1, Integer.MAX_VALUE);
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return LearningCurve.class;
+    }
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        ExampleStream stream = (ExampleStream) getPreparedClassOption(this.streamOption);
+
+        Option[] learnerOptions = this.learnersOption.getList();
+        Option[] evaluatorOptions = this.evaluatorsOption.getList();
+        if (evaluatorOptions.length != 1 && evaluatorOptions.length != learnerOptions.length) {
+            throw new IllegalArgumentException("Give either one evaluator or one per learner: "
+                    + evaluatorOptions.length + " evaluators for " + learnerOptions.length + " learners.");
+        }
+        Learner[] learners = new Learner[learnerOptions.length];
+        LearningPerformanceEvaluator[] evaluators = new LearningPerformanceEvaluator[learnerOptions.length];
+        String[] prefixes = new String[learnerOptions.length];
+        for (int i = 0; i < learners.length; i++) {
+            monitor.setCurrentActivity("Materializing learner " + (i + 1) + "...", -1.0);
+            learners[i] = (Learner) materialize((ClassOption) learnerOptions[i], monitor, repository);
+            LearningPerformanceEvaluator evaluator = (LearningPerformanceEvaluator) materialize(
+                    (ClassOption) evaluatorOptions[evaluatorOptions.length == 1 ? 0 : i], monitor, repository);
+            if (monitor.taskShouldAbort()) {
+                return null;
+            }
+            learners[i].setModelContext(stream.getHeader());
+            evaluators[i] = (LearningPerformanceEvaluator) evaluator.copy();
+            prefixes[i] = "[" + (i + 1) + ":" + learners[i].getClass().getSimpleName() + "] ";
+        }
+
+        LearningCurve learningCurve = new LearningCurve(
+                "learning evaluation instances");
+        int maxInstances = this.instanceLimitOption.getValue();
+        long instancesProcessed = 0;
+        int maxSeconds = this.timeLimitOption.getValue();
+        int secondsElapsed = 0;
+        monitor.setCurrentActivity("Evaluating learners...", -1.0);
+
+        File dumpFile = this.dumpFileOption.getFile();
+        PrintStream immediateResultStream = null;
+        if (dumpFile != null) {
+            try {
+                if (dumpFile.exists()) {
+                    immediateResultStream = new PrintStream(
+                            new FileOutputStream(dumpFile, true), true);
+                } else {
+                    immediateResultStream = new PrintStream(
+                            new FileOutputStream(dumpFile), true);
+                }
+            } catch (Exception ex) {
+                throw new RuntimeException(
+                        "Unable to open immediate result file: " + dumpFile, ex);
+            }
+        }
+
+        boolean firstDump = true;
+        boolean preciseCPUTiming = TimingUtils.enablePreciseTiming();
+        long evaluateStartTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+        long[] lastCPUTimes = new long[learners.length];
+        double[] RAMHours = new double[learners.length];
+
+        // Multi-threading: the learners test and train on buffered instances
+        // on jobs of the shared pool. Without it they do so one instance at a
+        // time on this thread.
+        int numberOfJobs = Parallelism.numberOfJobs(this.numberOfJobsOption.getValue());
+        LearnerJobs<Example> jobs = new LearnerJobs<Example>(learners.length, numberOfJobs,
+                numberOfJobs > 1 ? this.bufferSizeOption.getValue() : 1,
+                (i, example) -> {
+                    // Each learner may change the example, as it would its own stream's.
+                    Example inst = (Example) example.copy();
+                    evaluators[i].addResult(inst, learners[i].getVotesForInstance(inst));
+                    learners[i].trainOnInstance(inst);
+                });
+
+        try {
+            while (stream.hasMoreInstances()
+                    && ((maxInstances < 0) || (instancesProcessed < maxInstances))
+                    && ((maxSeconds < 0) || (secondsElapsed < maxSeconds))) {
+                Example trainInst = stream.nextInstance();
+                instancesProcessed++;
+                boolean isSample = instancesProcessed % this.sampleFrequencyOption.getValue() == 0
+                        || stream.hasMoreInstances() == false;
+
+                jobs.add(trainInst);
+
+                if (isSample) {
+                    jobs.flush();
+                    List<Measurement> measurements = new ArrayList<Measurement>();
+                    measurements.add(new Measurement(
+                            "learning evaluation instances",
+                            instancesProcessed));
+                    for (int i = 0; i < learners.length; i++) {
+                        long cpuTime = jobs.getCPUTime(i);
+                        double time = TimingUtils.nanoTimeToSeconds(cpuTime);
+                        double timeIncrement = TimingUtils.nanoTimeToSeconds(cpuTime - lastCPUTimes[i]);
+                        double RAMHoursIncrement = AbstractMOAObject.accountedByteSize(learners[i]) / (1024.0 * 1024.0 * 1024.0); //GBs
+                        RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
+                        RAMHours[i] += RAMHoursIncrement;
+                        lastCPUTimes[i] = cpuTime;
+                        measurements.add(new Measurement(
+                                prefixes[i] + "evaluation time ("
+                                + (preciseCPUTiming ? "cpu "
+                                : "") + "seconds)",
+                                time));
+                        measurements.add(new Measurement(
+                                prefixes[i] + "model cost (RAM-Hours)",
+                                RAMHours[i]));
+                        List<Measurement> learnerMeasurements = new ArrayList<Measurement>();
+                        learnerMeasurements.addAll(Arrays.asList(evaluators[i].getPerformanceMeasurements()));
+                        learnerMeasurements.addAll(Arrays.asList(learners[i].getModelMeasurements()));
+                        for (Measurement measurement : learnerMeasurements) {
+                            measurements.add(new Measurement(
+                                    prefixes[i] + measurement.getName(),
+                                    measurement.getValue()));
+                        }
+                    }
+                    learningCurve.insertEntry(new LearningEvaluation(
+                            measurements.toArray(new Measurement[measurements.size()])));
+
+                    if (immediateResultStream != null) {
+                        if (firstDump) {
+                            immediateResultStream.println(learningCurve.headerToString());
+                            firstDump = false;
+                        }
+                        immediateResultStream.println(learningCurve.entryToString(learningCurve.numEntries() - 1));
+                        immediateResultStream.flush();
+                    }
+                }
+                if (instancesProcessed % INSTANCES_BETWEEN_MONITOR_UPDATES == 0) {
+                    if (monitor.taskShouldAbort()) {
+                        return null;
+                    }
+                    long estimatedRemainingInstances = stream.estimatedRemainingInstances();
+                    if (maxInstances > 0) {
+                        long maxRemaining = maxInstances - instancesProcessed;
+                        if ((estimatedRemainingInstances < 0)
+                                || (maxRemaining < estimatedRemainingInstances)) {
+                            estimatedRemainingInstances = maxRemaining;
+                        }
+                    }
+                    monitor.setCurrentActivityFractionComplete(estimatedRemainingInstances < 0 ? -1.0
+                            : (double) instancesProcessed
+                            / (double) (instancesProcessed + estimatedRemainingInstances));
+                    if (monitor.resultPreviewRequested()) {
+                        monitor.setLatestResultPreview(learningCurve.copy());
+                    }
+                    // The time of the learners is only known up to the last flush.
+                    secondsElapsed = (int) TimingUtils.nanoTimeToSeconds(TimingUtils.getNanoCPUTimeOfCurrentThread()
+                            - evaluateStartTime - jobs.getFlushCPUTime() + jobs.getCPUTime());
+                }
+            }
+        } finally {
+            if (immediateResultStream != null) {
+                immediateResultStream.close();
+            }
+        }
+        return learningCurve;
+    }
+
+    protected Object materialize(ClassOption option, TaskMonitor monitor, ObjectRepository repository) {
+        Object object = option.materializeObject(monitor, repository);
+        if (object instanceof OptionHandler) {
+            ((OptionHandler) object).prepareForUse(monitor, repository);
+        }
+        return object;
+    }
+}
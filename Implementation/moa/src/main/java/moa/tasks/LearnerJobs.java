@@ -0,0 +1,152 @@
+/*
+ *    LearnerJobs.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import moa.core.Parallelism;
+import moa.core.TimingUtils;
+
+/**
+ * Fans the instances of a stream out to several learners, which test and
+ * train on them on jobs of the shared pool.
+ *
+ * <p>Instances are buffered, and each full buffer is handed to one task per
+ * learner, which processes its instances in the order of the stream. So every
+ * learner sees the same instances in the same order whatever the number of
+ * jobs, and lags behind the stream by at most the size of the buffer.
+ * flush() processes the buffer at once, e.g. before reading the learners'
+ * measurements.</p>
+ *
+ * @param <T> the type of the items handed to the learners
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class LearnerJobs<T> {
+
+    /**
+     * Tests and trains one learner on one item.
+     */
+    public interface Step<T> {
+
+        void process(int learner, T item);
+    }
+
+    protected final int numberOfJobs;
+
+    protected final int bufferSize;
+
+    protected final List<T> buffer;
+
+    protected final List<Callable<Void>> tasks;
+
+    protected final long[] cpuTimes;
+
+    protected long flushCPUTime;
+
+    /**
+     * @param numLearners the number of learners
+     * @param numberOfJobs the maximum number of learners processing at once
+     * @param bufferSize the number of instances buffered before the learners
+     * process them
+     * @param step the processing of an item by a learner
+     */
+    public LearnerJobs(int numLearners, int numberOfJobs, int bufferSize, Step<T> step) {
+        this.numberOfJobs = numberOfJobs;
+        this.bufferSize = bufferSize;
+        this.buffer = new ArrayList<T>(bufferSize);
+        this.cpuTimes = new long[numLearners];
+        this.tasks = new ArrayList<Callable<Void>>(numLearners);
+        for (int i = 0; i < numLearners; i++) {
+            final int learner = i;
+            this.tasks.add(() -> {
+                long startTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+                for (T item : this.buffer) {
+                    step.process(learner, item);
+                }
+                this.cpuTimes[learner] += TimingUtils.getNanoCPUTimeOfCurrentThread() - startTime;
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Adds an item, processing the buffer if it is full.
+     *
+     * @param item the item
+     * @throws RuntimeException if a learner failed to process the buffer
+     */
+    public void add(T item) {
+        this.buffer.add(item);
+        if (this.buffer.size() >= this.bufferSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Processes the buffered items with every learner, and returns when all
+     * are done.
+     *
+     * @throws RuntimeException if a learner failed to process the buffer
+     */
+    public void flush() {
+        if (this.buffer.isEmpty()) {
+            return;
+        }
+        long startTime = TimingUtils.getNanoCPUTimeOfCurrentThread();
+        try {
+            Parallelism.invokeAll(this.tasks, this.numberOfJobs);
+        } finally {
+            this.buffer.clear();
+            this.flushCPUTime += TimingUtils.getNanoCPUTimeOfCurrentThread() - startTime;
+        }
+    }
+
+    /**
+     * @param learner the index of a learner
+     * @return the CPU time the learner has spent processing items, up to the
+     * last flush
+     */
+    public long getCPUTime(int learner) {
+        return this.cpuTimes[learner];
+    }
+
+    /**
+     * @return the CPU time all the learners have spent processing items, up to
+     * the last flush
+     */
+    public long getCPUTime() {
+        long cpuTime = 0;
+        for (long learnerTime : this.cpuTimes) {
+            cpuTime += learnerTime;
+        }
+        return cpuTime;
+    }
+
+    /**
+     * @return the CPU time of the calling thread inside flush(), part of
+     * which is also in getCPUTime() when it runs a job itself
+     */
+    public long getFlushCPUTime() {
+        return this.flushCPUTime;
+    }
+}
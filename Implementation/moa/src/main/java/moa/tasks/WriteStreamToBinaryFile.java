@@ -0,0 +1,186 @@
+/*
+ *    WriteStreamToBinaryFile.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.tasks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.Deflater;
+
+import moa.core.ObjectRepository;
+import moa.options.ClassOption;
+import moa.streams.BinaryFileStream;
+import moa.streams.InstanceStream;
+import com.github.javacliparser.FileOption;
+import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.IntOption;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+/**
+ * Task to output a stream to a binary file that BinaryFileStream replays.
+ * The values are kept bit for bit, so every replay sees the same instances
+ * without parsing any text. See BinaryFileStream for the format.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class WriteStreamToBinaryFile extends AuxiliarMainTask {
+
+    @Override
+    public String getPurposeString() {
+        return "Outputs a stream to a binary file.";
+    }
+
+    private static final long serialVersionUID = 1L;
+
+    public ClassOption streamOption = new ClassOption("stream", 's',
+            "Stream to write.", InstanceStream.class,
+            "generators.RandomTreeGenerator");
+
+    public FileOption binaryFileOption = new FileOption("binaryFile", 'f',
+            "Destination binary file.", null, "bin", true);
+
+    public IntOption maxInstancesOption = new IntOption("maxInstances", 'm',
+            "Maximum number of instances to write to file.", 10000000, 0,
+            Integer.MAX_VALUE);
+
+    public IntOption chunkSizeOption = new IntOption("chunkSize", 'c',
+            "Number of instances stored together column by column.", 4096, 1,
+            Integer.MAX_VALUE);
+
+    public FlagOption compressOption = new FlagOption("compress", 'z',
+            "Deflate the chunks that get smaller by it.");
+
+    protected transient OutputStream out;
+
+    protected long bytesWritten;
+
+    protected transient Deflater deflater;
+
+    @Override
+    protected Object doMainTask(TaskMonitor monitor, ObjectRepository repository) {
+        InstanceStream stream = (InstanceStream) getPreparedClassOption(this.streamOption);
+        File destFile = this.binaryFileOption.getFile();
+        if (destFile != null) {
+            try {
+                this.out = new BufferedOutputStream(new FileOutputStream(destFile), 1 << 16);
+                this.bytesWritten = 0;
+                this.deflater = this.compressOption.isSet() ? new Deflater() : null;
+                monitor.setCurrentActivityDescription("Writing stream to binary file");
+                InstancesHeader header = stream.getHeader();
+                int numAttributes = header.numAttributes();
+                int chunkSize = (int) Math.min(this.chunkSizeOption.getValue(),
+                        Math.max(1, Integer.MAX_VALUE / 8 / (numAttributes + 1)));
+                double[][] columns = new double[numAttributes][chunkSize];
+                double[] weights = new double[chunkSize];
+                this.write(ByteBuffer.wrap(BinaryFileStream.MAGIC));
+                int numWritten = 0;
+                int rows = 0;
+                while ((numWritten < this.maxInstancesOption.getValue())
+                        && stream.hasMoreInstances()) {
+                    Instance instance = stream.nextInstance().getData();
+                    for (int i = 0; i < numAttributes; i++) {
+                        columns[i][rows] = instance.value(i);
+                    }
+                    weights[rows] = instance.weight();
+                    if (++rows == chunkSize) {
+                        this.writeChunk(columns, weights, rows);
+                        rows = 0;
+                    }
+                    numWritten++;
+                }
+                if (rows > 0) {
+                    this.writeChunk(columns, weights, rows);
+                }
+                // The header goes last, read again for any labels the stream added.
+                header = stream.getHeader();
+                long footerOffset = this.bytesWritten;
+                byte[] headerText = header.toString().getBytes(BinaryFileStream.HEADER_CHARSET);
+                ByteBuffer footer = ByteBuffer.allocate(4 + headerText.length + 4 + 8
+                        + BinaryFileStream.TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                footer.putInt(headerText.length).put(headerText);
+                footer.putInt(header.classIndex()).putLong(numWritten);
+                footer.putLong(footerOffset).put(BinaryFileStream.MAGIC);
+                this.write(footer);
+                this.out.close();
+                if (this.deflater != null) {
+                    this.deflater.end();
+                }
+            } catch (Exception ex) {
+                throw new RuntimeException(
+                        "Failed writing to file " + destFile, ex);
+            }
+            return "Stream written to binary file " + destFile;
+        }
+        throw new IllegalArgumentException("No destination file to write to.");
+    }
+
+    protected void writeChunk(double[][] columns, double[] weights, int rows) throws IOException {
+        boolean weighted = false;
+        for (int j = 0; j < rows && !weighted; j++) {
+            weighted = weights[j] != 1.0;
+        }
+        int numBlocks = columns.length + (weighted ? 1 : 0);
+        ByteBuffer data = ByteBuffer.allocate(8 * rows * numBlocks).order(ByteOrder.LITTLE_ENDIAN);
+        for (double[] column : columns) {
+            data.asDoubleBuffer().put(column, 0, rows);
+            ((Buffer) data).position(data.position() + 8 * rows);
+        }
+        if (weighted) {
+            data.asDoubleBuffer().put(weights, 0, rows);
+        }
+        byte[] bytes = data.array();
+        int length = bytes.length;
+        int flags = weighted ? BinaryFileStream.CHUNK_WEIGHTED : 0;
+        if (this.deflater != null) {
+            byte[] deflated = new byte[bytes.length];
+            this.deflater.reset();
+            this.deflater.setInput(bytes);
+            this.deflater.finish();
+            int deflatedLength = this.deflater.deflate(deflated);
+            if (this.deflater.finished() && deflatedLength < bytes.length) {
+                bytes = deflated;
+                length = deflatedLength;
+                flags |= BinaryFileStream.CHUNK_DEFLATED;
+            }
+        }
+        ByteBuffer chunkHeader = ByteBuffer.allocate(BinaryFileStream.CHUNK_HEADER_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        chunkHeader.putInt(rows).putInt(flags).putInt(length);
+        this.write(chunkHeader);
+        this.out.write(bytes, 0, length);
+        this.bytesWritten += length;
+    }
+
+    protected void write(ByteBuffer buffer) throws IOException {
+        this.out.write(buffer.array(), 0, buffer.capacity());
+        this.bytesWritten += buffer.capacity();
+    }
+
+    @Override
+    public Class<?> getTaskResultType() {
+        return String.class;
+    }
+}
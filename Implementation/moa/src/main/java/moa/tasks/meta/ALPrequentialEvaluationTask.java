@@ -30,6 +30,7 @@ import com.github.javacliparser.FileOption;
 import com.github.javacliparser.IntOption;
 import com.yahoo.labs.samoa.instances.Instance;
 
+import moa.AbstractMOAObject;
 import moa.classifiers.active.ALClassifier;
 import moa.core.Example;
 import moa.core.Measurement;
@@ -196,7 +197,7 @@ public class ALPrequentialEvaluationTask extends ALMainTask {
                 double timeIncrement = TimingUtils.nanoTimeToSeconds(
                 		evaluateTime - lastEvaluateStartTime);
                 double RAMHoursIncrement = 
-                		learner.measureByteSize() / (1024.0 * 1024.0 * 1024.0); //GBs
+                		AbstractMOAObject.accountedByteSize(learner) / (1024.0 * 1024.0 * 1024.0); //GBs
                 RAMHoursIncrement *= (timeIncrement / 3600.0); //Hours
                 RAMHours += RAMHoursIncrement;
                 lastEvaluateStartTime = evaluateTime;
@@ -0,0 +1,78 @@
+package com.yahoo.labs.samoa.instances;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that FastArffLoader reads the same instances as ArffLoader.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class FastArffLoaderTest {
+
+    protected void assertSameInstances(String resource, int classAttribute) throws Exception {
+        String path = ClassLoader.getSystemResource(resource).getPath();
+        Instances instances = new Instances(new BufferedReader(new InputStreamReader(
+                new FileInputStream(path))), 1, classAttribute);
+        FastArffLoader loader = new FastArffLoader(new File(path), classAttribute);
+        Instances dataset = loader.getDataset();
+        assertEquals(instances.numAttributes(), dataset.numAttributes());
+        assertEquals(instances.classIndex(), dataset.classIndex());
+        double[] row = new double[dataset.numAttributes()];
+        FastArffLoader rowLoader = new FastArffLoader(new File(path), classAttribute);
+        while (instances.readInstance(null)) {
+            Instance expected = instances.instance(0);
+            instances.delete();
+            Instance actual = loader.readInstance();
+            assertNotNull(actual);
+            assertTrue(rowLoader.readRow(row));
+            for (int i = 0; i < expected.numAttributes(); i++) {
+                assertEquals(expected.value(i), actual.value(i), 0.0);
+                assertEquals(expected.value(i), row[i], 0.0);
+            }
+        }
+        assertNull(loader.readInstance());
+        assertFalse(rowLoader.readRow(row));
+        loader.close();
+        rowLoader.close();
+    }
+
+    @Test
+    public void testSameInstancesAsArffLoader() throws Exception {
+        assertSameInstances("moa/classifiers/data/small_classification.arff", -1);
+        assertSameInstances("moa/classifiers/data/small_regression.arff", 4);
+        assertSameInstances("moa/classifiers/data/regression.arff", -1);
+    }
+
+    @Test
+    public void testParseNumber() {
+        String[] numbers = {"0", "-0", "+1", "1.", ".5", "00012.3400", "1e3", "1E-3", "-2.5e+10",
+            "123456789012345678", "1234567890123456789", "9007199254740993", "0.1", "1e22", "1e23",
+            "4.9e-324", "1.7976931348623157E308", "1e400", "NaN", "-Infinity", "1.5f", "0x1p3"};
+        for (String number : numbers) {
+            assertParsed(number);
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            double value = random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+            assertParsed(Double.toString(value));
+            assertParsed(String.format(Locale.ROOT, "%." + random.nextInt(18) + "f", value));
+        }
+    }
+
+    protected void assertParsed(String number) {
+        byte[] bytes = ("," + number + ",").getBytes(Charset.forName("ISO-8859-1"));
+        double value = FastArffLoader.parseNumber(bytes, 1, bytes.length - 1);
+        assertEquals(number, Double.doubleToLongBits(Double.parseDouble(number)),
+                Double.doubleToLongBits(value));
+    }
+}
@@ -66,7 +66,7 @@ public abstract class AbstractMultipleClassifierTestCase
     protected void setUp() throws Exception {
         super.setUp();
 
-        m_TestHelper.copyResourceToTmp("classification.arff");
+        m_TestHelper.copyResourceToTmp(getRegressionInputFile());
     }
 
     /**
@@ -76,11 +76,21 @@ public abstract class AbstractMultipleClassifierTestCase
      */
     @Override
     protected void tearDown() throws Exception {
-        m_TestHelper.deleteFileFromTmp("classification.arff");
+        m_TestHelper.deleteFileFromTmp(getRegressionInputFile());
 
         super.tearDown();
     }
 
+    /**
+     * Returns the filename (without path) of the input data file that every
+     * test reads.
+     *
+     * @return	the filename
+     */
+    protected String getRegressionInputFile() {
+        return "classification.arff";
+    }
+
     /**
      * Returns the filenames (without path) of the input data files to use in
      * the regression test.
@@ -89,7 +99,7 @@ public abstract class AbstractMultipleClassifierTestCase
      */
     @Override
     protected String[] getRegressionInputFiles() {
-        String value = "classification.arff";
+        String value = getRegressionInputFile();
         String[] ret = new String[this.numberTests];
         for (int i = 0; i < this.numberTests; i++) {
             ret[i] = value;
@@ -0,0 +1,44 @@
+package moa.classifiers.core.diversitytest;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DiversityIndexTest {
+	private static double EPS = 0.00000001;
+
+	@Test
+	public void testAddToTable() {
+		Random random = new Random(7);
+		for (int numInstances : new int[] {1, 63, 64, 65, 200}) {
+			long[] a = new long[(numInstances + 63) >>> 6];
+			long[] b = new long[a.length];
+			int[] counts = new int[numInstances];
+			double[] expected = new double[4];
+			for (int j = 0; j < numInstances; ++j) {
+				boolean aCorrect = random.nextBoolean();
+				boolean bCorrect = random.nextBoolean();
+				if (aCorrect) {
+					a[j >>> 6] |= 1L << j;
+				}
+				if (bCorrect) {
+					b[j >>> 6] |= 1L << j;
+				}
+				counts[j] = 2 + random.nextInt(3);
+				expected[aCorrect ? (bCorrect ? 0 : 1) : (bCorrect ? 2 : 3)] += counts[j];
+			}
+
+			double[] table = new double[4];
+			DiversityIndex.addToTable(a, b, counts, table);
+			assertArrayEquals(expected, table, EPS);
+		}
+	}
+
+	@Test
+	public void testQScore() {
+		assertEquals((6.0 * 4 - 1 * 2) / (6.0 * 4 + 1 * 2), DiversityIndex.getQScore(new double[] {6, 2, 1, 4}), EPS);
+		assertTrue(Double.isNaN(DiversityIndex.getQScore(new double[] {5, 0, 0, 0})));
+	}
+}
@@ -0,0 +1,184 @@
+package moa.classifiers.core.diversitytest;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.classifiers.AbstractClassifier;
+import moa.classifiers.Classifier;
+import moa.classifiers.lazy.kNN;
+import moa.core.Measurement;
+import moa.core.Parallelism;
+
+public class PredictionMatrixTest {
+
+	@Test
+	public void testCounts() {
+		// Wider than one word, so the counts cross a word boundary.
+		PredictionMatrix matrix = new PredictionMatrix(2, 130);
+		for (int j = 0; j < 130; j += 2) {
+			matrix.set(0, j, true);
+		}
+		for (int j = 0; j < 130; j += 3) {
+			matrix.set(1, j, true);
+		}
+		matrix.set(1, 129, true);
+		matrix.set(1, 129, false);
+
+		assertTrue(matrix.get(0, 128));
+		assertFalse(matrix.get(0, 129));
+		assertFalse(matrix.get(1, 129));
+		assertEquals(65, matrix.countCorrect(0));
+		assertEquals(43, matrix.countCorrect(1));
+		assertEquals(22, matrix.countBothCorrect(0, 1));
+		assertEquals(65 + 43 - 2 * 22, matrix.hammingDistance(0, 1));
+		assertEquals(1.0, matrix.getRowAsDoubles(0)[128], 0.0);
+	}
+
+	@Test
+	public void testKMeans() {
+		PredictionMatrix matrix = new PredictionMatrix(6, 80);
+		for (int i = 0; i < 6; ++i) {
+			// Rows 0-2 are right on the first half, rows 3-5 on the second half.
+			int from = i < 3 ? 0 : 40;
+			for (int j = from; j < from + 40; ++j) {
+				matrix.set(i, j, j != from + i);
+			}
+		}
+
+		int[] labels = matrix.kMeans(2, new Random(1), 100);
+		assertEquals(labels[0], labels[1]);
+		assertEquals(labels[0], labels[2]);
+		assertEquals(labels[3], labels[4]);
+		assertEquals(labels[3], labels[5]);
+		assertTrue(labels[0] != labels[3]);
+
+		assertArrayEquals(new int[6], matrix.kMeans(1, new Random(1), 100));
+	}
+
+	/*
+	 * A member predicting with a model it may share with other members, which
+	 * notes whether the model was ever asked by two threads at once.
+	 */
+	private static class Member extends AbstractClassifier {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Classifier model;
+
+		private final AtomicInteger predicting;
+
+		private final AtomicBoolean overlapped;
+
+		Member(Classifier model, AtomicInteger predicting, AtomicBoolean overlapped) {
+			this.model = model;
+			this.predicting = predicting;
+			this.overlapped = overlapped;
+		}
+
+		@Override
+		public double[] getVotesForInstance(Instance inst) {
+			if (this.predicting.incrementAndGet() > 1) {
+				this.overlapped.set(true);
+			}
+			try {
+				return this.model.getVotesForInstance(inst);
+			} finally {
+				this.predicting.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void resetLearningImpl() {
+		}
+
+		@Override
+		public void trainOnInstanceImpl(Instance inst) {
+		}
+
+		@Override
+		protected Measurement[] getModelMeasurementsImpl() {
+			return null;
+		}
+
+		@Override
+		public void getModelDescription(StringBuilder out, int indent) {
+		}
+
+		@Override
+		public boolean isRandomizable() {
+			return false;
+		}
+	}
+
+	private static Instance instance(Instances header, Random random) {
+		double[] values = new double[header.numAttributes()];
+		values[0] = random.nextDouble();
+		values[1] = random.nextDouble();
+		values[2] = values[0] + 0.2 * random.nextGaussian() > values[1] ? 1 : 0;
+		Instance inst = new DenseInstance(1.0, values);
+		inst.setDataset(header);
+		return inst;
+	}
+
+	@Test
+	public void testBuildOnJobs() {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("x0"));
+		attributes.add(new Attribute("x1"));
+		attributes.add(new Attribute("class", Arrays.asList("a", "b")));
+		Instances header = new Instances("test", attributes, 0);
+		header.setClassIndex(2);
+		Random random = new Random(1);
+
+		// Eight members over three kNN models, whose searches keep state while predicting.
+		AtomicBoolean overlapped = new AtomicBoolean();
+		List<Member> members = new ArrayList<Member>();
+		for (int m = 0; m < 3; ++m) {
+			kNN model = new kNN();
+			model.nearestNeighbourSearchOption.setChosenIndex(1);
+			model.prepareForUse();
+			model.setModelContext(new InstancesHeader(header));
+			for (int i = 0; i < 200 * (m + 1); ++i) {
+				model.trainOnInstance(instance(header, random));
+			}
+			AtomicInteger predicting = new AtomicInteger();
+			for (int j = m; j < 8; j += 3) {
+				members.add(new Member(model, predicting, overlapped));
+			}
+		}
+		List<Instance> chunk = new ArrayList<Instance>();
+		for (int j = 0; j < 300; ++j) {
+			chunk.add(instance(header, random));
+		}
+
+		int parallelism = Parallelism.getParallelism();
+		Parallelism.setParallelism(4);
+		try {
+			PredictionMatrix sequential = PredictionMatrix.build(members, chunk, 1, member -> member.model);
+			PredictionMatrix parallel = PredictionMatrix.build(members, chunk, 4, member -> member.model);
+			assertFalse(overlapped.get());
+			for (int i = 0; i < members.size(); ++i) {
+				for (int j = 0; j < chunk.size(); ++j) {
+					assertEquals(members.get(i).correctlyClassifies(chunk.get(j)), sequential.get(i, j));
+					assertEquals(sequential.get(i, j), parallel.get(i, j));
+				}
+			}
+		} finally {
+			Parallelism.setParallelism(parallelism);
+		}
+	}
+}
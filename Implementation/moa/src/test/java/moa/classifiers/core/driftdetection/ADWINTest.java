@@ -0,0 +1,136 @@
+/*
+ *    ADWINTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.driftdetection;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ADWINTest {
+
+	protected double[] stream(int length, int changeAt) {
+		Random random = new Random(1);
+		double[] values = new double[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = random.nextDouble() < (i < changeAt ? 0.2 : 0.8) ? 1.0 : 0.0;
+		}
+		return values;
+	}
+
+	protected ADWIN assertDetections(boolean bernoulli, int[] expected) {
+		Random random = new Random(1);
+		double[] means = {0.2, 0.8, 0.5, 0.3};
+		ADWIN adwin = new ADWIN();
+		int[] detections = new int[expected.length];
+		int numDetections = 0;
+		for (int i = 0; i < 10000; i++) {
+			double mean = means[i / 2500];
+			double value = bernoulli ? (random.nextDouble() < mean ? 1.0 : 0.0)
+					: mean + random.nextGaussian() * 0.1;
+			if (adwin.setInput(value)) {
+				assertTrue("detection at " + i, numDetections < expected.length);
+				detections[numDetections++] = i;
+			}
+		}
+		assertArrayEquals(expected, detections);
+		assertEquals(expected.length, adwin.getNumberDetections());
+		return adwin;
+	}
+
+	/*
+	 * The expected values are those of the ADWIN that kept its buckets in a
+	 * linked list of rows, on the same seeded streams.
+	 */
+	@Test
+	public void testSameAsListADWINOnBernoulli() {
+		ADWIN adwin = assertDetections(true,
+				new int[] {2527, 2559, 2591, 5087, 5119, 5183, 5695, 7711, 7743, 7775, 7839, 7935, 9631});
+		assertEquals(2416, adwin.getWidth());
+		assertEquals(722.0, adwin.getTotal(), 0.0);
+		assertEquals(0.20953508069821453, adwin.getVariance(), 0.0);
+		assertEquals(0.298841059602649, adwin.getEstimation(), 0.0);
+	}
+
+	@Test
+	public void testSameAsListADWINOnGaussian() {
+		ADWIN adwin = assertDetections(false,
+				new int[] {2527, 2559, 2783, 5055, 5119, 7583, 7615, 7647, 7839});
+		assertEquals(2496, adwin.getWidth());
+		assertEquals(746.4860693829852, adwin.getTotal(), 0.0);
+		assertEquals(0.00968838902608779, adwin.getVariance(), 0.0);
+		assertEquals(0.299072944464337, adwin.getEstimation(), 0.0);
+	}
+
+	@Test
+	public void testWindowStatistics() {
+		ADWIN adwin = new ADWIN();
+		double total = 0;
+		for (int i = 0; i < 1000; i++) {
+			adwin.setInput(i % 4 == 0 ? 1.0 : 0.0);
+			total += i % 4 == 0 ? 1.0 : 0.0;
+		}
+		assertFalse(adwin.getChange());
+		assertEquals(1000, adwin.getWidth());
+		assertEquals(total, adwin.getTotal(), 1e-9);
+		assertEquals(0.25, adwin.getEstimation(), 1e-9);
+		assertEquals(0.1875, adwin.getVariance(), 1e-9);
+	}
+
+	@Test
+	public void testDetectsChange() {
+		ADWIN adwin = new ADWIN();
+		double[] values = stream(4000, 2000);
+		int firstDetection = -1;
+		for (int i = 0; i < values.length; i++) {
+			if (adwin.setInput(values[i]) && firstDetection < 0) {
+				firstDetection = i;
+			}
+		}
+		assertTrue(firstDetection >= 2000);
+		assertTrue(firstDetection < 2200);
+		assertTrue(adwin.getWidth() < 2100);
+		assertEquals(0.8, adwin.getEstimation(), 0.05);
+	}
+
+	@Test
+	public void testBatchedInput() {
+		ADWIN single = new ADWIN();
+		ADWIN batched = new ADWIN();
+		double[] values = stream(4000, 2000);
+		boolean changed = false;
+		for (int i = 0; i < values.length; i += 100) {
+			boolean batchChanged = false;
+			for (int j = i; j < i + 100; j++) {
+				batchChanged |= single.setInput(values[j]);
+			}
+			double[] batch = new double[100];
+			System.arraycopy(values, i, batch, 0, 100);
+			assertEquals(batchChanged, batched.setInput(batch));
+			assertEquals(single.getWidth(), batched.getWidth());
+			assertEquals(single.getEstimation(), batched.getEstimation(), 0.0);
+			assertEquals(single.getVariance(), batched.getVariance(), 0.0);
+			changed |= batchChanged;
+		}
+		assertTrue(changed);
+		assertEquals(single.getNumberDetections(), batched.getNumberDetections());
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ *    DetectorObservationTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.core.driftdetection;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import moa.core.Utils;
+
+/**
+ * Tests that each family of change detectors raises the same warnings and
+ * detections from input(DetectorObservation) as from the inputs it had before.
+ */
+public class DetectorObservationTest {
+
+	protected static final int LENGTH = 6000;
+
+	protected static final int CHANGE_AT = 3000;
+
+	protected Instance[] instances;
+
+	protected double[][] votes;
+
+	/**
+	 * Predictions on an imbalanced stream of 3 classes, mistaken on 10% of the
+	 * instances, and on 50% of the minority class after the change.
+	 */
+	public DetectorObservationTest() {
+		List<String> classes = Arrays.asList("a", "b", "c");
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("x"));
+		attributes.add(new Attribute("class", classes));
+		Instances data = new Instances("observations", attributes, 0);
+		data.setClassIndex(1);
+		InstancesHeader header = new InstancesHeader(data);
+
+		Random random = new Random(1);
+		this.instances = new Instance[LENGTH];
+		this.votes = new double[LENGTH][];
+		for (int n = 0; n < LENGTH; n++) {
+			double u = random.nextDouble();
+			int trueClass = u < 0.1 ? 0 : (u < 0.4 ? 1 : 2);
+			Instance inst = new DenseInstance(2);
+			inst.setDataset(header);
+			inst.setValue(0, random.nextDouble());
+			inst.setClassValue(trueClass);
+			this.instances[n] = inst;
+
+			double errorRate = n >= CHANGE_AT && trueClass == 0 ? 0.5 : 0.1;
+			int predicted = random.nextDouble() < errorRate ? (trueClass + 1 + random.nextInt(2)) % 3 : trueClass;
+			double[] classVotes = new double[3];
+			for (int c = 0; c < 3; c++) {
+				classVotes[c] = random.nextDouble() * 0.3;
+			}
+			classVotes[predicted] = 0.4 + random.nextDouble() * 0.6;
+			this.votes[n] = classVotes;
+		}
+	}
+
+	/**
+	 * Inputs one instance to a detector as it was before observations.
+	 */
+	protected interface DirectInput {
+
+		void input(ChangeDetector detector, DetectorObservation observation);
+	}
+
+	/**
+	 * Feeds the predictions to a detector, with input(DetectorObservation) or
+	 * with the direct input.
+	 *
+	 * @return for every instance, the change and warning flags and the estimation
+	 */
+	protected double[][] run(Supplier<ChangeDetector> factory, DirectInput direct) {
+		ChangeDetector detector = factory.get();
+		detector.prepareForUse();
+		DetectorObservation observation = new DetectorObservation();
+		double[][] results = new double[LENGTH][];
+		for (int n = 0; n < LENGTH; n++) {
+			observation.set(this.votes[n], this.instances[n]);
+			if (direct == null) {
+				detector.input(observation);
+			} else {
+				direct.input(detector, observation);
+			}
+			results[n] = new double[]{
+				detector.getChange() ? 1 : 0, detector.getWarningZone() ? 1 : 0, detector.getEstimation()};
+		}
+		return results;
+	}
+
+	/**
+	 * Checks that each detector agrees after every instance whether it is fed
+	 * with input(DetectorObservation) or with the direct input. The two runs
+	 * are one after the other, as HDDM_W_Test keeps its samples in static
+	 * fields.
+	 *
+	 * @return the number of detections
+	 */
+	protected int assertSameDetections(List<Supplier<ChangeDetector>> factories, DirectInput direct) {
+		int detections = 0;
+		for (Supplier<ChangeDetector> factory : factories) {
+			String name = factory.get().getClass().getSimpleName();
+			double[][] expected = run(factory, direct);
+			double[][] actual = run(factory, null);
+			for (int n = 0; n < LENGTH; n++) {
+				assertArrayEquals(name + " at " + n, expected[n], actual[n], 0.0);
+				detections += (int) actual[n][0];
+			}
+		}
+		return detections;
+	}
+
+	@Test
+	public void testValueDetectors() {
+		// Detectors of changes in the mean of any value, here the error.
+		List<Supplier<ChangeDetector>> detectors = Arrays.asList(
+				ADWINChangeDetector::new,
+				PageHinkleyDM::new,
+				CusumDM::new,
+				EWMAChartDM::new,
+				GeometricMovingAverageDM::new,
+				SEEDChangeDetector::new,
+				SeqDrift1ChangeDetector::new,
+				SeqDrift2ChangeDetector::new);
+		assertTrue(assertSameDetections(detectors,
+				(detector, observation) -> detector.input(observation.getError())) > 0);
+	}
+
+	@Test
+	public void testErrorDetectors() {
+		// Detectors of changes in the error rate, from whether each prediction was mistaken.
+		List<Supplier<ChangeDetector>> detectors = Arrays.asList(
+				DDM::new,
+				EDDM::new,
+				RDDM::new,
+				STEPD::new,
+				HDDM_A_Test::new,
+				HDDM_W_Test::new);
+		assertTrue(assertSameDetections(detectors,
+				(detector, observation) -> detector.input(
+						Utils.maxIndex(observation.getClassVotes()) == observation.getTrueClass() ? 0.0 : 1.0)) > 0);
+	}
+
+	@Test
+	public void testClassRecallDetectors() {
+		// Detectors of changes in the recalls of the classes, from the error and the true class.
+		List<Supplier<ChangeDetector>> detectors = Arrays.asList(
+				DDM_GMean::new,
+				DDM_OCI::new);
+		assertTrue(assertSameDetections(detectors,
+				(detector, observation) -> ((DDM_GMean) detector).input(
+						observation.getError(), observation.getInstance())) > 0);
+	}
+
+	@Test
+	public void testClassVotesDetectors() {
+		// Detectors of changes in AUCs and G-mean, from the class votes and the true class.
+		List<Supplier<ChangeDetector>> detectors = new ArrayList<Supplier<ChangeDetector>>();
+		for (int metric = 1; metric <= 4; metric++) {
+			final int chosenMetric = metric;
+			detectors.add(() -> {
+				PMAUC_EWAUC_WAUC_GMean_PH detector = new PMAUC_EWAUC_WAUC_GMean_PH();
+				detector.metricOption.setValue(chosenMetric);
+				return detector;
+			});
+		}
+		assertTrue(assertSameDetections(detectors,
+				(detector, observation) -> ((PMAUC_EWAUC_WAUC_GMean_PH) detector).input(
+						observation.getClassVotes(), observation.getInstance())) > 0);
+	}
+}
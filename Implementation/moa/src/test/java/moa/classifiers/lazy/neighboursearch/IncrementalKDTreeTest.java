@@ -0,0 +1,126 @@
+/*
+ *    IncrementalKDTreeTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.classifiers.lazy.neighboursearch;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+public class IncrementalKDTreeTest {
+
+  private static Instances header() {
+    List<Attribute> attributes = new ArrayList<Attribute>();
+    for (int i = 0; i < 4; i++) {
+      attributes.add(new Attribute("x" + i));
+    }
+    attributes.add(new Attribute("colour", Arrays.asList("red", "green", "blue")));
+    attributes.add(new Attribute("class", Arrays.asList("a", "b")));
+    Instances header = new Instances("test", attributes, 0);
+    header.setClassIndex(attributes.size() - 1);
+    return header;
+  }
+
+  private static Instance instance(Instances header, Random random, boolean isMissing) {
+    double[] values = new double[header.numAttributes()];
+    for (int i = 0; i < 4; i++) {
+      // Coarse values, so that many distances tie.
+      values[i] = random.nextInt(8) * (i + 1);
+    }
+    values[4] = random.nextInt(3);
+    values[5] = random.nextInt(2);
+    if (isMissing) {
+      values[random.nextInt(4)] = Double.NaN;
+    }
+    Instance inst = new DenseInstance(1.0, values);
+    inst.setDataset(header);
+    return inst;
+  }
+
+  private static int[] sorted(int[] slots) {
+    int[] copy = slots.clone();
+    Arrays.sort(copy);
+    return copy;
+  }
+
+  private static void testSameNeighbours(double missingRate) {
+    Instances header = header();
+    IncrementalLinearNNSearch linear = new IncrementalLinearNNSearch(header);
+    IncrementalKDTree tree = new IncrementalKDTree(header);
+    tree.setLeafSize(4);
+    Random random = new Random(1);
+    for (int t = 0; t < 3000; t++) {
+      Instance query = instance(header, random, random.nextDouble() < missingRate);
+      for (int k : new int[] {1, 5, 20}) {
+        assertArrayEquals(sorted(linear.kNearestNeighbours(query, k)),
+            sorted(tree.kNearestNeighbours(query, k)));
+      }
+      Instance inst = instance(header, random, random.nextDouble() < missingRate);
+      linear.add(inst);
+      tree.add(inst);
+      int size = linear.getStore().size();
+      if (random.nextDouble() < 0.1) {
+        boolean[] marked = new boolean[size];
+        for (int position = 0; position < size; position++) {
+          marked[position] = random.nextDouble() < 0.3;
+        }
+        linear.removeMarked(marked);
+        tree.removeMarked(marked);
+      } else if (size > 200) {
+        linear.removeOldest();
+        tree.removeOldest();
+      }
+    }
+  }
+
+  @Test
+  public void testSameNeighboursAsLinearSearch() {
+    testSameNeighbours(0);
+  }
+
+  @Test
+  public void testMissingValues() {
+    testSameNeighbours(0.02);
+  }
+
+  @Test
+  public void testDistance() {
+    Instances header = header();
+    InstanceStore store = new InstanceStore(header);
+    store.add(new double[] {0, 0, 0, 0, 0, 0});
+    int slot = store.add(new double[] {4, 2, 0, 0, 1, 1});
+    // Ranges 0..4 and 0..2 normalize both numeric differences to 1, and the
+    // colours differ.
+    assertEquals(3.0, store.squaredDistance(new double[] {0, 0, 0, 0, 0, 1}, slot), 0.0);
+    store.removeOldest();
+    assertEquals(1, store.size());
+    assertEquals(1.0, store.classValueAt(0), 0.0);
+    assertEquals(1L, store.arrivalAt(0));
+  }
+}
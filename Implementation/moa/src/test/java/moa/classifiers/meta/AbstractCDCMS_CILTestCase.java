@@ -0,0 +1,71 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * AbstractCDCMS_CILTestCase.java
+ * Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ */
+package moa.classifiers.meta;
+
+import moa.classifiers.AbstractMultipleClassifierTestCase;
+
+/**
+ * Ancestor of the regression tests of the CDCMS.CIL variants. They read a
+ * stream of 5000 instances from the random tree generator, which is shorter
+ * than the common classification data set.
+ *
+ * @author  Chun Wai Chiu (michaelchiucw@gmail.com)
+ * @version $Revision$
+ */
+public abstract class AbstractCDCMS_CILTestCase
+  extends AbstractMultipleClassifierTestCase {
+
+  /**
+   * Constructs the test case. Called by subclasses.
+   *
+   * @param name 	the name of the test
+   */
+  public AbstractCDCMS_CILTestCase(String name) {
+    super(name);
+    this.setNumberTests(1);
+  }
+
+  /**
+   * Returns the filename (without path) of the input data file that every
+   * test reads.
+   *
+   * @return		the filename
+   */
+  @Override
+  protected String getRegressionInputFile() {
+    return "cdcms_classification.arff";
+  }
+
+  /**
+   * Returns the index of the instances in the stream to inspect the
+   * performance/classification output of the classifiers.
+   *
+   * @return		the inspection indices
+   */
+  @Override
+  protected int[][] getRegressionInspectionPoints() {
+    int[] value = new int[]{500, 1000, 1500, 2000, 2500, 3000, 3500, 4000, 4500, 5000};
+    int[][] ret = new int[this.numberTests][value.length];
+    for (int i = 0; i < this.numberTests; i++) {
+      ret[i] = value.clone();
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,94 @@
+package moa.classifiers.meta;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.core.Parallelism;
+import moa.streams.ConceptDriftStream;
+
+/**
+ * Tests that the votes CDCMS.CIL caches per instance are those of the
+ * instance's current values.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class CDCMS_CILVotesTest {
+
+	protected static CDCMS_CIL newClassifier(ConceptDriftStream stream) {
+		return prepare(new CDCMS_CIL(), stream, 1);
+	}
+
+	protected static <C extends AbstractCDCMS_CIL> C prepare(C classifier, ConceptDriftStream stream, int numberOfJobs) {
+		// Native clustering of the repository, which does not depend on Weka.
+		classifier.nativeModelClustersOption.setValue(3);
+		classifier.numberOfJobsOption.setValue(numberOfJobs);
+		classifier.prepareForUse();
+		classifier.setModelContext(stream.getHeader());
+		return classifier;
+	}
+
+	protected static ConceptDriftStream newStream() {
+		ConceptDriftStream stream = new ConceptDriftStream();
+		stream.getOptions().setViaCLIString(
+				"-s generators.AgrawalGenerator -d (generators.AgrawalGenerator -f 2) -p 1500 -w 100");
+		stream.prepareForUse();
+		return stream;
+	}
+
+	@Test
+	public void testReusedInstance() {
+		ConceptDriftStream stream = newStream();
+		CDCMS_CIL reusing = newClassifier(stream);
+		CDCMS_CIL copying = newClassifier(stream);
+		Instance reused = null;
+		for (int n = 0; n < 3000; n++) {
+			Instance inst = (Instance) stream.nextInstance().getData();
+			// Some instances are not trained on, a stretch of them is only predicted.
+			boolean isTrained = n < 2000 || n >= 2200;
+			inst.setWeight(n % 7 == 3 ? 0.0 : 1.0);
+			if (reused == null) {
+				reused = inst.copy();
+			}
+			for (int i = 0; i < inst.numAttributes(); i++) {
+				reused.setValue(i, inst.value(i));
+			}
+			reused.setWeight(inst.weight());
+
+			assertArrayEquals("votes on instance " + n, copying.getVotesForInstance(inst),
+					reusing.getVotesForInstance(reused), 0.0);
+			if (isTrained) {
+				copying.trainOnInstance(inst);
+				reusing.trainOnInstance(reused);
+			}
+		}
+	}
+
+	@Test
+	public void testSameVotesOnJobs() {
+		int parallelism = Parallelism.getParallelism();
+		Parallelism.setParallelism(4);
+		try {
+			assertSameVotesOnJobs(new CDCMS_CIL(), new CDCMS_CIL());
+			assertSameVotesOnJobs(new CDCMS_CIL_GMean_OSUS(), new CDCMS_CIL_GMean_OSUS());
+		} finally {
+			Parallelism.setParallelism(parallelism);
+		}
+	}
+
+	protected static void assertSameVotesOnJobs(AbstractCDCMS_CIL single, AbstractCDCMS_CIL parallel) {
+		ConceptDriftStream stream = newStream();
+		prepare(single, stream, 1);
+		prepare(parallel, stream, 4);
+		assertTrue(parallel.isParallel());
+		for (int n = 0; n < 3000; n++) {
+			Instance inst = (Instance) stream.nextInstance().getData();
+			assertArrayEquals(single.getClass().getSimpleName() + " votes on instance " + n,
+					single.getVotesForInstance(inst), parallel.getVotesForInstance(inst), 0.0);
+			single.trainOnInstance(inst);
+			parallel.trainOnInstance(inst);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * CDCMS_CIL_GMean_OSUSTest.java
+ * Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ */
+package moa.classifiers.meta;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import moa.classifiers.Classifier;
+import static moa.test.MoaTestCase.runTest;
+
+/**
+ * Tests the CDCMS_CIL_GMean_OSUS classifier.
+ * 
+ * @author  Chun Wai Chiu (michaelchiucw@gmail.com)
+ * @version $Revision$
+ */
+public class CDCMS_CIL_GMean_OSUSTest
+  extends AbstractCDCMS_CILTestCase {
+
+  /**
+   * Constructs the test case. Called by subclasses.
+   *
+   * @param name 	the name of the test
+   */
+  public CDCMS_CIL_GMean_OSUSTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Returns the classifier setups to use in the regression test.
+   *
+   * @return		the setups
+   */
+  @Override
+  protected Classifier[] getRegressionClassifierSetups() {
+    return new Classifier[]{
+	new CDCMS_CIL_GMean_OSUS(),
+    };
+  }
+  
+  /**
+   * Returns a test suite.
+   *
+   * @return		the test suite
+   */
+  public static Test suite() {
+    return new TestSuite(CDCMS_CIL_GMean_OSUSTest.class);
+  }
+
+  /**
+   * Runs the test from commandline.
+   *
+   * @param args	ignored
+   */
+  public static void main(String[] args) {
+    runTest(suite());
+  }
+}
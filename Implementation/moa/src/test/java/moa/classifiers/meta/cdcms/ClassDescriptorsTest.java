@@ -0,0 +1,143 @@
+package moa.classifiers.meta.cdcms;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.classifiers.meta.CDCMS_CIL;
+import moa.cluster.Clustering;
+import moa.clusterers.Clusterer;
+import moa.clusterers.clustream.Clustream;
+import moa.core.Utils;
+import moa.streams.ConceptDriftStream;
+
+/**
+ * Tests the per-class descriptors against one clusterer per class trained
+ * directly, as the descriptors were kept before they supported any number of
+ * classes.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class ClassDescriptorsTest {
+
+	protected static final int NUM_CLASSES = 4;
+
+	protected static Clusterer newDescriptorType() {
+		Clustream clustream = new Clustream();
+		clustream.maxNumKernelsOption.setValue(10);
+		clustream.prepareForUse();
+		return clustream;
+	}
+
+	/**
+	 * The centres of the micro clusters, as read before getCentres().
+	 */
+	protected static double[][] copiedCentres(Clusterer clusterer) {
+		Clustering clustering = clusterer.getMicroClusteringResult();
+		double[][] centres = new double[clustering.size()][];
+		for (int i = 0; i < centres.length; i++) {
+			centres[i] = clustering.getClusteringCopy().get(i).getCenter();
+		}
+		return centres;
+	}
+
+	/**
+	 * Trains the descriptors and one directly trained clusterer per class on
+	 * the same instances, leaving class 1 unseen. As in CDCMS.CIL, one
+	 * instance is reused for every update.
+	 */
+	protected static Clusterer[] train(ClassDescriptors descriptors, Clusterer descriptorType, int length) {
+		Clusterer[] expected = new Clusterer[NUM_CLASSES];
+		for (int c = 0; c < NUM_CLASSES; c++) {
+			expected[c] = descriptorType.copy();
+			expected[c].resetLearning();
+		}
+		Random random = new Random(1);
+		double[] row = new double[3];
+		Instance inst = new DenseInstance(1d, row);
+		for (int n = 0; n < length; n++) {
+			int classIndex = new int[]{0, 2, 2, 3}[random.nextInt(4)];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = classIndex + random.nextGaussian();
+			}
+			descriptors.trainOnInstance(classIndex, NUM_CLASSES, inst, n);
+			expected[classIndex].trainOnInstance(inst);
+		}
+		return expected;
+	}
+
+	@Test
+	public void testSameAsOneClustererPerClass() {
+		Clusterer descriptorType = newDescriptorType();
+		ClassDescriptors descriptors = new ClassDescriptors(descriptorType);
+		assertEquals(0, descriptors.getNumberOfClasses());
+		assertEquals(0, descriptors.getNumberOfDescriptors(0));
+		assertEquals(0, descriptors.getCentres(0).length);
+
+		// Short of filling the buffer of class 3, then past it for every class.
+		for (int length : new int[]{20, 2000}) {
+			descriptors.resetLearning();
+			Clusterer[] expected = train(descriptors, descriptorType, length);
+			assertEquals(NUM_CLASSES, descriptors.getNumberOfClasses());
+			for (int c = 0; c < NUM_CLASSES; c++) {
+				double[][] expectedCentres = copiedCentres(expected[c]);
+				assertEquals("class " + c, expectedCentres.length, descriptors.getNumberOfDescriptors(c));
+				double[][] centres = descriptors.getCentres(c);
+				assertEquals("class " + c, expectedCentres.length, centres.length);
+				for (int i = 0; i < centres.length; i++) {
+					assertArrayEquals("class " + c + " centre " + i, expectedCentres[i], centres[i], 0.0);
+				}
+			}
+		}
+		assertEquals(0, descriptors.getNumberOfDescriptors(1));
+		assertEquals(10, descriptors.getNumberOfDescriptors(3));
+		// The descriptor type itself is only copied.
+		assertEquals(0, descriptorType.getMicroClusteringResult().size());
+	}
+
+	@Test
+	public void testStatesAndReset() {
+		ClassDescriptors descriptors = new ClassDescriptors(newDescriptorType());
+		Instance inst = new DenseInstance(1d, new double[]{1, 2, 3});
+		descriptors.trainOnInstance(2, NUM_CLASSES, inst, 5);
+		descriptors.trainOnInstance(0, NUM_CLASSES, inst, 6);
+		descriptors.trainOnInstance(2, NUM_CLASSES, inst, 7);
+		assertEquals(6, descriptors.getState(0));
+		assertEquals(7, descriptors.getState(2));
+		// Classes past the last one of the stream are unseen too.
+		assertEquals(0, descriptors.getNumberOfDescriptors(NUM_CLASSES));
+		assertEquals(0, descriptors.getCentres(NUM_CLASSES).length);
+
+		descriptors.resetLearning();
+		assertEquals(0, descriptors.getNumberOfClasses());
+		assertEquals(0, descriptors.getNumberOfDescriptors(2));
+	}
+
+	@Test
+	public void testMulticlassStream() {
+		// Two class descriptors were all there were, so a third class failed.
+		ConceptDriftStream stream = new ConceptDriftStream();
+		stream.getOptions().setViaCLIString("-s (generators.RandomRBFGenerator -c 3)"
+				+ " -d (generators.RandomRBFGenerator -c 3 -r 2) -p 1500 -w 100");
+		stream.prepareForUse();
+		CDCMS_CIL classifier = new CDCMS_CIL();
+		classifier.nativeModelClustersOption.setValue(3);
+		classifier.prepareForUse();
+		classifier.setModelContext(stream.getHeader());
+
+		int correct = 0;
+		for (int n = 0; n < 3000; n++) {
+			Instance inst = (Instance) stream.nextInstance().getData();
+			if (Utils.maxIndex(classifier.getVotesForInstance(inst)) == (int) inst.classValue()) {
+				correct++;
+			}
+			classifier.trainOnInstance(inst);
+		}
+		assertTrue(correct > 3000 / 3);
+	}
+}
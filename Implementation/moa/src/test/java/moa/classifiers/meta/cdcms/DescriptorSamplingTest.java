@@ -0,0 +1,160 @@
+package moa.classifiers.meta.cdcms;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the descriptor samplers against the coin flip sampling they replaced.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class DescriptorSamplingTest {
+
+	/**
+	 * Samples the centres as before DescriptorSampling.
+	 */
+	protected static int[] coinFlipSample(int numCentres, int target, boolean isUndersampling, Random random) {
+		List<Integer> currentSet = new ArrayList<Integer>(numCentres);
+		for (int i = 0; i < numCentres; ++i) {
+			currentSet.add(i);
+		}
+		List<Integer> targetSet = new ArrayList<Integer>(target);
+		int k = (int) Math.floor((target * 1d) / (numCentres * 1d));
+		if (!isUndersampling && k >= 1) {
+			for (int i = 0; i < k; ++i) {
+				targetSet.addAll(currentSet);
+			}
+		}
+		for (int i = 0; targetSet.size() < target; ++i) {
+			boolean isAdd = random.nextBoolean();
+			if (isAdd) {
+				targetSet.add(currentSet.get(i % currentSet.size()));
+			}
+		}
+		int[] picks = new int[targetSet.size()];
+		for (int i = 0; i < picks.length; ++i) {
+			picks[i] = targetSet.get(i);
+		}
+		return picks;
+	}
+
+	/**
+	 * Counts the centres sampled as before DescriptorSampling.
+	 */
+	protected static int[] coinFlipCounts(int numCentres, int target, boolean isUndersampling, Random random) {
+		int[] counts = new int[numCentres];
+		int k = (int) Math.floor((target * 1d) / (numCentres * 1d));
+		int sampleSize = 0;
+		if (!isUndersampling && k >= 1) {
+			Arrays.fill(counts, k);
+			sampleSize = k * numCentres;
+		}
+		for (int i = 0; sampleSize < target; ++i) {
+			boolean isAdd = random.nextBoolean();
+			if (isAdd) {
+				counts[i % numCentres]++;
+				sampleSize++;
+			}
+		}
+		return counts;
+	}
+
+	protected static int[] counts(int numCentres, int[] picks) {
+		int[] counts = new int[numCentres];
+		for (int pick : picks) {
+			counts[pick]++;
+		}
+		return counts;
+	}
+
+	@Test
+	public void testCoinFlipAsBefore() {
+		Random random = new Random(1);
+		for (int n = 0; n < 1000; n++) {
+			int numCentres = 1 + random.nextInt(20);
+			int target = random.nextInt(60);
+			boolean isUndersampling = random.nextBoolean();
+			long seed = random.nextLong();
+			String name = numCentres + " centres, target " + target;
+
+			Random expectedRandom = new Random(seed);
+			Random actualRandom = new Random(seed);
+			assertArrayEquals(name, coinFlipSample(numCentres, target, isUndersampling, expectedRandom),
+					DescriptorSampling.COIN_FLIP.sample(numCentres, target, isUndersampling, actualRandom));
+			assertArrayEquals(name, coinFlipCounts(numCentres, target, isUndersampling, expectedRandom),
+					DescriptorSampling.COIN_FLIP.sampleCounts(numCentres, target, isUndersampling, actualRandom));
+			// The random stream is left where it was, too.
+			assertEquals(name, expectedRandom.nextLong(), actualRandom.nextLong());
+		}
+	}
+
+	@Test
+	public void testCountsOfSample() {
+		Random random = new Random(2);
+		for (DescriptorSampling sampling : DescriptorSampling.values()) {
+			for (int n = 0; n < 1000; n++) {
+				int numCentres = 1 + random.nextInt(20);
+				int target = random.nextInt(60);
+				boolean isUndersampling = random.nextBoolean();
+				long seed = random.nextLong();
+				int[] picks = sampling.sample(numCentres, target, isUndersampling, new Random(seed));
+				assertEquals(target, picks.length);
+				assertArrayEquals(sampling + ", " + numCentres + " centres, target " + target, counts(numCentres, picks),
+						sampling.sampleCounts(numCentres, target, isUndersampling, new Random(seed)));
+			}
+		}
+	}
+
+	@Test
+	public void testWithoutReplacement() {
+		Random random = new Random(3);
+		for (int n = 0; n < 1000; n++) {
+			int numCentres = 1 + random.nextInt(20);
+			int target = random.nextInt(60);
+			boolean isUndersampling = random.nextBoolean();
+			String name = numCentres + " centres, target " + target;
+			int[] counts = DescriptorSampling.WITHOUT_REPLACEMENT.sampleCounts(
+					numCentres, target, isUndersampling, random);
+
+			// Whole copies of the centres, then each centre at most once more.
+			int k = target / numCentres;
+			int taken = 0;
+			for (int count : counts) {
+				assertTrue(name, count == k || count == k + 1);
+				taken += count - k;
+			}
+			assertEquals(name, target % numCentres, taken);
+		}
+
+		// Undersampling takes distinct centres, in ascending order.
+		int[] picks = DescriptorSampling.WITHOUT_REPLACEMENT.sample(10, 4, true, new Random(4));
+		for (int i = 1; i < picks.length; i++) {
+			assertTrue(picks[i - 1] < picks[i]);
+		}
+		assertArrayEquals(new int[]{0, 1, 2, 0, 1, 2, 0, 1, 2},
+				DescriptorSampling.WITHOUT_REPLACEMENT.sample(3, 9, true, new Random(4)));
+	}
+
+	@Test
+	public void testWithoutReplacementIsUniform() {
+		Random random = new Random(5);
+		int[] counts = new int[10];
+		int draws = 20000;
+		for (int n = 0; n < draws; n++) {
+			int[] picks = DescriptorSampling.WITHOUT_REPLACEMENT.sample(10, 3, true, random);
+			for (int pick : picks) {
+				counts[pick]++;
+			}
+		}
+		// Each centre is in 3 samples out of 10.
+		for (int count : counts) {
+			assertEquals(draws * 0.3, count, draws * 0.02);
+		}
+	}
+}
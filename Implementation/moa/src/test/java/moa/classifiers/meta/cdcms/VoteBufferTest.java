@@ -0,0 +1,89 @@
+package moa.classifiers.meta.cdcms;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import moa.core.DoubleVector;
+
+/**
+ * Tests the vote buffer against the DoubleVector sum it replaced.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class VoteBufferTest {
+
+	/**
+	 * Adds a vote to a sum as before the buffer.
+	 */
+	protected static boolean addNormalized(DoubleVector combinedVote, double[] v, double weight) {
+		DoubleVector vote = new DoubleVector(v);
+		if (vote.sumOfValues() > 0.0) {
+			vote.normalize();
+			vote.scaleValues(weight);
+			combinedVote.addValues(vote);
+			return true;
+		}
+		return false;
+	}
+
+	protected static double[] randomVote(Random random) {
+		double[] vote = new double[random.nextInt(5)];
+		for (int i = 0; i < vote.length; i++) {
+			switch (random.nextInt(6)) {
+			case 0:
+				vote[i] = 0.0;
+				break;
+			case 1:
+				vote[i] = -random.nextDouble();
+				break;
+			default:
+				vote[i] = random.nextDouble() * 10;
+			}
+		}
+		return vote;
+	}
+
+	@Test
+	public void testSameAsDoubleVector() {
+		Random random = new Random(1);
+		VoteBuffer buffer = new VoteBuffer();
+		// The buffer is reused for every sum, as for every instance.
+		for (int sum = 0; sum < 1000; sum++) {
+			buffer.clear();
+			DoubleVector expected = new DoubleVector();
+			int numVotes = random.nextInt(6);
+			for (int j = 0; j < numVotes; j++) {
+				double[] vote = randomVote(random);
+				double[] unchanged = vote.clone();
+				double weight = random.nextInt(4) == 0 ? 0.0 : random.nextDouble();
+				assertEquals(addNormalized(expected, vote, weight), buffer.addNormalized(vote, weight));
+				assertArrayEquals(unchanged, vote, 0.0);
+			}
+			assertArrayEquals("sum " + sum, expected.getArrayCopy(), buffer.getVotes(), 0.0);
+			assertArrayEquals("sum " + sum, expected.getArrayCopy(), buffer.toArray(), 0.0);
+		}
+	}
+
+	@Test
+	public void testVotesOfAllSigns() {
+		VoteBuffer buffer = new VoteBuffer();
+		assertFalse(buffer.addNormalized(new double[0], 1.0));
+		assertFalse(buffer.addNormalized(new double[]{0.0, 0.0}, 1.0));
+		assertFalse(buffer.addNormalized(new double[]{1.0, -2.0}, 1.0));
+		assertEquals(0, buffer.getVotes().length);
+
+		// Normalised by the sum of the absolute values, as DoubleVector does.
+		assertTrue(buffer.addNormalized(new double[]{3.0, -1.0}, 2.0));
+		assertTrue(buffer.addNormalized(new double[]{0.0, 0.0, 4.0}, 0.5));
+		assertArrayEquals(new double[]{1.5, -0.5, 0.5}, buffer.getVotes(), 0.0);
+
+		double[] copy = buffer.toArray();
+		buffer.clear();
+		assertArrayEquals(new double[]{1.5, -0.5, 0.5}, copy, 0.0);
+		assertTrue(buffer.addNormalized(new double[]{1.0}, 1.0));
+		assertArrayEquals(new double[]{1.0}, buffer.getVotes(), 0.0);
+	}
+}
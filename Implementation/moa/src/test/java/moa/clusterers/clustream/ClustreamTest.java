@@ -0,0 +1,80 @@
+package moa.clusterers.clustream;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.cluster.Clustering;
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+/**
+ * Tests that Clustream keeps the same kernels with and without cached distances,
+ * and that its centres are those of its micro clustering.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class ClustreamTest {
+
+    protected Clustream newClustream(int horizon, boolean cachedDistances) {
+        Clustream clustream = new Clustream();
+        clustream.timeWindowOption.setValue(horizon);
+        clustream.maxNumKernelsOption.setValue(20);
+        if (cachedDistances) {
+            clustream.cachedDistancesOption.set();
+        }
+        clustream.prepareForUse();
+        return clustream;
+    }
+
+    protected void assertSameKernels(int horizon) {
+        Clustream plain = newClustream(horizon, false);
+        Clustream cached = newClustream(horizon, true);
+        RandomRBFGeneratorDrift generator = new RandomRBFGeneratorDrift();
+        generator.speedChangeOption.setValue(0.01);
+        generator.prepareForUse();
+        for (int n = 0; n < 3000; n++) {
+            Instance inst = generator.nextInstance().getData();
+            plain.trainOnInstance(inst);
+            cached.trainOnInstance(inst);
+            double[][] expected = plain.getMicroClusterCentres();
+            double[][] actual = cached.getMicroClusterCentres();
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertArrayEquals(expected[i], actual[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testMerging() {
+        assertSameKernels(1000000);
+    }
+
+    @Test
+    public void testForgetting() {
+        assertSameKernels(50);
+    }
+
+    @Test
+    public void testMicroClusterCentres() {
+        Clustream clustream = newClustream(50, false);
+        RandomRBFGeneratorDrift generator = new RandomRBFGeneratorDrift();
+        generator.prepareForUse();
+        assertEquals(0, clustream.getMicroClusterCentres().length);
+        for (int n = 0; n < 1000; n++) {
+            clustream.trainOnInstance(generator.nextInstance().getData());
+            double[][] centres = clustream.getMicroClusterCentres();
+            // The copied micro clusters, which were read for their centres before.
+            Clustering clustering = clustream.getMicroClusteringResult();
+            assertEquals(clustering.size(), centres.length);
+            for (int i = 0; i < centres.length; i++) {
+                assertArrayEquals(clustering.get(i).getCenter(), centres[i], 0.0);
+            }
+            assertSame(centres, clustream.getMicroClusterCentres());
+        }
+        clustream.resetLearning();
+        assertEquals(0, clustream.getMicroClusterCentres().length);
+    }
+}
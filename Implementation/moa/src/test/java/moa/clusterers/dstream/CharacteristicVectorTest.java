@@ -0,0 +1,51 @@
+package moa.clusterers.dstream;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests that a density grid's density decays once over the time since its
+ * last record, however often the offline component updated it in between.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class CharacteristicVectorTest {
+
+    protected static final double LAMBDA = 0.9;
+
+    protected static final double DL = 0.1;
+
+    protected static final double DM = 10.0;
+
+    @Test
+    public void testDensityAfterPeriodicUpdate() {
+        CharacteristicVector cv = new CharacteristicVector(0, -1, 1.0, -1, false, DL, DM);
+        cv.updateGridDensity(10, LAMBDA, DL, DM);
+        assertEquals(Math.pow(LAMBDA, 10), cv.getGridDensity(), 1e-12);
+        // Decaying again from the last record at 0 would give LAMBDA^30.
+        assertEquals(Math.pow(LAMBDA, 20), cv.getCurrGridDensity(20, LAMBDA), 1e-12);
+    }
+
+    @Test
+    public void testNewRecordAfterPeriodicUpdate() {
+        CharacteristicVector cv = new CharacteristicVector(0, -1, 1.0, -1, false, DL, DM);
+        cv.updateGridDensity(10, LAMBDA, DL, DM);
+        cv.updateGridDensity(15, LAMBDA, DL, DM);
+        cv.densityWithNew(20, LAMBDA);
+        cv.setUpdateTime(20);
+        assertEquals(Math.pow(LAMBDA, 20) + 1.0, cv.getGridDensity(), 1e-12);
+        assertEquals(Math.pow(LAMBDA, 5) * (Math.pow(LAMBDA, 20) + 1.0),
+                cv.getCurrGridDensity(25, LAMBDA), 1e-12);
+    }
+
+    @Test
+    public void testDensityWithoutPeriodicUpdate() {
+        CharacteristicVector cv = new CharacteristicVector(0, -1, 1.0, -1, false, DL, DM);
+        cv.densityWithNew(4, LAMBDA);
+        cv.setUpdateTime(4);
+        assertEquals(Math.pow(LAMBDA, 4) + 1.0, cv.getGridDensity(), 1e-12);
+        assertEquals(Math.pow(LAMBDA, 6) * (Math.pow(LAMBDA, 4) + 1.0),
+                cv.getCurrGridDensity(10, LAMBDA), 1e-12);
+    }
+}
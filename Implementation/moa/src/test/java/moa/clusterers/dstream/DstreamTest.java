@@ -0,0 +1,94 @@
+package moa.clusterers.dstream;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import moa.streams.generators.RandomRBFGeneratorDrift;
+
+/**
+ * Tests that Dstream keeps the same grids and clusters when it decays the
+ * densities of the grids it does not inspect lazily as when it inspects and
+ * updates every grid at every call to the offline component.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class DstreamTest {
+
+    protected static final double SCALE = 10;
+
+    protected Dstream newDstream(boolean inspectEveryGrid) {
+        Dstream dstream = new Dstream();
+        if (inspectEveryGrid) {
+            dstream.inspectEveryGridOption.set();
+        }
+        dstream.prepareForUse();
+        return dstream;
+    }
+
+    protected int assertSameGrids(int numAtts, int numInstances) {
+        Dstream lazy = newDstream(false);
+        Dstream eager = newDstream(true);
+        RandomRBFGeneratorDrift generator = new RandomRBFGeneratorDrift();
+        generator.numAttsOption.setValue(numAtts);
+        generator.speedChangeOption.setValue(0.01);
+        generator.prepareForUse();
+        int maxClusters = 0;
+        for (int n = 1; n <= numInstances; n++) {
+            // Scaled up, as Dstream puts values with the same integer part in one grid.
+            Instance inst = generator.nextInstance().getData().copy();
+            for (int i = 0; i < numAtts; i++) {
+                inst.setValue(i, inst.value(i) * SCALE);
+            }
+            lazy.trainOnInstance(inst);
+            eager.trainOnInstance(inst);
+            if (n % 50 != 0) {
+                continue;
+            }
+
+            String at = numAtts + "-d, instance " + n;
+            GridIndex<CharacteristicVector> expected = eager.getGridList();
+            GridIndex<CharacteristicVector> actual = lazy.getGridList();
+            assertEquals(at, expected.size(), actual.size());
+            Map<Integer, Integer> labels = new HashMap<Integer, Integer>();
+            Map<Integer, Integer> inverseLabels = new HashMap<Integer, Integer>();
+            for (Map.Entry<DensityGrid, CharacteristicVector> grid : expected.entrySet()) {
+                String name = at + ", grid " + grid.getKey();
+                CharacteristicVector expectedCV = grid.getValue();
+                CharacteristicVector actualCV = actual.get(grid.getKey());
+                assertNotNull(name, actualCV);
+                assertEquals(name, expectedCV.getAttribute(), actualCV.getAttribute());
+                // Clusters may be numbered in another order, so only the grouping is compared.
+                Integer label = labels.putIfAbsent(expectedCV.getLabel(), actualCV.getLabel());
+                assertEquals(name, label == null ? actualCV.getLabel() : label.intValue(), actualCV.getLabel());
+                label = inverseLabels.putIfAbsent(actualCV.getLabel(), expectedCV.getLabel());
+                assertEquals(name, label == null ? expectedCV.getLabel() : label.intValue(), expectedCV.getLabel());
+                assertEquals(name, expectedCV.isSporadic(), actualCV.isSporadic());
+                assertEquals(name, expectedCV.getUpdateTime(), actualCV.getUpdateTime());
+                assertEquals(name, expectedCV.getRemoveTime(), actualCV.getRemoveTime());
+                // The lazy density is decayed in one step rather than pass by pass.
+                double expectedDensity = expectedCV.getCurrGridDensity(n, eager.getDecayFactor());
+                assertEquals(name, expectedDensity,
+                        actualCV.getCurrGridDensity(n, lazy.getDecayFactor()), expectedDensity * 1e-9);
+            }
+            assertEquals(at, eager.getClusteringResult().size(), lazy.getClusteringResult().size());
+            maxClusters = Math.max(maxClusters, lazy.getClusteringResult().size());
+        }
+        return maxClusters;
+    }
+
+    @Test
+    public void testTwoDimensions() {
+        assertTrue(assertSameGrids(2, 10000) > 1);
+    }
+
+    @Test
+    public void testThreeDimensions() {
+        assertTrue(assertSameGrids(3, 6000) > 1);
+    }
+}
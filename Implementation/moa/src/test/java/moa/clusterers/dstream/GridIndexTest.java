@@ -0,0 +1,67 @@
+package moa.clusterers.dstream;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that GridIndex behaves as a HashMap of density grids.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class GridIndexTest {
+
+    @Test
+    public void testSameAsHashMap() {
+        Random random = new Random(1);
+        GridIndex<Integer> index = new GridIndex<Integer>();
+        HashMap<DensityGrid, Integer> map = new HashMap<DensityGrid, Integer>();
+        for (int n = 0; n < 100000; n++) {
+            int[] coordinates = {random.nextInt(30), random.nextInt(30) - 15};
+            DensityGrid dg = new DensityGrid(coordinates);
+            int operation = random.nextInt(4);
+            if (operation < 2) {
+                assertEquals(map.put(dg, n), index.put(dg, n));
+            } else if (operation == 2) {
+                assertEquals(map.remove(dg), index.remove(dg));
+            } else {
+                assertEquals(map.get(dg), index.get(coordinates));
+                assertEquals(map.containsKey(dg), index.containsKey(dg));
+            }
+            assertEquals(map.size(), index.size());
+        }
+        HashMap<DensityGrid, Integer> entries = new HashMap<DensityGrid, Integer>();
+        for (Map.Entry<DensityGrid, Integer> entry : index.entrySet()) {
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(map, entries);
+    }
+
+    @Test
+    public void testRemoveIf() {
+        GridIndex<Integer> index = new GridIndex<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            index.put(new DensityGrid(new int[] {i, -i}), i);
+        }
+        assertEquals(500, index.removeIf(value -> value % 2 == 0));
+        assertEquals(500, index.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, index.containsKey(new DensityGrid(new int[] {i, -i})));
+        }
+    }
+
+    @Test
+    public void testKeepsGrid() {
+        GridIndex<Integer> index = new GridIndex<Integer>();
+        DensityGrid dg = new DensityGrid(new int[] {1, 2, 3});
+        index.put(dg, 1);
+        index.put(new DensityGrid(new int[] {1, 2, 3}), 2);
+        assertSame(dg, index.getGrid(new int[] {1, 2, 3}));
+        assertEquals(2, (int) index.get(dg));
+        assertNull(index.getGrid(new int[] {1, 2}));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *    ByteSizeAccountTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import moa.AbstractMOAObject;
+
+public class ByteSizeAccountTest {
+
+	private static class Part implements ByteSizeAccountable {
+		long byteSize;
+
+		Part(long byteSize) {
+			this.byteSize = byteSize;
+		}
+
+		@Override
+		public long accountedByteSize() {
+			return this.byteSize;
+		}
+	}
+
+	private static class AccountedObject extends AbstractMOAObject implements ByteSizeAccountable {
+		private static final long serialVersionUID = 1L;
+
+		int measured;
+
+		@Override
+		public int measureByteSize() {
+			this.measured++;
+			return 100;
+		}
+
+		@Override
+		public long accountedByteSize() {
+			return 42;
+		}
+
+		@Override
+		public void getDescription(StringBuilder sb, int indent) {
+		}
+	}
+
+	@Test
+	public void testAccountOnlyWhenAsked() {
+		AccountedObject accounted = new AccountedObject();
+		assertEquals(42, AbstractMOAObject.accountedByteSize(accounted));
+		assertEquals(0, accounted.measured);
+		// The exact size does not come from the account.
+		assertEquals(SizeOf.fullSizeOf(accounted), AbstractMOAObject.measureByteSize(accounted));
+
+		// Objects without an account are measured.
+		AbstractMOAObject plain = new AbstractMOAObject() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void getDescription(StringBuilder sb, int indent) {
+			}
+		};
+		assertEquals(plain.measureByteSize(), AbstractMOAObject.accountedByteSize(plain));
+	}
+
+	@Test
+	public void testPartsCountedOnce() {
+		ByteSizeAccount account = new ByteSizeAccount();
+		Part a = new Part(10);
+		Part b = new Part(20);
+		account.begin();
+		account.add(8);
+		account.add(a);
+		account.add(b);
+		account.add(a);
+		account.add(null);
+		assertFalse(account.add(b, 20));
+		assertEquals(38, account.end());
+	}
+
+	@Test
+	public void testPartsMeasuredInTurns() {
+		ByteSizeAccount account = new ByteSizeAccount(1);
+		Object[] parts = {new Object(), new Object(), new Object(), new Object()};
+		long[] sizes = {10, 20, 30, 40};
+		account.begin();
+		for (int i = 0; i < parts.length; i++) {
+			assertEquals(-1, account.getKnownSize(parts[i]));
+			account.add(parts[i], sizes[i]);
+		}
+		assertEquals(100, account.end());
+
+		int[] measured = new int[parts.length];
+		for (int total = 0; total < 2 * parts.length; total++) {
+			account.begin();
+			int measuredNow = 0;
+			for (int i = 0; i < parts.length; i++) {
+				long byteSize = account.getKnownSize(parts[i]);
+				if (byteSize < 0) {
+					measured[i]++;
+					measuredNow++;
+					sizes[i]++;
+					byteSize = sizes[i];
+				}
+				account.add(parts[i], byteSize);
+			}
+			assertEquals(1, measuredNow);
+			account.end();
+		}
+		for (int count : measured) {
+			assertEquals(2, count);
+		}
+
+		// A part left out of a total is measured again when it comes back.
+		account.begin();
+		account.add(parts[0], sizes[0]);
+		account.end();
+		account.begin();
+		assertEquals(-1, account.getKnownSize(parts[1]));
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ *    CopyOnWriteReferenceTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CopyOnWriteReferenceTest {
+	private static double EPS = 0.00000001;
+
+	@Test
+	public void testCopyOnWrite() {
+		CopyOnWriteReference<DoubleVector> a = new CopyOnWriteReference<DoubleVector>(new DoubleVector(new double[] {1, 2}));
+		CopyOnWriteReference<DoubleVector> b = a.share();
+		assertSame(a.get(), b.get());
+		assertTrue(a.isShared());
+
+		b.getForWrite().setValue(0, 5);
+		assertNotSame(a.get(), b.get());
+		assertEquals(1, a.get().getValue(0), EPS);
+		assertEquals(5, b.get().getValue(0), EPS);
+		assertFalse(a.isShared());
+		assertFalse(b.isShared());
+	}
+
+	@Test
+	public void testRelease() {
+		CopyOnWriteReference<DoubleVector> a = new CopyOnWriteReference<DoubleVector>(new DoubleVector(new double[] {1, 2}));
+		CopyOnWriteReference<DoubleVector> b = a.share();
+		DoubleVector shared = a.get();
+		b.release();
+		assertFalse(a.isShared());
+		assertSame(shared, a.getForWrite());
+	}
+}
@@ -0,0 +1,204 @@
+/*
+ *    OrderStatisticAUCTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class OrderStatisticAUCTest {
+
+	@Test
+	public void testEmpty() {
+		OrderStatisticAUC auc = new OrderStatisticAUC(true);
+		assertEquals(1.0, auc.getAUC(), 0.0);
+		auc.add(0.7, 0.7, true);
+		assertEquals(1.0, auc.getAUC(), 0.0);
+		auc.add(0.9, 0.9, false);
+		assertEquals(0.0, auc.getAUC(), 0.0);
+		auc.removeOldest();
+		assertEquals(1, auc.size());
+		assertEquals(0, auc.getNumPositives());
+		assertEquals(1, auc.getNumNegatives());
+	}
+
+	@Test
+	public void testSlidingWindow() {
+		Random random = new Random(11);
+		for (boolean isTieCorrected : new boolean[] {false, true}) {
+			OrderStatisticAUC auc = new OrderStatisticAUC(isTieCorrected);
+			List<double[]> window = new ArrayList<double[]>();
+			for (int i = 0; i < 2000; ++i) {
+				if (window.size() == 50) {
+					window.remove(0);
+					auc.removeOldest();
+				}
+				// Few distinct scores, so that there are many ties.
+				double[] example = {random.nextInt(5), random.nextInt(5), random.nextBoolean() ? 1 : 0};
+				window.add(example);
+				auc.add(example[0], example[1], example[2] == 1);
+				assertEquals(walk(window, isTieCorrected, false), auc.getAUC(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testPositiveFirstOnTies() {
+		Random random = new Random(13);
+		OrderStatisticAUC auc = new OrderStatisticAUC(true, true);
+		List<double[]> window = new ArrayList<double[]>();
+		for (int i = 0; i < 2000; ++i) {
+			if (window.size() == 50) {
+				window.remove(0);
+				auc.removeOldest();
+			}
+			double score = random.nextInt(5);
+			double[] example = {score, score, random.nextBoolean() ? 1 : 0};
+			window.add(example);
+			auc.add(example[0], example[1], example[2] == 1);
+			assertEquals(walk(window, true, true), auc.getAUC(), 0.0);
+		}
+	}
+
+	@Test
+	public void testPositiveFirstOnTiesByPairs() {
+		Random random = new Random(19);
+		for (int windowSize : new int[] {1, 2, 7, 50}) {
+			OrderStatisticAUC auc = new OrderStatisticAUC(true, true);
+			List<double[]> window = new ArrayList<double[]>();
+			for (int i = 0; i < 1000; ++i) {
+				if (window.size() == windowSize) {
+					window.remove(0);
+					auc.removeOldest();
+				}
+				// Few distinct scores and mostly one class, so that there are many ties.
+				double score = random.nextInt(4) / 3.0;
+				double[] example = {score, score, random.nextInt(4) == 0 ? 1 : 0};
+				window.add(example);
+				auc.add(example[0], example[1], example[2] == 1);
+				assertEquals(countPairs(window), auc.getAUC(), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testScoredAUC() {
+		Random random = new Random(17);
+		OrderStatisticAUC auc = new OrderStatisticAUC(true);
+		List<double[]> window = new ArrayList<double[]>();
+		for (int i = 0; i < 2000; ++i) {
+			if (window.size() == 50) {
+				window.remove(0);
+				auc.removeOldest();
+			}
+			double score = random.nextInt(5) / 4.0;
+			double[] example = {score, score, random.nextInt(3) == 0 ? 1 : 0};
+			window.add(example);
+			auc.add(example[0], example[1], example[2] == 1);
+			assertEquals(scoredWalk(window), auc.getScoredAUC(), 1e-12);
+		}
+	}
+
+	/*
+	 * The AUC as the TreeSet based estimators compute it: walk the examples by
+	 * descending score, oldest first among equal scores.
+	 */
+	private static double walk(List<double[]> window, boolean isTieCorrected, boolean isPositiveFirstOnTies) {
+		List<double[]> ranking = rank(window, isPositiveFirstOnTies);
+		double sum = 0, c = 0, prevc = 0, numPositives = 0, numNegatives = 0;
+		double lastPosScore = Double.MAX_VALUE;
+		for (double[] example : ranking) {
+			if (example[2] == 1) {
+				if (example[0] != lastPosScore) {
+					prevc = c;
+					lastPosScore = example[0];
+				}
+				c += 1;
+				numPositives++;
+			} else {
+				sum += isTieCorrected && example[1] == lastPosScore ? (c + prevc) / 2.0 : c;
+				numNegatives++;
+			}
+		}
+		return numPositives == 0 || numNegatives == 0 ? 1 : sum / (numPositives * numNegatives);
+	}
+
+	/*
+	 * The AUC by brute force over all pairs of a positive and a negative,
+	 * counting ties as half.
+	 */
+	private static double countPairs(List<double[]> window) {
+		double sum = 0, numPairs = 0;
+		for (double[] positive : window) {
+			for (double[] negative : window) {
+				if (positive[2] == 1 && negative[2] == 0) {
+					sum += positive[0] > negative[0] ? 1 : (positive[0] == negative[0] ? 0.5 : 0);
+					numPairs++;
+				}
+			}
+		}
+		return numPairs == 0 ? 1 : sum / numPairs;
+	}
+
+	private static double scoredWalk(List<double[]> window) {
+		double aoc = 0, auc = 0, r = 0, prevr = 0, c = 0, prevc = 0, numPositives = 0, numNegatives = 0;
+		double lastPosScore = Double.MAX_VALUE;
+		double lastNegScore = Double.MAX_VALUE;
+		for (double[] example : rank(window, false)) {
+			if (example[2] == 1) {
+				if (example[0] != lastPosScore) {
+					prevc = c;
+					lastPosScore = example[0];
+				}
+				c += example[0];
+				aoc += example[0] == lastNegScore ? (r + prevr) / 2.0 : r;
+				numPositives++;
+			} else {
+				if (example[0] != lastNegScore) {
+					prevr = r;
+					lastNegScore = example[0];
+				}
+				r += example[0];
+				auc += example[0] == lastPosScore ? (c + prevc) / 2.0 : c;
+				numNegatives++;
+			}
+		}
+		if (numPositives == 0 || numNegatives == 0) {
+			return 1;
+		}
+		return auc / (numPositives * numNegatives) - (numPositives * r - aoc) / (numPositives * numNegatives);
+	}
+
+	/*
+	 * Sorts by descending score; the sort is stable, so older examples stay first.
+	 */
+	private static List<double[]> rank(List<double[]> window, boolean isPositiveFirstOnTies) {
+		List<double[]> ranking = new ArrayList<double[]>(window);
+		ranking.sort((a, b) -> {
+			int order = Double.compare(b[0], a[0]);
+			return order == 0 && isPositiveFirstOnTies ? Double.compare(b[2], a[2]) : order;
+		});
+		return ranking;
+	}
+}
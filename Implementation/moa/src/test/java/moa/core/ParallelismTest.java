@@ -0,0 +1,142 @@
+/*
+ *    ParallelismTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ParallelismTest {
+
+	@Test
+	public void testResultsInTaskOrder() {
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 100; i++) {
+			final int value = i;
+			tasks.add(() -> value * value);
+		}
+		List<Integer> results = Parallelism.invokeAll(tasks, 4);
+		assertEquals(100, results.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i * i, (int) results.get(i));
+		}
+	}
+
+	@Test
+	public void testMaxJobs() {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (int i = 0; i < 50; i++) {
+			tasks.add(() -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(1);
+				running.decrementAndGet();
+				return null;
+			});
+		}
+		Parallelism.invokeAll(tasks, 2);
+		assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test
+	public void testNestedCalls() {
+		List<Callable<Integer>> outer = new ArrayList<Callable<Integer>>();
+		for (int i = 0; i < 8; i++) {
+			outer.add(() -> {
+				List<Callable<Integer>> inner = new ArrayList<Callable<Integer>>();
+				for (int j = 0; j < 8; j++) {
+					inner.add(() -> 1);
+				}
+				int sum = 0;
+				for (int one : Parallelism.invokeAll(inner, 8)) {
+					sum += one;
+				}
+				return sum;
+			});
+		}
+		for (int sum : Parallelism.invokeAll(outer, 8)) {
+			assertEquals(8, sum);
+		}
+	}
+
+	@Test
+	public void testFailure() {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		tasks.add(() -> null);
+		tasks.add(() -> {
+			throw new Exception("task failed");
+		});
+		try {
+			Parallelism.invokeAll(tasks, 2);
+			fail();
+		} catch (RuntimeException e) {
+			assertEquals("task failed", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testSetParallelismWhileRunning() throws Exception {
+		int parallelism = Parallelism.getParallelism();
+		AtomicInteger failures = new AtomicInteger();
+		Thread caller = new Thread(() -> {
+			for (int run = 0; run < 200; run++) {
+				List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+				for (int i = 0; i < 20; i++) {
+					final int value = i;
+					tasks.add(() -> value + 1);
+				}
+				try {
+					List<Integer> results = Parallelism.invokeAll(tasks, 4);
+					for (int i = 0; i < 20; i++) {
+						if (results.get(i) != i + 1) {
+							failures.incrementAndGet();
+						}
+					}
+				} catch (RuntimeException e) {
+					failures.incrementAndGet();
+				}
+			}
+		});
+		try {
+			caller.start();
+			for (int i = 0; caller.isAlive(); i++) {
+				Parallelism.setParallelism(2 + i % 2);
+			}
+			caller.join();
+		} finally {
+			Parallelism.setParallelism(parallelism);
+		}
+		assertEquals(0, failures.get());
+	}
+
+	@Test
+	public void testNumberOfJobs() {
+		assertEquals(Parallelism.getParallelism(), Parallelism.numberOfJobs(Parallelism.MAX_JOBS));
+		assertEquals(1, Parallelism.numberOfJobs(0));
+		assertEquals(1, Parallelism.numberOfJobs(1));
+		assertEquals(3, Parallelism.numberOfJobs(3));
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ *    NominalToBinaryEncoderTest.java
+ *    Copyright (C) 2025 University of Birmingham, Birmingham, United Kingdom
+ *    @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ *
+ *    This program is free software; you can redistribute it and/or modify
+ *    it under the terms of the GNU General Public License as published by
+ *    the Free Software Foundation; either version 3 of the License, or
+ *    (at your option) any later version.
+ *
+ *    This program is distributed in the hope that it will be useful,
+ *    but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *    GNU General Public License for more details.
+ *
+ *    You should have received a copy of the GNU General Public License
+ *    along with this program. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package moa.core.utils;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.DenseInstance;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+public class NominalToBinaryEncoderTest {
+	private static double EPS = 0.00000001;
+	private static Instances header;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		Attribute[] attributes = new Attribute[] {
+				new Attribute("num"),
+				new Attribute("colour", Arrays.asList("red", "green", "blue")),
+				new Attribute("flag", Arrays.asList("no", "yes")),
+				new Attribute("class", Arrays.asList("neg", "pos")) };
+		header = new Instances("test", attributes, 0);
+		header.setClassIndex(3);
+	}
+
+	@Test
+	public void testEncode() {
+		NominalToBinaryEncoder encoder = new NominalToBinaryEncoder(header);
+		assertEquals(5, encoder.getEncodedLength());
+
+		Instance inst = new DenseInstance(1d, new double[] {2.5, 2, 1, 1});
+		inst.setDataset(header);
+		assertArrayEquals(new double[] {2.5, 0, 0, 1, 1}, encoder.encode(inst), EPS);
+
+		double[] row = new double[encoder.getEncodedLength()];
+		inst = new DenseInstance(1d, new double[] {-1, 0, 0, 0});
+		inst.setDataset(header);
+		assertSame(row, encoder.encode(inst, row));
+		assertArrayEquals(new double[] {-1, 1, 0, 0, 0}, row, EPS);
+	}
+
+	@Test
+	public void testDecode() {
+		NominalToBinaryEncoder encoder = new NominalToBinaryEncoder(header);
+
+		Instance decoded = encoder.decode(new double[] {0.5, 0.2, 0.7, 0.1, 0.3}, 1);
+		assertSame(encoder.getHeader(), decoded.dataset());
+		assertEquals(0.5, decoded.value(0), EPS);
+		assertEquals(1, decoded.value(1), EPS);
+		assertEquals(0.3, decoded.value(2), EPS);
+		assertEquals(1, decoded.classValue(), EPS);
+
+		// Ties go to the first value.
+		decoded = encoder.decode(new double[] {0, 0.4, 0.4, 0.2, 0}, 0);
+		assertEquals(0, decoded.value(1), EPS);
+		assertEquals(0, decoded.classValue(), EPS);
+	}
+}
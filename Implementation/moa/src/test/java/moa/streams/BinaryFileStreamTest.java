@@ -0,0 +1,73 @@
+package moa.streams;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import moa.streams.generators.RandomRBFGeneratorDrift;
+import moa.tasks.NullMonitor;
+import moa.tasks.WriteStreamToBinaryFile;
+
+import org.junit.Test;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+/**
+ * Tests that BinaryFileStream replays what WriteStreamToBinaryFile wrote.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class BinaryFileStreamTest {
+
+    protected void assertReplayed(int numInstances, int chunkSize, boolean compress) throws Exception {
+        File file = File.createTempFile("BinaryFileStreamTest", ".bin");
+        try {
+            WriteStreamToBinaryFile task = new WriteStreamToBinaryFile();
+            task.streamOption.setValueViaCLIString("generators.RandomRBFGeneratorDrift -s 0.01");
+            task.binaryFileOption.setValue(file.getPath());
+            task.maxInstancesOption.setValue(numInstances);
+            task.chunkSizeOption.setValue(chunkSize);
+            if (compress) {
+                task.compressOption.set();
+            }
+            task.prepareForUse();
+            task.doTask(new NullMonitor(), null);
+
+            RandomRBFGeneratorDrift generator = new RandomRBFGeneratorDrift();
+            generator.speedChangeOption.setValue(0.01);
+            generator.prepareForUse();
+            BinaryFileStream stream = new BinaryFileStream(file.getPath());
+            assertEquals(generator.getHeader().toString(), stream.getHeader().toString());
+            assertEquals(generator.getHeader().classIndex(), stream.getHeader().classIndex());
+            int numRead = 0;
+            while (stream.hasMoreInstances()) {
+                Instance expected = generator.nextInstance().getData();
+                Instance actual = stream.nextInstance().getData();
+                assertEquals(expected.weight(), actual.weight(), 0.0);
+                for (int i = 0; i < expected.numAttributes(); i++) {
+                    assertEquals(Double.doubleToLongBits(expected.value(i)),
+                            Double.doubleToLongBits(actual.value(i)));
+                }
+                numRead++;
+            }
+            assertEquals(numInstances, numRead);
+
+            StringBuilder description = new StringBuilder();
+            stream.getDescription(description, 0);
+            assertEquals("Binary file stream " + file + ": " + generator.getHeader().getRelationName()
+                    + ", " + numInstances + " instances of " + generator.getHeader().numAttributes()
+                    + " attributes", description.toString());
+            assertEquals(0, stream.estimatedRemainingInstances());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        assertReplayed(1000, 64, false);
+        assertReplayed(1000, 64, true);
+        assertReplayed(1, 4096, false);
+        assertReplayed(0, 4096, true);
+    }
+}
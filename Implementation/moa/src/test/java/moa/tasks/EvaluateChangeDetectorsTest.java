@@ -0,0 +1,63 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Tests that EvaluateChangeDetectors replays a recording the same way every
+ * time and matches detections to drifts.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class EvaluateChangeDetectorsTest {
+
+    protected String[] evaluate(File file, boolean replayOnly, int numberOfJobs) {
+        EvaluateChangeDetectors task = new EvaluateChangeDetectors();
+        task.streamOption.setValueViaCLIString(
+                "ConceptDriftStream -s generators.AgrawalGenerator -d (generators.AgrawalGenerator -f 2) -p 2000 -w 1");
+        task.instanceLimitOption.setValue(4000);
+        task.observationFileOption.setValue(file.getPath());
+        if (replayOnly) {
+            task.replayOnlyOption.set();
+        }
+        task.driftPositionsOption.setValue("2000");
+        task.numberOfJobsOption.setValue(numberOfJobs);
+        task.prepareForUse();
+        return ((String) task.doTask(new NullMonitor(), null)).split("\n");
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        File file = File.createTempFile("EvaluateChangeDetectorsTest", ".obs");
+        try {
+            String[] recorded = evaluate(file, false, 1);
+            String[] replayed = evaluate(file, true, 4);
+            assertEquals(11, recorded.length);
+            assertEquals(recorded.length, replayed.length);
+            for (int i = 1; i < recorded.length; i++) {
+                // All but the time per instance.
+                assertEquals(recorded[i].substring(0, recorded[i].lastIndexOf(',')),
+                        replayed[i].substring(0, replayed[i].lastIndexOf(',')));
+                assertTrue(recorded[i].contains(",4000,"));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMatchingDetections() {
+        EvaluateChangeDetectors.DetectorResult result = new EvaluateChangeDetectors.DetectorResult(
+                "detector", new long[]{100, 200}, 50);
+        result.addDetection(10);
+        result.addDetection(120);
+        result.addDetection(130);
+        result.addDetection(260);
+        StringBuilder sb = new StringBuilder();
+        result.appendTo(sb, 2);
+        assertEquals("\"detector\",0,4,1,1,3,20.0,NaN", sb.toString());
+    }
+}
@@ -0,0 +1,50 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import moa.core.Parallelism;
+import moa.evaluation.preview.LearningCurve;
+
+/**
+ * Tests that EvaluatePrequentialCV gives the same learning curve of the folds
+ * whatever the number of jobs.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class EvaluatePrequentialCVTest {
+
+    protected LearningCurve evaluate(int validationMethodology, int numberOfJobs) {
+        EvaluatePrequentialCV task = new EvaluatePrequentialCV();
+        task.learnerOption.setValueViaCLIString("trees.HoeffdingTree -g 50");
+        task.streamOption.setValueViaCLIString(
+                "ConceptDriftStream -s generators.AgrawalGenerator -d (generators.AgrawalGenerator -f 2) -p 3000 -w 500");
+        task.instanceLimitOption.setValue(6000);
+        task.sampleFrequencyOption.setValue(1000);
+        task.numFoldsOption.setValue(5);
+        task.validationMethodologyOption.setChosenIndex(validationMethodology);
+        task.numberOfJobsOption.setValue(numberOfJobs);
+        // Not a divisor of the sample frequency, so some buffers are flushed early.
+        task.bufferSizeOption.setValue(64);
+        task.prepareForUse();
+        return (LearningCurve) task.doTask(new NullMonitor(), null);
+    }
+
+    @Test
+    public void testSameCurveOnJobs() {
+        int parallelism = Parallelism.getParallelism();
+        Parallelism.setParallelism(4);
+        try {
+            // Cross-, bootstrap and split validation.
+            for (int methodology = 0; methodology < 3; methodology++) {
+                LearningCurve single = evaluate(methodology, 1);
+                LearningCurve parallel = evaluate(methodology, 4);
+                assertEquals(6, single.numEntries());
+                EvaluatePrequentialMultipleLearnersTest.assertCurvesEqual(single, parallel);
+            }
+        } finally {
+            Parallelism.setParallelism(parallelism);
+        }
+    }
+}
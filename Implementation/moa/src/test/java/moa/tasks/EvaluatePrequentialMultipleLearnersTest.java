@@ -0,0 +1,68 @@
+package moa.tasks;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import moa.core.Parallelism;
+import moa.evaluation.preview.LearningCurve;
+
+/**
+ * Tests that EvaluatePrequentialMultipleLearners gives the same learning curve
+ * whatever the number of jobs.
+ *
+ * @author Chun Wai Chiu (michaelchiucw@gmail.com)
+ */
+public class EvaluatePrequentialMultipleLearnersTest {
+
+    protected LearningCurve evaluate(int numberOfJobs) {
+        EvaluatePrequentialMultipleLearners task = new EvaluatePrequentialMultipleLearners();
+        task.learnersOption.setValueViaCLIString(
+                "bayes.NaiveBayes,trees.HoeffdingTree,trees.HoeffdingTree -g 50,trees.HoeffdingAdaptiveTree");
+        task.streamOption.setValueViaCLIString(
+                "ConceptDriftStream -s generators.AgrawalGenerator -d (generators.AgrawalGenerator -f 2) -p 3000 -w 500");
+        task.instanceLimitOption.setValue(6000);
+        task.sampleFrequencyOption.setValue(1000);
+        task.numberOfJobsOption.setValue(numberOfJobs);
+        // Not a divisor of the sample frequency, so some buffers are flushed early.
+        task.bufferSizeOption.setValue(64);
+        task.prepareForUse();
+        return (LearningCurve) task.doTask(new NullMonitor(), null);
+    }
+
+    @Test
+    public void testSameCurveOnJobs() {
+        int parallelism = Parallelism.getParallelism();
+        Parallelism.setParallelism(4);
+        try {
+            LearningCurve single = evaluate(1);
+            LearningCurve parallel = evaluate(4);
+            assertEquals(6, single.numEntries());
+            assertCurvesEqual(single, parallel);
+        } finally {
+            Parallelism.setParallelism(parallelism);
+        }
+    }
+
+    /**
+     * Asserts that two learning curves have the same measurements, except for
+     * those depending on the time taken.
+     */
+    public static void assertCurvesEqual(LearningCurve expected, LearningCurve actual) {
+        assertEquals(expected.headerToString(), actual.headerToString());
+        assertEquals(expected.numEntries(), actual.numEntries());
+        int compared = 0;
+        for (int m = 0; m < expected.getMeasurementNameCount(); m++) {
+            String name = expected.getMeasurementName(m);
+            if (name.contains("time") || name.contains("RAM-Hours")) {
+                continue;
+            }
+            for (int e = 0; e < expected.numEntries(); e++) {
+                assertEquals(name + " at entry " + e, expected.getMeasurement(e, m),
+                        actual.getMeasurement(e, m), 0.0);
+            }
+            compared++;
+        }
+        assertTrue(compared > 1);
+    }
+}